@@ -60,10 +60,10 @@ public class LoadSingleComponent extends RMAbstractLoadComponent
                     .build();
 
         RecordData randomRecord = recordService.getRecord(recordId);
-        super.resumeTimer();
+        resumeOperationTimer();
         RecordsAPI recordsAPI = getRestAPIFactory().getRecordsAPI(userModel);
         recordsAPI.fileRecord(recordBodyFileModel, randomRecord.getId());
-        super.suspendTimer();
+        suspendOperationTimer(FILE_RECORD_OPERATION);
         // Increment counts
         fileFolderService.incrementFileCount(folder.getContext(), folderPath, 1);
 
@@ -90,9 +90,9 @@ public class LoadSingleComponent extends RMAbstractLoadComponent
     private String loadUnfiledRecordOperation(FolderData folder, UserModel userModel) throws Exception
     {
         //Create record
-        super.resumeTimer();
+        resumeOperationTimer();
         uploadElectronicRecordInUnfiledContext(folder, userModel, RECORD_NAME_IDENTIFIER, getDelay());
-        super.suspendTimer();
+        suspendOperationTimer(LOAD_UNFILED_RECORD_OPERATION);
         return "Created 1 record.";
     }
 
@@ -107,9 +107,9 @@ public class LoadSingleComponent extends RMAbstractLoadComponent
     private String loadRecordOperation(FolderData folder, UserModel userModel) throws Exception
     {
         // Create record
-        super.resumeTimer();
+        resumeOperationTimer();
         uploadElectronicRecordInRecordFolder(folder, userModel, RECORD_NAME_IDENTIFIER, getDelay());
-        super.suspendTimer();
+        suspendOperationTimer(LOAD_RECORD_OPERATION);
         return "Created 1 record.";
     }
 
@@ -124,9 +124,9 @@ public class LoadSingleComponent extends RMAbstractLoadComponent
     private String loadRootCategoryOperation(FolderData folder, UserModel userModel) throws Exception
     {
         // Create root category
-        super.resumeTimer();
+        resumeOperationTimer();
         createRootCategory(folder, userModel, ROOT_CATEGORY_NAME_IDENTIFIER, RECORD_CATEGORY_CONTEXT, getDelay());
-        super.suspendTimer();
+        suspendOperationTimer(LOAD_ROOT_CATEGORY_OPERATION);
         return "Created 1 root category.";
     }
 
@@ -141,9 +141,9 @@ public class LoadSingleComponent extends RMAbstractLoadComponent
     private String loadSubCategoryOperation(FolderData folder, UserModel userModel) throws Exception
     {
         // Create sub-category
-        super.resumeTimer();
+        resumeOperationTimer();
         createSubCategory(folder, userModel, CATEGORY_NAME_IDENTIFIER, RECORD_CATEGORY_CONTEXT, getDelay());
-        super.suspendTimer();
+        suspendOperationTimer(LOAD_SUB_CATEGORY_OPERATION);
         return "Created 1 sub-category";
     }
 
@@ -158,9 +158,9 @@ public class LoadSingleComponent extends RMAbstractLoadComponent
     private String loadRecordFolderOperation(FolderData folder, UserModel userModel) throws Exception
     {
         // Create record folder
-        super.resumeTimer();
+        resumeOperationTimer();
         createRecordFolder(folder, userModel, RECORD_FOLDER_NAME_IDENTIFIER, RECORD_FOLDER_CONTEXT, getDelay());
-        super.suspendTimer();
+        suspendOperationTimer(LOAD_RECORD_FOLDER_OPERATION);
         return "Created 1 record folder.";
     }
 
@@ -175,9 +175,9 @@ public class LoadSingleComponent extends RMAbstractLoadComponent
     private String loadRootUnfiledRecordFolderOperation(FolderData folder, UserModel userModel) throws Exception
     {
         //Create one root unfiled record folder
-        super.resumeTimer();
+        resumeOperationTimer();
         createRootUnfiledRecordFolder(folder, userModel, ROOT_UNFILED_RECORD_FOLDER_NAME_IDENTIFIER, folder.getContext(), getDelay());
-        super.suspendTimer();
+        suspendOperationTimer(LOAD_ROOT_UNFILED_RECORD_FOLDER_OPERATION);
         return "Created 1 root unfiled record folder.";
     }
 
@@ -192,9 +192,9 @@ public class LoadSingleComponent extends RMAbstractLoadComponent
     private String loadUnfiledRecordFolderOperation(FolderData folder, UserModel userModel) throws Exception
     {
         //Create one unfiled record folder
-        super.resumeTimer();
+        resumeOperationTimer();
         createUnfiledRecordFolder(folder, userModel, UNFILED_RECORD_FOLDER_NAME_IDENTIFIER, folder.getContext(), getDelay());
-        super.suspendTimer();
+        suspendOperationTimer(LOAD_UNFILED_RECORD_FOLDER_OPERATION);
         return "Created 1 unfiled record folder.";
     }
 
@@ -43,6 +43,7 @@ import java.util.concurrent.TimeUnit;
 import org.alfresco.bm.cm.FileFolderService;
 import org.alfresco.bm.cm.FolderData;
 import org.alfresco.bm.data.DataCreationState;
+import org.alfresco.bm.dataload.rm.latency.LatencyRecorder;
 import org.alfresco.bm.dataload.rm.role.RMRole;
 import org.alfresco.bm.dataload.rm.services.ExecutionState;
 import org.alfresco.bm.dataload.rm.services.ExtendedFileFolderService;
@@ -93,7 +94,9 @@ public abstract class RMBaseEventProcessor extends AbstractEventProcessor implem
     protected FileFolderService fileFolderService;
     protected ExtendedFileFolderService auxFileFolderService;
     protected TestFileService testFileService;
+    protected LatencyRecorder latencyRecorder;
     private ApplicationContext applicationContext;
+    private final ThreadLocal<Long> operationStartTime = new ThreadLocal<>();
 
     @Autowired
     protected UserDataService userDataService;
@@ -130,6 +133,38 @@ public abstract class RMBaseEventProcessor extends AbstractEventProcessor implem
         this.testFileService = testFileService;
     }
 
+    public void setLatencyRecorder(LatencyRecorder latencyRecorder)
+    {
+        this.latencyRecorder = latencyRecorder;
+    }
+
+    /**
+     * Resumes the event timer before calling the server for an RM operation, see {@link #suspendOperationTimer(String)}.
+     */
+    protected void resumeOperationTimer()
+    {
+        operationStartTime.set(System.nanoTime());
+        super.resumeTimer();
+    }
+
+    /**
+     * Suspends the event timer once the server has completed an RM operation and records the latency of the
+     * operation in the latency histograms.
+     *
+     * @param operation - the name of the operation
+     */
+    protected void suspendOperationTimer(String operation)
+    {
+        long endTime = System.nanoTime();
+        super.suspendTimer();
+        Long startTime = operationStartTime.get();
+        operationStartTime.remove();
+        if (latencyRecorder != null && startTime != null)
+        {
+            latencyRecorder.recordLatency(operation, TimeUnit.NANOSECONDS.toMicros(endTime - startTime));
+        }
+    }
+
     /**
      * Helper method for creating one root record category with the name starting with provided nameIdentifier and a random generated string.
      *
@@ -48,6 +48,17 @@ public interface RMEventConstants
     String LOAD_RECORD_FOLDER_OPERATION = "loadRecordFolder";
     String LOAD_ROOT_UNFILED_RECORD_FOLDER_OPERATION = "loadRootUnfiledRecordFolder";
     String LOAD_UNFILED_RECORD_FOLDER_OPERATION = "loadUnfiledRecordFolder";
+    String CREATE_HOLD_OPERATION = "createHold";
+    String ADD_TO_HOLD_OPERATION = "addToHold";
+    String RELEASE_HOLD_OPERATION = "releaseHold";
+    String ATTACH_DISPOSITION_SCHEDULE_OPERATION = "attachDispositionSchedule";
+    String CREATE_DISPOSITION_FOLDER_OPERATION = "createDispositionFolder";
+    String COMPLETE_EVENT_OPERATION = "completeEvent";
+    String CUT_OFF_OPERATION = "cutoff";
+    String TRANSFER_OPERATION = "transfer";
+    String TRANSFER_COMPLETE_OPERATION = "transferComplete";
+    String DESTROY_OPERATION = "destroy";
+    String DECLARE_IN_PLACE_RECORD_OPERATION = "declareInPlaceRecord";
 
     String RECORD_FOLDER_NAME_IDENTIFIER = "bmFolder";
     String CATEGORY_NAME_IDENTIFIER = "bmCateg";
@@ -55,11 +66,21 @@ public interface RMEventConstants
     String ROOT_UNFILED_RECORD_FOLDER_NAME_IDENTIFIER = "UnfiledRoot";
     String UNFILED_RECORD_FOLDER_NAME_IDENTIFIER = "UnfiledFolder";
     String RECORD_NAME_IDENTIFIER = "Record";
+    String HOLD_NAME_IDENTIFIER = "bmHold";
+    String DISPOSITION_FOLDER_NAME_IDENTIFIER = "bmDispFolder";
 
     String FIELD_ROOT_CATEGORIES_TO_CREATE = "rootCategoriesToCreate";
     String FIELD_CATEGORIES_TO_CREATE = "categoriesToCreate";
     String FIELD_FOLDERS_TO_CREATE = "foldersToCreate";
 
+    String FIELD_HOLD_NAME = "holdName";
+    String FIELD_HOLDS_CONTAINER_ID = "holdsContainerId";
+    String FIELD_RECORD_IDS = "recordIds";
+    String FIELD_RECORD_FOLDER_IDS = "recordFolderIds";
+
+    String FIELD_DISPOSITION_ITEM = "dispositionItem";
+    String FIELD_DISPOSITION_STEPS = "dispositionSteps";
+
     int FILE_PLAN_LEVEL = 3;
     int UNFILED_RECORD_CONTAINER_LEVEL = 4;
     String UNFILED_CONTEXT = "unfiled";
@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2005-2017 Alfresco Software Limited.
+ *
+ * This file is part of Alfresco
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.alfresco.bm.dataload.rm.disposition;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+import org.springframework.beans.factory.DisposableBean;
+
+import com.mongodb.BasicDBObjectBuilder;
+import com.mongodb.DBObject;
+import com.mongodb.util.JSON;
+
+/**
+ * Thin HTTP client for the disposition operations used by the disposition scenario.
+ * <p>
+ * The GS REST API has no disposition endpoints, so record folders are created with the core nodes API and retention
+ * schedules and disposition actions go through the same RM web scripts Share uses.
+ *
+ * @since 2.7
+ */
+public class DispositionRestClient implements DisposableBean
+{
+    public static final String RECORD_FOLDER_TYPE = "rma:recordFolder";
+    public static final String CREATE_DISPOSITION_SCHEDULE_ACTION = "createDispositionSchedule";
+    public static final String NODE_REF_PREFIX = "workspace://SpacesStore/";
+
+    private static final String NODES_PATH = "/-default-/public/alfresco/versions/1/nodes/";
+    private static final String NODE_PATH = "/api/node/workspace/SpacesStore/";
+    private static final String ACTION_DEFINITIONS_PATH = "/dispositionschedule/dispositionactiondefinitions";
+    private static final String NEXT_DISPOSITION_ACTION_PATH = "/nextdispositionaction";
+    private static final String ACTIONS_PATH = "/api/rma/actions/ExecutionQueue";
+
+    private final String nodesUrl;
+    private final String nodeUrl;
+    private final String actionsUrl;
+    private final CloseableHttpClient httpClient;
+
+    /**
+     * @param alfrescoUrl - the Alfresco server URL, e.g. http://localhost:8080
+     * @param context - the Alfresco web application context
+     * @param apiServletName - the name of the public API servlet
+     * @param serviceServletName - the name of the web script servlet
+     * @param maxConnections - the maximum number of concurrent connections to the server
+     */
+    public DispositionRestClient(String alfrescoUrl, String context, String apiServletName, String serviceServletName, int maxConnections)
+    {
+        String baseUrl = alfrescoUrl + "/" + context + "/";
+        this.nodesUrl = baseUrl + apiServletName + NODES_PATH;
+        this.nodeUrl = baseUrl + serviceServletName + NODE_PATH;
+        this.actionsUrl = baseUrl + serviceServletName + ACTIONS_PATH;
+        this.httpClient = HttpClients.custom()
+                    .setMaxConnTotal(maxConnections)
+                    .setMaxConnPerRoute(maxConnections)
+                    .build();
+    }
+
+    /**
+     * Creates a retention schedule on a record category.
+     *
+     * @param categoryId - the id of the record category
+     * @param username - the user to authenticate as
+     * @param password - the password of the user
+     * @throws IOException
+     */
+    public void createDispositionSchedule(String categoryId, String username, String password) throws IOException
+    {
+        executeAction(CREATE_DISPOSITION_SCHEDULE_ACTION, categoryId, null, username, password);
+    }
+
+    /**
+     * Adds a step to the retention schedule of a record category.
+     *
+     * @param categoryId - the id of the record category
+     * @param actionDefinition - the disposition action definition, as expected by the RM web script
+     * @param username - the user to authenticate as
+     * @param password - the password of the user
+     * @throws IOException
+     */
+    public void addDispositionActionDefinition(String categoryId, DBObject actionDefinition, String username, String password) throws IOException
+    {
+        HttpPost post = new HttpPost(nodeUrl + categoryId + ACTION_DEFINITIONS_PATH);
+        post.setEntity(new StringEntity(JSON.serialize(actionDefinition), ContentType.APPLICATION_JSON));
+        execute(post, username, password, HttpStatus.SC_OK);
+    }
+
+    /**
+     * Creates a record folder in a record category.
+     *
+     * @param categoryId - the id of the record category
+     * @param name - the name of the record folder
+     * @param username - the user to authenticate as
+     * @param password - the password of the user
+     * @return the id of the created record folder
+     * @throws IOException
+     */
+    public String createRecordFolder(String categoryId, String name, String username, String password) throws IOException
+    {
+        DBObject body = BasicDBObjectBuilder.start()
+                    .add("name", name)
+                    .add("nodeType", RECORD_FOLDER_TYPE)
+                    .get();
+        HttpPost post = new HttpPost(nodesUrl + categoryId + "/children");
+        post.setEntity(new StringEntity(JSON.serialize(body), ContentType.APPLICATION_JSON));
+
+        DBObject response = (DBObject) JSON.parse(execute(post, username, password, HttpStatus.SC_CREATED));
+        DBObject entry = (DBObject) response.get("entry");
+        if (entry == null || entry.get("id") == null)
+        {
+            throw new IllegalStateException("Unexpected response: " + response);
+        }
+        return (String) entry.get("id");
+    }
+
+    /**
+     * Gets the next disposition action of a disposable item.
+     *
+     * @param nodeId - the id of the record folder or record
+     * @param username - the user to authenticate as
+     * @param password - the password of the user
+     * @return the next disposition action, with the <tt>notFound</tt> flag set if the item has none
+     * @throws IOException
+     */
+    public DBObject getNextDispositionAction(String nodeId, String username, String password) throws IOException
+    {
+        HttpGet get = new HttpGet(nodeUrl + nodeId + NEXT_DISPOSITION_ACTION_PATH);
+        DBObject response = (DBObject) JSON.parse(execute(get, username, password, HttpStatus.SC_OK));
+        return (DBObject) response.get("data");
+    }
+
+    /**
+     * Executes a records management action on a node.
+     *
+     * @param actionName - the name of the action
+     * @param nodeId - the id of the node to execute the action on
+     * @param params - the action parameters, may be <tt>null</tt>
+     * @param username - the user to authenticate as
+     * @param password - the password of the user
+     * @return the result of the action or <tt>null</tt> if the action has no result
+     * @throws IOException
+     */
+    public String executeAction(String actionName, String nodeId, DBObject params, String username, String password) throws IOException
+    {
+        BasicDBObjectBuilder body = BasicDBObjectBuilder.start()
+                    .add("name", actionName)
+                    .add("nodeRef", NODE_REF_PREFIX + nodeId);
+        if (params != null)
+        {
+            body.add("params", params);
+        }
+        HttpPost post = new HttpPost(actionsUrl);
+        post.setEntity(new StringEntity(JSON.serialize(body.get()), ContentType.APPLICATION_JSON));
+
+        DBObject response = (DBObject) JSON.parse(execute(post, username, password, HttpStatus.SC_OK));
+        return (String) response.get("result");
+    }
+
+    /**
+     * Helper method that executes the request and checks the response status.
+     *
+     * @return the response body
+     */
+    private String execute(HttpRequestBase request, String username, String password, int expectedStatus) throws IOException
+    {
+        String credentials = username + ":" + password;
+        request.setHeader(HttpHeaders.AUTHORIZATION,
+                    "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+        try (CloseableHttpResponse response = httpClient.execute(request))
+        {
+            int status = response.getStatusLine().getStatusCode();
+            String body = response.getEntity() == null ? null : EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+            if (status != expectedStatus)
+            {
+                throw new IllegalStateException(request.getMethod() + " " + request.getURI() + " failed with status " + status + ": " + body);
+            }
+            return body;
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception
+    {
+        httpClient.close();
+    }
+}
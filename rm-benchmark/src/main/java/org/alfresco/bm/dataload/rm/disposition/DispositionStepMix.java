@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2005-2017 Alfresco Software Limited.
+ *
+ * This file is part of Alfresco
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.alfresco.bm.dataload.rm.disposition;
+
+import static org.alfresco.bm.dataload.RMEventConstants.ATTACH_DISPOSITION_SCHEDULE_OPERATION;
+import static org.alfresco.bm.dataload.RMEventConstants.COMPLETE_EVENT_OPERATION;
+import static org.alfresco.bm.dataload.RMEventConstants.CREATE_DISPOSITION_FOLDER_OPERATION;
+import static org.alfresco.bm.dataload.RMEventConstants.CUT_OFF_OPERATION;
+import static org.alfresco.bm.dataload.RMEventConstants.DESTROY_OPERATION;
+import static org.alfresco.bm.dataload.RMEventConstants.TRANSFER_COMPLETE_OPERATION;
+import static org.alfresco.bm.dataload.RMEventConstants.TRANSFER_OPERATION;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The weighted mix of retention schedules attached to record categories by the disposition scenario.
+ * <p>
+ * The mix is written as schedules separated by <tt>;</tt>, each schedule being a <tt>|</tt> separated list of
+ * steps followed by its weight, e.g. <tt>cutoff|transfer|destroy:2;cutoff@case_closed|destroy:1</tt>.
+ * A step is one of <tt>cutoff</tt>, <tt>transfer</tt> or <tt>destroy</tt>, optionally followed by <tt>@</tt> and
+ * the name of the disposition event that makes it eligible. Steps without an event are eligible immediately.
+ *
+ * @since 2.7
+ */
+public class DispositionStepMix
+{
+    public static final String SCHEDULE_SEPARATOR = ";";
+    public static final String STEP_SEPARATOR = "|";
+    public static final String WEIGHT_SEPARATOR = ":";
+    public static final String EVENT_SEPARATOR = "@";
+    private static final List<String> DISPOSITION_ACTIONS = Arrays.asList(CUT_OFF_OPERATION, TRANSFER_OPERATION, DESTROY_OPERATION);
+
+    // the schedules, each one repeated as many times as its weight
+    private final List<List<String>> weightedSchedules = new ArrayList<>();
+    private final Set<String> folderSteps = new LinkedHashSet<>();
+
+    /**
+     * @param mix - the mix of retention schedules
+     * @throws IllegalArgumentException if the mix is not valid
+     */
+    public DispositionStepMix(String mix)
+    {
+        if (mix == null || mix.trim().isEmpty())
+        {
+            throw new IllegalArgumentException("The disposition step mix is empty.");
+        }
+        folderSteps.add(ATTACH_DISPOSITION_SCHEDULE_OPERATION);
+        for (String scheduleToken : mix.split(SCHEDULE_SEPARATOR))
+        {
+            if (scheduleToken.trim().isEmpty())
+            {
+                continue;
+            }
+            String[] parts = scheduleToken.trim().split(WEIGHT_SEPARATOR);
+            if (parts.length > 2)
+            {
+                throw new IllegalArgumentException("Invalid retention schedule '" + scheduleToken + "' in " + mix);
+            }
+            List<String> schedule = parseSchedule(parts[0], mix);
+            int weight = parts.length == 2 ? parseWeight(parts[1], mix) : 1;
+            for (int i = 0; i < weight; i++)
+            {
+                weightedSchedules.add(schedule);
+            }
+            folderSteps.addAll(getFolderSteps(schedule));
+        }
+        if (weightedSchedules.isEmpty())
+        {
+            throw new IllegalArgumentException("The disposition step mix has no retention schedule: " + mix);
+        }
+    }
+
+    /**
+     * Gets the schedule for the n-th record category, cycling through the schedules in proportion to their weights.
+     *
+     * @param index - the index of the record category
+     * @return the steps of the retention schedule
+     */
+    public List<String> getSchedule(int index)
+    {
+        return weightedSchedules.get(Math.abs(index % weightedSchedules.size()));
+    }
+
+    /**
+     * @return all the steps the items of this mix can wait for, including the schedule attachment
+     */
+    public Set<String> getAllSteps()
+    {
+        return Collections.unmodifiableSet(folderSteps);
+    }
+
+    /**
+     * Gets the operations that take a new record folder through a retention schedule: the creation of the folder,
+     * the completion of the disposition events, the disposition actions and the completion of the transfers.
+     *
+     * @param schedule - the steps of the retention schedule
+     * @return the operations executed on the record folder, in order
+     */
+    public static List<String> getFolderSteps(List<String> schedule)
+    {
+        List<String> folderSteps = new ArrayList<>(schedule.size() * 2 + 1);
+        folderSteps.add(CREATE_DISPOSITION_FOLDER_OPERATION);
+        for (String step : schedule)
+        {
+            String eventName = getEventName(step);
+            if (eventName != null)
+            {
+                folderSteps.add(COMPLETE_EVENT_OPERATION + EVENT_SEPARATOR + eventName);
+            }
+            String action = getOperation(step);
+            folderSteps.add(action);
+            if (TRANSFER_OPERATION.equals(action))
+            {
+                folderSteps.add(TRANSFER_COMPLETE_OPERATION);
+            }
+        }
+        return folderSteps;
+    }
+
+    /**
+     * @param step - a schedule or folder step
+     * @return the operation of the step, without the event name
+     */
+    public static String getOperation(String step)
+    {
+        int eventIndex = step.indexOf(EVENT_SEPARATOR);
+        return eventIndex < 0 ? step : step.substring(0, eventIndex);
+    }
+
+    /**
+     * @param step - a schedule or folder step
+     * @return the name of the disposition event of the step or <tt>null</tt> if the step has no event
+     */
+    public static String getEventName(String step)
+    {
+        int eventIndex = step.indexOf(EVENT_SEPARATOR);
+        return eventIndex < 0 ? null : step.substring(eventIndex + 1);
+    }
+
+    /**
+     * Helper method that parses and validates the steps of one retention schedule.
+     */
+    private List<String> parseSchedule(String scheduleToken, String mix)
+    {
+        List<String> schedule = new ArrayList<>();
+        for (String stepToken : scheduleToken.split("\\" + STEP_SEPARATOR))
+        {
+            String step = stepToken.trim();
+            String eventName = getEventName(step);
+            if (!DISPOSITION_ACTIONS.contains(getOperation(step)) || (eventName != null && eventName.isEmpty()))
+            {
+                throw new IllegalArgumentException("Invalid disposition step '" + step + "' in " + mix);
+            }
+            if (!schedule.isEmpty() && DESTROY_OPERATION.equals(getOperation(schedule.get(schedule.size() - 1))))
+            {
+                throw new IllegalArgumentException("No step can follow the destroy step: " + mix);
+            }
+            schedule.add(step);
+        }
+        return Collections.unmodifiableList(schedule);
+    }
+
+    /**
+     * Helper method that parses the weight of a retention schedule.
+     */
+    private int parseWeight(String weightToken, String mix)
+    {
+        try
+        {
+            int weight = Integer.parseInt(weightToken.trim());
+            if (weight < 0)
+            {
+                throw new IllegalArgumentException("Negative weight in disposition step mix: " + mix);
+            }
+            return weight;
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IllegalArgumentException("Invalid weight '" + weightToken + "' in " + mix, e);
+        }
+    }
+}
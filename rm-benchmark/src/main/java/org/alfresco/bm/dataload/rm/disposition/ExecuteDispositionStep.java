@@ -0,0 +1,410 @@
+/*
+ * Copyright (C) 2005-2017 Alfresco Software Limited.
+ *
+ * This file is part of Alfresco
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.alfresco.bm.dataload.rm.disposition;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.alfresco.bm.dataload.RMBaseEventProcessor;
+import org.alfresco.bm.dataload.rm.services.DispositionData;
+import org.alfresco.bm.dataload.rm.services.DispositionService;
+import org.alfresco.bm.dataload.rm.services.ExecutionState;
+import org.alfresco.bm.event.Event;
+import org.alfresco.bm.event.EventResult;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObjectBuilder;
+import com.mongodb.DBObject;
+
+/**
+ * Timed event that executes one step of the disposition scenario: attaches a retention schedule to a record category,
+ * creates a record folder under a scheduled category, completes a disposition event, cuts off, transfers or destroys
+ * a record folder or completes a transfer. Only the server calls that make the step are timed, so the event results
+ * give the latency of each disposition step.
+ * <p>
+ * Before a disposition action is executed, the next disposition action of the record folder is checked. When the
+ * action is not yet the next one or its events are not complete, the record folder is queued again, up to
+ * {@link #setMaxNotReadyAttempts(int) a number of times}.
+ *
+ * @since 2.7
+ */
+public class ExecuteDispositionStep extends RMBaseEventProcessor
+{
+    public static final String DEFAULT_TRANSFER_LOCATION = "Benchmark transfer location";
+    public static final String IMMEDIATELY_PERIOD = "immediately|0";
+    public static final int DEFAULT_MAX_NOT_READY_ATTEMPTS = 30;
+    public static final long DEFAULT_DELAY = 0L;
+
+    private String eventNameComplete;
+    private String transferLocation = DEFAULT_TRANSFER_LOCATION;
+    private int maxNotReadyAttempts = DEFAULT_MAX_NOT_READY_ATTEMPTS;
+    private long delay = DEFAULT_DELAY;
+
+    @Autowired
+    private DispositionService dispositionService;
+
+    @Autowired
+    private DispositionRestClient dispositionRestClient;
+
+    public void setEventNameComplete(String eventNameComplete)
+    {
+        this.eventNameComplete = eventNameComplete;
+    }
+
+    public String getEventNameComplete()
+    {
+        return eventNameComplete;
+    }
+
+    public void setTransferLocation(String transferLocation)
+    {
+        this.transferLocation = transferLocation;
+    }
+
+    /**
+     * @param maxNotReadyAttempts the number of times a record folder is queued again before it is marked as failed
+     *        because its next disposition action doesn't become eligible
+     */
+    public void setMaxNotReadyAttempts(int maxNotReadyAttempts)
+    {
+        this.maxNotReadyAttempts = maxNotReadyAttempts;
+    }
+
+    public void setDelay(long delay)
+    {
+        this.delay = delay;
+    }
+
+    @Override
+    protected EventResult processEvent(Event event) throws Exception
+    {
+        super.suspendTimer();
+
+        if (event == null)
+        {
+            throw new IllegalStateException("This processor requires an event.");
+        }
+
+        DBObject dataObj = (DBObject) event.getData();
+        if (dataObj == null)
+        {
+            throw new IllegalStateException("This processor requires data with field " + FIELD_DISPOSITION_ITEM);
+        }
+
+        String itemName = (String) dataObj.get(FIELD_DISPOSITION_ITEM);
+        String step = (String) dataObj.get(FIELD_LOAD_OPERATION);
+        String username = (String) dataObj.get(FIELD_USERNAME);
+        String password = (String) dataObj.get(FIELD_PASSWORD);
+        if (isBlank(itemName) || isBlank(step) || isBlank(username) || isBlank(password))
+        {
+            return new EventResult("Request data not complete for disposition step: " + dataObj, false);
+        }
+
+        DispositionData item = dispositionService.getItem(itemName);
+        if (item == null)
+        {
+            throw new IllegalStateException("No such disposition item recorded: " + dataObj);
+        }
+        if (!step.equals(item.getNextStep()))
+        {
+            return new EventResult("Step " + step + " is not the next step of " + item, false);
+        }
+
+        String operation = DispositionStepMix.getOperation(step);
+        try
+        {
+            String message;
+            switch (operation)
+            {
+                case ATTACH_DISPOSITION_SCHEDULE_OPERATION:
+                    message = attachScheduleOperation(item, dataObj, username, password);
+                    break;
+                case CREATE_DISPOSITION_FOLDER_OPERATION:
+                    message = createFolderOperation(item, username, password);
+                    break;
+                case COMPLETE_EVENT_OPERATION:
+                case CUT_OFF_OPERATION:
+                case TRANSFER_OPERATION:
+                case DESTROY_OPERATION:
+                    if (!isReady(item, step, username, password))
+                    {
+                        return requeue(item, step, username);
+                    }
+                    message = dispositionActionOperation(item, step, username, password);
+                    break;
+                case TRANSFER_COMPLETE_OPERATION:
+                    message = completeTransferOperation(item, username, password);
+                    break;
+                default:
+                    throw new IllegalStateException("Unsuported operation: " + operation);
+            }
+            TimeUnit.MILLISECONDS.sleep(delay);
+
+            // Move on to the next step
+            item.setStepIndex(item.getStepIndex() + 1);
+            item.setAttempts(0);
+            item.setExecutionState(item.getNextStep() == null ? ExecutionState.DISPOSITION_COMPLETE : ExecutionState.DISPOSITION_STEP_PENDING);
+            dispositionService.updateItem(item);
+
+            DBObject eventData = BasicDBObjectBuilder.start()
+                        .add(FIELD_DISPOSITION_ITEM, itemName)
+                        .add(FIELD_LOAD_OPERATION, operation)
+                        .get();
+            DBObject resultData = BasicDBObjectBuilder.start()
+                        .add("msg", message)
+                        .add(FIELD_DISPOSITION_ITEM, itemName)
+                        .add("step", step)
+                        .add("operation", operation)
+                        .add("nodeId", item.getNodeId())
+                        .add("username", username)
+                        .get();
+            return new EventResult(resultData, new Event(getEventNameComplete(), eventData));
+        }
+        catch (Exception e)
+        {
+            item.setExecutionState(ExecutionState.FAILED);
+            dispositionService.updateItem(item);
+
+            String error = e.getMessage();
+            String stack = ExceptionUtils.getStackTrace(e);
+            DBObject data = BasicDBObjectBuilder.start()
+                        .append("error", error)
+                        .append(FIELD_DISPOSITION_ITEM, itemName)
+                        .append("step", step)
+                        .append("operation", operation)
+                        .append("nodeId", item.getNodeId())
+                        .append("username", username)
+                        .append("stack", stack)
+                        .get();
+            return new EventResult(data, false);
+        }
+    }
+
+    /**
+     * Helper method to attach the retention schedule to the record category and record the record folders that go
+     * through it.
+     *
+     * @param item - the record category
+     * @param dataObj - the event data, with the steps of the schedule and the number of record folders to create
+     * @param username - the user that creates the schedule
+     * @param password - the password of the user
+     * @return String - the operation message
+     * @throws Exception
+     */
+    @SuppressWarnings("unchecked")
+    private String attachScheduleOperation(DispositionData item, DBObject dataObj, String username, String password) throws Exception
+    {
+        List<String> schedule = (List<String>) dataObj.get(FIELD_DISPOSITION_STEPS);
+        Number foldersToCreate = (Number) dataObj.get(FIELD_FOLDERS_TO_CREATE);
+        if (schedule == null || schedule.isEmpty() || foldersToCreate == null)
+        {
+            throw new IllegalStateException("Attaching a retention schedule requires fields " + FIELD_DISPOSITION_STEPS
+                        + " and " + FIELD_FOLDERS_TO_CREATE);
+        }
+
+        resumeOperationTimer();
+        dispositionRestClient.createDispositionSchedule(item.getNodeId(), username, password);
+        for (String step : schedule)
+        {
+            dispositionRestClient.addDispositionActionDefinition(item.getNodeId(), getActionDefinition(step), username, password);
+        }
+        suspendOperationTimer(ATTACH_DISPOSITION_SCHEDULE_OPERATION);
+
+        List<String> folderSteps = DispositionStepMix.getFolderSteps(schedule);
+        for (int i = 0; i < foldersToCreate.intValue(); i++)
+        {
+            String folderName = DISPOSITION_FOLDER_NAME_IDENTIFIER + UUID.randomUUID().toString();
+            dispositionService.createItem(new DispositionData(folderName, null, item.getNodeId(), folderSteps,
+                        ExecutionState.DISPOSITION_STEP_PENDING));
+        }
+        return "Attached retention schedule " + schedule + " to record category " + item.getNodeId() + " and queued "
+                    + foldersToCreate + " record folders.";
+    }
+
+    /**
+     * Helper method to create the record folder in its scheduled record category.
+     *
+     * @param item - the record folder to create
+     * @param username - the user that creates the record folder
+     * @param password - the password of the user
+     * @return String - the operation message
+     * @throws Exception
+     */
+    private String createFolderOperation(DispositionData item, String username, String password) throws Exception
+    {
+        resumeOperationTimer();
+        String folderId = dispositionRestClient.createRecordFolder(item.getParentId(), item.getName(), username, password);
+        suspendOperationTimer(CREATE_DISPOSITION_FOLDER_OPERATION);
+
+        item.setNodeId(folderId);
+        return "Created record folder " + item.getName() + " in record category " + item.getParentId() + ".";
+    }
+
+    /**
+     * Helper method to complete a disposition event or execute a disposition action on the record folder.
+     *
+     * @param item - the record folder
+     * @param step - the step to execute
+     * @param username - the user that executes the step
+     * @param password - the password of the user
+     * @return String - the operation message
+     * @throws Exception
+     */
+    private String dispositionActionOperation(DispositionData item, String step, String username, String password) throws Exception
+    {
+        String operation = DispositionStepMix.getOperation(step);
+        DBObject params = null;
+        if (COMPLETE_EVENT_OPERATION.equals(operation))
+        {
+            SimpleDateFormat iso8601 = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+            iso8601.setTimeZone(TimeZone.getTimeZone("UTC"));
+            params = BasicDBObjectBuilder.start()
+                        .add("eventName", DispositionStepMix.getEventName(step))
+                        .add("eventCompletedBy", username)
+                        .push("eventCompletedAt")
+                            .add("iso8601", iso8601.format(new Date()))
+                        .pop()
+                        .get();
+        }
+
+        resumeOperationTimer();
+        String result = dispositionRestClient.executeAction(operation, item.getNodeId(), params, username, password);
+        suspendOperationTimer(operation);
+
+        if (TRANSFER_OPERATION.equals(operation))
+        {
+            if (isBlank(result))
+            {
+                throw new IllegalStateException("The transfer of record folder " + item.getNodeId() + " returned no transfer.");
+            }
+            item.setTransferId(result.substring(result.lastIndexOf('/') + 1));
+        }
+        return "Executed " + step + " on record folder " + item.getNodeId() + ".";
+    }
+
+    /**
+     * Helper method to complete the transfer the record folder was added to.
+     *
+     * @param item - the transferred record folder
+     * @param username - the user that completes the transfer
+     * @param password - the password of the user
+     * @return String - the operation message
+     * @throws Exception
+     */
+    private String completeTransferOperation(DispositionData item, String username, String password) throws Exception
+    {
+        if (isBlank(item.getTransferId()))
+        {
+            throw new IllegalStateException("Record folder " + item.getNodeId() + " has not been transferred.");
+        }
+
+        resumeOperationTimer();
+        dispositionRestClient.executeAction(TRANSFER_COMPLETE_OPERATION, item.getTransferId(), null, username, password);
+        suspendOperationTimer(TRANSFER_COMPLETE_OPERATION);
+
+        return "Completed transfer " + item.getTransferId() + " of record folder " + item.getNodeId() + ".";
+    }
+
+    /**
+     * Helper method that checks whether the record folder can go through the step: the step must be the next
+     * disposition action and, for disposition actions, its events must be complete.
+     */
+    private boolean isReady(DispositionData item, String step, String username, String password) throws Exception
+    {
+        DBObject nextAction = dispositionRestClient.getNextDispositionAction(item.getNodeId(), username, password);
+        if (nextAction == null || Boolean.TRUE.equals(nextAction.get("notFound")))
+        {
+            return false;
+        }
+
+        String operation = DispositionStepMix.getOperation(step);
+        if (COMPLETE_EVENT_OPERATION.equals(operation))
+        {
+            return true;
+        }
+        if (!operation.equals(nextAction.get("name")))
+        {
+            return false;
+        }
+        List<?> events = (List<?>) nextAction.get("events");
+        return events == null || events.isEmpty() || Boolean.TRUE.equals(nextAction.get("eventsEligible"));
+    }
+
+    /**
+     * Helper method that queues the record folder again for the same step, or marks it as failed once it has been
+     * queued {@link #maxNotReadyAttempts} times.  Waiting for a step to become eligible is part of the normal flow,
+     * so only the folder being marked as failed is reported as a failed event.
+     */
+    private EventResult requeue(DispositionData item, String step, String username)
+    {
+        item.setAttempts(item.getAttempts() + 1);
+        boolean failed = item.getAttempts() >= maxNotReadyAttempts;
+        item.setExecutionState(failed ? ExecutionState.FAILED : ExecutionState.DISPOSITION_STEP_PENDING);
+        dispositionService.updateItem(item);
+
+        DBObject data = BasicDBObjectBuilder.start()
+                    .append("msg", failed ? "Step not eligible after " + item.getAttempts() + " attempts." : "Step not eligible yet.")
+                    .append(FIELD_DISPOSITION_ITEM, item.getName())
+                    .append("step", step)
+                    .append("nodeId", item.getNodeId())
+                    .append("attempts", item.getAttempts())
+                    .append("notReady", true)
+                    .append("username", username)
+                    .get();
+        return new EventResult(data, !failed);
+    }
+
+    /**
+     * Helper method that builds the disposition action definition of a schedule step.
+     */
+    private DBObject getActionDefinition(String step)
+    {
+        String action = DispositionStepMix.getOperation(step);
+        String eventName = DispositionStepMix.getEventName(step);
+        BasicDBObjectBuilder definition = BasicDBObjectBuilder.start()
+                    .add("name", action)
+                    .add("description", "Benchmark " + action)
+                    .add("eligibleOnFirstCompleteEvent", true);
+        if (eventName == null)
+        {
+            definition.add("period", IMMEDIATELY_PERIOD);
+        }
+        else
+        {
+            BasicDBList events = new BasicDBList();
+            events.add(eventName);
+            definition.add("events", events);
+        }
+        if (TRANSFER_OPERATION.equals(action))
+        {
+            definition.add("location", transferLocation);
+        }
+        return definition.get();
+    }
+}
@@ -0,0 +1,359 @@
+/*
+ * Copyright (C) 2005-2017 Alfresco Software Limited.
+ *
+ * This file is part of Alfresco
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.alfresco.bm.dataload.rm.disposition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.alfresco.bm.cm.FolderData;
+import org.alfresco.bm.dataload.RMBaseEventProcessor;
+import org.alfresco.bm.dataload.rm.services.DispositionData;
+import org.alfresco.bm.dataload.rm.services.DispositionService;
+import org.alfresco.bm.dataload.rm.services.ExecutionState;
+import org.alfresco.bm.event.Event;
+import org.alfresco.bm.event.EventResult;
+import org.alfresco.bm.session.SessionService;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.util.Assert;
+
+import com.mongodb.BasicDBObjectBuilder;
+import com.mongodb.DBObject;
+
+/**
+ * Loader class that drives the disposition scenario by scheduling {@link ExecuteDispositionStep} events:
+ *  - attaches the retention schedules of the configured step mix to the loaded record categories
+ *  - creates the configured number of record folders under each scheduled record category
+ *  - moves each record folder through the steps of its schedule, completing the disposition events and the transfers
+ * Every run of the scheduler reports how many items are queued and in progress for each step, so the event results
+ * give the queue depths of the disposition scenario over time next to the latency of each step.
+ *
+ * @since 2.7
+ */
+public class ScheduleDispositionLoaders extends RMBaseEventProcessor implements InitializingBean
+{
+    public static final String DONE_EVENT_MSG = "Raising 'done' event.";
+    public static final String DISPOSITION_NOT_WANTED_MSG = "Disposition scenario not wanted.";
+    public static final String DEFAULT_STEP_MIX = "cutoff|transfer|destroy:2;cutoff|destroy:1;cutoff@case_closed|destroy:1";
+    private static final String DEFAULT_EVENT_NAME_RESCHEDULE_SELF = "scheduleDispositionLoaders";
+    private static final String DEFAULT_EVENT_NAME_COMPLETE = "loadingDispositionComplete";
+    private static final Map<String, String> DEFAULT_STEP_EVENT_NAMES;
+    static
+    {
+        Map<String, String> stepEventNames = new HashMap<>();
+        stepEventNames.put(ATTACH_DISPOSITION_SCHEDULE_OPERATION, "attachDispositionSchedule");
+        stepEventNames.put(CREATE_DISPOSITION_FOLDER_OPERATION, "createDispositionFolder");
+        stepEventNames.put(COMPLETE_EVENT_OPERATION, "completeDispositionEvent");
+        stepEventNames.put(CUT_OFF_OPERATION, "cutOffRecordFolder");
+        stepEventNames.put(TRANSFER_OPERATION, "transferRecordFolder");
+        stepEventNames.put(TRANSFER_COMPLETE_OPERATION, "completeTransfer");
+        stepEventNames.put(DESTROY_OPERATION, "destroyRecordFolder");
+        DEFAULT_STEP_EVENT_NAMES = Collections.unmodifiableMap(stepEventNames);
+    }
+
+    private boolean enabled = false;
+    private Integer maxActiveLoaders;
+    private long loadCheckDelay;
+    private int categoriesNumber;
+    private int foldersPerCategory;
+    private String stepMix = DEFAULT_STEP_MIX;
+    private String username;
+    private String password;
+    private Map<String, String> stepEventNames = new HashMap<>(DEFAULT_STEP_EVENT_NAMES);
+    private String eventNameComplete = DEFAULT_EVENT_NAME_COMPLETE;
+    private String eventNameRescheduleSelf = DEFAULT_EVENT_NAME_RESCHEDULE_SELF;
+
+    private DispositionStepMix dispositionStepMix;
+    private int categoriesSkip = 0;
+    private boolean categoriesExhausted = false;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private DispositionService dispositionService;
+
+    public void setEnabled(boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    public void setMaxActiveLoaders(int maxActiveLoaders)
+    {
+        this.maxActiveLoaders = maxActiveLoaders;
+    }
+
+    public void setLoadCheckDelay(long loadCheckDelay)
+    {
+        this.loadCheckDelay = loadCheckDelay;
+    }
+
+    public void setCategoriesNumber(int categoriesNumber)
+    {
+        this.categoriesNumber = categoriesNumber;
+    }
+
+    public void setFoldersPerCategory(int foldersPerCategory)
+    {
+        this.foldersPerCategory = foldersPerCategory;
+    }
+
+    /**
+     * @param stepMix the weighted retention schedules to attach, see {@link DispositionStepMix} for the format
+     */
+    public void setStepMix(String stepMix)
+    {
+        this.stepMix = stepMix;
+    }
+
+    public void setUsername(String username)
+    {
+        this.username = username;
+    }
+
+    public void setPassword(String password)
+    {
+        this.password = password;
+    }
+
+    /**
+     * @param stepEventNames the names of the events raised for the steps, by operation, overriding the defaults
+     */
+    public void setStepEventNames(Map<String, String> stepEventNames)
+    {
+        this.stepEventNames.putAll(stepEventNames);
+    }
+
+    public String getStepEventName(String operation)
+    {
+        return stepEventNames.get(operation);
+    }
+
+    public void setEventNameComplete(String eventNameComplete)
+    {
+        this.eventNameComplete = eventNameComplete;
+    }
+
+    public String getEventNameComplete()
+    {
+        return eventNameComplete;
+    }
+
+    public void setEventNameRescheduleSelf(String eventNameRescheduleSelf)
+    {
+        this.eventNameRescheduleSelf = eventNameRescheduleSelf;
+    }
+
+    public String getEventNameRescheduleSelf()
+    {
+        return eventNameRescheduleSelf;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception
+    {
+        Assert.notNull(maxActiveLoaders);
+        Assert.notNull(username);
+        Assert.notNull(password);
+        Assert.isTrue(foldersPerCategory >= 0, "The number of record folders per record category can't be negative.");
+        for (String operation : DEFAULT_STEP_EVENT_NAMES.keySet())
+        {
+            Assert.notNull(getStepEventName(operation));
+        }
+        Assert.notNull(getEventNameComplete());
+        Assert.notNull(getEventNameRescheduleSelf());
+        dispositionStepMix = new DispositionStepMix(stepMix);
+    }
+
+    @Override
+    protected EventResult processEvent(Event event) throws Exception
+    {
+        if (!enabled)
+        {
+            return new EventResult(DISPOSITION_NOT_WANTED_MSG, new Event(getEventNameComplete(), null));
+        }
+
+        long sessionCount = sessionService.getActiveSessionsCount();
+        int loaderSessionsToCreate = maxActiveLoaders - (int) sessionCount;
+        StringBuilder eventOutputMsg = new StringBuilder();
+        List<Event> nextEvents = new ArrayList<>(Math.max(loaderSessionsToCreate, 0) + 1);
+
+        // Schedules first, then the record folders through the steps of their schedule
+        scheduleScheduleAttachment(loaderSessionsToCreate, nextEvents, eventOutputMsg);
+        scheduleSteps(loaderSessionsToCreate, nextEvents, eventOutputMsg);
+
+        DBObject queueDepths = getQueueDepths();
+        boolean allCategoriesScheduled = categoriesExhausted || dispositionService.getCategoryCount() >= categoriesNumber;
+        if (nextEvents.isEmpty() && allCategoriesScheduled &&
+            dispositionService.getItemCount(ExecutionState.DISPOSITION_STEP_PENDING.name(), null) == 0 &&
+            dispositionService.getItemCount(ExecutionState.DISPOSITION_STEP_SCHEDULED.name(), null) == 0)
+        {
+            DBObject resultData = BasicDBObjectBuilder.start()
+                        .add("msg", DONE_EVENT_MSG)
+                        .add("queueDepths", queueDepths)
+                        .get();
+            return new EventResult(resultData, new Event(getEventNameComplete(), null));
+        }
+
+        // Reschedule self
+        Event nextEvent = new Event(getEventNameRescheduleSelf(), System.currentTimeMillis() + loadCheckDelay, null);
+        nextEvents.add(nextEvent);
+        eventOutputMsg.append("Raised further " + (nextEvents.size() - 1) + " events and rescheduled self.");
+
+        if (logger.isDebugEnabled())
+        {
+            logger.debug(eventOutputMsg.toString());
+        }
+        DBObject resultData = BasicDBObjectBuilder.start()
+                    .add("msg", eventOutputMsg.toString())
+                    .add("queueDepths", queueDepths)
+                    .get();
+        return new EventResult(resultData, nextEvents);
+    }
+
+    /**
+     * Helper method that schedules the attachment of the retention schedules to the loaded record categories that
+     * haven't got one from this scenario yet.
+     *
+     * @param loaderSessionsToCreate - the number of sessions available to the loaders
+     * @param nextEvents - list of prepared events
+     * @param eventOutputMsg - the event message
+     */
+    private void scheduleScheduleAttachment(int loaderSessionsToCreate, List<Event> nextEvents, StringBuilder eventOutputMsg)
+    {
+        long categoryCount = dispositionService.getCategoryCount();
+        while (!categoriesExhausted && categoryCount < categoriesNumber && nextEvents.size() < loaderSessionsToCreate)
+        {
+            int limit = (int) Math.min(categoriesNumber - categoryCount, loaderSessionsToCreate - nextEvents.size());
+            List<FolderData> categories = fileFolderService.getFoldersByCounts(
+                        RECORD_CATEGORY_CONTEXT,
+                        null, null,
+                        null, null,
+                        null, null,
+                        categoriesSkip, limit);
+            if (categories.isEmpty())
+            {
+                categoriesExhausted = true;
+                eventOutputMsg.append("No more record categories to attach retention schedules to. ");
+                break;
+            }
+            categoriesSkip += categories.size();
+
+            for (FolderData category : categories)
+            {
+                if (dispositionService.getItem(category.getId()) != null)
+                {
+                    continue;
+                }
+                List<String> schedule = dispositionStepMix.getSchedule((int) categoryCount);
+                List<String> steps = Collections.singletonList(ATTACH_DISPOSITION_SCHEDULE_OPERATION);
+                // Create the record category in database to track it
+                dispositionService.createItem(new DispositionData(category.getId(), category.getId(), null, steps,
+                            ExecutionState.DISPOSITION_STEP_SCHEDULED));
+                categoryCount++;
+
+                DBObject attachData = BasicDBObjectBuilder.start()
+                            .add(FIELD_DISPOSITION_ITEM, category.getId())
+                            .add(FIELD_LOAD_OPERATION, ATTACH_DISPOSITION_SCHEDULE_OPERATION)
+                            .add(FIELD_DISPOSITION_STEPS, schedule)
+                            .add(FIELD_FOLDERS_TO_CREATE, foldersPerCategory)
+                            .add(FIELD_USERNAME, username)
+                            .add(FIELD_PASSWORD, password)
+                            .get();
+                nextEvents.add(createEventWithSession(getStepEventName(ATTACH_DISPOSITION_SCHEDULE_OPERATION), attachData));
+                eventOutputMsg.append("Scheduled retention schedule " + schedule + " for record category " + category.getPath() + ". ");
+            }
+        }
+    }
+
+    /**
+     * Helper method that schedules the next step of the record folders waiting for one.
+     *
+     * @param loaderSessionsToCreate - the number of sessions available to the loaders
+     * @param nextEvents - list of prepared events
+     * @param eventOutputMsg - the event message
+     */
+    private void scheduleSteps(int loaderSessionsToCreate, List<Event> nextEvents, StringBuilder eventOutputMsg)
+    {
+        int available = loaderSessionsToCreate - nextEvents.size();
+        if (available <= 0)
+        {
+            return;
+        }
+        List<DispositionData> pendingItems = dispositionService.getItems(ExecutionState.DISPOSITION_STEP_PENDING.name(), 0, available);
+        for (DispositionData item : pendingItems)
+        {
+            item.setExecutionState(ExecutionState.DISPOSITION_STEP_SCHEDULED);
+            dispositionService.updateItem(item);
+
+            String step = item.getNextStep();
+            DBObject stepData = BasicDBObjectBuilder.start()
+                        .add(FIELD_DISPOSITION_ITEM, item.getName())
+                        .add(FIELD_LOAD_OPERATION, step)
+                        .add(FIELD_USERNAME, username)
+                        .add(FIELD_PASSWORD, password)
+                        .get();
+            nextEvents.add(createEventWithSession(getStepEventName(DispositionStepMix.getOperation(step)), stepData));
+        }
+        if (!pendingItems.isEmpty())
+        {
+            eventOutputMsg.append("Scheduled " + pendingItems.size() + " disposition steps. ");
+        }
+    }
+
+    /**
+     * Helper method that counts the items waiting for and executing each step, and the items that went through all
+     * of their steps or failed.
+     *
+     * @return the queue depths
+     */
+    private DBObject getQueueDepths()
+    {
+        BasicDBObjectBuilder pending = BasicDBObjectBuilder.start();
+        BasicDBObjectBuilder inProgress = BasicDBObjectBuilder.start();
+        for (String step : dispositionStepMix.getAllSteps())
+        {
+            pending.add(step, dispositionService.getItemCount(ExecutionState.DISPOSITION_STEP_PENDING.name(), step));
+            inProgress.add(step, dispositionService.getItemCount(ExecutionState.DISPOSITION_STEP_SCHEDULED.name(), step));
+        }
+        return BasicDBObjectBuilder.start()
+                    .add("pending", pending.get())
+                    .add("inProgress", inProgress.get())
+                    .add("complete", dispositionService.getItemCount(ExecutionState.DISPOSITION_COMPLETE.name(), null))
+                    .add("failed", dispositionService.getItemCount(ExecutionState.FAILED.name(), null))
+                    .get();
+    }
+
+    /**
+     * Helper method that creates an event and the session the event is associated with.
+     */
+    private Event createEventWithSession(String eventName, DBObject data)
+    {
+        Event event = new Event(eventName, data);
+        // Each operation event must be associated with a session
+        String sessionId = sessionService.startSession(data);
+        event.setSessionId(sessionId);
+        return event;
+    }
+}
@@ -0,0 +1,16 @@
+package org.alfresco.bm.dataload.rm.exceptions;
+
+/**
+ * A disposition item with the same name already exists in the DB
+ *
+ * @since 2.7
+ */
+public class DuplicateDispositionItemException extends RuntimeException
+{
+    private static final long serialVersionUID = -2870735466284930125L;
+
+    public DuplicateDispositionItemException(String name, Exception cause)
+    {
+        super("Duplicate disposition item with name " + name, cause);
+    }
+}
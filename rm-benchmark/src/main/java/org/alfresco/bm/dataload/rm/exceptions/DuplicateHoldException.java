@@ -0,0 +1,16 @@
+package org.alfresco.bm.dataload.rm.exceptions;
+
+/**
+ * A hold with the same name already exists in the DB
+ *
+ * @since 2.7
+ */
+public class DuplicateHoldException extends RuntimeException
+{
+    private static final long serialVersionUID = 3418271662085740613L;
+
+    public DuplicateHoldException(String name, Exception cause)
+    {
+        super("Duplicate hold with name " + name, cause);
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) 2005-2017 Alfresco Software Limited.
+ *
+ * This file is part of Alfresco
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.alfresco.bm.dataload.rm.holds;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.alfresco.bm.dataload.RMBaseEventProcessor;
+import org.alfresco.bm.dataload.rm.services.ExecutionState;
+import org.alfresco.bm.dataload.rm.services.HoldData;
+import org.alfresco.bm.dataload.rm.services.HoldService;
+import org.alfresco.bm.event.Event;
+import org.alfresco.bm.event.EventResult;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.mongodb.BasicDBObjectBuilder;
+import com.mongodb.DBObject;
+
+/**
+ * Timed event that executes one hold operation: creates a hold, adds a batch of records and record folders to a hold
+ * or releases a hold. Only the server call is timed, so the event results give the latency of each hold operation.
+ *
+ * @since 2.7
+ */
+public class ExecuteHoldOperation extends RMBaseEventProcessor
+{
+    public static final String DEFAULT_HOLD_REASON = "Benchmark hold";
+    public static final long DEFAULT_DELAY = 0L;
+
+    private String eventNameComplete;
+    private String holdReason = DEFAULT_HOLD_REASON;
+    private long delay = DEFAULT_DELAY;
+
+    @Autowired
+    private HoldService holdService;
+
+    @Autowired
+    private HoldsRestClient holdsRestClient;
+
+    public void setEventNameComplete(String eventNameComplete)
+    {
+        this.eventNameComplete = eventNameComplete;
+    }
+
+    public String getEventNameComplete()
+    {
+        return eventNameComplete;
+    }
+
+    public void setHoldReason(String holdReason)
+    {
+        this.holdReason = holdReason;
+    }
+
+    public void setDelay(long delay)
+    {
+        this.delay = delay;
+    }
+
+    @Override
+    protected EventResult processEvent(Event event) throws Exception
+    {
+        super.suspendTimer();
+
+        if (event == null)
+        {
+            throw new IllegalStateException("This processor requires an event.");
+        }
+
+        DBObject dataObj = (DBObject) event.getData();
+        if (dataObj == null)
+        {
+            throw new IllegalStateException("This processor requires data with field " + FIELD_HOLD_NAME);
+        }
+
+        String holdName = (String) dataObj.get(FIELD_HOLD_NAME);
+        String operation = (String) dataObj.get(FIELD_LOAD_OPERATION);
+        String username = (String) dataObj.get(FIELD_USERNAME);
+        String password = (String) dataObj.get(FIELD_PASSWORD);
+        if (isBlank(holdName) || isBlank(operation) || isBlank(username) || isBlank(password))
+        {
+            return new EventResult("Request data not complete for hold operation: " + dataObj, false);
+        }
+
+        HoldData hold = holdService.getHold(holdName);
+        if (hold == null)
+        {
+            throw new IllegalStateException("No such hold recorded: " + dataObj);
+        }
+
+        int records = 0;
+        int folders = 0;
+        try
+        {
+            String message;
+            switch (operation)
+            {
+                case CREATE_HOLD_OPERATION:
+                    message = createHoldOperation(hold, (String) dataObj.get(FIELD_HOLDS_CONTAINER_ID), username, password);
+                    break;
+                case ADD_TO_HOLD_OPERATION:
+                    List<String> recordIds = getIds(dataObj, FIELD_RECORD_IDS);
+                    List<String> folderIds = getIds(dataObj, FIELD_RECORD_FOLDER_IDS);
+                    records = recordIds.size();
+                    folders = folderIds.size();
+                    message = addToHoldOperation(hold, recordIds, folderIds, username, password);
+                    break;
+                case RELEASE_HOLD_OPERATION:
+                    message = releaseHoldOperation(hold, username, password);
+                    break;
+                default:
+                    throw new IllegalStateException("Unsuported operation: " + operation);
+            }
+            TimeUnit.MILLISECONDS.sleep(delay);
+
+            DBObject eventData = BasicDBObjectBuilder.start()
+                        .add(FIELD_HOLD_NAME, holdName)
+                        .add(FIELD_LOAD_OPERATION, operation)
+                        .get();
+            DBObject resultData = BasicDBObjectBuilder.start()
+                        .add("msg", message)
+                        .add(FIELD_HOLD_NAME, holdName)
+                        .add("operation", operation)
+                        .add("records", records)
+                        .add("recordFolders", folders)
+                        .add("username", username)
+                        .get();
+            return new EventResult(resultData, new Event(getEventNameComplete(), eventData));
+        }
+        catch (Exception e)
+        {
+            hold.setExecutionState(ExecutionState.FAILED);
+            holdService.updateHold(hold);
+
+            String error = e.getMessage();
+            String stack = ExceptionUtils.getStackTrace(e);
+            DBObject data = BasicDBObjectBuilder.start()
+                        .append("error", error)
+                        .append(FIELD_HOLD_NAME, holdName)
+                        .append("operation", operation)
+                        .append("records", records)
+                        .append("recordFolders", folders)
+                        .append("username", username)
+                        .append("stack", stack)
+                        .get();
+            return new EventResult(data, false);
+        }
+    }
+
+    /**
+     * Helper method to create the hold on the server.
+     *
+     * @param hold - the scheduled hold
+     * @param holdsContainerId - the id of the holds container
+     * @param username - the user that creates the hold
+     * @param password - the password of the user
+     * @return String - the operation message
+     * @throws Exception
+     */
+    private String createHoldOperation(HoldData hold, String holdsContainerId, String username, String password) throws Exception
+    {
+        if (isBlank(holdsContainerId))
+        {
+            throw new IllegalStateException("Creating a hold requires field " + FIELD_HOLDS_CONTAINER_ID);
+        }
+
+        resumeOperationTimer();
+        String holdId = holdsRestClient.createHold(holdsContainerId, hold.getName(), holdReason, username, password);
+        suspendOperationTimer(CREATE_HOLD_OPERATION);
+
+        hold.setNodeId(holdId);
+        hold.setExecutionState(ExecutionState.HOLD_CREATED);
+        holdService.updateHold(hold);
+        return "Created hold " + hold.getName() + ".";
+    }
+
+    /**
+     * Helper method to add a batch of records and record folders to the hold.
+     *
+     * @param hold - the hold to add the items to
+     * @param recordIds - the ids of the records to add
+     * @param folderIds - the ids of the record folders to add
+     * @param username - the user that adds the items
+     * @param password - the password of the user
+     * @return String - the operation message
+     * @throws Exception
+     */
+    private String addToHoldOperation(HoldData hold, List<String> recordIds, List<String> folderIds, String username, String password) throws Exception
+    {
+        List<String> itemIds = new ArrayList<String>(recordIds.size() + folderIds.size());
+        itemIds.addAll(recordIds);
+        itemIds.addAll(folderIds);
+        if (itemIds.isEmpty())
+        {
+            throw new IllegalStateException("Adding to hold requires field " + FIELD_RECORD_IDS + " or " + FIELD_RECORD_FOLDER_IDS);
+        }
+
+        resumeOperationTimer();
+        holdsRestClient.addToHold(hold.getNodeId(), itemIds, username, password);
+        suspendOperationTimer(ADD_TO_HOLD_OPERATION);
+
+        HoldData updatedHold = holdService.incrementItemsAdded(hold.getName(), recordIds.size(), folderIds.size());
+        if (updatedHold.getExecutionState() == ExecutionState.HOLD_ITEMS_SCHEDULED && updatedHold.isPopulated())
+        {
+            updatedHold.setExecutionState(ExecutionState.HOLD_POPULATED);
+            holdService.updateHold(updatedHold);
+        }
+        return "Added " + recordIds.size() + " records and " + folderIds.size() + " record folders to hold " + hold.getName() + ".";
+    }
+
+    /**
+     * Helper method to release the hold.
+     *
+     * @param hold - the hold to release
+     * @param username - the user that releases the hold
+     * @param password - the password of the user
+     * @return String - the operation message
+     * @throws Exception
+     */
+    private String releaseHoldOperation(HoldData hold, String username, String password) throws Exception
+    {
+        resumeOperationTimer();
+        holdsRestClient.releaseHold(hold.getNodeId(), username, password);
+        suspendOperationTimer(RELEASE_HOLD_OPERATION);
+
+        hold.setExecutionState(ExecutionState.HOLD_RELEASED);
+        holdService.updateHold(hold);
+        return "Released hold " + hold.getName() + " with " + (hold.getRecordsAdded() + hold.getFoldersAdded()) + " items.";
+    }
+
+    /**
+     * Helper method to read a list of ids from the event data.
+     */
+    @SuppressWarnings("unchecked")
+    private List<String> getIds(DBObject dataObj, String field)
+    {
+        List<String> ids = (List<String>) dataObj.get(field);
+        return ids == null ? Collections.<String>emptyList() : ids;
+    }
+}
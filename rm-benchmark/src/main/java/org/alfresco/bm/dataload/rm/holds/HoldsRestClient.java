@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2005-2017 Alfresco Software Limited.
+ *
+ * This file is part of Alfresco
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.alfresco.bm.dataload.rm.holds;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+import org.springframework.beans.factory.DisposableBean;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObjectBuilder;
+import com.mongodb.DBObject;
+import com.mongodb.util.JSON;
+
+/**
+ * Thin HTTP client for the hold operations used by the hold scenario.
+ * <p>
+ * The GS REST API has no hold endpoints, so holds are created with the core nodes API and
+ * populated and released through the same RM web scripts Share uses.
+ *
+ * @since 2.7
+ */
+public class HoldsRestClient implements DisposableBean
+{
+    public static final String HOLDS_CONTAINER_NAME = "Holds";
+    public static final String HOLD_TYPE = "rma:hold";
+    public static final String PROP_HOLD_REASON = "rma:holdReason";
+    public static final String DELETE_HOLD_ACTION = "deleteHold";
+    public static final String NODE_REF_PREFIX = "workspace://SpacesStore/";
+
+    private static final String NODES_PATH = "/-default-/public/alfresco/versions/1/nodes/";
+    private static final String HOLDS_PATH = "/api/rma/holds";
+    private static final String ACTIONS_PATH = "/api/rma/actions/ExecutionQueue";
+
+    private final String nodesUrl;
+    private final String holdsUrl;
+    private final String actionsUrl;
+    private final CloseableHttpClient httpClient;
+
+    /**
+     * @param alfrescoUrl - the Alfresco server URL, e.g. http://localhost:8080
+     * @param context - the Alfresco web application context
+     * @param apiServletName - the name of the public API servlet
+     * @param serviceServletName - the name of the web script servlet
+     * @param maxConnections - the maximum number of concurrent connections to the server
+     */
+    public HoldsRestClient(String alfrescoUrl, String context, String apiServletName, String serviceServletName, int maxConnections)
+    {
+        String baseUrl = alfrescoUrl + "/" + context + "/";
+        this.nodesUrl = baseUrl + apiServletName + NODES_PATH;
+        this.holdsUrl = baseUrl + serviceServletName + HOLDS_PATH;
+        this.actionsUrl = baseUrl + serviceServletName + ACTIONS_PATH;
+        this.httpClient = HttpClients.custom()
+                    .setMaxConnTotal(maxConnections)
+                    .setMaxConnPerRoute(maxConnections)
+                    .build();
+    }
+
+    /**
+     * Gets the id of the holds container of the given file plan.
+     *
+     * @param filePlanId - the id of the file plan
+     * @param username - the user to authenticate as
+     * @param password - the password of the user
+     * @return the id of the holds container
+     * @throws IOException
+     */
+    public String getHoldsContainerId(String filePlanId, String username, String password) throws IOException
+    {
+        HttpGet get = new HttpGet(nodesUrl + filePlanId + "?relativePath=" + HOLDS_CONTAINER_NAME);
+        return getEntryId(execute(get, username, password, HttpStatus.SC_OK));
+    }
+
+    /**
+     * Creates a hold in the holds container.
+     *
+     * @param holdsContainerId - the id of the holds container
+     * @param name - the name of the hold
+     * @param reason - the reason of the hold
+     * @param username - the user to authenticate as
+     * @param password - the password of the user
+     * @return the id of the created hold
+     * @throws IOException
+     */
+    public String createHold(String holdsContainerId, String name, String reason, String username, String password) throws IOException
+    {
+        DBObject body = BasicDBObjectBuilder.start()
+                    .add("name", name)
+                    .add("nodeType", HOLD_TYPE)
+                    .push("properties")
+                        .add(PROP_HOLD_REASON, reason)
+                    .pop()
+                    .get();
+        HttpPost post = new HttpPost(nodesUrl + holdsContainerId + "/children");
+        post.setEntity(new StringEntity(JSON.serialize(body), ContentType.APPLICATION_JSON));
+        return getEntryId(execute(post, username, password, HttpStatus.SC_CREATED));
+    }
+
+    /**
+     * Adds records and/or record folders to a hold.
+     *
+     * @param holdId - the id of the hold
+     * @param itemIds - the ids of the records and record folders to add
+     * @param username - the user to authenticate as
+     * @param password - the password of the user
+     * @throws IOException
+     */
+    public void addToHold(String holdId, List<String> itemIds, String username, String password) throws IOException
+    {
+        BasicDBList nodeRefs = new BasicDBList();
+        for (String itemId : itemIds)
+        {
+            nodeRefs.add(NODE_REF_PREFIX + itemId);
+        }
+        BasicDBList holds = new BasicDBList();
+        holds.add(NODE_REF_PREFIX + holdId);
+
+        DBObject body = BasicDBObjectBuilder.start()
+                    .add("nodeRefs", nodeRefs)
+                    .add("holds", holds)
+                    .get();
+        HttpPost post = new HttpPost(holdsUrl);
+        post.setEntity(new StringEntity(JSON.serialize(body), ContentType.APPLICATION_JSON));
+        execute(post, username, password, HttpStatus.SC_OK);
+    }
+
+    /**
+     * Releases a hold, removing the frozen state from all the items in it.
+     *
+     * @param holdId - the id of the hold
+     * @param username - the user to authenticate as
+     * @param password - the password of the user
+     * @throws IOException
+     */
+    public void releaseHold(String holdId, String username, String password) throws IOException
+    {
+        DBObject body = BasicDBObjectBuilder.start()
+                    .add("name", DELETE_HOLD_ACTION)
+                    .add("nodeRef", NODE_REF_PREFIX + holdId)
+                    .get();
+        HttpPost post = new HttpPost(actionsUrl);
+        post.setEntity(new StringEntity(JSON.serialize(body), ContentType.APPLICATION_JSON));
+        execute(post, username, password, HttpStatus.SC_OK);
+    }
+
+    /**
+     * Helper method that executes the request and checks the response status.
+     *
+     * @return the response body
+     */
+    private String execute(HttpRequestBase request, String username, String password, int expectedStatus) throws IOException
+    {
+        String credentials = username + ":" + password;
+        request.setHeader(HttpHeaders.AUTHORIZATION,
+                    "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+        try (CloseableHttpResponse response = httpClient.execute(request))
+        {
+            int status = response.getStatusLine().getStatusCode();
+            String body = response.getEntity() == null ? null : EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+            if (status != expectedStatus)
+            {
+                throw new IllegalStateException(request.getMethod() + " " + request.getURI() + " failed with status " + status + ": " + body);
+            }
+            return body;
+        }
+    }
+
+    /**
+     * Helper method that extracts the node id from a public API entry response.
+     */
+    private String getEntryId(String body)
+    {
+        DBObject response = (DBObject) JSON.parse(body);
+        DBObject entry = (DBObject) response.get("entry");
+        if (entry == null || entry.get("id") == null)
+        {
+            throw new IllegalStateException("Unexpected response: " + body);
+        }
+        return (String) entry.get("id");
+    }
+
+    @Override
+    public void destroy() throws Exception
+    {
+        httpClient.close();
+    }
+}
@@ -0,0 +1,538 @@
+/*
+ * Copyright (C) 2005-2017 Alfresco Software Limited.
+ *
+ * This file is part of Alfresco
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.alfresco.bm.dataload.rm.holds;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+
+import org.alfresco.bm.cm.FolderData;
+import org.alfresco.bm.dataload.RMBaseEventProcessor;
+import org.alfresco.bm.dataload.rm.services.ExecutionState;
+import org.alfresco.bm.dataload.rm.services.HoldData;
+import org.alfresco.bm.dataload.rm.services.HoldService;
+import org.alfresco.bm.dataload.rm.services.RecordData;
+import org.alfresco.bm.event.Event;
+import org.alfresco.bm.event.EventResult;
+import org.alfresco.bm.session.SessionService;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.util.Assert;
+
+import com.mongodb.BasicDBObjectBuilder;
+import com.mongodb.DBObject;
+
+/**
+ * Loader class that drives the legal hold scenario by scheduling {@link ExecuteHoldOperation} events:
+ *  - creates the configured number of holds
+ *  - adds the configured mix of records and record folders to each hold, in batches
+ *  - optionally releases the holds once all of them have been populated
+ * The progress is kept in the holds collection so that the scheduler only raises the 'done' event
+ * after all the scheduled operations have finished.
+ *
+ * @since 2.7
+ */
+public class ScheduleHoldLoaders extends RMBaseEventProcessor implements InitializingBean
+{
+    public static final String DONE_EVENT_MSG = "Raising 'done' event.";
+    public static final String HOLDS_NOT_WANTED_MSG = "Hold scenario not wanted.";
+    private static final String DEFAULT_EVENT_NAME_RESCHEDULE_SELF = "scheduleHoldLoaders";
+    private static final String DEFAULT_EVENT_NAME_CREATE_HOLD = "createHold";
+    private static final String DEFAULT_EVENT_NAME_ADD_TO_HOLD = "addToHold";
+    private static final String DEFAULT_EVENT_NAME_RELEASE_HOLD = "releaseHold";
+    private static final String DEFAULT_EVENT_NAME_COMPLETE = "loadingHoldsComplete";
+    private static final int HOLDS_PAGE_SIZE = 100;
+
+    private boolean enabled = false;
+    private Integer maxActiveLoaders;
+    private long loadCheckDelay;
+    private int holdsNumber;
+    private int recordsPerHold;
+    private int recordFoldersPerHold;
+    private int itemsPerRequest = 1;
+    private Long minRecordFolderSize;
+    private boolean releaseHolds;
+    private String username;
+    private String password;
+    private String eventNameCreateHold = DEFAULT_EVENT_NAME_CREATE_HOLD;
+    private String eventNameAddToHold = DEFAULT_EVENT_NAME_ADD_TO_HOLD;
+    private String eventNameReleaseHold = DEFAULT_EVENT_NAME_RELEASE_HOLD;
+    private String eventNameComplete = DEFAULT_EVENT_NAME_COMPLETE;
+    private String eventNameRescheduleSelf = DEFAULT_EVENT_NAME_RESCHEDULE_SELF;
+
+    // the add to hold requests that haven't been scheduled yet
+    private Queue<DBObject> unscheduledBatches = new LinkedList<>();
+    private String holdsContainerId;
+    private int recordsSkip = 0;
+    private int recordFoldersSkip = 0;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private HoldService holdService;
+
+    @Autowired
+    private HoldsRestClient holdsRestClient;
+
+    public void setEnabled(boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    public void setMaxActiveLoaders(int maxActiveLoaders)
+    {
+        this.maxActiveLoaders = maxActiveLoaders;
+    }
+
+    public void setLoadCheckDelay(long loadCheckDelay)
+    {
+        this.loadCheckDelay = loadCheckDelay;
+    }
+
+    public void setHoldsNumber(int holdsNumber)
+    {
+        this.holdsNumber = holdsNumber;
+    }
+
+    public void setRecordsPerHold(int recordsPerHold)
+    {
+        this.recordsPerHold = recordsPerHold;
+    }
+
+    public void setRecordFoldersPerHold(int recordFoldersPerHold)
+    {
+        this.recordFoldersPerHold = recordFoldersPerHold;
+    }
+
+    public void setItemsPerRequest(int itemsPerRequest)
+    {
+        this.itemsPerRequest = itemsPerRequest;
+    }
+
+    /**
+     * @param minRecordFolderSize the minimum number of records a record folder must have to be added to a hold
+     */
+    public void setMinRecordFolderSize(long minRecordFolderSize)
+    {
+        this.minRecordFolderSize = minRecordFolderSize > 0 ? minRecordFolderSize : null;
+    }
+
+    public void setReleaseHolds(boolean releaseHolds)
+    {
+        this.releaseHolds = releaseHolds;
+    }
+
+    public void setUsername(String username)
+    {
+        this.username = username;
+    }
+
+    public void setPassword(String password)
+    {
+        this.password = password;
+    }
+
+    public void setEventNameCreateHold(String eventNameCreateHold)
+    {
+        this.eventNameCreateHold = eventNameCreateHold;
+    }
+
+    public String getEventNameCreateHold()
+    {
+        return eventNameCreateHold;
+    }
+
+    public void setEventNameAddToHold(String eventNameAddToHold)
+    {
+        this.eventNameAddToHold = eventNameAddToHold;
+    }
+
+    public String getEventNameAddToHold()
+    {
+        return eventNameAddToHold;
+    }
+
+    public void setEventNameReleaseHold(String eventNameReleaseHold)
+    {
+        this.eventNameReleaseHold = eventNameReleaseHold;
+    }
+
+    public String getEventNameReleaseHold()
+    {
+        return eventNameReleaseHold;
+    }
+
+    public void setEventNameComplete(String eventNameComplete)
+    {
+        this.eventNameComplete = eventNameComplete;
+    }
+
+    public String getEventNameComplete()
+    {
+        return eventNameComplete;
+    }
+
+    public void setEventNameRescheduleSelf(String eventNameRescheduleSelf)
+    {
+        this.eventNameRescheduleSelf = eventNameRescheduleSelf;
+    }
+
+    public String getEventNameRescheduleSelf()
+    {
+        return eventNameRescheduleSelf;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception
+    {
+        Assert.notNull(maxActiveLoaders);
+        Assert.notNull(username);
+        Assert.notNull(password);
+        Assert.isTrue(itemsPerRequest > 0, "At least one item must be added to a hold per request.");
+        Assert.notNull(getEventNameCreateHold());
+        Assert.notNull(getEventNameAddToHold());
+        Assert.notNull(getEventNameReleaseHold());
+        Assert.notNull(getEventNameComplete());
+        Assert.notNull(getEventNameRescheduleSelf());
+    }
+
+    @Override
+    protected EventResult processEvent(Event event) throws Exception
+    {
+        if (!enabled)
+        {
+            return new EventResult(HOLDS_NOT_WANTED_MSG, new Event(getEventNameComplete(), null));
+        }
+
+        long sessionCount = sessionService.getActiveSessionsCount();
+        int loaderSessionsToCreate = maxActiveLoaders - (int) sessionCount;
+        StringBuilder eventOutputMsg = new StringBuilder();
+        List<Event> nextEvents = new ArrayList<>(Math.max(loaderSessionsToCreate, 0) + 1);
+
+        // Holds first, then their items and, once all the holds are populated, the releases
+        scheduleHoldCreation(loaderSessionsToCreate, nextEvents, eventOutputMsg);
+        prepareBatches(eventOutputMsg);
+        scheduleBatches(loaderSessionsToCreate, nextEvents, eventOutputMsg);
+        boolean populationComplete = isPopulationComplete();
+        if (releaseHolds && populationComplete)
+        {
+            scheduleReleases(loaderSessionsToCreate, nextEvents, eventOutputMsg);
+        }
+
+        if (nextEvents.isEmpty() && populationComplete && !isReleaseInProgress())
+        {
+            unscheduledBatches.clear();
+            return new EventResult(DONE_EVENT_MSG, new Event(getEventNameComplete(), null));
+        }
+
+        // Reschedule self
+        Event nextEvent = new Event(getEventNameRescheduleSelf(), System.currentTimeMillis() + loadCheckDelay, null);
+        nextEvents.add(nextEvent);
+        eventOutputMsg.append("Raised further " + (nextEvents.size() - 1) + " events and rescheduled self.");
+
+        if (logger.isDebugEnabled())
+        {
+            logger.debug(eventOutputMsg.toString());
+        }
+        return new EventResult(eventOutputMsg.toString(), nextEvents);
+    }
+
+    /**
+     * Helper method that schedules the creation of the holds that don't exist yet.
+     *
+     * @param loaderSessionsToCreate - the number of sessions available to the loaders
+     * @param nextEvents - list of prepared events
+     * @param eventOutputMsg - the event message
+     * @throws Exception
+     */
+    private void scheduleHoldCreation(int loaderSessionsToCreate, List<Event> nextEvents, StringBuilder eventOutputMsg) throws Exception
+    {
+        long holdsToCreate = holdsNumber - holdService.getHoldCount(null);
+        if (holdsToCreate <= 0 || nextEvents.size() >= loaderSessionsToCreate)
+        {
+            return;
+        }
+        String containerId = getHoldsContainerId();
+        for (int i = 0; i < holdsToCreate && nextEvents.size() < loaderSessionsToCreate; i++)
+        {
+            String holdName = HOLD_NAME_IDENTIFIER + UUID.randomUUID().toString();
+            // Create the hold in database to track it
+            holdService.createHold(new HoldData(holdName, null, ExecutionState.SCHEDULED));
+
+            DBObject createData = BasicDBObjectBuilder.start()
+                        .add(FIELD_HOLD_NAME, holdName)
+                        .add(FIELD_LOAD_OPERATION, CREATE_HOLD_OPERATION)
+                        .add(FIELD_HOLDS_CONTAINER_ID, containerId)
+                        .add(FIELD_USERNAME, username)
+                        .add(FIELD_PASSWORD, password)
+                        .get();
+            nextEvents.add(createEventWithSession(getEventNameCreateHold(), createData));
+            eventOutputMsg.append("Scheduled creation of hold " + holdName + ". ");
+        }
+    }
+
+    /**
+     * Helper method that picks the records and record folders for the created holds and splits them in
+     * add to hold requests of {@link #itemsPerRequest} items.
+     *
+     * @param eventOutputMsg - the event message
+     */
+    private void prepareBatches(StringBuilder eventOutputMsg)
+    {
+        List<HoldData> createdHolds = holdService.getHolds(ExecutionState.HOLD_CREATED.name(), 0, HOLDS_PAGE_SIZE);
+        for (HoldData hold : createdHolds)
+        {
+            List<String> recordIds = getNextRecordIds(recordsPerHold);
+            Set<String> recordFolderIds = new HashSet<>(getNextRecordFolderIds(recordFoldersPerHold));
+
+            // Mix records and record folders in the requests
+            List<String> itemIds = new ArrayList<>(recordIds.size() + recordFolderIds.size());
+            itemIds.addAll(recordIds);
+            itemIds.addAll(recordFolderIds);
+            Collections.shuffle(itemIds);
+
+            for (int from = 0; from < itemIds.size(); from += itemsPerRequest)
+            {
+                List<String> batchRecordIds = new ArrayList<>(itemsPerRequest);
+                List<String> batchRecordFolderIds = new ArrayList<>(itemsPerRequest);
+                for (String itemId : itemIds.subList(from, Math.min(from + itemsPerRequest, itemIds.size())))
+                {
+                    if (recordFolderIds.contains(itemId))
+                    {
+                        batchRecordFolderIds.add(itemId);
+                    }
+                    else
+                    {
+                        batchRecordIds.add(itemId);
+                    }
+                }
+                DBObject addData = BasicDBObjectBuilder.start()
+                            .add(FIELD_HOLD_NAME, hold.getName())
+                            .add(FIELD_LOAD_OPERATION, ADD_TO_HOLD_OPERATION)
+                            .add(FIELD_RECORD_IDS, batchRecordIds)
+                            .add(FIELD_RECORD_FOLDER_IDS, batchRecordFolderIds)
+                            .add(FIELD_USERNAME, username)
+                            .add(FIELD_PASSWORD, password)
+                            .get();
+                unscheduledBatches.add(addData);
+            }
+
+            hold.setItemsExpected(itemIds.size());
+            hold.setExecutionState(itemIds.isEmpty() ? ExecutionState.HOLD_POPULATED : ExecutionState.HOLD_ITEMS_SCHEDULED);
+            holdService.updateHold(hold);
+            eventOutputMsg.append("Prepared " + recordIds.size() + " records and " + recordFolderIds.size()
+                        + " record folders for hold " + hold.getName() + ". ");
+        }
+    }
+
+    /**
+     * Helper method that schedules the prepared add to hold requests.
+     *
+     * @param loaderSessionsToCreate - the number of sessions available to the loaders
+     * @param nextEvents - list of prepared events
+     * @param eventOutputMsg - the event message
+     */
+    private void scheduleBatches(int loaderSessionsToCreate, List<Event> nextEvents, StringBuilder eventOutputMsg)
+    {
+        int scheduled = 0;
+        while (nextEvents.size() < loaderSessionsToCreate && !unscheduledBatches.isEmpty())
+        {
+            nextEvents.add(createEventWithSession(getEventNameAddToHold(), unscheduledBatches.poll()));
+            scheduled++;
+        }
+        if (scheduled > 0)
+        {
+            eventOutputMsg.append("Scheduled " + scheduled + " add to hold requests. ");
+        }
+    }
+
+    /**
+     * Helper method that schedules the release of the populated holds.
+     *
+     * @param loaderSessionsToCreate - the number of sessions available to the loaders
+     * @param nextEvents - list of prepared events
+     * @param eventOutputMsg - the event message
+     */
+    private void scheduleReleases(int loaderSessionsToCreate, List<Event> nextEvents, StringBuilder eventOutputMsg)
+    {
+        int available = loaderSessionsToCreate - nextEvents.size();
+        if (available <= 0)
+        {
+            return;
+        }
+        List<HoldData> populatedHolds = holdService.getHolds(ExecutionState.HOLD_POPULATED.name(), 0, available);
+        for (HoldData hold : populatedHolds)
+        {
+            hold.setExecutionState(ExecutionState.HOLD_RELEASE_SCHEDULED);
+            holdService.updateHold(hold);
+
+            DBObject releaseData = BasicDBObjectBuilder.start()
+                        .add(FIELD_HOLD_NAME, hold.getName())
+                        .add(FIELD_LOAD_OPERATION, RELEASE_HOLD_OPERATION)
+                        .add(FIELD_USERNAME, username)
+                        .add(FIELD_PASSWORD, password)
+                        .get();
+            nextEvents.add(createEventWithSession(getEventNameReleaseHold(), releaseData));
+            eventOutputMsg.append("Scheduled release of hold " + hold.getName() + ". ");
+        }
+    }
+
+    /**
+     * @return <tt>true</tt> if all the holds have been created and no item is still waiting to be added to a hold
+     */
+    private boolean isPopulationComplete()
+    {
+        return unscheduledBatches.isEmpty() &&
+               holdService.getHoldCount(null) >= holdsNumber &&
+               holdService.getHoldCount(ExecutionState.SCHEDULED.name()) == 0 &&
+               holdService.getHoldCount(ExecutionState.HOLD_CREATED.name()) == 0 &&
+               holdService.getHoldCount(ExecutionState.HOLD_ITEMS_SCHEDULED.name()) == 0;
+    }
+
+    /**
+     * @return <tt>true</tt> if there are holds still waiting to be released
+     */
+    private boolean isReleaseInProgress()
+    {
+        return holdService.getHoldCount(ExecutionState.HOLD_RELEASE_SCHEDULED.name()) > 0 ||
+               (releaseHolds && holdService.getHoldCount(ExecutionState.HOLD_POPULATED.name()) > 0);
+    }
+
+    /**
+     * Helper method that gets the ids of the next records to add to a hold. Filed records are used when there are any,
+     * otherwise unfiled records. The records are taken in order, wrapping around when all of them have been used.
+     *
+     * @param count - the number of records wanted
+     * @return the ids of the records, less than requested if there are not enough records
+     */
+    private List<String> getNextRecordIds(int count)
+    {
+        String state = ExecutionState.RECORD_FILED.name();
+        long total = recordService.getRecordCountInSpecifiedPaths(state, null);
+        if (total == 0)
+        {
+            state = ExecutionState.UNFILED_RECORD_DECLARED.name();
+            total = recordService.getRecordCountInSpecifiedPaths(state, null);
+        }
+
+        List<String> recordIds = new ArrayList<>(count);
+        while (recordIds.size() < Math.min(count, total))
+        {
+            if (recordsSkip >= total)
+            {
+                recordsSkip = 0;
+            }
+            List<RecordData> records = recordService.getRecordsInPaths(state, null, recordsSkip, count - recordIds.size());
+            if (records.isEmpty())
+            {
+                break;
+            }
+            for (RecordData record : records)
+            {
+                recordIds.add(record.getId());
+            }
+            recordsSkip += records.size();
+        }
+        return recordIds;
+    }
+
+    /**
+     * Helper method that gets the ids of the next record folders to add to a hold, skipping the ones with fewer
+     * records than {@link #minRecordFolderSize}. The record folders are taken in order, wrapping around when all
+     * of them have been used.
+     *
+     * @param count - the number of record folders wanted
+     * @return the ids of the record folders, less than requested if there are not enough record folders
+     */
+    private List<String> getNextRecordFolderIds(int count)
+    {
+        List<String> recordFolderIds = new ArrayList<>(count);
+        boolean wrapped = false;
+        while (recordFolderIds.size() < count)
+        {
+            List<FolderData> folders = fileFolderService.getFoldersByCounts(
+                        RECORD_FOLDER_CONTEXT,
+                        null, null,
+                        null, null,
+                        minRecordFolderSize, null,
+                        recordFoldersSkip, count - recordFolderIds.size());
+            if (folders.isEmpty())
+            {
+                if (wrapped || recordFoldersSkip == 0)
+                {
+                    break;
+                }
+                recordFoldersSkip = 0;
+                wrapped = true;
+                continue;
+            }
+            for (FolderData folder : folders)
+            {
+                if (recordFolderIds.contains(folder.getId()))
+                {
+                    // every record folder has been used for this hold
+                    return recordFolderIds;
+                }
+                recordFolderIds.add(folder.getId());
+            }
+            recordFoldersSkip += folders.size();
+        }
+        return recordFolderIds;
+    }
+
+    /**
+     * Helper method that gets the id of the holds container, looking it up on the server the first time.
+     *
+     * @return the id of the holds container
+     * @throws Exception
+     */
+    private String getHoldsContainerId() throws Exception
+    {
+        if (holdsContainerId == null)
+        {
+            FolderData filePlan = fileFolderService.getFolder(FILEPLAN_CONTEXT, RECORD_CONTAINER_PATH);
+            if (filePlan == null)
+            {
+                throw new IllegalStateException("The file plan has not been loaded: " + RECORD_CONTAINER_PATH);
+            }
+            holdsContainerId = holdsRestClient.getHoldsContainerId(filePlan.getId(), username, password);
+        }
+        return holdsContainerId;
+    }
+
+    /**
+     * Helper method that creates an event and the session the event is associated with.
+     */
+    private Event createEventWithSession(String eventName, DBObject data)
+    {
+        Event event = new Event(eventName, data);
+        // Each operation event must be associated with a session
+        String sessionId = sessionService.startSession(data);
+        event.setSessionId(sessionId);
+        return event;
+    }
+}
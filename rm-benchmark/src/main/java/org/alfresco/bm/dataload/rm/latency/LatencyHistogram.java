@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2005-2017 Alfresco Software Limited.
+ *
+ * This file is part of Alfresco
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.alfresco.bm.dataload.rm.latency;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Latency histogram with a fixed memory footprint and a constant relative precision over its whole range.
+ * <p>
+ * Values are recorded in microseconds, from 0 up to one hour. The buckets are log-linear: the values below 128 have
+ * one bucket each and every power of two above is split in 64 buckets, so any recorded value is within 1/64 of the
+ * bucket it lands in, whether it is a 2ms record creation or a 20s transfer. Values above the range are counted in
+ * the last bucket.
+ * <p>
+ * Histograms of the same operation recorded by several drivers or in several time windows can be merged by adding
+ * their bucket counts, see {@link #add(LatencyHistogram)}. The class is not thread safe.
+ *
+ * @since 2.7
+ */
+public class LatencyHistogram
+{
+    /** The highest value tracked, in microseconds */
+    public static final long MAX_VALUE = 3600L * 1000 * 1000;
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+    private static final int BUCKET_COUNT = getBucket(MAX_VALUE) + 1;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount;
+    private long totalValue;
+    private long minValue = Long.MAX_VALUE;
+    private long maxValue;
+
+    /**
+     * Records one value.
+     *
+     * @param value - the latency in microseconds, negative values are recorded as 0
+     */
+    public void recordValue(long value)
+    {
+        long trackedValue = Math.min(Math.max(value, 0), MAX_VALUE);
+        counts[getBucket(trackedValue)]++;
+        totalCount++;
+        totalValue += trackedValue;
+        minValue = Math.min(minValue, trackedValue);
+        maxValue = Math.max(maxValue, trackedValue);
+    }
+
+    /**
+     * Adds the values recorded by another histogram to this one.
+     *
+     * @param other - the histogram to add
+     */
+    public void add(LatencyHistogram other)
+    {
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        totalValue += other.totalValue;
+        minValue = Math.min(minValue, other.minValue);
+        maxValue = Math.max(maxValue, other.maxValue);
+    }
+
+    /**
+     * Adds values previously exported with {@link #getBucketCounts()}.
+     *
+     * @param bucketCounts - the number of values per bucket
+     * @param totalValue - the sum of the values
+     * @param minValue - the lowest value
+     * @param maxValue - the highest value
+     * @throws IllegalArgumentException if a bucket is out of range
+     */
+    public void add(Map<Integer, Long> bucketCounts, long totalValue, long minValue, long maxValue)
+    {
+        for (Map.Entry<Integer, Long> bucketCount : bucketCounts.entrySet())
+        {
+            int bucket = bucketCount.getKey();
+            if (bucket < 0 || bucket >= BUCKET_COUNT)
+            {
+                throw new IllegalArgumentException("Invalid latency histogram bucket: " + bucket);
+            }
+            counts[bucket] += bucketCount.getValue();
+            totalCount += bucketCount.getValue();
+        }
+        this.totalValue += totalValue;
+        this.minValue = Math.min(this.minValue, minValue);
+        this.maxValue = Math.max(this.maxValue, maxValue);
+    }
+
+    /**
+     * @return the non empty buckets and their number of values, ordered by bucket
+     */
+    public SortedMap<Integer, Long> getBucketCounts()
+    {
+        SortedMap<Integer, Long> bucketCounts = new TreeMap<>();
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            if (counts[i] != 0)
+            {
+                bucketCounts.put(i, counts[i]);
+            }
+        }
+        return bucketCounts;
+    }
+
+    /**
+     * Gets the value at a percentile, i.e. the highest value of the bucket holding the value at that rank, capped
+     * by the highest recorded value.
+     *
+     * @param percentile - the percentile, between 0 and 100
+     * @return the value in microseconds or 0 if the histogram is empty
+     */
+    public long getValueAtPercentile(double percentile)
+    {
+        if (percentile < 0 || percentile > 100)
+        {
+            throw new IllegalArgumentException("Invalid percentile: " + percentile);
+        }
+        if (totalCount == 0)
+        {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            count += counts[i];
+            if (count >= rank)
+            {
+                return Math.max(minValue, Math.min(maxValue, getHighestValue(i)));
+            }
+        }
+        return maxValue;
+    }
+
+    /**
+     * @return the number of recorded values
+     */
+    public long getTotalCount()
+    {
+        return totalCount;
+    }
+
+    /**
+     * @return the sum of the recorded values in microseconds
+     */
+    public long getTotalValue()
+    {
+        return totalValue;
+    }
+
+    /**
+     * @return the mean of the recorded values in microseconds or 0 if the histogram is empty
+     */
+    public double getMean()
+    {
+        return totalCount == 0 ? 0 : (double) totalValue / totalCount;
+    }
+
+    /**
+     * @return the lowest recorded value in microseconds or 0 if the histogram is empty
+     */
+    public long getMinValue()
+    {
+        return totalCount == 0 ? 0 : minValue;
+    }
+
+    /**
+     * @return the highest recorded value in microseconds
+     */
+    public long getMaxValue()
+    {
+        return maxValue;
+    }
+
+    /**
+     * Helper method that gets the bucket of a value in the tracked range.
+     */
+    static int getBucket(long value)
+    {
+        if (value < SUB_BUCKET_COUNT)
+        {
+            return (int) value;
+        }
+        // shift the value so that it falls in the upper half of the sub-buckets
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + (int) (value >>> shift) - SUB_BUCKET_HALF_COUNT;
+    }
+
+    /**
+     * Helper method that gets the highest value that falls in a bucket.
+     */
+    static long getHighestValue(int bucket)
+    {
+        if (bucket < SUB_BUCKET_COUNT)
+        {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+        long subBucket = (bucket - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
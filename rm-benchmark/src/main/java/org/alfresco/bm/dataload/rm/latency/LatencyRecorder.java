@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2005-2017 Alfresco Software Limited.
+ *
+ * This file is part of Alfresco
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.alfresco.bm.dataload.rm.latency;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.alfresco.bm.dataload.rm.services.LatencyHistogramService;
+import org.alfresco.bm.dataload.rm.services.LatencyWindowData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+/**
+ * Records the latencies of the RM operations executed by this driver in one histogram per operation and time window.
+ * <p>
+ * The windows are added to the {@link LatencyHistogramService} once they are over, so the driver only keeps the
+ * histograms of the current window and the memory used does not grow with the length of the test.
+ *
+ * @since 2.7
+ */
+public class LatencyRecorder implements InitializingBean, DisposableBean
+{
+    private static final Logger logger = LoggerFactory.getLogger(LatencyRecorder.class);
+
+    private final LatencyHistogramService latencyHistogramService;
+    private final boolean enabled;
+    private final long windowLength;
+    private final long startTime;
+
+    // the histograms per window start time and operation
+    private final TreeMap<Long, Map<String, LatencyHistogram>> windows = new TreeMap<>();
+    private ScheduledExecutorService flushExecutor;
+
+    /**
+     * @param latencyHistogramService - the service the windows are added to
+     * @param enabled - <tt>true</tt> to record the latencies
+     * @param windowSeconds - the length of the time windows in seconds
+     */
+    public LatencyRecorder(LatencyHistogramService latencyHistogramService, boolean enabled, int windowSeconds)
+    {
+        if (windowSeconds < 1)
+        {
+            throw new IllegalArgumentException("The latency window must be at least one second long.");
+        }
+        this.latencyHistogramService = latencyHistogramService;
+        this.enabled = enabled;
+        this.windowLength = TimeUnit.SECONDS.toMillis(windowSeconds);
+        this.startTime = getWindowStart(System.currentTimeMillis());
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception
+    {
+        if (!enabled)
+        {
+            return;
+        }
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+        {
+            @Override
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "RMLatencyRecorder");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        flushExecutor.scheduleWithFixedDelay(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                flush(false);
+            }
+        }, windowLength, windowLength, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() throws Exception
+    {
+        if (flushExecutor != null)
+        {
+            flushExecutor.shutdownNow();
+        }
+        flush(true);
+    }
+
+    /**
+     * @return <tt>true</tt> if the latencies are recorded
+     */
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * @return the length of the time windows in milliseconds
+     */
+    public long getWindowLength()
+    {
+        return windowLength;
+    }
+
+    /**
+     * @return the start time of the first window this driver can have recorded latencies in
+     */
+    public long getStartTime()
+    {
+        return startTime;
+    }
+
+    /**
+     * Gets the start time of the window a time falls in. The windows are aligned on the epoch so that the windows
+     * of all the drivers match.
+     *
+     * @param time - the time in milliseconds since the epoch
+     * @return the start time of the window
+     */
+    public long getWindowStart(long time)
+    {
+        return time - time % windowLength;
+    }
+
+    /**
+     * Records the latency of an operation that has just completed.
+     *
+     * @param operation - the name of the operation
+     * @param latency - the latency in microseconds
+     */
+    public void recordLatency(String operation, long latency)
+    {
+        recordLatency(operation, latency, System.currentTimeMillis());
+    }
+
+    /**
+     * Records the latency of an operation in the window of its completion time.
+     */
+    synchronized void recordLatency(String operation, long latency, long endTime)
+    {
+        if (!enabled)
+        {
+            return;
+        }
+        long windowStart = getWindowStart(endTime);
+        Map<String, LatencyHistogram> histograms = windows.get(windowStart);
+        if (histograms == null)
+        {
+            histograms = new HashMap<>();
+            windows.put(windowStart, histograms);
+        }
+        LatencyHistogram histogram = histograms.get(operation);
+        if (histogram == null)
+        {
+            histogram = new LatencyHistogram();
+            histograms.put(operation, histogram);
+        }
+        histogram.recordValue(latency);
+    }
+
+    /**
+     * Adds the recorded windows to the latency histogram service.
+     *
+     * @param all - <tt>true</tt> to add all the windows, <tt>false</tt> to only add the windows that are over
+     */
+    public void flush(boolean all)
+    {
+        List<LatencyWindowData> windowsToAdd = removeWindows(all ? Long.MAX_VALUE : getWindowStart(System.currentTimeMillis()));
+        for (LatencyWindowData window : windowsToAdd)
+        {
+            try
+            {
+                latencyHistogramService.addHistogram(window.getOperation(), window.getWindowStart(), window.getHistogram());
+            }
+            catch (Exception e)
+            {
+                // the window is dropped rather than kept, so that the memory used stays bounded
+                logger.warn("Failed to save the latencies of " + window, e);
+            }
+        }
+    }
+
+    /**
+     * Helper method that removes the windows starting before a time.
+     */
+    synchronized List<LatencyWindowData> removeWindows(long beforeTime)
+    {
+        List<LatencyWindowData> removedWindows = new ArrayList<>();
+        Iterator<Map.Entry<Long, Map<String, LatencyHistogram>>> iterator = windows.headMap(beforeTime).entrySet().iterator();
+        while (iterator.hasNext())
+        {
+            Map.Entry<Long, Map<String, LatencyHistogram>> window = iterator.next();
+            for (Map.Entry<String, LatencyHistogram> histogram : window.getValue().entrySet())
+            {
+                removedWindows.add(new LatencyWindowData(histogram.getKey(), window.getKey(), histogram.getValue()));
+            }
+            iterator.remove();
+        }
+        return removedWindows;
+    }
+}
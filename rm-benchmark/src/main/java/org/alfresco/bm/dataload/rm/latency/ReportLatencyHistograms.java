@@ -0,0 +1,296 @@
+/*
+ * Copyright (C) 2005-2017 Alfresco Software Limited.
+ *
+ * This file is part of Alfresco
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.alfresco.bm.dataload.rm.latency;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.alfresco.bm.dataload.RMBaseEventProcessor;
+import org.alfresco.bm.dataload.rm.services.LatencyHistogramService;
+import org.alfresco.bm.dataload.rm.services.LatencyWindowData;
+import org.alfresco.bm.event.Event;
+import org.alfresco.bm.event.EventResult;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.util.Assert;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.BasicDBObjectBuilder;
+import com.mongodb.DBObject;
+
+/**
+ * Reports the latencies of the RM operations recorded by the {@link LatencyRecorder} of all the drivers.
+ * <p>
+ * The first run saves the latencies still held by this driver and waits for the other drivers to save theirs, which
+ * they do within two latency windows. The second run merges the windows of the test and reports, for each operation, the count, mean,
+ * p50, p95, p99, p99.9 and max latencies in milliseconds, and for each window the throughput and p99 latency of
+ * each operation. The report is the data of the event result and, if a report directory is set, is also written
+ * to two CSV files so that the runs of different builds can be compared.
+ *
+ * @since 2.7
+ */
+public class ReportLatencyHistograms extends RMBaseEventProcessor implements InitializingBean
+{
+    public static final String LATENCY_REPORT_NOT_WANTED_MSG = "Latency report not wanted.";
+    public static final String WAITING_FOR_DRIVERS_MSG = "Waiting for the drivers to save their latencies.";
+    public static final String FIELD_REPORT_TIME = "reportTime";
+    private static final double[] PERCENTILES = { 50, 95, 99, 99.9 };
+    private static final String DEFAULT_EVENT_NAME_RESCHEDULE_SELF = "reportLatencyHistograms";
+    private static final String DEFAULT_EVENT_NAME_COMPLETE = "latencyReportComplete";
+
+    private String reportDirectory;
+    private String eventNameComplete = DEFAULT_EVENT_NAME_COMPLETE;
+    private String eventNameRescheduleSelf = DEFAULT_EVENT_NAME_RESCHEDULE_SELF;
+
+    @Autowired
+    private LatencyHistogramService latencyHistogramService;
+
+    /**
+     * @param reportDirectory the directory the CSV reports are written to, blank to not write them
+     */
+    public void setReportDirectory(String reportDirectory)
+    {
+        this.reportDirectory = reportDirectory;
+    }
+
+    public void setEventNameComplete(String eventNameComplete)
+    {
+        this.eventNameComplete = eventNameComplete;
+    }
+
+    public String getEventNameComplete()
+    {
+        return eventNameComplete;
+    }
+
+    public void setEventNameRescheduleSelf(String eventNameRescheduleSelf)
+    {
+        this.eventNameRescheduleSelf = eventNameRescheduleSelf;
+    }
+
+    public String getEventNameRescheduleSelf()
+    {
+        return eventNameRescheduleSelf;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception
+    {
+        Assert.notNull(getEventNameComplete());
+        Assert.notNull(getEventNameRescheduleSelf());
+    }
+
+    @Override
+    protected EventResult processEvent(Event event) throws Exception
+    {
+        super.suspendTimer();
+
+        if (latencyRecorder == null || !latencyRecorder.isEnabled())
+        {
+            return new EventResult(LATENCY_REPORT_NOT_WANTED_MSG, new Event(getEventNameComplete(), null));
+        }
+
+        DBObject dataObj = (DBObject) event.getData();
+        if (dataObj == null || dataObj.get(FIELD_REPORT_TIME) == null)
+        {
+            long reportTime = System.currentTimeMillis();
+            latencyRecorder.flush(true);
+            DBObject nextDataObj = BasicDBObjectBuilder.start().add(FIELD_REPORT_TIME, reportTime).get();
+            Event nextEvent = new Event(getEventNameRescheduleSelf(), reportTime + 2 * latencyRecorder.getWindowLength(), nextDataObj);
+            return new EventResult(WAITING_FOR_DRIVERS_MSG, nextEvent);
+        }
+
+        long fromTime = latencyRecorder.getStartTime();
+        long toTime = ((Number) dataObj.get(FIELD_REPORT_TIME)).longValue();
+        List<LatencyWindowData> windows = latencyHistogramService.getWindows(fromTime, toTime);
+
+        Map<String, LatencyHistogram> operationHistograms = new TreeMap<>();
+        for (LatencyWindowData window : windows)
+        {
+            LatencyHistogram histogram = operationHistograms.get(window.getOperation());
+            if (histogram == null)
+            {
+                histogram = new LatencyHistogram();
+                operationHistograms.put(window.getOperation(), histogram);
+            }
+            histogram.add(window.getHistogram());
+        }
+
+        DBObject resultData = BasicDBObjectBuilder.start()
+                    .add("msg", "Reported the latencies of " + operationHistograms.size() + " operations over " + windows.size() + " windows.")
+                    .add("fromTime", fromTime)
+                    .add("toTime", toTime)
+                    .add("windowSeconds", latencyRecorder.getWindowLength() / 1000)
+                    .add("operations", getOperationsSummary(operationHistograms))
+                    .add("throughput", getThroughputSeries(windows))
+                    .get();
+
+        if (!isBlank(reportDirectory))
+        {
+            writeCsvReports(operationHistograms, windows);
+        }
+        return new EventResult(resultData, new Event(getEventNameComplete(), null));
+    }
+
+    /**
+     * Helper method that builds the latency percentiles of each operation over the whole test.
+     */
+    private DBObject getOperationsSummary(Map<String, LatencyHistogram> operationHistograms)
+    {
+        BasicDBObject operationsObj = new BasicDBObject();
+        for (Map.Entry<String, LatencyHistogram> operationHistogram : operationHistograms.entrySet())
+        {
+            LatencyHistogram histogram = operationHistogram.getValue();
+            BasicDBObjectBuilder operationObjBuilder = BasicDBObjectBuilder.start()
+                        .add("count", histogram.getTotalCount())
+                        .add("meanMs", toMillis(histogram.getMean()))
+                        .add("minMs", toMillis(histogram.getMinValue()));
+            for (double percentile : PERCENTILES)
+            {
+                operationObjBuilder.add(getPercentileName(percentile) + "Ms", toMillis(histogram.getValueAtPercentile(percentile)));
+            }
+            operationObjBuilder.add("maxMs", toMillis(histogram.getMaxValue()));
+            operationsObj.put(operationHistogram.getKey(), operationObjBuilder.get());
+        }
+        return operationsObj;
+    }
+
+    /**
+     * Helper method that builds the throughput and p99 latency of each operation for each window.
+     */
+    private BasicDBList getThroughputSeries(List<LatencyWindowData> windows)
+    {
+        double windowSeconds = latencyRecorder.getWindowLength() / 1000.0;
+        BasicDBList seriesList = new BasicDBList();
+        DBObject windowObj = null;
+        for (LatencyWindowData window : windows)
+        {
+            if (windowObj == null || !windowObj.get("windowStart").equals(window.getWindowStart()))
+            {
+                windowObj = BasicDBObjectBuilder.start()
+                            .add("windowStart", window.getWindowStart())
+                            .add("operations", new BasicDBObject())
+                            .get();
+                seriesList.add(windowObj);
+            }
+            LatencyHistogram histogram = window.getHistogram();
+            DBObject operationObj = BasicDBObjectBuilder.start()
+                        .add("count", histogram.getTotalCount())
+                        .add("opsPerSecond", histogram.getTotalCount() / windowSeconds)
+                        .add("p99Ms", toMillis(histogram.getValueAtPercentile(99)))
+                        .get();
+            ((DBObject) windowObj.get("operations")).put(window.getOperation(), operationObj);
+        }
+        return seriesList;
+    }
+
+    /**
+     * Helper method that writes the operations summary and the throughput series to CSV files.
+     */
+    private void writeCsvReports(Map<String, LatencyHistogram> operationHistograms, List<LatencyWindowData> windows) throws IOException
+    {
+        File directory = new File(reportDirectory);
+        if (!directory.isDirectory() && !directory.mkdirs())
+        {
+            throw new IOException("Can't create the latency report directory " + directory);
+        }
+        String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+
+        List<String> summaryLines = new ArrayList<>(operationHistograms.size() + 1);
+        StringBuilder header = new StringBuilder("operation,count,meanMs,minMs");
+        for (double percentile : PERCENTILES)
+        {
+            header.append(",").append(getPercentileName(percentile)).append("Ms");
+        }
+        summaryLines.add(header.append(",maxMs").toString());
+        for (Map.Entry<String, LatencyHistogram> operationHistogram : operationHistograms.entrySet())
+        {
+            LatencyHistogram histogram = operationHistogram.getValue();
+            StringBuilder line = new StringBuilder(operationHistogram.getKey())
+                        .append(",").append(histogram.getTotalCount())
+                        .append(",").append(formatMillis(histogram.getMean()))
+                        .append(",").append(formatMillis(histogram.getMinValue()));
+            for (double percentile : PERCENTILES)
+            {
+                line.append(",").append(formatMillis(histogram.getValueAtPercentile(percentile)));
+            }
+            summaryLines.add(line.append(",").append(formatMillis(histogram.getMaxValue())).toString());
+        }
+        writeLines(new File(directory, "rm-latency-summary-" + timestamp + ".csv"), summaryLines);
+
+        double windowSeconds = latencyRecorder.getWindowLength() / 1000.0;
+        List<String> throughputLines = new ArrayList<>(windows.size() + 1);
+        throughputLines.add("windowStart,operation,count,opsPerSecond,p99Ms");
+        for (LatencyWindowData window : windows)
+        {
+            LatencyHistogram histogram = window.getHistogram();
+            throughputLines.add(window.getWindowStart() + "," + window.getOperation() + "," + histogram.getTotalCount() + ","
+                        + String.format(Locale.ROOT, "%.3f", histogram.getTotalCount() / windowSeconds) + ","
+                        + formatMillis(histogram.getValueAtPercentile(99)));
+        }
+        writeLines(new File(directory, "rm-latency-throughput-" + timestamp + ".csv"), throughputLines);
+    }
+
+    private void writeLines(File file, List<String> lines) throws IOException
+    {
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))
+        {
+            for (String line : lines)
+            {
+                writer.write(line);
+                writer.write("\n");
+            }
+        }
+        logger.debug("Wrote latency report " + file);
+    }
+
+    /**
+     * @return the name of a percentile as a field name, e.g. <tt>p99_9</tt> for 99.9
+     */
+    static String getPercentileName(double percentile)
+    {
+        String name = percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+        return "p" + name.replace('.', '_');
+    }
+
+    private static double toMillis(double micros)
+    {
+        return Math.round(micros) / 1000.0;
+    }
+
+    private static String formatMillis(double micros)
+    {
+        return String.format(Locale.ROOT, "%.3f", micros / 1000.0);
+    }
+}
@@ -102,11 +102,11 @@ public class DeclareInPlaceRecords extends RMBaseEventProcessor
             }
 
             // Call the REST API
-            super.resumeTimer();
+            resumeOperationTimer();
             RestAPIFactory restAPIFactory = getRestAPIFactory();
             Record record = restAPIFactory.getFilesAPI(new UserModel(username, password)).declareAsRecord(id);
             String statusCode = restAPIFactory.getRmRestWrapper().getStatusCode();
-            super.suspendTimer();
+            suspendOperationTimer(DECLARE_IN_PLACE_RECORD_OPERATION);
             TimeUnit.MILLISECONDS.sleep(declareInPlaceRecordDelay);
 
             if(HttpStatus.valueOf(Integer.parseInt(statusCode)) == HttpStatus.CREATED)
@@ -0,0 +1,155 @@
+package org.alfresco.bm.dataload.rm.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.alfresco.bm.utils.ParameterCheck;
+
+/**
+ * Data object representing a node driven through the disposition scenario during a benchmark test: either a record
+ * category the retention schedule is attached to or a record folder moved through the steps of that schedule.
+ *
+ * @since 2.7
+ */
+public class DispositionData
+{
+    // unique properties
+    private final String name;
+    private final String parentId;
+    private final List<String> steps;
+
+    // editable properties
+    private String nodeId;
+    private int stepIndex;
+    private ExecutionState executionState;
+    private String transferId;
+    private int attempts;
+
+    /**
+     * @param name  the unique name of the item
+     * @param nodeId  the node id, <tt>null</tt> if the node doesn't exist yet
+     * @param parentId  the id of the parent of the node
+     * @param steps  the operations the node goes through, in order
+     * @param executionState  the state of the item
+     */
+    public DispositionData(String name, String nodeId, String parentId, List<String> steps, ExecutionState executionState)
+    {
+        ParameterCheck.mandatoryString("name", name);
+        ParameterCheck.mandatory("steps", steps);
+        ParameterCheck.mandatory("executionState", executionState);
+
+        this.name = name;
+        this.nodeId = nodeId;
+        this.parentId = parentId;
+        this.steps = new ArrayList<String>(steps);
+        this.executionState = executionState;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder("DispositionData [");
+        builder.append("name=").append(name)
+               .append(", nodeId=").append(nodeId)
+               .append(", parentId=").append(parentId)
+               .append(", steps=").append(steps)
+               .append(", stepIndex=").append(stepIndex)
+               .append(", transferId=").append(transferId)
+               .append(", attempts=").append(attempts)
+               .append(", state=").append(executionState)
+               .append("]");
+        return builder.toString();
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return name.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        DispositionData other = (DispositionData) obj;
+        return this.name.equals(other.name);
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public String getParentId()
+    {
+        return parentId;
+    }
+
+    public List<String> getSteps()
+    {
+        return steps;
+    }
+
+    public String getNodeId()
+    {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId)
+    {
+        this.nodeId = nodeId;
+    }
+
+    public int getStepIndex()
+    {
+        return stepIndex;
+    }
+
+    public void setStepIndex(int stepIndex)
+    {
+        this.stepIndex = stepIndex;
+    }
+
+    public ExecutionState getExecutionState()
+    {
+        return executionState;
+    }
+
+    public void setExecutionState(ExecutionState executionState)
+    {
+        this.executionState = executionState;
+    }
+
+    public String getTransferId()
+    {
+        return transferId;
+    }
+
+    public void setTransferId(String transferId)
+    {
+        this.transferId = transferId;
+    }
+
+    public int getAttempts()
+    {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts)
+    {
+        this.attempts = attempts;
+    }
+
+    /**
+     * @return the next operation to execute on the node or <tt>null</tt> if all the steps have been executed
+     */
+    public String getNextStep()
+    {
+        return stepIndex < steps.size() ? steps.get(stepIndex) : null;
+    }
+}
@@ -0,0 +1,214 @@
+package org.alfresco.bm.dataload.rm.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.alfresco.bm.dataload.rm.exceptions.DuplicateDispositionItemException;
+
+import com.mongodb.BasicDBObjectBuilder;
+import com.mongodb.DB;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.DuplicateKeyException;
+import com.mongodb.QueryBuilder;
+
+/**
+ * Service to keep track of the record categories and record folders driven through the disposition scenario.
+ * <p/>
+ * Besides the full list of steps, each item stores the step it is waiting for so that the number of items queued
+ * for each step can be counted cheaply while the scenario runs.
+ *
+ * @since 2.7
+ */
+public class DispositionService extends BaseMongoService
+{
+    public static final String FIELD_NAME = "_id";
+    public static final String FIELD_NODE_ID = "nodeId";
+    public static final String FIELD_PARENT_ID = "parentId";
+    public static final String FIELD_STEPS = "steps";
+    public static final String FIELD_STEP_INDEX = "stepIndex";
+    public static final String FIELD_NEXT_STEP = "nextStep";
+    public static final String FIELD_STATE = "state";
+    public static final String FIELD_TRANSFER_ID = "transferId";
+    public static final String FIELD_ATTEMPTS = "attempts";
+
+    public DispositionService(DB db, String collection)
+    {
+        super(db, collection);
+    }
+
+    @Override
+    protected void setupIndexes()
+    {
+        createMongoIndex("idxDispositionStateStep", false, Arrays.asList(FIELD_STATE, FIELD_NEXT_STEP));
+    }
+
+    /**
+     * Create a new disposition item entry
+     *
+     * @param item  data for the item to create
+     * @throws DuplicateDispositionItemException  if an item with the same name already exists
+     */
+    public void createItem(DispositionData item) throws DuplicateDispositionItemException
+    {
+        DBObject insertObj = BasicDBObjectBuilder.start()
+                .add(FIELD_NAME, item.getName())
+                .add(FIELD_NODE_ID, item.getNodeId())
+                .add(FIELD_PARENT_ID, item.getParentId())
+                .add(FIELD_STEPS, item.getSteps())
+                .add(FIELD_STEP_INDEX, item.getStepIndex())
+                .add(FIELD_NEXT_STEP, item.getNextStep())
+                .add(FIELD_STATE, item.getExecutionState().name())
+                .add(FIELD_TRANSFER_ID, item.getTransferId())
+                .add(FIELD_ATTEMPTS, item.getAttempts()).get();
+
+        try
+        {
+            collection.insert(insertObj);
+        }
+        catch (DuplicateKeyException e)
+        {
+            throw new DuplicateDispositionItemException(item.getName(), e);
+        }
+    }
+
+    /**
+     * Updates an item's node id, progress through its steps and state.
+     * If the item doesn't exist nothing happens
+     *
+     * @param newItemData  info of the item to update
+     */
+    public void updateItem(DispositionData newItemData)
+    {
+        DBObject queryObj = getItemByNameQuery(newItemData.getName());
+        DBObject updateObj = BasicDBObjectBuilder.start()
+                .push("$set")
+                    .add(FIELD_NODE_ID, newItemData.getNodeId())
+                    .add(FIELD_STEP_INDEX, newItemData.getStepIndex())
+                    .add(FIELD_NEXT_STEP, newItemData.getNextStep())
+                    .add(FIELD_STATE, newItemData.getExecutionState().name())
+                    .add(FIELD_TRANSFER_ID, newItemData.getTransferId())
+                    .add(FIELD_ATTEMPTS, newItemData.getAttempts())
+                .pop()
+                .get();
+        collection.findAndModify(queryObj, null, null, false, updateObj, true, false);
+    }
+
+    /**
+     * Retrieve a disposition item by name
+     *
+     * @param name  the name of the item to retrieve
+     * @return the item info or null if the item doesn't exist
+     */
+    public DispositionData getItem(String name)
+    {
+        DBObject queryObj = getItemByNameQuery(name);
+        DBObject itemDataObj = collection.findOne(queryObj);
+        return fromDBObject(itemDataObj);
+    }
+
+    /**
+     * Helper for counting the items with the specified execution state waiting for the specified step.
+     *
+     * @param state - item execution state to search for, or null for any state
+     * @param nextStep - the step the items are waiting for, or null for any step
+     * @return the number of matching items
+     */
+    public long getItemCount(String state, String nextStep)
+    {
+        QueryBuilder queryObjBuilder = QueryBuilder.start();
+        if (state != null)
+        {
+            queryObjBuilder.and(FIELD_STATE).is(state);
+        }
+        if (nextStep != null)
+        {
+            queryObjBuilder.and(FIELD_NEXT_STEP).is(nextStep);
+        }
+        return collection.count(queryObjBuilder.get());
+    }
+
+    /**
+     * @return the number of record categories the retention schedules have been or are being attached to
+     */
+    public long getCategoryCount()
+    {
+        // only the record folders have a parent recorded
+        DBObject queryObj = QueryBuilder.start(FIELD_PARENT_ID).is(null).get();
+        return collection.count(queryObj);
+    }
+
+    /**
+     * Helper to return a list of items with the specified execution state. Supports pagination.
+     *
+     * @param state - item execution state to search for
+     * @param skip - the number of entries to skip
+     * @param limit - the number of entries to return
+     * @return a list of items with the specified execution state
+     */
+    public List<DispositionData> getItems(String state, int skip, int limit)
+    {
+        if (state == null)
+        {
+            throw new IllegalArgumentException();
+        }
+        DBObject queryObj = QueryBuilder.start(FIELD_STATE).is(state).get();
+        DBCursor cursor = collection.find(queryObj).skip(skip).limit(limit);
+        try
+        {
+            List<DispositionData> items = new ArrayList<DispositionData>(limit);
+            while (cursor.hasNext())
+            {
+                items.add(fromDBObject(cursor.next()));
+            }
+            return items;
+        }
+        finally
+        {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Utility method that returns a Mongo query object to search an item by name
+     */
+    private DBObject getItemByNameQuery(String name)
+    {
+        return BasicDBObjectBuilder.start()
+                .add(FIELD_NAME, name)
+                .get();
+    }
+
+    /**
+     * Helper to convert a Mongo DBObject into the API consumable object
+     * <p/>
+     * Note that <tt>null</tt> is handled as a <tt>null</tt> return.
+     */
+    @SuppressWarnings("unchecked")
+    private DispositionData fromDBObject(DBObject dbObject)
+    {
+        if (dbObject == null)
+        {
+            return null;
+        }
+
+        String name = (String) dbObject.get(FIELD_NAME);
+        String nodeId = (String) dbObject.get(FIELD_NODE_ID);
+        String parentId = (String) dbObject.get(FIELD_PARENT_ID);
+        List<String> steps = (List<String>) dbObject.get(FIELD_STEPS);
+        String state = (String) dbObject.get(FIELD_STATE);
+
+        DispositionData item = new DispositionData(name, nodeId, parentId, steps, ExecutionState.valueOf(state));
+        item.setStepIndex(getInt(dbObject, FIELD_STEP_INDEX));
+        item.setTransferId((String) dbObject.get(FIELD_TRANSFER_ID));
+        item.setAttempts(getInt(dbObject, FIELD_ATTEMPTS));
+        return item;
+    }
+
+    private int getInt(DBObject dbObject, String field)
+    {
+        Number value = (Number) dbObject.get(field);
+        return value == null ? 0 : value.intValue();
+    }
+}
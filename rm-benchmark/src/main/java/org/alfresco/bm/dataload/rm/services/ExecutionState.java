@@ -13,5 +13,13 @@ public enum ExecutionState
     UNFILED_RECORD_DECLARED,
     UNFILED_RECORD_SCHEDULED_FOR_FILING,
     RECORD_FILED,
+    HOLD_CREATED,
+    HOLD_ITEMS_SCHEDULED,
+    HOLD_POPULATED,
+    HOLD_RELEASE_SCHEDULED,
+    HOLD_RELEASED,
+    DISPOSITION_STEP_PENDING,
+    DISPOSITION_STEP_SCHEDULED,
+    DISPOSITION_COMPLETE,
     FAILED;
 }
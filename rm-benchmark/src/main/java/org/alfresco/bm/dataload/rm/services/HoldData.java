@@ -0,0 +1,127 @@
+package org.alfresco.bm.dataload.rm.services;
+
+import org.alfresco.bm.utils.ParameterCheck;
+
+/**
+ * Data object representing a hold created during a benchmark test.
+ *
+ * @since 2.7
+ */
+public class HoldData
+{
+    // unique properties
+    private final String name;
+
+    // editable properties
+    private String nodeId;
+    private ExecutionState executionState;
+    private int itemsExpected;
+    private int recordsAdded;
+    private int foldersAdded;
+
+    public HoldData(String name, String nodeId, ExecutionState executionState)
+    {
+        ParameterCheck.mandatoryString("name", name);
+        ParameterCheck.mandatory("executionState", executionState);
+
+        this.name = name;
+        this.nodeId = nodeId;
+        this.executionState = executionState;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder("HoldData [");
+        builder.append("name=").append(name)
+               .append(", nodeId=").append(nodeId)
+               .append(", itemsExpected=").append(itemsExpected)
+               .append(", recordsAdded=").append(recordsAdded)
+               .append(", foldersAdded=").append(foldersAdded)
+               .append(", holdState=").append(executionState)
+               .append("]");
+        return builder.toString();
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return name.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        HoldData other = (HoldData) obj;
+        return this.name.equals(other.name);
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public String getNodeId()
+    {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId)
+    {
+        this.nodeId = nodeId;
+    }
+
+    public ExecutionState getExecutionState()
+    {
+        return executionState;
+    }
+
+    public void setExecutionState(ExecutionState executionState)
+    {
+        this.executionState = executionState;
+    }
+
+    public int getItemsExpected()
+    {
+        return itemsExpected;
+    }
+
+    public void setItemsExpected(int itemsExpected)
+    {
+        this.itemsExpected = itemsExpected;
+    }
+
+    public int getRecordsAdded()
+    {
+        return recordsAdded;
+    }
+
+    public void setRecordsAdded(int recordsAdded)
+    {
+        this.recordsAdded = recordsAdded;
+    }
+
+    public int getFoldersAdded()
+    {
+        return foldersAdded;
+    }
+
+    public void setFoldersAdded(int foldersAdded)
+    {
+        this.foldersAdded = foldersAdded;
+    }
+
+    /**
+     * @return <tt>true</tt> if all the scheduled items have been added to the hold
+     */
+    public boolean isPopulated()
+    {
+        return recordsAdded + foldersAdded >= itemsExpected;
+    }
+}
@@ -0,0 +1,205 @@
+package org.alfresco.bm.dataload.rm.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.alfresco.bm.dataload.rm.exceptions.DuplicateHoldException;
+
+import com.mongodb.BasicDBObjectBuilder;
+import com.mongodb.DB;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.DuplicateKeyException;
+import com.mongodb.QueryBuilder;
+
+/**
+ * Service to keep track of the holds created by the hold scenario.
+ *
+ * @since 2.7
+ */
+public class HoldService extends BaseMongoService
+{
+    public static final String FIELD_NAME = "_id";
+    public static final String FIELD_NODE_ID = "nodeId";
+    public static final String FIELD_STATE = "state";
+    public static final String FIELD_ITEMS_EXPECTED = "itemsExpected";
+    public static final String FIELD_RECORDS_ADDED = "recordsAdded";
+    public static final String FIELD_FOLDERS_ADDED = "foldersAdded";
+
+    public HoldService(DB db, String collection)
+    {
+        super(db, collection);
+    }
+
+    @Override
+    protected void setupIndexes()
+    {
+        createMongoIndex("idxHoldState", false, Arrays.asList(FIELD_STATE));
+    }
+
+    /**
+     * Create a new hold entry
+     *
+     * @param hold  data for the hold to create
+     * @throws DuplicateHoldException  if a hold with the same name already exists
+     */
+    public void createHold(HoldData hold) throws DuplicateHoldException
+    {
+        DBObject insertObj = BasicDBObjectBuilder.start()
+                .add(FIELD_NAME, hold.getName())
+                .add(FIELD_NODE_ID, hold.getNodeId())
+                .add(FIELD_STATE, hold.getExecutionState().name())
+                .add(FIELD_ITEMS_EXPECTED, hold.getItemsExpected())
+                .add(FIELD_RECORDS_ADDED, hold.getRecordsAdded())
+                .add(FIELD_FOLDERS_ADDED, hold.getFoldersAdded()).get();
+
+        try
+        {
+            collection.insert(insertObj);
+        }
+        catch (DuplicateKeyException e)
+        {
+            throw new DuplicateHoldException(hold.getName(), e);
+        }
+    }
+
+    /**
+     * Updates a hold's node id, state and number of expected items.
+     * If the hold doesn't exist nothing happens
+     *
+     * @param newHoldData  info of the hold to update
+     */
+    public void updateHold(HoldData newHoldData)
+    {
+        DBObject queryObj = getHoldByNameQuery(newHoldData.getName());
+        DBObject updateObj = BasicDBObjectBuilder.start()
+                .push("$set")
+                    .add(FIELD_NODE_ID, newHoldData.getNodeId())
+                    .add(FIELD_STATE, newHoldData.getExecutionState().name())
+                    .add(FIELD_ITEMS_EXPECTED, newHoldData.getItemsExpected())
+                .pop()
+                .get();
+        collection.findAndModify(queryObj, null, null, false, updateObj, true, false);
+    }
+
+    /**
+     * Atomically increments the number of items added to a hold.
+     *
+     * @param name  the name of the hold
+     * @param records  the number of records added
+     * @param folders  the number of record folders added
+     * @return the hold info after the update or null if the hold doesn't exist
+     */
+    public HoldData incrementItemsAdded(String name, int records, int folders)
+    {
+        DBObject queryObj = getHoldByNameQuery(name);
+        DBObject updateObj = BasicDBObjectBuilder.start()
+                .push("$inc")
+                    .add(FIELD_RECORDS_ADDED, records)
+                    .add(FIELD_FOLDERS_ADDED, folders)
+                .pop()
+                .get();
+        DBObject holdDataObj = collection.findAndModify(queryObj, null, null, false, updateObj, true, false);
+        return fromDBObject(holdDataObj);
+    }
+
+    /**
+     * Retrieve a hold by name
+     *
+     * @param name  the name of the hold to retrieve
+     * @return the hold info or null if the hold doesn't exist
+     */
+    public HoldData getHold(String name)
+    {
+        DBObject queryObj = getHoldByNameQuery(name);
+        DBObject holdDataObj = collection.findOne(queryObj);
+        return fromDBObject(holdDataObj);
+    }
+
+    /**
+     * Helper for counting the holds with the specified execution state, or all the holds if the state is null.
+     *
+     * @param state - hold execution state to search for
+     * @return the number of holds with the specified execution state
+     */
+    public long getHoldCount(String state)
+    {
+        QueryBuilder queryObjBuilder = QueryBuilder.start();
+        if (state != null)
+        {
+            queryObjBuilder.and(FIELD_STATE).is(state);
+        }
+        return collection.count(queryObjBuilder.get());
+    }
+
+    /**
+     * Helper to return a list of holds with the specified execution state. Supports pagination.
+     *
+     * @param state - hold execution state to search for
+     * @param skip - the number of entries to skip
+     * @param limit - the number of entries to return
+     * @return a list of holds with the specified execution state
+     */
+    public List<HoldData> getHolds(String state, int skip, int limit)
+    {
+        if (state == null)
+        {
+            throw new IllegalArgumentException();
+        }
+        DBObject queryObj = QueryBuilder.start(FIELD_STATE).is(state).get();
+        DBCursor cursor = collection.find(queryObj).skip(skip).limit(limit);
+        try
+        {
+            List<HoldData> holds = new ArrayList<HoldData>(limit);
+            while (cursor.hasNext())
+            {
+                holds.add(fromDBObject(cursor.next()));
+            }
+            return holds;
+        }
+        finally
+        {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Utility method that returns a Mongo query object to search a hold by name
+     */
+    private DBObject getHoldByNameQuery(String name)
+    {
+        return BasicDBObjectBuilder.start()
+                .add(FIELD_NAME, name)
+                .get();
+    }
+
+    /**
+     * Helper to convert a Mongo DBObject into the API consumable object
+     * <p/>
+     * Note that <tt>null</tt> is handled as a <tt>null</tt> return.
+     */
+    private HoldData fromDBObject(DBObject dbObject)
+    {
+        if (dbObject == null)
+        {
+            return null;
+        }
+
+        String name = (String) dbObject.get(FIELD_NAME);
+        String nodeId = (String) dbObject.get(FIELD_NODE_ID);
+        String state = (String) dbObject.get(FIELD_STATE);
+
+        HoldData hold = new HoldData(name, nodeId, ExecutionState.valueOf(state));
+        hold.setItemsExpected(getInt(dbObject, FIELD_ITEMS_EXPECTED));
+        hold.setRecordsAdded(getInt(dbObject, FIELD_RECORDS_ADDED));
+        hold.setFoldersAdded(getInt(dbObject, FIELD_FOLDERS_ADDED));
+        return hold;
+    }
+
+    private int getInt(DBObject dbObject, String field)
+    {
+        Number value = (Number) dbObject.get(field);
+        return value == null ? 0 : value.intValue();
+    }
+}
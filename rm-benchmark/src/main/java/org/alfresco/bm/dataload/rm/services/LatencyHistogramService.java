@@ -0,0 +1,150 @@
+package org.alfresco.bm.dataload.rm.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.alfresco.bm.dataload.rm.latency.LatencyHistogram;
+
+import com.mongodb.BasicDBObjectBuilder;
+import com.mongodb.DB;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.DuplicateKeyException;
+import com.mongodb.QueryBuilder;
+
+/**
+ * Service to keep the latency histograms of the RM operations, one entry per operation and time window.
+ * <p/>
+ * The drivers add their histograms to the entries with atomic increments, so the entries hold the latencies measured
+ * by all the drivers of the test.
+ *
+ * @since 2.7
+ */
+public class LatencyHistogramService extends BaseMongoService
+{
+    public static final String FIELD_OPERATION = "operation";
+    public static final String FIELD_WINDOW_START = "windowStart";
+    public static final String FIELD_COUNT = "count";
+    public static final String FIELD_TOTAL_VALUE = "totalValue";
+    public static final String FIELD_MIN_VALUE = "minValue";
+    public static final String FIELD_MAX_VALUE = "maxValue";
+    public static final String FIELD_BUCKETS = "buckets";
+
+    public LatencyHistogramService(DB db, String collection)
+    {
+        super(db, collection);
+    }
+
+    @Override
+    protected void setupIndexes()
+    {
+        createMongoIndex("idxLatencyWindowOperation", true, Arrays.asList(FIELD_WINDOW_START, FIELD_OPERATION));
+    }
+
+    /**
+     * Adds latencies to the histogram of an operation for a time window, creating the entry if needed.
+     *
+     * @param operation  the name of the operation
+     * @param windowStart  the start time of the window
+     * @param histogram  the latencies to add
+     */
+    public void addHistogram(String operation, long windowStart, LatencyHistogram histogram)
+    {
+        if (histogram.getTotalCount() == 0)
+        {
+            return;
+        }
+        DBObject queryObj = BasicDBObjectBuilder.start()
+                .add(FIELD_WINDOW_START, windowStart)
+                .add(FIELD_OPERATION, operation)
+                .get();
+        BasicDBObjectBuilder incBuilder = BasicDBObjectBuilder.start()
+                .add(FIELD_COUNT, histogram.getTotalCount())
+                .add(FIELD_TOTAL_VALUE, histogram.getTotalValue());
+        for (Map.Entry<Integer, Long> bucketCount : histogram.getBucketCounts().entrySet())
+        {
+            incBuilder.add(FIELD_BUCKETS + "." + bucketCount.getKey(), bucketCount.getValue());
+        }
+        DBObject updateObj = BasicDBObjectBuilder.start()
+                .add("$inc", incBuilder.get())
+                .push("$min")
+                    .add(FIELD_MIN_VALUE, histogram.getMinValue())
+                .pop()
+                .push("$max")
+                    .add(FIELD_MAX_VALUE, histogram.getMaxValue())
+                .pop()
+                .get();
+        try
+        {
+            collection.update(queryObj, updateObj, true, false);
+        }
+        catch (DuplicateKeyException e)
+        {
+            // another driver created the entry at the same time, it can now be updated
+            collection.update(queryObj, updateObj, true, false);
+        }
+    }
+
+    /**
+     * Helper to return the histograms of all the operations for the time windows starting in a time range,
+     * ordered by window start time.
+     *
+     * @param fromTime - the lowest window start time, inclusive
+     * @param toTime - the highest window start time, exclusive
+     * @return the histograms of the time windows
+     */
+    public List<LatencyWindowData> getWindows(long fromTime, long toTime)
+    {
+        DBObject queryObj = QueryBuilder.start(FIELD_WINDOW_START).greaterThanEquals(fromTime).lessThan(toTime).get();
+        DBObject sortObj = BasicDBObjectBuilder.start()
+                .add(FIELD_WINDOW_START, 1)
+                .add(FIELD_OPERATION, 1)
+                .get();
+        DBCursor cursor = collection.find(queryObj).sort(sortObj);
+        try
+        {
+            List<LatencyWindowData> windows = new ArrayList<LatencyWindowData>();
+            while (cursor.hasNext())
+            {
+                windows.add(fromDBObject(cursor.next()));
+            }
+            return windows;
+        }
+        finally
+        {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Helper to convert a Mongo DBObject into the API consumable object
+     */
+    private LatencyWindowData fromDBObject(DBObject dbObject)
+    {
+        String operation = (String) dbObject.get(FIELD_OPERATION);
+        long windowStart = getLong(dbObject, FIELD_WINDOW_START);
+
+        Map<Integer, Long> bucketCounts = new TreeMap<Integer, Long>();
+        DBObject bucketsObj = (DBObject) dbObject.get(FIELD_BUCKETS);
+        if (bucketsObj != null)
+        {
+            for (String bucket : bucketsObj.keySet())
+            {
+                bucketCounts.put(Integer.valueOf(bucket), getLong(bucketsObj, bucket));
+            }
+        }
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.add(bucketCounts, getLong(dbObject, FIELD_TOTAL_VALUE), getLong(dbObject, FIELD_MIN_VALUE),
+                    getLong(dbObject, FIELD_MAX_VALUE));
+        return new LatencyWindowData(operation, windowStart, histogram);
+    }
+
+    private long getLong(DBObject dbObject, String field)
+    {
+        Number value = (Number) dbObject.get(field);
+        return value == null ? 0 : value.longValue();
+    }
+}
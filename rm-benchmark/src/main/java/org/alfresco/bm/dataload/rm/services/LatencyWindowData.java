@@ -0,0 +1,58 @@
+package org.alfresco.bm.dataload.rm.services;
+
+import org.alfresco.bm.dataload.rm.latency.LatencyHistogram;
+import org.alfresco.bm.utils.ParameterCheck;
+
+/**
+ * Data object representing the latencies of one RM operation measured during one time window, merged from all the
+ * drivers of a benchmark test.
+ *
+ * @since 2.7
+ */
+public class LatencyWindowData
+{
+    private final String operation;
+    private final long windowStart;
+    private final LatencyHistogram histogram;
+
+    /**
+     * @param operation  the name of the operation
+     * @param windowStart  the start time of the window, in milliseconds since the epoch
+     * @param histogram  the latencies of the operation during the window
+     */
+    public LatencyWindowData(String operation, long windowStart, LatencyHistogram histogram)
+    {
+        ParameterCheck.mandatoryString("operation", operation);
+        ParameterCheck.mandatory("histogram", histogram);
+
+        this.operation = operation;
+        this.windowStart = windowStart;
+        this.histogram = histogram;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder("LatencyWindowData [");
+        builder.append("operation=").append(operation)
+               .append(", windowStart=").append(windowStart)
+               .append(", count=").append(histogram.getTotalCount())
+               .append("]");
+        return builder.toString();
+    }
+
+    public String getOperation()
+    {
+        return operation;
+    }
+
+    public long getWindowStart()
+    {
+        return windowStart;
+    }
+
+    public LatencyHistogram getHistogram()
+    {
+        return histogram;
+    }
+}
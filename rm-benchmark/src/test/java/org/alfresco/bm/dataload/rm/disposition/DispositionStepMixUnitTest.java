@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2005-2017 Alfresco Software Limited.
+ *
+ * This file is part of Alfresco
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.alfresco.bm.dataload.rm.disposition;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.alfresco.bm.dataload.RMEventConstants;
+import org.junit.Test;
+
+/**
+ * Unit tests for DispositionStepMix
+ *
+ * @since 2.7
+ */
+public class DispositionStepMixUnitTest implements RMEventConstants
+{
+    @Test
+    public void testWeightedSchedules()
+    {
+        DispositionStepMix mix = new DispositionStepMix("cutoff|transfer|destroy:2; cutoff@case_closed|destroy:1");
+
+        assertEquals(Arrays.asList("cutoff", "transfer", "destroy"), mix.getSchedule(0));
+        assertEquals(Arrays.asList("cutoff", "transfer", "destroy"), mix.getSchedule(1));
+        assertEquals(Arrays.asList("cutoff@case_closed", "destroy"), mix.getSchedule(2));
+        assertEquals(Arrays.asList("cutoff", "transfer", "destroy"), mix.getSchedule(3));
+    }
+
+    @Test
+    public void testFolderSteps()
+    {
+        assertEquals(Arrays.asList(CREATE_DISPOSITION_FOLDER_OPERATION, "completeEvent@case_closed", CUT_OFF_OPERATION,
+                    TRANSFER_OPERATION, TRANSFER_COMPLETE_OPERATION, DESTROY_OPERATION),
+                    DispositionStepMix.getFolderSteps(Arrays.asList("cutoff@case_closed", "transfer", "destroy")));
+    }
+
+    @Test
+    public void testAllSteps()
+    {
+        DispositionStepMix mix = new DispositionStepMix("cutoff|destroy");
+
+        assertEquals(4, mix.getAllSteps().size());
+        assertTrue(mix.getAllSteps().contains(ATTACH_DISPOSITION_SCHEDULE_OPERATION));
+        assertTrue(mix.getAllSteps().contains(CREATE_DISPOSITION_FOLDER_OPERATION));
+    }
+
+    @Test
+    public void testOperationAndEventName()
+    {
+        assertEquals(COMPLETE_EVENT_OPERATION, DispositionStepMix.getOperation("completeEvent@case_closed"));
+        assertEquals("case_closed", DispositionStepMix.getEventName("completeEvent@case_closed"));
+        assertEquals(DESTROY_OPERATION, DispositionStepMix.getOperation(DESTROY_OPERATION));
+        assertNull(DispositionStepMix.getEventName(DESTROY_OPERATION));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownStep()
+    {
+        new DispositionStepMix("cutoff|accession");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStepAfterDestroy()
+    {
+        new DispositionStepMix("cutoff|destroy|transfer");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidWeight()
+    {
+        new DispositionStepMix("cutoff|destroy:x");
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2005-2017 Alfresco Software Limited.
+ *
+ * This file is part of Alfresco
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.alfresco.bm.dataload.rm.disposition;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.alfresco.bm.dataload.RMEventConstants;
+import org.alfresco.bm.dataload.rm.services.DispositionData;
+import org.alfresco.bm.dataload.rm.services.DispositionService;
+import org.alfresco.bm.dataload.rm.services.ExecutionState;
+import org.alfresco.bm.event.Event;
+import org.alfresco.bm.event.EventResult;
+import org.apache.commons.lang3.time.StopWatch;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObjectBuilder;
+import com.mongodb.DBObject;
+
+/**
+ * Unit tests for ExecuteDispositionStep
+ *
+ * @since 2.7
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ExecuteDispositionStepUnitTest implements RMEventConstants
+{
+    private static final String CATEGORY_ID = "categoryId";
+    private static final String FOLDER_NAME = "bmDispFolderTest";
+    private static final String FOLDER_ID = "folderId";
+    private static final List<String> FOLDER_STEPS = Arrays.asList(CREATE_DISPOSITION_FOLDER_OPERATION,
+                COMPLETE_EVENT_OPERATION + "@case_closed", CUT_OFF_OPERATION, TRANSFER_OPERATION, TRANSFER_COMPLETE_OPERATION,
+                DESTROY_OPERATION);
+
+    @Mock
+    private DispositionService mockedDispositionService;
+
+    @Mock
+    private DispositionRestClient mockedDispositionRestClient;
+
+    @InjectMocks
+    private ExecuteDispositionStep executeDispositionStep;
+
+    @Test(expected = IllegalStateException.class)
+    public void testWithNullEvent() throws Exception
+    {
+        executeDispositionStep.processEvent(null, new StopWatch());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testWithNullData() throws Exception
+    {
+        Event mockedEvent = mock(Event.class);
+        when(mockedEvent.getData()).thenReturn(null);
+        executeDispositionStep.processEvent(mockedEvent, new StopWatch());
+    }
+
+    @Test
+    public void testWithIncompleteData() throws Exception
+    {
+        DBObject data = BasicDBObjectBuilder.start()
+                    .add(FIELD_DISPOSITION_ITEM, FOLDER_NAME)
+                    .get();
+        EventResult result = executeDispositionStep.processEvent(new Event("cutOffRecordFolder", data), new StopWatch());
+        assertFalse(result.isSuccess());
+    }
+
+    @Test
+    public void testStepIsNotTheNextStep() throws Exception
+    {
+        DispositionData folder = folderAtStep(2);
+        when(mockedDispositionService.getItem(FOLDER_NAME)).thenReturn(folder);
+
+        EventResult result = executeDispositionStep.processEvent(new Event("destroyRecordFolder", stepData(FOLDER_NAME, DESTROY_OPERATION).get()), new StopWatch());
+
+        assertFalse(result.isSuccess());
+        verify(mockedDispositionRestClient, never()).executeAction(any(String.class), any(String.class), any(DBObject.class), any(String.class), any(String.class));
+    }
+
+    /**
+     * Given a record category scheduled for a cut off on event followed by a destroy
+     * When attaching the retention schedule
+     * Then the schedule and its two steps are created and the record folders that go through it are recorded
+     */
+    @Test
+    public void testAttachSchedule() throws Exception
+    {
+        DispositionData category = new DispositionData(CATEGORY_ID, CATEGORY_ID, null,
+                    Arrays.asList(ATTACH_DISPOSITION_SCHEDULE_OPERATION), ExecutionState.DISPOSITION_STEP_SCHEDULED);
+        when(mockedDispositionService.getItem(CATEGORY_ID)).thenReturn(category);
+        executeDispositionStep.setEventNameComplete("dispositionStepExecuted");
+
+        DBObject data = stepData(CATEGORY_ID, ATTACH_DISPOSITION_SCHEDULE_OPERATION)
+                    .add(FIELD_DISPOSITION_STEPS, Arrays.asList("cutoff@case_closed", "destroy"))
+                    .add(FIELD_FOLDERS_TO_CREATE, 3)
+                    .get();
+        EventResult result = executeDispositionStep.processEvent(new Event("attachDispositionSchedule", data), new StopWatch());
+
+        assertTrue(result.isSuccess());
+        assertEquals("dispositionStepExecuted", result.getNextEvents().get(0).getName());
+        verify(mockedDispositionRestClient).createDispositionSchedule(CATEGORY_ID, "admin", "password");
+        ArgumentCaptor<DBObject> definitionCaptor = ArgumentCaptor.forClass(DBObject.class);
+        verify(mockedDispositionRestClient, times(2)).addDispositionActionDefinition(eq(CATEGORY_ID), definitionCaptor.capture(), eq("admin"), eq("password"));
+        DBObject cutOff = definitionCaptor.getAllValues().get(0);
+        assertEquals(CUT_OFF_OPERATION, cutOff.get("name"));
+        assertEquals(Arrays.asList("case_closed"), cutOff.get("events"));
+        assertNull(cutOff.get("period"));
+        DBObject destroy = definitionCaptor.getAllValues().get(1);
+        assertEquals(DESTROY_OPERATION, destroy.get("name"));
+        assertEquals(ExecuteDispositionStep.IMMEDIATELY_PERIOD, destroy.get("period"));
+
+        ArgumentCaptor<DispositionData> folderCaptor = ArgumentCaptor.forClass(DispositionData.class);
+        verify(mockedDispositionService, times(3)).createItem(folderCaptor.capture());
+        DispositionData folder = folderCaptor.getValue();
+        assertEquals(CATEGORY_ID, folder.getParentId());
+        assertEquals(ExecutionState.DISPOSITION_STEP_PENDING, folder.getExecutionState());
+        assertEquals(Arrays.asList(CREATE_DISPOSITION_FOLDER_OPERATION, COMPLETE_EVENT_OPERATION + "@case_closed",
+                    CUT_OFF_OPERATION, DESTROY_OPERATION), folder.getSteps());
+        assertEquals(ExecutionState.DISPOSITION_COMPLETE, category.getExecutionState());
+        verify(mockedDispositionService).updateItem(category);
+    }
+
+    /**
+     * Given a record folder whose cut off waits for an event that hasn't been completed
+     * When executing the cut off
+     * Then the record folder is queued again for the same step
+     * And the event is reported as successful, marked as not ready
+     */
+    @Test
+    public void testCutOffNotEligible() throws Exception
+    {
+        DispositionData folder = folderAtStep(2);
+        when(mockedDispositionService.getItem(FOLDER_NAME)).thenReturn(folder);
+        when(mockedDispositionRestClient.getNextDispositionAction(FOLDER_ID, "admin", "password"))
+                    .thenReturn(nextAction(CUT_OFF_OPERATION, false, "case_closed"));
+
+        EventResult result = executeDispositionStep.processEvent(new Event("cutOffRecordFolder", stepData(FOLDER_NAME, CUT_OFF_OPERATION).get()), new StopWatch());
+
+        assertTrue(result.isSuccess());
+        assertEquals(Boolean.TRUE, ((DBObject) result.getData()).get("notReady"));
+        assertEquals(1, folder.getAttempts());
+        assertEquals(2, folder.getStepIndex());
+        assertEquals(ExecutionState.DISPOSITION_STEP_PENDING, folder.getExecutionState());
+        verify(mockedDispositionRestClient, never()).executeAction(any(String.class), any(String.class), any(DBObject.class), any(String.class), any(String.class));
+    }
+
+    /**
+     * Given a record folder that has been queued again too many times
+     * When its next step is still not eligible
+     * Then the record folder is marked as failed
+     */
+    @Test
+    public void testCutOffNeverEligible() throws Exception
+    {
+        executeDispositionStep.setMaxNotReadyAttempts(2);
+        DispositionData folder = folderAtStep(2);
+        folder.setAttempts(1);
+        when(mockedDispositionService.getItem(FOLDER_NAME)).thenReturn(folder);
+        when(mockedDispositionRestClient.getNextDispositionAction(FOLDER_ID, "admin", "password"))
+                    .thenReturn(BasicDBObjectBuilder.start("notFound", true).get());
+
+        EventResult result = executeDispositionStep.processEvent(new Event("cutOffRecordFolder", stepData(FOLDER_NAME, CUT_OFF_OPERATION).get()), new StopWatch());
+
+        assertFalse(result.isSuccess());
+        assertEquals(ExecutionState.FAILED, folder.getExecutionState());
+        verify(mockedDispositionService).updateItem(folder);
+    }
+
+    /**
+     * Given a record folder waiting for its transfer
+     * When executing the transfer
+     * Then the transfer is recorded and the record folder waits for the transfer completion
+     */
+    @Test
+    public void testTransfer() throws Exception
+    {
+        DispositionData folder = folderAtStep(3);
+        when(mockedDispositionService.getItem(FOLDER_NAME)).thenReturn(folder);
+        when(mockedDispositionRestClient.getNextDispositionAction(FOLDER_ID, "admin", "password"))
+                    .thenReturn(nextAction(TRANSFER_OPERATION, false));
+        when(mockedDispositionRestClient.executeAction(TRANSFER_OPERATION, FOLDER_ID, null, "admin", "password"))
+                    .thenReturn("workspace://SpacesStore/transferId");
+
+        EventResult result = executeDispositionStep.processEvent(new Event("transferRecordFolder", stepData(FOLDER_NAME, TRANSFER_OPERATION).get()), new StopWatch());
+
+        assertTrue(result.isSuccess());
+        assertEquals("transferId", folder.getTransferId());
+        assertEquals(TRANSFER_COMPLETE_OPERATION, folder.getNextStep());
+        assertEquals(ExecutionState.DISPOSITION_STEP_PENDING, folder.getExecutionState());
+        verify(mockedDispositionService).updateItem(folder);
+    }
+
+    /**
+     * Given a record folder waiting for its last step
+     * When the destroy fails
+     * Then the record folder is marked as failed
+     */
+    @Test
+    public void testDestroyFailure() throws Exception
+    {
+        DispositionData folder = folderAtStep(5);
+        when(mockedDispositionService.getItem(FOLDER_NAME)).thenReturn(folder);
+        when(mockedDispositionRestClient.getNextDispositionAction(FOLDER_ID, "admin", "password"))
+                    .thenReturn(nextAction(DESTROY_OPERATION, false));
+        doThrow(new IOException("connection refused")).when(mockedDispositionRestClient)
+                    .executeAction(DESTROY_OPERATION, FOLDER_ID, null, "admin", "password");
+
+        EventResult result = executeDispositionStep.processEvent(new Event("destroyRecordFolder", stepData(FOLDER_NAME, DESTROY_OPERATION).get()), new StopWatch());
+
+        assertFalse(result.isSuccess());
+        assertEquals("connection refused", ((DBObject) result.getData()).get("error"));
+        assertEquals(ExecutionState.FAILED, folder.getExecutionState());
+        verify(mockedDispositionService).updateItem(folder);
+    }
+
+    private DispositionData folderAtStep(int stepIndex)
+    {
+        DispositionData folder = new DispositionData(FOLDER_NAME, FOLDER_ID, CATEGORY_ID, FOLDER_STEPS, ExecutionState.DISPOSITION_STEP_SCHEDULED);
+        folder.setStepIndex(stepIndex);
+        return folder;
+    }
+
+    private DBObject nextAction(String name, boolean eventsEligible, String... eventNames)
+    {
+        BasicDBList events = new BasicDBList();
+        for (String eventName : eventNames)
+        {
+            events.add(BasicDBObjectBuilder.start("name", eventName).get());
+        }
+        return BasicDBObjectBuilder.start()
+                    .add("name", name)
+                    .add("eventsEligible", eventsEligible)
+                    .add("events", events)
+                    .get();
+    }
+
+    private BasicDBObjectBuilder stepData(String itemName, String step)
+    {
+        return BasicDBObjectBuilder.start()
+                    .add(FIELD_DISPOSITION_ITEM, itemName)
+                    .add(FIELD_LOAD_OPERATION, step)
+                    .add(FIELD_USERNAME, "admin")
+                    .add(FIELD_PASSWORD, "password");
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2005-2017 Alfresco Software Limited.
+ *
+ * This file is part of Alfresco
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.alfresco.bm.dataload.rm.disposition;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.alfresco.bm.cm.FileFolderService;
+import org.alfresco.bm.cm.FolderData;
+import org.alfresco.bm.dataload.RMEventConstants;
+import org.alfresco.bm.dataload.rm.services.DispositionData;
+import org.alfresco.bm.dataload.rm.services.DispositionService;
+import org.alfresco.bm.dataload.rm.services.ExecutionState;
+import org.alfresco.bm.event.Event;
+import org.alfresco.bm.event.EventResult;
+import org.alfresco.bm.session.SessionService;
+import org.apache.commons.lang3.time.StopWatch;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.mongodb.DBObject;
+
+/**
+ * Unit tests for ScheduleDispositionLoaders
+ *
+ * @since 2.7
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ScheduleDispositionLoadersUnitTest implements RMEventConstants
+{
+    private static final int MAX_ACTIVE_LOADERS = 8;
+    private static final String STEP_MIX = "cutoff|destroy;cutoff@case_closed|transfer|destroy";
+
+    @Mock
+    private SessionService mockedSessionService;
+
+    @Mock
+    private DispositionService mockedDispositionService;
+
+    @Mock
+    private FileFolderService mockedFileFolderService;
+
+    @InjectMocks
+    private ScheduleDispositionLoaders scheduleDispositionLoaders;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        scheduleDispositionLoaders.setEnabled(true);
+        scheduleDispositionLoaders.setMaxActiveLoaders(MAX_ACTIVE_LOADERS);
+        scheduleDispositionLoaders.setUsername("admin");
+        scheduleDispositionLoaders.setPassword("password");
+        scheduleDispositionLoaders.setCategoriesNumber(1);
+        scheduleDispositionLoaders.setFoldersPerCategory(4);
+        scheduleDispositionLoaders.setStepMix(STEP_MIX);
+        scheduleDispositionLoaders.afterPropertiesSet();
+    }
+
+    @Test
+    public void testWithEnabledFalse() throws Exception
+    {
+        scheduleDispositionLoaders.setEnabled(false);
+        EventResult result = scheduleDispositionLoaders.processEvent(null, new StopWatch());
+        assertEquals(true, result.isSuccess());
+        assertEquals(ScheduleDispositionLoaders.DISPOSITION_NOT_WANTED_MSG, result.getData());
+        assertEquals(1, result.getNextEvents().size());
+        assertEquals(scheduleDispositionLoaders.getEventNameComplete(), result.getNextEvents().get(0).getName());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidStepMix() throws Exception
+    {
+        scheduleDispositionLoaders.setStepMix("cutoff|archive");
+        scheduleDispositionLoaders.afterPropertiesSet();
+    }
+
+    /**
+     * Given no retention schedule has been attached yet
+     * When running the scheduler with categoriesNumber=2
+     * Then the attachment of the two schedules of the mix to two loaded record categories is scheduled
+     */
+    @Test
+    public void testScheduleScheduleAttachment() throws Exception
+    {
+        scheduleDispositionLoaders.setCategoriesNumber(2);
+        List<FolderData> categories = Arrays.asList(mockFolder("c1"), mockFolder("c2"));
+        when(mockedFileFolderService.getFoldersByCounts(eq(RECORD_CATEGORY_CONTEXT), any(Long.class), any(Long.class),
+                    any(Long.class), any(Long.class), any(Long.class), any(Long.class), eq(0), eq(2))).thenReturn(categories);
+        when(mockedDispositionService.getCategoryCount()).thenReturn(0L);
+
+        EventResult result = scheduleDispositionLoaders.processEvent(null, new StopWatch());
+
+        assertEquals(true, result.isSuccess());
+        List<Event> events = result.getNextEvents();
+        assertEquals(3, events.size());
+        String eventName = scheduleDispositionLoaders.getStepEventName(ATTACH_DISPOSITION_SCHEDULE_OPERATION);
+        assertEquals(eventName, events.get(0).getName());
+        DBObject data = (DBObject) events.get(0).getData();
+        assertEquals("c1", data.get(FIELD_DISPOSITION_ITEM));
+        assertEquals(ATTACH_DISPOSITION_SCHEDULE_OPERATION, data.get(FIELD_LOAD_OPERATION));
+        assertEquals(Arrays.asList("cutoff", "destroy"), data.get(FIELD_DISPOSITION_STEPS));
+        assertEquals(4, data.get(FIELD_FOLDERS_TO_CREATE));
+        data = (DBObject) events.get(1).getData();
+        assertEquals("c2", data.get(FIELD_DISPOSITION_ITEM));
+        assertEquals(Arrays.asList("cutoff@case_closed", "transfer", "destroy"), data.get(FIELD_DISPOSITION_STEPS));
+        assertEquals(scheduleDispositionLoaders.getEventNameRescheduleSelf(), events.get(2).getName());
+        verify(mockedDispositionService, times(2)).createItem(any(DispositionData.class));
+    }
+
+    /**
+     * Given record folders waiting for different steps
+     * When running the scheduler
+     * Then each record folder's next step is scheduled with the event of its operation
+     */
+    @Test
+    public void testScheduleFolderSteps() throws Exception
+    {
+        when(mockedDispositionService.getCategoryCount()).thenReturn(1L);
+        List<String> steps = DispositionStepMix.getFolderSteps(Arrays.asList("cutoff@case_closed", "transfer", "destroy"));
+        DispositionData eventFolder = new DispositionData("f1", "f1Id", "c1", steps, ExecutionState.DISPOSITION_STEP_PENDING);
+        eventFolder.setStepIndex(1);
+        DispositionData transferredFolder = new DispositionData("f2", "f2Id", "c1", steps, ExecutionState.DISPOSITION_STEP_PENDING);
+        transferredFolder.setStepIndex(4);
+        when(mockedDispositionService.getItems(ExecutionState.DISPOSITION_STEP_PENDING.name(), 0, MAX_ACTIVE_LOADERS))
+                    .thenReturn(Arrays.asList(eventFolder, transferredFolder));
+
+        EventResult result = scheduleDispositionLoaders.processEvent(null, new StopWatch());
+
+        List<Event> events = result.getNextEvents();
+        assertEquals(3, events.size());
+        assertEquals(scheduleDispositionLoaders.getStepEventName(COMPLETE_EVENT_OPERATION), events.get(0).getName());
+        assertEquals("completeEvent@case_closed", ((DBObject) events.get(0).getData()).get(FIELD_LOAD_OPERATION));
+        assertEquals(scheduleDispositionLoaders.getStepEventName(TRANSFER_COMPLETE_OPERATION), events.get(1).getName());
+        assertEquals(ExecutionState.DISPOSITION_STEP_SCHEDULED, eventFolder.getExecutionState());
+        assertEquals(ExecutionState.DISPOSITION_STEP_SCHEDULED, transferredFolder.getExecutionState());
+        verify(mockedDispositionService).updateItem(eventFolder);
+        verify(mockedDispositionService).updateItem(transferredFolder);
+    }
+
+    /**
+     * Given record folders still waiting for a step
+     * When running the scheduler
+     * Then the queue depths are reported in the event result
+     */
+    @Test
+    public void testQueueDepths() throws Exception
+    {
+        when(mockedDispositionService.getCategoryCount()).thenReturn(1L);
+        when(mockedDispositionService.getItemCount(ExecutionState.DISPOSITION_STEP_PENDING.name(), null)).thenReturn(5L);
+        when(mockedDispositionService.getItemCount(ExecutionState.DISPOSITION_STEP_PENDING.name(), CUT_OFF_OPERATION)).thenReturn(3L);
+        when(mockedDispositionService.getItemCount(ExecutionState.DISPOSITION_STEP_SCHEDULED.name(), DESTROY_OPERATION)).thenReturn(2L);
+        when(mockedDispositionService.getItemCount(ExecutionState.DISPOSITION_COMPLETE.name(), null)).thenReturn(7L);
+
+        EventResult result = scheduleDispositionLoaders.processEvent(null, new StopWatch());
+
+        assertEquals(1, result.getNextEvents().size());
+        assertEquals(scheduleDispositionLoaders.getEventNameRescheduleSelf(), result.getNextEvents().get(0).getName());
+        DBObject queueDepths = (DBObject) ((DBObject) result.getData()).get("queueDepths");
+        assertEquals(3L, ((DBObject) queueDepths.get("pending")).get(CUT_OFF_OPERATION));
+        assertEquals(0L, ((DBObject) queueDepths.get("pending")).get(DESTROY_OPERATION));
+        assertEquals(2L, ((DBObject) queueDepths.get("inProgress")).get(DESTROY_OPERATION));
+        assertEquals(7L, queueDepths.get("complete"));
+        assertEquals(0L, queueDepths.get("failed"));
+    }
+
+    /**
+     * Given there are fewer loaded record categories than wanted and all the record folders went through their steps
+     * When running the scheduler
+     * Then the done event is raised
+     */
+    @Test
+    public void testDoneWhenCategoriesExhausted() throws Exception
+    {
+        scheduleDispositionLoaders.setCategoriesNumber(3);
+        when(mockedDispositionService.getCategoryCount()).thenReturn(1L);
+        when(mockedFileFolderService.getFoldersByCounts(eq(RECORD_CATEGORY_CONTEXT), any(Long.class), any(Long.class),
+                    any(Long.class), any(Long.class), any(Long.class), any(Long.class), anyInt(), anyInt()))
+                    .thenReturn(Collections.<FolderData>emptyList());
+
+        EventResult result = scheduleDispositionLoaders.processEvent(null, new StopWatch());
+
+        assertEquals(ScheduleDispositionLoaders.DONE_EVENT_MSG, ((DBObject) result.getData()).get("msg"));
+        assertEquals(1, result.getNextEvents().size());
+        assertEquals(scheduleDispositionLoaders.getEventNameComplete(), result.getNextEvents().get(0).getName());
+        assertTrue(((DBObject) result.getData()).get("queueDepths") != null);
+    }
+
+    private FolderData mockFolder(String id)
+    {
+        FolderData folder = mock(FolderData.class);
+        when(folder.getId()).thenReturn(id);
+        return folder;
+    }
+}
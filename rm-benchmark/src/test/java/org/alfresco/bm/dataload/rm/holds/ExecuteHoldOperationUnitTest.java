@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2005-2017 Alfresco Software Limited.
+ *
+ * This file is part of Alfresco
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.alfresco.bm.dataload.rm.holds;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.alfresco.bm.dataload.RMEventConstants;
+import org.alfresco.bm.dataload.rm.services.ExecutionState;
+import org.alfresco.bm.dataload.rm.services.HoldData;
+import org.alfresco.bm.dataload.rm.services.HoldService;
+import org.alfresco.bm.event.Event;
+import org.alfresco.bm.event.EventResult;
+import org.apache.commons.lang3.time.StopWatch;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.mongodb.BasicDBObjectBuilder;
+import com.mongodb.DBObject;
+
+/**
+ * Unit tests for ExecuteHoldOperation
+ *
+ * @since 2.7
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ExecuteHoldOperationUnitTest implements RMEventConstants
+{
+    private static final String HOLD_NAME = "bmHoldTest";
+    private static final String HOLD_ID = "holdId";
+
+    @Mock
+    private HoldService mockedHoldService;
+
+    @Mock
+    private HoldsRestClient mockedHoldsRestClient;
+
+    @InjectMocks
+    private ExecuteHoldOperation executeHoldOperation;
+
+    @Test(expected = IllegalStateException.class)
+    public void testWithNullEvent() throws Exception
+    {
+        executeHoldOperation.processEvent(null, new StopWatch());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testWithNullData() throws Exception
+    {
+        Event mockedEvent = mock(Event.class);
+        when(mockedEvent.getData()).thenReturn(null);
+        executeHoldOperation.processEvent(mockedEvent, new StopWatch());
+    }
+
+    @Test
+    public void testWithIncompleteData() throws Exception
+    {
+        DBObject data = BasicDBObjectBuilder.start()
+                    .add(FIELD_HOLD_NAME, HOLD_NAME)
+                    .get();
+        EventResult result = executeHoldOperation.processEvent(new Event("createHold", data), new StopWatch());
+        assertFalse(result.isSuccess());
+    }
+
+    @Test
+    public void testCreateHold() throws Exception
+    {
+        HoldData hold = new HoldData(HOLD_NAME, null, ExecutionState.SCHEDULED);
+        when(mockedHoldService.getHold(HOLD_NAME)).thenReturn(hold);
+        when(mockedHoldsRestClient.createHold("containerId", HOLD_NAME, ExecuteHoldOperation.DEFAULT_HOLD_REASON, "admin", "password")).thenReturn(HOLD_ID);
+        executeHoldOperation.setEventNameComplete("holdCreated");
+
+        DBObject data = operationData(CREATE_HOLD_OPERATION)
+                    .add(FIELD_HOLDS_CONTAINER_ID, "containerId")
+                    .get();
+        EventResult result = executeHoldOperation.processEvent(new Event("createHold", data), new StopWatch());
+
+        assertTrue(result.isSuccess());
+        assertEquals(1, result.getNextEvents().size());
+        assertEquals("holdCreated", result.getNextEvents().get(0).getName());
+        assertEquals(HOLD_ID, hold.getNodeId());
+        assertEquals(ExecutionState.HOLD_CREATED, hold.getExecutionState());
+        verify(mockedHoldService).updateHold(hold);
+    }
+
+    @Test
+    public void testAddLastBatchToHold() throws Exception
+    {
+        HoldData hold = new HoldData(HOLD_NAME, HOLD_ID, ExecutionState.HOLD_ITEMS_SCHEDULED);
+        when(mockedHoldService.getHold(HOLD_NAME)).thenReturn(hold);
+        HoldData updatedHold = new HoldData(HOLD_NAME, HOLD_ID, ExecutionState.HOLD_ITEMS_SCHEDULED);
+        updatedHold.setItemsExpected(2);
+        updatedHold.setRecordsAdded(1);
+        updatedHold.setFoldersAdded(1);
+        when(mockedHoldService.incrementItemsAdded(HOLD_NAME, 1, 1)).thenReturn(updatedHold);
+
+        DBObject data = operationData(ADD_TO_HOLD_OPERATION)
+                    .add(FIELD_RECORD_IDS, Collections.singletonList("recordId"))
+                    .add(FIELD_RECORD_FOLDER_IDS, Collections.singletonList("folderId"))
+                    .get();
+        EventResult result = executeHoldOperation.processEvent(new Event("addToHold", data), new StopWatch());
+
+        assertTrue(result.isSuccess());
+        verify(mockedHoldsRestClient).addToHold(HOLD_ID, Arrays.asList("recordId", "folderId"), "admin", "password");
+        assertEquals(ExecutionState.HOLD_POPULATED, updatedHold.getExecutionState());
+        verify(mockedHoldService).updateHold(updatedHold);
+    }
+
+    @Test
+    public void testReleaseHoldFailure() throws Exception
+    {
+        HoldData hold = new HoldData(HOLD_NAME, HOLD_ID, ExecutionState.HOLD_RELEASE_SCHEDULED);
+        when(mockedHoldService.getHold(HOLD_NAME)).thenReturn(hold);
+        doThrow(new IOException("connection refused")).when(mockedHoldsRestClient).releaseHold(HOLD_ID, "admin", "password");
+
+        EventResult result = executeHoldOperation.processEvent(new Event("releaseHold", operationData(RELEASE_HOLD_OPERATION).get()), new StopWatch());
+
+        assertFalse(result.isSuccess());
+        assertEquals("connection refused", ((DBObject) result.getData()).get("error"));
+        assertEquals(ExecutionState.FAILED, hold.getExecutionState());
+        verify(mockedHoldService).updateHold(hold);
+    }
+
+    private BasicDBObjectBuilder operationData(String operation)
+    {
+        return BasicDBObjectBuilder.start()
+                    .add(FIELD_HOLD_NAME, HOLD_NAME)
+                    .add(FIELD_LOAD_OPERATION, operation)
+                    .add(FIELD_USERNAME, "admin")
+                    .add(FIELD_PASSWORD, "password");
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright (C) 2005-2017 Alfresco Software Limited.
+ *
+ * This file is part of Alfresco
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.alfresco.bm.dataload.rm.holds;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.alfresco.bm.cm.FileFolderService;
+import org.alfresco.bm.cm.FolderData;
+import org.alfresco.bm.dataload.RMEventConstants;
+import org.alfresco.bm.dataload.rm.services.ExecutionState;
+import org.alfresco.bm.dataload.rm.services.HoldData;
+import org.alfresco.bm.dataload.rm.services.HoldService;
+import org.alfresco.bm.dataload.rm.services.RecordContext;
+import org.alfresco.bm.dataload.rm.services.RecordData;
+import org.alfresco.bm.dataload.rm.services.RecordService;
+import org.alfresco.bm.event.Event;
+import org.alfresco.bm.event.EventResult;
+import org.alfresco.bm.session.SessionService;
+import org.apache.commons.lang3.time.StopWatch;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.mongodb.DBObject;
+
+/**
+ * Unit tests for ScheduleHoldLoaders
+ *
+ * @since 2.7
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ScheduleHoldLoadersUnitTest implements RMEventConstants
+{
+    private static final int MAX_ACTIVE_LOADERS = 8;
+    private static final String FILE_PLAN_ID = "filePlanId";
+    private static final String HOLDS_CONTAINER_ID = "holdsContainerId";
+
+    @Mock
+    private SessionService mockedSessionService;
+
+    @Mock
+    private HoldService mockedHoldService;
+
+    @Mock
+    private HoldsRestClient mockedHoldsRestClient;
+
+    @Mock
+    private RecordService mockedRecordService;
+
+    @Mock
+    private FileFolderService mockedFileFolderService;
+
+    @InjectMocks
+    private ScheduleHoldLoaders scheduleHoldLoaders;
+
+    @Before
+    public void setUp()
+    {
+        scheduleHoldLoaders.setEnabled(true);
+        scheduleHoldLoaders.setMaxActiveLoaders(MAX_ACTIVE_LOADERS);
+        scheduleHoldLoaders.setUsername("admin");
+        scheduleHoldLoaders.setPassword("password");
+        scheduleHoldLoaders.setHoldsNumber(1);
+    }
+
+    @Test
+    public void testWithEnabledFalse() throws Exception
+    {
+        scheduleHoldLoaders.setEnabled(false);
+        EventResult result = scheduleHoldLoaders.processEvent(null, new StopWatch());
+        assertEquals(true, result.isSuccess());
+        assertEquals(ScheduleHoldLoaders.HOLDS_NOT_WANTED_MSG, result.getData());
+        assertEquals(1, result.getNextEvents().size());
+        assertEquals(scheduleHoldLoaders.getEventNameComplete(), result.getNextEvents().get(0).getName());
+    }
+
+    /**
+     * Given no hold has been created yet
+     * When running the scheduler with holdsNumber=2
+     * Then the two holds are stored in the DB and their creation is scheduled
+     */
+    @Test
+    public void testScheduleHoldCreation() throws Exception
+    {
+        scheduleHoldLoaders.setHoldsNumber(2);
+        FolderData filePlan = mock(FolderData.class);
+        when(filePlan.getId()).thenReturn(FILE_PLAN_ID);
+        when(mockedFileFolderService.getFolder(FILEPLAN_CONTEXT, RECORD_CONTAINER_PATH)).thenReturn(filePlan);
+        when(mockedHoldsRestClient.getHoldsContainerId(FILE_PLAN_ID, "admin", "password")).thenReturn(HOLDS_CONTAINER_ID);
+
+        EventResult result = scheduleHoldLoaders.processEvent(null, new StopWatch());
+
+        assertEquals(true, result.isSuccess());
+        List<Event> events = result.getNextEvents();
+        assertEquals(3, events.size());
+        for (Event event : events.subList(0, 2))
+        {
+            assertEquals(scheduleHoldLoaders.getEventNameCreateHold(), event.getName());
+            DBObject data = (DBObject) event.getData();
+            assertEquals(CREATE_HOLD_OPERATION, data.get(FIELD_LOAD_OPERATION));
+            assertEquals(HOLDS_CONTAINER_ID, data.get(FIELD_HOLDS_CONTAINER_ID));
+            assertTrue(((String) data.get(FIELD_HOLD_NAME)).startsWith(HOLD_NAME_IDENTIFIER));
+        }
+        assertEquals(scheduleHoldLoaders.getEventNameRescheduleSelf(), events.get(2).getName());
+        verify(mockedHoldService, times(2)).createHold(any(HoldData.class));
+    }
+
+    /**
+     * Given a created hold and enough records and record folders
+     * When running the scheduler with 3 records, 2 record folders and 2 items per request
+     * Then three add to hold requests containing all the items are scheduled
+     */
+    @Test
+    public void testScheduleMixedAddToHoldRequests() throws Exception
+    {
+        scheduleHoldLoaders.setRecordsPerHold(3);
+        scheduleHoldLoaders.setRecordFoldersPerHold(2);
+        scheduleHoldLoaders.setItemsPerRequest(2);
+        scheduleHoldLoaders.setReleaseHolds(false);
+
+        HoldData hold = new HoldData("hold", "holdId", ExecutionState.HOLD_CREATED);
+        when(mockedHoldService.getHoldCount(null)).thenReturn(1L);
+        when(mockedHoldService.getHolds(ExecutionState.HOLD_CREATED.name(), 0, 100)).thenReturn(Arrays.asList(hold));
+
+        String state = ExecutionState.RECORD_FILED.name();
+        when(mockedRecordService.getRecordCountInSpecifiedPaths(state, null)).thenReturn(3L);
+        List<RecordData> records = Arrays.asList(mockRecord("r1"), mockRecord("r2"), mockRecord("r3"));
+        when(mockedRecordService.getRecordsInPaths(state, null, 0, 3)).thenReturn(records);
+
+        List<FolderData> folders = Arrays.asList(mockFolder("f1"), mockFolder("f2"));
+        when(mockedFileFolderService.getFoldersByCounts(eq(RECORD_FOLDER_CONTEXT), any(Long.class), any(Long.class),
+                    any(Long.class), any(Long.class), any(Long.class), any(Long.class), anyInt(), anyInt())).thenReturn(folders);
+
+        EventResult result = scheduleHoldLoaders.processEvent(null, new StopWatch());
+
+        List<Event> events = result.getNextEvents();
+        assertEquals(4, events.size());
+        Set<String> heldRecords = new HashSet<>();
+        Set<String> heldFolders = new HashSet<>();
+        for (Event event : events.subList(0, 3))
+        {
+            assertEquals(scheduleHoldLoaders.getEventNameAddToHold(), event.getName());
+            DBObject data = (DBObject) event.getData();
+            assertEquals("hold", data.get(FIELD_HOLD_NAME));
+            assertEquals(ADD_TO_HOLD_OPERATION, data.get(FIELD_LOAD_OPERATION));
+            heldRecords.addAll(getIds(data, FIELD_RECORD_IDS));
+            heldFolders.addAll(getIds(data, FIELD_RECORD_FOLDER_IDS));
+        }
+        assertEquals(new HashSet<>(Arrays.asList("r1", "r2", "r3")), heldRecords);
+        assertEquals(new HashSet<>(Arrays.asList("f1", "f2")), heldFolders);
+
+        ArgumentCaptor<HoldData> holdCaptor = ArgumentCaptor.forClass(HoldData.class);
+        verify(mockedHoldService).updateHold(holdCaptor.capture());
+        assertEquals(5, holdCaptor.getValue().getItemsExpected());
+        assertEquals(ExecutionState.HOLD_ITEMS_SCHEDULED, holdCaptor.getValue().getExecutionState());
+    }
+
+    /**
+     * Given all the holds have been populated
+     * When running the scheduler with releaseHolds=true
+     * Then the release of the populated holds is scheduled
+     */
+    @Test
+    public void testScheduleReleases() throws Exception
+    {
+        scheduleHoldLoaders.setReleaseHolds(true);
+        HoldData hold = new HoldData("hold", "holdId", ExecutionState.HOLD_POPULATED);
+        when(mockedHoldService.getHoldCount(null)).thenReturn(1L);
+        when(mockedHoldService.getHolds(ExecutionState.HOLD_POPULATED.name(), 0, MAX_ACTIVE_LOADERS)).thenReturn(Arrays.asList(hold));
+
+        EventResult result = scheduleHoldLoaders.processEvent(null, new StopWatch());
+
+        List<Event> events = result.getNextEvents();
+        assertEquals(2, events.size());
+        assertEquals(scheduleHoldLoaders.getEventNameReleaseHold(), events.get(0).getName());
+        assertEquals(RELEASE_HOLD_OPERATION, ((DBObject) events.get(0).getData()).get(FIELD_LOAD_OPERATION));
+        assertEquals(scheduleHoldLoaders.getEventNameRescheduleSelf(), events.get(1).getName());
+        assertEquals(ExecutionState.HOLD_RELEASE_SCHEDULED, hold.getExecutionState());
+        verify(mockedHoldService).updateHold(hold);
+    }
+
+    /**
+     * Given a release is still in progress
+     * When running the scheduler
+     * Then the scheduler waits for it
+     */
+    @Test
+    public void testWaitForReleaseInProgress() throws Exception
+    {
+        scheduleHoldLoaders.setReleaseHolds(true);
+        when(mockedHoldService.getHoldCount(null)).thenReturn(1L);
+        when(mockedHoldService.getHoldCount(ExecutionState.HOLD_RELEASE_SCHEDULED.name())).thenReturn(1L);
+
+        EventResult result = scheduleHoldLoaders.processEvent(null, new StopWatch());
+
+        assertEquals(1, result.getNextEvents().size());
+        assertEquals(scheduleHoldLoaders.getEventNameRescheduleSelf(), result.getNextEvents().get(0).getName());
+    }
+
+    /**
+     * Given all the holds have been released
+     * When running the scheduler
+     * Then the done event is raised
+     */
+    @Test
+    public void testAllHoldsReleased() throws Exception
+    {
+        scheduleHoldLoaders.setReleaseHolds(true);
+        when(mockedHoldService.getHoldCount(null)).thenReturn(1L);
+
+        EventResult result = scheduleHoldLoaders.processEvent(null, new StopWatch());
+
+        assertEquals(ScheduleHoldLoaders.DONE_EVENT_MSG, result.getData());
+        assertEquals(1, result.getNextEvents().size());
+        assertEquals(scheduleHoldLoaders.getEventNameComplete(), result.getNextEvents().get(0).getName());
+    }
+
+    private RecordData mockRecord(String id)
+    {
+        return new RecordData(id, RecordContext.RECORD, id, "/path", null, ExecutionState.RECORD_FILED);
+    }
+
+    private FolderData mockFolder(String id)
+    {
+        FolderData folder = mock(FolderData.class);
+        when(folder.getId()).thenReturn(id);
+        return folder;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> getIds(DBObject data, String field)
+    {
+        return new ArrayList<>((List<String>) data.get(field));
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2005-2017 Alfresco Software Limited.
+ *
+ * This file is part of Alfresco
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.alfresco.bm.dataload.rm.latency;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for LatencyHistogram
+ *
+ * @since 2.7
+ */
+public class LatencyHistogramUnitTest
+{
+    @Test
+    public void testEmptyHistogram()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0, histogram.getMinValue());
+        assertEquals(0, histogram.getMaxValue());
+        assertEquals(0, histogram.getMean(), 0);
+        assertTrue(histogram.getBucketCounts().isEmpty());
+    }
+
+    @Test
+    public void testLowValuesAreExact()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int value = 1; value <= 100; value++)
+        {
+            histogram.recordValue(value);
+        }
+        assertEquals(50, histogram.getValueAtPercentile(50));
+        assertEquals(95, histogram.getValueAtPercentile(95));
+        assertEquals(99, histogram.getValueAtPercentile(99));
+        assertEquals(100, histogram.getValueAtPercentile(99.9));
+        assertEquals(1, histogram.getMinValue());
+        assertEquals(100, histogram.getMaxValue());
+        assertEquals(50.5, histogram.getMean(), 0);
+    }
+
+    /**
+     * Given latencies spread from milliseconds to minutes
+     * When getting the percentiles
+     * Then every percentile is within the precision of the histogram
+     */
+    @Test
+    public void testPercentilePrecision()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(42);
+        long[] values = new long[50000];
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = (long) (Math.exp(random.nextGaussian() * 2) * 50000);
+            histogram.recordValue(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double percentile : new double[] { 50, 95, 99, 99.9 })
+        {
+            long expected = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long actual = histogram.getValueAtPercentile(percentile);
+            assertTrue("p" + percentile + " " + actual + " vs " + expected, actual >= expected);
+            assertTrue("p" + percentile + " " + actual + " vs " + expected, actual - expected <= expected / 64);
+        }
+        assertEquals(values[values.length - 1], histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testBucketsAreContiguous()
+    {
+        for (long value = 1; value < 1000000; value++)
+        {
+            int bucket = LatencyHistogram.getBucket(value);
+            assertTrue(LatencyHistogram.getHighestValue(bucket) >= value);
+            assertTrue(LatencyHistogram.getHighestValue(bucket - 1) < value);
+        }
+    }
+
+    @Test
+    public void testValuesOutOfRange()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordValue(-5);
+        histogram.recordValue(LatencyHistogram.MAX_VALUE * 10);
+        assertEquals(2, histogram.getTotalCount());
+        assertEquals(0, histogram.getMinValue());
+        assertEquals(LatencyHistogram.MAX_VALUE, histogram.getMaxValue());
+        assertEquals(LatencyHistogram.MAX_VALUE, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void testAdd()
+    {
+        LatencyHistogram histogram1 = new LatencyHistogram();
+        LatencyHistogram histogram2 = new LatencyHistogram();
+        for (int i = 0; i < 90; i++)
+        {
+            histogram1.recordValue(1000);
+        }
+        for (int i = 0; i < 10; i++)
+        {
+            histogram2.recordValue(500000);
+        }
+        histogram1.add(histogram2);
+
+        assertEquals(100, histogram1.getTotalCount());
+        assertEquals(1000, histogram1.getMinValue());
+        assertEquals(500000, histogram1.getMaxValue());
+        assertEquals(1000, histogram1.getValueAtPercentile(90), 1000 / 64);
+        assertEquals(500000, histogram1.getValueAtPercentile(95));
+    }
+
+    @Test
+    public void testAddBucketCounts()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordValue(20);
+        histogram.recordValue(3000);
+        histogram.recordValue(3000000);
+        Map<Integer, Long> bucketCounts = histogram.getBucketCounts();
+        assertEquals(3, bucketCounts.size());
+
+        LatencyHistogram copy = new LatencyHistogram();
+        copy.add(bucketCounts, histogram.getTotalValue(), histogram.getMinValue(), histogram.getMaxValue());
+        assertEquals(histogram.getTotalCount(), copy.getTotalCount());
+        assertEquals(histogram.getMean(), copy.getMean(), 0);
+        assertEquals(histogram.getMinValue(), copy.getMinValue());
+        assertEquals(histogram.getMaxValue(), copy.getMaxValue());
+        assertEquals(histogram.getValueAtPercentile(50), copy.getValueAtPercentile(50));
+        assertEquals(bucketCounts, copy.getBucketCounts());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPercentile()
+    {
+        new LatencyHistogram().getValueAtPercentile(100.1);
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2005-2017 Alfresco Software Limited.
+ *
+ * This file is part of Alfresco
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.alfresco.bm.dataload.rm.latency;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+
+import org.alfresco.bm.dataload.rm.services.LatencyHistogramService;
+import org.alfresco.bm.dataload.rm.services.LatencyWindowData;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+/**
+ * Unit tests for LatencyRecorder
+ *
+ * @since 2.7
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class LatencyRecorderUnitTest
+{
+    @Mock
+    private LatencyHistogramService mockedLatencyHistogramService;
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidWindow()
+    {
+        new LatencyRecorder(mockedLatencyHistogramService, true, 0);
+    }
+
+    @Test
+    public void testWindowsAreAligned()
+    {
+        LatencyRecorder latencyRecorder = new LatencyRecorder(mockedLatencyHistogramService, true, 10);
+        assertEquals(10000, latencyRecorder.getWindowLength());
+        assertEquals(20000, latencyRecorder.getWindowStart(20000));
+        assertEquals(20000, latencyRecorder.getWindowStart(29999));
+        assertEquals(0, latencyRecorder.getStartTime() % 10000);
+    }
+
+    /**
+     * Given latencies recorded for two operations over two windows
+     * When removing the windows before the start of the second one
+     * Then only the histograms of the first window are removed
+     */
+    @Test
+    public void testRemoveWindows()
+    {
+        LatencyRecorder latencyRecorder = new LatencyRecorder(mockedLatencyHistogramService, true, 10);
+        latencyRecorder.recordLatency("createHold", 100, 10000);
+        latencyRecorder.recordLatency("createHold", 300, 19999);
+        latencyRecorder.recordLatency("releaseHold", 200, 15000);
+        latencyRecorder.recordLatency("createHold", 400, 20000);
+
+        List<LatencyWindowData> windows = latencyRecorder.removeWindows(20000);
+        assertEquals(2, windows.size());
+        for (LatencyWindowData window : windows)
+        {
+            assertEquals(10000, window.getWindowStart());
+            assertEquals("createHold".equals(window.getOperation()) ? 2 : 1, window.getHistogram().getTotalCount());
+        }
+
+        windows = latencyRecorder.removeWindows(Long.MAX_VALUE);
+        assertEquals(1, windows.size());
+        assertEquals(20000, windows.get(0).getWindowStart());
+        assertEquals(400, windows.get(0).getHistogram().getMaxValue());
+        assertTrue(latencyRecorder.removeWindows(Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    public void testFlushAll()
+    {
+        LatencyRecorder latencyRecorder = new LatencyRecorder(mockedLatencyHistogramService, true, 10);
+        latencyRecorder.recordLatency("cutoff", 1500);
+        latencyRecorder.recordLatency("cutoff", 2500);
+        latencyRecorder.flush(true);
+
+        ArgumentCaptor<LatencyHistogram> histogramCaptor = ArgumentCaptor.forClass(LatencyHistogram.class);
+        verify(mockedLatencyHistogramService).addHistogram(eq("cutoff"), anyLong(), histogramCaptor.capture());
+        assertEquals(2, histogramCaptor.getValue().getTotalCount());
+
+        latencyRecorder.flush(true);
+        verify(mockedLatencyHistogramService, times(1)).addHistogram(anyString(), anyLong(), any(LatencyHistogram.class));
+    }
+
+    @Test
+    public void testFlushFailureDropsWindow()
+    {
+        doThrow(new RuntimeException("Mongo is down")).when(mockedLatencyHistogramService)
+                    .addHistogram(anyString(), anyLong(), any(LatencyHistogram.class));
+        LatencyRecorder latencyRecorder = new LatencyRecorder(mockedLatencyHistogramService, true, 10);
+        latencyRecorder.recordLatency("destroy", 1500);
+        latencyRecorder.flush(true);
+
+        assertTrue(latencyRecorder.removeWindows(Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    public void testDisabled() throws Exception
+    {
+        LatencyRecorder latencyRecorder = new LatencyRecorder(mockedLatencyHistogramService, false, 10);
+        latencyRecorder.afterPropertiesSet();
+        latencyRecorder.recordLatency("transfer", 1500);
+        latencyRecorder.destroy();
+
+        verify(mockedLatencyHistogramService, never()).addHistogram(anyString(), anyLong(), any(LatencyHistogram.class));
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2005-2017 Alfresco Software Limited.
+ *
+ * This file is part of Alfresco
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.alfresco.bm.dataload.rm.latency;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.alfresco.bm.dataload.rm.services.LatencyHistogramService;
+import org.alfresco.bm.dataload.rm.services.LatencyWindowData;
+import org.alfresco.bm.event.Event;
+import org.alfresco.bm.event.EventResult;
+import org.apache.commons.lang3.time.StopWatch;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObjectBuilder;
+import com.mongodb.DBObject;
+
+/**
+ * Unit tests for ReportLatencyHistograms
+ *
+ * @since 2.7
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ReportLatencyHistogramsUnitTest
+{
+    private static final long REPORT_TIME = 1500000000000L;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private LatencyHistogramService mockedLatencyHistogramService;
+
+    @InjectMocks
+    private ReportLatencyHistograms reportLatencyHistograms;
+
+    private LatencyRecorder latencyRecorder;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        latencyRecorder = new LatencyRecorder(mockedLatencyHistogramService, true, 10);
+        reportLatencyHistograms.setLatencyRecorder(latencyRecorder);
+        reportLatencyHistograms.afterPropertiesSet();
+    }
+
+    @Test
+    public void testWithLatencyRecorderDisabled() throws Exception
+    {
+        reportLatencyHistograms.setLatencyRecorder(new LatencyRecorder(mockedLatencyHistogramService, false, 10));
+        EventResult result = reportLatencyHistograms.processEvent(new Event("reportLatencyHistograms", null), new StopWatch());
+        assertEquals(true, result.isSuccess());
+        assertEquals(ReportLatencyHistograms.LATENCY_REPORT_NOT_WANTED_MSG, result.getData());
+        assertEquals(1, result.getNextEvents().size());
+        assertEquals(reportLatencyHistograms.getEventNameComplete(), result.getNextEvents().get(0).getName());
+    }
+
+    /**
+     * Given latencies still held by this driver
+     * When running the report the first time
+     * Then the latencies are saved and the report is rescheduled to leave the other drivers time to save theirs
+     */
+    @Test
+    public void testFirstRunSavesLatencies() throws Exception
+    {
+        latencyRecorder.recordLatency(ReportLatencyHistograms.CREATE_HOLD_OPERATION, 2000);
+        EventResult result = reportLatencyHistograms.processEvent(new Event("reportLatencyHistograms", null), new StopWatch());
+
+        assertEquals(true, result.isSuccess());
+        assertEquals(ReportLatencyHistograms.WAITING_FOR_DRIVERS_MSG, result.getData());
+        verify(mockedLatencyHistogramService).addHistogram(eq(ReportLatencyHistograms.CREATE_HOLD_OPERATION), anyLong(),
+                    any(LatencyHistogram.class));
+        verify(mockedLatencyHistogramService, never()).getWindows(anyLong(), anyLong());
+        assertEquals(1, result.getNextEvents().size());
+        Event nextEvent = result.getNextEvents().get(0);
+        assertEquals(reportLatencyHistograms.getEventNameRescheduleSelf(), nextEvent.getName());
+        assertNotNull(((DBObject) nextEvent.getData()).get(ReportLatencyHistograms.FIELD_REPORT_TIME));
+    }
+
+    /**
+     * Given the windows saved by all the drivers for two operations
+     * When running the report the second time
+     * Then the percentiles of each operation and the throughput of each window are reported
+     */
+    @Test
+    public void testReport() throws Exception
+    {
+        reportLatencyHistograms.setReportDirectory(temporaryFolder.getRoot().getAbsolutePath());
+        List<LatencyWindowData> windows = Arrays.asList(
+                    new LatencyWindowData("cutoff", 10000, getHistogram(90, 1000)),
+                    new LatencyWindowData("destroy", 10000, getHistogram(5, 3000)),
+                    new LatencyWindowData("cutoff", 20000, getHistogram(10, 500000)));
+        when(mockedLatencyHistogramService.getWindows(latencyRecorder.getStartTime(), REPORT_TIME)).thenReturn(windows);
+
+        DBObject dataObj = BasicDBObjectBuilder.start().add(ReportLatencyHistograms.FIELD_REPORT_TIME, REPORT_TIME).get();
+        EventResult result = reportLatencyHistograms.processEvent(new Event("reportLatencyHistograms", dataObj), new StopWatch());
+
+        assertEquals(true, result.isSuccess());
+        assertEquals(1, result.getNextEvents().size());
+        assertEquals(reportLatencyHistograms.getEventNameComplete(), result.getNextEvents().get(0).getName());
+
+        DBObject resultData = (DBObject) result.getData();
+        DBObject cutoffObj = (DBObject) ((DBObject) resultData.get("operations")).get("cutoff");
+        assertEquals(100L, cutoffObj.get("count"));
+        assertEquals(1.0, (Double) cutoffObj.get("minMs"), 0);
+        assertEquals(1.0, (Double) cutoffObj.get("p50Ms"), 0.02);
+        assertEquals(500.0, (Double) cutoffObj.get("p95Ms"), 0);
+        assertEquals(500.0, (Double) cutoffObj.get("p99_9Ms"), 0);
+        assertEquals(500.0, (Double) cutoffObj.get("maxMs"), 0);
+        DBObject destroyObj = (DBObject) ((DBObject) resultData.get("operations")).get("destroy");
+        assertEquals(5L, destroyObj.get("count"));
+
+        BasicDBList throughput = (BasicDBList) resultData.get("throughput");
+        assertEquals(2, throughput.size());
+        DBObject firstWindowObj = (DBObject) throughput.get(0);
+        assertEquals(10000L, firstWindowObj.get("windowStart"));
+        DBObject firstWindowCutoffObj = (DBObject) ((DBObject) firstWindowObj.get("operations")).get("cutoff");
+        assertEquals(9.0, (Double) firstWindowCutoffObj.get("opsPerSecond"), 0);
+        assertNotNull(((DBObject) firstWindowObj.get("operations")).get("destroy"));
+
+        File[] reports = temporaryFolder.getRoot().listFiles();
+        assertEquals(2, reports.length);
+        for (File report : reports)
+        {
+            List<String> lines = Files.readAllLines(report.toPath(), StandardCharsets.UTF_8);
+            if (report.getName().startsWith("rm-latency-summary-"))
+            {
+                assertEquals("operation,count,meanMs,minMs,p50Ms,p95Ms,p99Ms,p99_9Ms,maxMs", lines.get(0));
+                assertEquals(3, lines.size());
+                assertTrue(lines.get(1).startsWith("cutoff,100,"));
+            }
+            else
+            {
+                assertEquals("windowStart,operation,count,opsPerSecond,p99Ms", lines.get(0));
+                assertEquals(4, lines.size());
+                assertEquals("20000,cutoff,10,1.000,500.000", lines.get(3));
+            }
+        }
+    }
+
+    private LatencyHistogram getHistogram(int count, long value)
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < count; i++)
+        {
+            histogram.recordValue(value);
+        }
+        return histogram;
+    }
+}
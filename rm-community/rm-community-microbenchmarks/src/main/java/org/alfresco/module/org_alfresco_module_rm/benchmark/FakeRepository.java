@@ -0,0 +1,558 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.benchmark;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.alfresco.model.ContentModel;
+import org.alfresco.module.org_alfresco_module_rm.caveat.RMListOfValuesConstraint;
+import org.alfresco.module.org_alfresco_module_rm.fileplan.FilePlanComponentKind;
+import org.alfresco.module.org_alfresco_module_rm.fileplan.FilePlanService;
+import org.alfresco.module.org_alfresco_module_rm.model.RecordsManagementModel;
+import org.alfresco.repo.cache.DefaultSimpleCache;
+import org.alfresco.repo.cache.SimpleCache;
+import org.alfresco.service.cmr.dictionary.Constraint;
+import org.alfresco.service.cmr.dictionary.ConstraintDefinition;
+import org.alfresco.service.cmr.dictionary.DataTypeDefinition;
+import org.alfresco.service.cmr.dictionary.DictionaryService;
+import org.alfresco.service.cmr.dictionary.PropertyDefinition;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.repository.NodeService;
+import org.alfresco.service.cmr.repository.StoreRef;
+import org.alfresco.service.cmr.security.AccessStatus;
+import org.alfresco.service.cmr.security.AuthorityService;
+import org.alfresco.service.cmr.security.PermissionService;
+import org.alfresco.service.namespace.NamespaceService;
+import org.alfresco.service.namespace.QName;
+import org.springframework.context.ApplicationContext;
+
+/**
+ * In-memory stand-in for the repository services used by the security decision path.
+ * <p>
+ * A file plan is populated with records, each with extended readers and writers and a caveat marking.  The benchmark
+ * user is a member of one group per reader, but only the last one actually reads the records, so that group
+ * membership checks have to look at every authority.  Once built the repository is only ever read and can be shared
+ * by all the benchmark threads.
+ *
+ * @since 2.7
+ */
+@SuppressWarnings("deprecation")
+public class FakeRepository implements RecordsManagementModel
+{
+    /** Benchmark user */
+    public static final String USER = "rmBenchmarkUser";
+
+    /** Benchmark model */
+    public static final String BENCHMARK_URI = "http://www.alfresco.org/model/rmbenchmark/1.0";
+    public static final String BENCHMARK_PREFIX = "rmb";
+    public static final QName ASPECT_CAVEAT = QName.createQName(BENCHMARK_URI, "caveat");
+    public static final QName PROP_MARKING = QName.createQName(BENCHMARK_URI, "marking");
+
+    /** Caveat list constraining the marking */
+    public static final String MARKING_LIST = BENCHMARK_PREFIX + ":markingList";
+
+    /** Number of distinct ACLs the records are spread over */
+    private static final int ACL_COUNT = 16;
+
+    /** Store */
+    private static final StoreRef STORE = StoreRef.STORE_REF_WORKSPACE_SPACESSTORE;
+
+    /** File plan and records */
+    private final NodeRef filePlan = new NodeRef(STORE, "rmb-fileplan");
+    private final List<NodeRef> records;
+
+    /** Node state */
+    private final Map<NodeRef, Set<QName>> aspects = new HashMap<NodeRef, Set<QName>>();
+    private final Map<NodeRef, Map<QName, Serializable>> properties = new HashMap<NodeRef, Map<QName, Serializable>>();
+    private final Map<NodeRef, Long> aclIds = new HashMap<NodeRef, Long>();
+
+    /** Authorities the benchmark user belongs to */
+    private final Set<String> userAuthorities;
+
+    /** Dictionary */
+    private final Map<QName, PropertyDefinition> propertyDefinitions = new HashMap<QName, PropertyDefinition>();
+
+    /** Caveat configuration */
+    private final SimpleCache<String, Map<String, List<String>>> caveatConfig = new DefaultSimpleCache<String, Map<String, List<String>>>();
+
+    /** Beans available from the application context */
+    private final Map<String, Object> beans = new ConcurrentHashMap<String, Object>();
+
+    /** Services */
+    private final NodeService nodeService;
+    private final PermissionService permissionService;
+    private final AuthorityService authorityService;
+    private final FilePlanService filePlanService;
+    private final DictionaryService dictionaryService;
+    private final NamespaceService namespaceService;
+    private final ApplicationContext applicationContext;
+
+    /**
+     * @param nodeCount         number of records in the file plan
+     * @param authoritySetSize  number of extended readers of each record and of groups of the benchmark user
+     * @param caveatListSize    number of values in the caveat list
+     */
+    public FakeRepository(int nodeCount, int authoritySetSize, int caveatListSize)
+    {
+        userAuthorities = createUserAuthorities(authoritySetSize);
+        records = new ArrayList<NodeRef>(nodeCount);
+        for (int i = 0; i < nodeCount; i++)
+        {
+            records.add(createRecord(i, authoritySetSize, caveatListSize));
+        }
+        aspects.put(filePlan, Collections.singleton(ASPECT_FILE_PLAN_COMPONENT));
+        properties.put(filePlan, new HashMap<QName, Serializable>());
+        aclIds.put(filePlan, Long.valueOf(ACL_COUNT));
+
+        createDictionary();
+        createCaveatConfig(caveatListSize);
+
+        nodeService = FakeService.create(NodeService.class, new FakeNodeService());
+        permissionService = FakeService.create(PermissionService.class, new FakePermissionService());
+        authorityService = FakeService.create(AuthorityService.class, new FakeAuthorityService());
+        filePlanService = FakeService.create(FilePlanService.class, new FakeFilePlanService());
+        dictionaryService = FakeService.create(DictionaryService.class, new FakeDictionaryService());
+        namespaceService = FakeService.create(NamespaceService.class, new FakeNamespaceService());
+        applicationContext = FakeService.create(ApplicationContext.class, new FakeApplicationContext());
+
+        registerBean("dbNodeService", nodeService);
+        registerBean("authorityService", authorityService);
+        registerBean("filePlanService", filePlanService);
+    }
+
+    /**
+     * @return  {@link List}&lt;{@link NodeRef}&gt;   records of the file plan
+     */
+    public List<NodeRef> getRecords()
+    {
+        return records;
+    }
+
+    /**
+     * @return  {@link NodeRef} file plan
+     */
+    public NodeRef getFilePlan()
+    {
+        return filePlan;
+    }
+
+    /**
+     * Makes a bean available from the application context.
+     *
+     * @param name  bean name
+     * @param bean  bean
+     */
+    public void registerBean(String name, Object bean)
+    {
+        beans.put(name, bean);
+    }
+
+    public NodeService getNodeService()
+    {
+        return nodeService;
+    }
+
+    public PermissionService getPermissionService()
+    {
+        return permissionService;
+    }
+
+    public AuthorityService getAuthorityService()
+    {
+        return authorityService;
+    }
+
+    public FilePlanService getFilePlanService()
+    {
+        return filePlanService;
+    }
+
+    public DictionaryService getDictionaryService()
+    {
+        return dictionaryService;
+    }
+
+    public NamespaceService getNamespaceService()
+    {
+        return namespaceService;
+    }
+
+    public ApplicationContext getApplicationContext()
+    {
+        return applicationContext;
+    }
+
+    public SimpleCache<String, Map<String, List<String>>> getCaveatConfig()
+    {
+        return caveatConfig;
+    }
+
+    /**
+     * The user belongs to one group less than there are readers, plus the group of the last reader.
+     */
+    private static Set<String> createUserAuthorities(int authoritySetSize)
+    {
+        Set<String> result = new HashSet<String>(authoritySetSize * 2);
+        for (int i = 0; i < authoritySetSize - 1; i++)
+        {
+            result.add("GROUP_rmbMember" + i);
+        }
+        result.add(getReader(authoritySetSize - 1));
+        return Collections.unmodifiableSet(result);
+    }
+
+    private static String getReader(int index)
+    {
+        return "GROUP_rmbReader" + index;
+    }
+
+    private NodeRef createRecord(int index, int authoritySetSize, int caveatListSize)
+    {
+        NodeRef nodeRef = new NodeRef(STORE, "rmb-record-" + index);
+
+        Set<QName> nodeAspects = new HashSet<QName>();
+        nodeAspects.add(ASPECT_FILE_PLAN_COMPONENT);
+        nodeAspects.add(ASPECT_RECORD);
+        nodeAspects.add(ASPECT_DECLARED_RECORD);
+        nodeAspects.add(ASPECT_EXTENDED_SECURITY);
+        nodeAspects.add(ASPECT_CAVEAT);
+        aspects.put(nodeRef, nodeAspects);
+
+        HashMap<String, Integer> readers = new HashMap<String, Integer>();
+        for (int i = 0; i < authoritySetSize; i++)
+        {
+            readers.put(getReader(i), Integer.valueOf(1));
+        }
+        HashMap<String, Integer> writers = new HashMap<String, Integer>();
+        writers.put(getReader(0), Integer.valueOf(1));
+
+        ArrayList<String> marking = new ArrayList<String>(1);
+        marking.add(getMarking(index % caveatListSize));
+
+        Map<QName, Serializable> nodeProperties = new HashMap<QName, Serializable>();
+        nodeProperties.put(ContentModel.PROP_NAME, "record-" + index + ".txt");
+        nodeProperties.put(ContentModel.PROP_TITLE, "Record " + index);
+        nodeProperties.put(ContentModel.PROP_CREATOR, "admin");
+        nodeProperties.put(ContentModel.PROP_OWNER, "admin");
+        nodeProperties.put(PROP_IDENTIFIER, "2017-" + index);
+        nodeProperties.put(PROP_READERS, readers);
+        nodeProperties.put(PROP_WRITERS, writers);
+        nodeProperties.put(PROP_MARKING, marking);
+        properties.put(nodeRef, nodeProperties);
+
+        aclIds.put(nodeRef, Long.valueOf(index % ACL_COUNT));
+        return nodeRef;
+    }
+
+    private static String getMarking(int index)
+    {
+        return "MARKING-" + index;
+    }
+
+    private void createDictionary()
+    {
+        RMListOfValuesConstraint markingList = new RMListOfValuesConstraint();
+        markingList.setShortName(MARKING_LIST);
+        markingList.setMatchLogic(RMListOfValuesConstraint.MatchLogic.AND.toString());
+
+        propertyDefinitions.put(ContentModel.PROP_NAME, createTextProperty(null));
+        propertyDefinitions.put(ContentModel.PROP_TITLE, createTextProperty(null));
+        propertyDefinitions.put(ContentModel.PROP_CREATOR, createTextProperty(null));
+        propertyDefinitions.put(ContentModel.PROP_OWNER, createTextProperty(null));
+        propertyDefinitions.put(PROP_IDENTIFIER, createTextProperty(null));
+        propertyDefinitions.put(PROP_MARKING, createTextProperty(markingList));
+    }
+
+    private static PropertyDefinition createTextProperty(final Constraint constraint)
+    {
+        final DataTypeDefinition text = FakeService.create(DataTypeDefinition.class, new FakeService()
+        {
+            @Override
+            protected Object handle(String method, Object[] args)
+            {
+                return "getName".equals(method) ? DataTypeDefinition.TEXT : unsupported(method);
+            }
+        });
+
+        final List<ConstraintDefinition> constraints = new ArrayList<ConstraintDefinition>(1);
+        if (constraint != null)
+        {
+            constraints.add(FakeService.create(ConstraintDefinition.class, new FakeService()
+            {
+                @Override
+                protected Object handle(String method, Object[] args)
+                {
+                    return "getConstraint".equals(method) ? constraint : unsupported(method);
+                }
+            }));
+        }
+
+        return FakeService.create(PropertyDefinition.class, new FakeService()
+        {
+            @Override
+            protected Object handle(String method, Object[] args)
+            {
+                if ("getDataType".equals(method))
+                {
+                    return text;
+                }
+                else if ("getConstraints".equals(method))
+                {
+                    return constraints;
+                }
+                return unsupported(method);
+            }
+        });
+    }
+
+    /**
+     * Each of the user's groups is allowed a share of the markings, so that all the markings are allowed overall.
+     */
+    private void createCaveatConfig(int caveatListSize)
+    {
+        List<String> groups = new ArrayList<String>(userAuthorities);
+        Collections.sort(groups);
+
+        Map<String, List<String>> allowed = new HashMap<String, List<String>>();
+        for (int i = 0; i < caveatListSize; i++)
+        {
+            String group = groups.get(i % groups.size());
+            List<String> values = allowed.get(group);
+            if (values == null)
+            {
+                values = new ArrayList<String>();
+                allowed.put(group, values);
+            }
+            values.add(getMarking(i));
+        }
+        caveatConfig.put(MARKING_LIST, allowed);
+    }
+
+    /**
+     * Copies a property value, as the node service hands out a new value on every call.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Serializable copy(Serializable value)
+    {
+        if (value instanceof Map)
+        {
+            return new HashMap((Map) value);
+        }
+        else if (value instanceof List)
+        {
+            return new ArrayList((List) value);
+        }
+        return value;
+    }
+
+    /**
+     * Node service
+     */
+    private class FakeNodeService extends FakeService
+    {
+        @Override
+        protected Object handle(String method, Object[] args)
+        {
+            if ("exists".equals(method))
+            {
+                return args[0] instanceof NodeRef && aspects.containsKey(args[0]);
+            }
+            else if ("hasAspect".equals(method))
+            {
+                Set<QName> nodeAspects = aspects.get(args[0]);
+                return nodeAspects != null && nodeAspects.contains(args[1]);
+            }
+            else if ("getProperty".equals(method))
+            {
+                Map<QName, Serializable> nodeProperties = properties.get(args[0]);
+                return nodeProperties == null ? null : copy(nodeProperties.get(args[1]));
+            }
+            else if ("getProperties".equals(method))
+            {
+                Map<QName, Serializable> result = new HashMap<QName, Serializable>();
+                Map<QName, Serializable> nodeProperties = properties.get(args[0]);
+                if (nodeProperties != null)
+                {
+                    for (Map.Entry<QName, Serializable> entry : nodeProperties.entrySet())
+                    {
+                        result.put(entry.getKey(), copy(entry.getValue()));
+                    }
+                }
+                return result;
+            }
+            else if ("getNodeAclId".equals(method))
+            {
+                return aclIds.get(args[0]);
+            }
+            else if ("getRootNode".equals(method))
+            {
+                return new NodeRef((StoreRef) args[0], "rmb-root");
+            }
+            else if ("getChildByName".equals(method))
+            {
+                return null;
+            }
+            return unsupported(method);
+        }
+    }
+
+    /**
+     * Permission service, the benchmark user is granted everything
+     */
+    private class FakePermissionService extends FakeService
+    {
+        @Override
+        protected Object handle(String method, Object[] args)
+        {
+            if ("hasPermission".equals(method))
+            {
+                return aspects.containsKey(args[0]) ? AccessStatus.ALLOWED : AccessStatus.DENIED;
+            }
+            return unsupported(method);
+        }
+    }
+
+    /**
+     * Authority service
+     */
+    private class FakeAuthorityService extends FakeService
+    {
+        @Override
+        protected Object handle(String method, Object[] args)
+        {
+            if ("getAuthoritiesForUser".equals(method))
+            {
+                return USER.equals(args[0]) ? userAuthorities : Collections.<String>emptySet();
+            }
+            return unsupported(method);
+        }
+    }
+
+    /**
+     * File plan service
+     */
+    private class FakeFilePlanService extends FakeService
+    {
+        @Override
+        protected Object handle(String method, Object[] args)
+        {
+            if ("isFilePlanComponent".equals(method))
+            {
+                Set<QName> nodeAspects = aspects.get(args[0]);
+                return nodeAspects != null && nodeAspects.contains(ASPECT_FILE_PLAN_COMPONENT);
+            }
+            else if ("getFilePlanComponentKind".equals(method))
+            {
+                if (filePlan.equals(args[0]))
+                {
+                    return FilePlanComponentKind.FILE_PLAN;
+                }
+                return aspects.containsKey(args[0]) ? FilePlanComponentKind.RECORD : null;
+            }
+            else if ("getFilePlan".equals(method))
+            {
+                return aspects.containsKey(args[0]) ? filePlan : null;
+            }
+            return unsupported(method);
+        }
+    }
+
+    /**
+     * Dictionary service
+     */
+    private class FakeDictionaryService extends FakeService
+    {
+        @Override
+        protected Object handle(String method, Object[] args)
+        {
+            if ("getProperty".equals(method) && args.length == 1)
+            {
+                return propertyDefinitions.get(args[0]);
+            }
+            return unsupported(method);
+        }
+    }
+
+    /**
+     * Namespace service
+     */
+    private static class FakeNamespaceService extends FakeService
+    {
+        @Override
+        protected Object handle(String method, Object[] args)
+        {
+            if ("getNamespaceURI".equals(method))
+            {
+                if (RM_PREFIX.equals(args[0]))
+                {
+                    return RM_URI;
+                }
+                else if (NamespaceService.CONTENT_MODEL_PREFIX.equals(args[0]))
+                {
+                    return NamespaceService.CONTENT_MODEL_1_0_URI;
+                }
+                else if (BENCHMARK_PREFIX.equals(args[0]))
+                {
+                    return BENCHMARK_URI;
+                }
+                return null;
+            }
+            return unsupported(method);
+        }
+    }
+
+    /**
+     * Application context
+     */
+    private class FakeApplicationContext extends FakeService
+    {
+        @Override
+        protected Object handle(String method, Object[] args)
+        {
+            if ("getBean".equals(method) && args.length == 1)
+            {
+                Object bean = beans.get(args[0]);
+                if (bean == null)
+                {
+                    throw new IllegalStateException("Bean " + args[0] + " is not available to the benchmark.");
+                }
+                return bean;
+            }
+            return unsupported(method);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Base of the in-memory service fakes used by the benchmarks.
+ * <p>
+ * A fake only answers the methods used by the code being measured, any other call fails so that a change in the
+ * measured code that reaches further into the repository is noticed rather than silently measured against a
+ * default value.  Unlike a mock nothing is recorded, so the fakes can be called for as long as a benchmark runs.
+ *
+ * @since 2.7
+ */
+public abstract class FakeService implements InvocationHandler
+{
+    /**
+     * Creates a fake implementation of a service interface.
+     *
+     * @param type      service interface
+     * @param handler   handler answering the calls
+     * @return T        fake service
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T create(Class<T> type, FakeService handler)
+    {
+        return (T) Proxy.newProxyInstance(FakeService.class.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+
+    /**
+     * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+     */
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args)
+    {
+        String name = method.getName();
+        if (method.getDeclaringClass() == Object.class)
+        {
+            if ("equals".equals(name))
+            {
+                return proxy == args[0];
+            }
+            else if ("hashCode".equals(name))
+            {
+                return System.identityHashCode(proxy);
+            }
+            return getClass().getSimpleName();
+        }
+        return handle(name, args);
+    }
+
+    /**
+     * Answers a call made on the fake service.
+     *
+     * @param method    name of the method called
+     * @param args      arguments of the call, null if there are none
+     * @return Object   result of the call
+     */
+    protected abstract Object handle(String method, Object[] args);
+
+    /**
+     * @param method    name of the method called
+     * @return Object   never returns, the call is always rejected
+     */
+    protected Object unsupported(String method)
+    {
+        throw new UnsupportedOperationException(method + " is not supported by " + getClass().getSimpleName());
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.benchmark;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.alfresco.repo.security.authentication.AuthenticationUtil;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Microbenchmarks of the security decision path.
+ * <p>
+ * The single node benchmarks evaluate one record per simulated transaction, cycling through the file plan, so that
+ * every evaluation misses the transaction caches as the first check of a request does.  The batch benchmark checks
+ * read access to the whole file plan in one transaction, as a search result or listing is checked.
+ *
+ * @since 2.7
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class SecurityDecisionBenchmark
+{
+    /**
+     * Per thread authentication and position in the file plan.
+     */
+    @State(Scope.Thread)
+    public static class Cursor
+    {
+        private int index;
+
+        @Setup(Level.Trial)
+        public void authenticate()
+        {
+            AuthenticationUtil.setFullyAuthenticatedUser(FakeRepository.USER);
+        }
+
+        @TearDown(Level.Trial)
+        public void clear()
+        {
+            AuthenticationUtil.clearCurrentSecurityContext();
+        }
+
+        NodeRef next(SecurityDecisionState state)
+        {
+            NodeRef nodeRef = state.records[index];
+            index = (index + 1) % state.records.length;
+            return nodeRef;
+        }
+    }
+
+    @Benchmark
+    public int declarativeCapabilityEvaluate(SecurityDecisionState state, Cursor cursor)
+    {
+        NodeRef nodeRef = cursor.next(state);
+        SimulatedTransaction.begin();
+        try
+        {
+            return state.capability.evaluate(nodeRef);
+        }
+        finally
+        {
+            SimulatedTransaction.end();
+        }
+    }
+
+    @Benchmark
+    public int checkRmRead(SecurityDecisionState state, Cursor cursor)
+    {
+        NodeRef nodeRef = cursor.next(state);
+        SimulatedTransaction.begin();
+        try
+        {
+            return state.securityCommon.checkRead(nodeRef);
+        }
+        finally
+        {
+            SimulatedTransaction.end();
+        }
+    }
+
+    @Benchmark
+    public Map<NodeRef, Integer> checkReadBatch(SecurityDecisionState state)
+    {
+        Map<NodeRef, Integer> results = new HashMap<NodeRef, Integer>(state.records.length * 2);
+        SimulatedTransaction.begin();
+        try
+        {
+            state.securityCommon.checkRead(Arrays.asList(state.records), results);
+            return results;
+        }
+        finally
+        {
+            SimulatedTransaction.end();
+        }
+    }
+
+    @Benchmark
+    public boolean caveatHasAccess(SecurityDecisionState state, Cursor cursor)
+    {
+        // the caveat check does not use the transaction caches
+        return state.caveatConfigComponent.hasAccess(cursor.next(state));
+    }
+
+    @Benchmark
+    public boolean extendedReaderHasAuthority(SecurityDecisionState state, Cursor cursor)
+    {
+        NodeRef nodeRef = cursor.next(state);
+        SimulatedTransaction.begin();
+        try
+        {
+            return state.extendedReaderDynamicAuthority.hasAuthority(nodeRef, FakeRepository.USER);
+        }
+        finally
+        {
+            SimulatedTransaction.end();
+        }
+    }
+}
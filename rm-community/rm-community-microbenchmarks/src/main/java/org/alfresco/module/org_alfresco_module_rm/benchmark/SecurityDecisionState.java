@@ -0,0 +1,140 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.benchmark;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.alfresco.module.org_alfresco_module_rm.capability.RMPermissionModel;
+import org.alfresco.module.org_alfresco_module_rm.capability.RMSecurityCommon;
+import org.alfresco.module.org_alfresco_module_rm.capability.declarative.DeclarativeCapability;
+import org.alfresco.module.org_alfresco_module_rm.capability.declarative.condition.HasAspectCapabilityCondition;
+import org.alfresco.module.org_alfresco_module_rm.caveat.RMCaveatConfigComponentImpl;
+import org.alfresco.module.org_alfresco_module_rm.security.ExtendedReaderDynamicAuthority;
+import org.alfresco.repo.transaction.TransactionalResourceHelper;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Components of the security decision path, wired against a {@link FakeRepository}.
+ *
+ * @since 2.7
+ */
+@State(Scope.Benchmark)
+@SuppressWarnings("deprecation")
+public class SecurityDecisionState
+{
+    /** Number of records in the file plan */
+    @Param({"1000", "100000"})
+    public int nodeCount;
+
+    /** Number of extended readers per record and of groups of the benchmark user */
+    @Param({"10", "200"})
+    public int authoritySetSize;
+
+    /** Number of values in the caveat list */
+    @Param({"10", "500"})
+    public int caveatListSize;
+
+    /** In-memory repository */
+    FakeRepository repository;
+
+    /** Records of the file plan */
+    NodeRef[] records;
+
+    /** Components under measurement */
+    DeclarativeCapability capability;
+    RMSecurityCommon securityCommon;
+    RMCaveatConfigComponentImpl caveatConfigComponent;
+    ExtendedReaderDynamicAuthority extendedReaderDynamicAuthority;
+
+    @Setup
+    public void setup()
+    {
+        repository = new FakeRepository(nodeCount, authoritySetSize, caveatListSize);
+        List<NodeRef> recordList = repository.getRecords();
+        records = recordList.toArray(new NodeRef[recordList.size()]);
+
+        caveatConfigComponent = new RMCaveatConfigComponentImpl();
+        caveatConfigComponent.setNodeService(repository.getNodeService());
+        caveatConfigComponent.setDictionaryService(repository.getDictionaryService());
+        caveatConfigComponent.setNamespaceService(repository.getNamespaceService());
+        caveatConfigComponent.setAuthorityService(repository.getAuthorityService());
+        caveatConfigComponent.setCaveatConfig(repository.getCaveatConfig());
+        caveatConfigComponent.setCaveatAspects(Collections.singletonList(FakeRepository.ASPECT_CAVEAT.toString()));
+        caveatConfigComponent.init();
+
+        securityCommon = new RMSecurityCommon();
+        wire(securityCommon);
+
+        // mirrors the shape of the out of the box record capabilities
+        registerCondition("capabilityCondition.declared", "rma:declaredRecord");
+        registerCondition("capabilityCondition.frozen", "rma:frozen");
+        registerCondition("capabilityCondition.cutoff", "rma:cutOff");
+        Map<String, Boolean> conditions = new HashMap<String, Boolean>();
+        conditions.put("capabilityCondition.declared", Boolean.TRUE);
+        conditions.put("capabilityCondition.frozen", Boolean.FALSE);
+        conditions.put("capabilityCondition.cutoff", Boolean.FALSE);
+
+        capability = new DeclarativeCapability();
+        wire(capability);
+        capability.setName("rmbCapability");
+        capability.setKinds(Arrays.asList("RECORD", "RECORD_FOLDER"));
+        capability.setPermissions(Arrays.asList(RMPermissionModel.VIEW_RECORDS, RMPermissionModel.FILING));
+        capability.setConditions(conditions);
+
+        extendedReaderDynamicAuthority = new ExtendedReaderDynamicAuthority();
+        extendedReaderDynamicAuthority.setApplicationContext(repository.getApplicationContext());
+    }
+
+    private void wire(RMSecurityCommon component)
+    {
+        component.setNodeService(repository.getNodeService());
+        component.setPermissionService(repository.getPermissionService());
+        component.setCaveatConfigComponent(caveatConfigComponent);
+        component.setApplicationContext(repository.getApplicationContext());
+    }
+
+    private void registerCondition(String name, String aspectName)
+    {
+        HasAspectCapabilityCondition condition = new HasAspectCapabilityCondition();
+        condition.setBeanName(name);
+        condition.setAspectName(aspectName);
+        condition.setNodeService(repository.getNodeService());
+        condition.setNamespaceService(repository.getNamespaceService());
+        condition.setTransactionalResourceHelper(new TransactionalResourceHelper());
+        repository.registerBean(name, condition);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+/**
+ * Simulates the transaction synchronisation the security checks rely on for their transaction caches.
+ * <p>
+ * No transaction manager is involved, only the synchronisation is activated for the current thread so that
+ * transactional resources can be bound, and it is completed and cleared again when the simulated transaction ends.
+ *
+ * @since 2.7
+ */
+public final class SimulatedTransaction
+{
+    private SimulatedTransaction()
+    {
+    }
+
+    /**
+     * Begins a simulated transaction on the current thread.
+     */
+    public static void begin()
+    {
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    /**
+     * Ends the simulated transaction of the current thread, discarding all the resources bound during it.
+     */
+    public static void end()
+    {
+        try
+        {
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+        }
+        finally
+        {
+            TransactionSynchronizationManager.clearSynchronization();
+
+            // make sure nothing is carried over into the next transaction
+            List<Object> keys = new ArrayList<Object>(TransactionSynchronizationManager.getResourceMap().keySet());
+            for (Object key : keys)
+            {
+                TransactionSynchronizationManager.unbindResourceIfPossible(key);
+            }
+        }
+    }
+}
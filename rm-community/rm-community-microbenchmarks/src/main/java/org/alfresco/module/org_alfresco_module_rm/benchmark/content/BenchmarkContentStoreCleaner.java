@@ -0,0 +1,75 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.benchmark.content;
+
+import java.util.Set;
+
+import org.alfresco.module.org_alfresco_module_rm.benchmark.SimulatedTransaction;
+import org.alfresco.module.org_alfresco_module_rm.content.EagerContentStoreCleaner;
+import org.alfresco.module.org_alfresco_module_rm.util.TransactionalResourceHelper;
+import org.alfresco.repo.content.ContentStore;
+
+/**
+ * Eager content store cleaner that cleanses and deletes content straight away, as the cleaner does after the
+ * destroying transaction commits.
+ *
+ * @since 2.7
+ */
+public class BenchmarkContentStoreCleaner extends EagerContentStoreCleaner
+{
+    /** transactional resource helper */
+    private final TransactionalResourceHelper transactionalResourceHelper = new TransactionalResourceHelper();
+
+    public BenchmarkContentStoreCleaner()
+    {
+        setTransactionalResourceHelper(transactionalResourceHelper);
+    }
+
+    /**
+     * Cleanses and deletes content from a store.
+     *
+     * @param contentUrl    content url
+     * @param store         content store
+     * @return boolean      true if the content was deleted, false otherwise
+     */
+    public boolean cleanseAndDelete(String contentUrl, ContentStore store)
+    {
+        SimulatedTransaction.begin();
+        try
+        {
+            Set<String> cleansingUrls = transactionalResourceHelper.getSet(KEY_POST_COMMIT_CLEANSING_URLS);
+            cleansingUrls.add(contentUrl);
+            return deleteFromStore(contentUrl, store);
+        }
+        finally
+        {
+            SimulatedTransaction.end();
+        }
+    }
+}
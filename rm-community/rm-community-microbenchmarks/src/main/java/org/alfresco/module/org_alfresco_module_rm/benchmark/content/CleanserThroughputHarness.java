@@ -0,0 +1,335 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.benchmark.content;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.alfresco.module.org_alfresco_module_rm.content.cleanser.ContentCleanser;
+import org.alfresco.repo.content.ContentContext;
+import org.alfresco.repo.content.ContentStore;
+import org.alfresco.repo.content.filestore.FileContentReader;
+import org.alfresco.repo.content.filestore.FileContentStore;
+import org.alfresco.service.cmr.repository.ContentWriter;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import org.springframework.core.io.ClassPathResource;
+
+/**
+ * Measures the throughput of the registered content cleansers.
+ * <p>
+ * Synthetic files of each configured size are written to a file content store in a temporary directory and
+ * cleansed, first by calling the cleanser directly and then through the eager content store cleaner, which also
+ * deletes the content as it does when a record is destroyed.  No repository, database or network is needed.
+ * <p>
+ * The cleansers are the {@link ContentCleanser} beans registered in the module's content context.  Options are given
+ * as <tt>name=value</tt> arguments:
+ * <ul>
+ *   <li><tt>sizes</tt> file sizes, with an optional K or M suffix (default 16K,1M,8M)</li>
+ *   <li><tt>files</tt> number of files cleansed per iteration (default 10)</li>
+ *   <li><tt>warmups</tt> number of discarded iterations (default 1)</li>
+ *   <li><tt>iterations</tt> number of measured iterations (default 3)</li>
+ *   <li><tt>cleansers</tt> names of the cleanser beans to run (default all)</li>
+ *   <li><tt>dir</tt> directory the store is created in (default the temporary directory)</li>
+ *   <li><tt>result</tt> file the JSON results are written to (default rm-cleanser-throughput.json)</li>
+ * </ul>
+ *
+ * @since 2.7
+ */
+public final class CleanserThroughputHarness
+{
+    /** Context the cleansers are registered in */
+    private static final String CONTENT_CONTEXT = "alfresco/module/org_alfresco_module_rm/content-context.xml";
+
+    /** Seed of the synthetic content, so that every run writes the same files */
+    private static final long SEED = 5220022L;
+
+    private static final double MB = 1024d * 1024d;
+    private static final double GB = MB * 1024d;
+
+    /** Cleansing paths */
+    private static final String PATH_CLEANSER = "cleanser";
+    private static final String PATH_STORE_CLEANER = "storeCleaner";
+
+    private final Map<String, String> options;
+    private final Random random = new Random(SEED);
+
+    private CleanserThroughputHarness(Map<String, String> options)
+    {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        Map<String, String> options = new HashMap<String, String>();
+        for (String arg : args)
+        {
+            int index = arg.indexOf('=');
+            if (index <= 0)
+            {
+                throw new IllegalArgumentException("Options are given as name=value, not " + arg);
+            }
+            options.put(arg.substring(0, index), arg.substring(index + 1));
+        }
+        new CleanserThroughputHarness(options).run();
+    }
+
+    private String getOption(String name, String defaultValue)
+    {
+        String value = options.get(name);
+        return value == null ? defaultValue : value;
+    }
+
+    private int getIntOption(String name, int defaultValue)
+    {
+        return Integer.parseInt(getOption(name, Integer.toString(defaultValue)));
+    }
+
+    private void run() throws IOException, JSONException
+    {
+        int files = getIntOption("files", 10);
+        int warmups = getIntOption("warmups", 1);
+        int iterations = getIntOption("iterations", 3);
+        List<Long> sizes = parseSizes(getOption("sizes", "16K,1M,8M"));
+        Map<String, ContentCleanser> cleansers = getRegisteredCleansers(getOption("cleansers", null));
+
+        File parent = new File(getOption("dir", System.getProperty("java.io.tmpdir")));
+        File root = Files.createTempDirectory(parent.toPath(), "rm-cleanser-").toFile();
+        ContentStore store = new FileContentStore(null, root);
+
+        JSONArray results = new JSONArray();
+        try
+        {
+            for (Map.Entry<String, ContentCleanser> cleanser : cleansers.entrySet())
+            {
+                BenchmarkContentStoreCleaner storeCleaner = new BenchmarkContentStoreCleaner();
+                storeCleaner.setContentCleanser(cleanser.getValue());
+
+                for (long size : sizes)
+                {
+                    for (String path : Arrays.asList(PATH_CLEANSER, PATH_STORE_CLEANER))
+                    {
+                        for (int iteration = 0; iteration < warmups + iterations; iteration++)
+                        {
+                            List<String> contentUrls = createContent(store, files, size);
+                            ResourceUsage usage = cleanse(path, cleanser.getValue(), storeCleaner, store, contentUrls);
+                            deleteContent(store, contentUrls);
+
+                            if (iteration >= warmups)
+                            {
+                                JSONObject result = toJSON(cleanser.getKey(), path, size, files, iteration - warmups, usage);
+                                results.put(result);
+                                System.out.println(result);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        finally
+        {
+            deleteDirectory(root);
+        }
+
+        JSONObject report = new JSONObject();
+        report.put("javaVersion", System.getProperty("java.version"));
+        report.put("javaVm", System.getProperty("java.vm.name"));
+        report.put("os", System.getProperty("os.name") + " " + System.getProperty("os.version"));
+        report.put("storeRoot", root.getAbsolutePath());
+        report.put("results", results);
+
+        File resultFile = new File(getOption("result", "rm-cleanser-throughput.json"));
+        try (Writer writer = Files.newBufferedWriter(resultFile.toPath(), StandardCharsets.UTF_8))
+        {
+            writer.write(report.toString(2));
+        }
+        System.out.println("Results written to " + resultFile.getAbsolutePath());
+    }
+
+    /**
+     * Gets the cleansers registered in the content context, without starting the rest of the context.
+     */
+    private static Map<String, ContentCleanser> getRegisteredCleansers(String names)
+    {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        new XmlBeanDefinitionReader(beanFactory).loadBeanDefinitions(new ClassPathResource(CONTENT_CONTEXT));
+
+        List<String> beanNames = (names == null ?
+                    Arrays.asList(beanFactory.getBeanNamesForType(ContentCleanser.class, true, false)) :
+                    Arrays.asList(names.split(",")));
+
+        Map<String, ContentCleanser> result = new LinkedHashMap<String, ContentCleanser>();
+        for (String beanName : beanNames)
+        {
+            result.put(beanName, beanFactory.getBean(beanName.trim(), ContentCleanser.class));
+        }
+        if (result.isEmpty())
+        {
+            throw new IllegalStateException("No content cleanser is registered in " + CONTENT_CONTEXT);
+        }
+        return result;
+    }
+
+    private static List<Long> parseSizes(String sizes)
+    {
+        List<Long> result = new ArrayList<Long>();
+        for (String size : sizes.split(","))
+        {
+            String value = size.trim().toUpperCase();
+            long multiplier = 1;
+            if (value.endsWith("K"))
+            {
+                multiplier = 1024;
+            }
+            else if (value.endsWith("M"))
+            {
+                multiplier = 1024 * 1024;
+            }
+            if (multiplier != 1)
+            {
+                value = value.substring(0, value.length() - 1);
+            }
+            result.add(Long.parseLong(value) * multiplier);
+        }
+        return result;
+    }
+
+    private List<String> createContent(ContentStore store, int files, long size) throws IOException
+    {
+        byte[] buffer = new byte[64 * 1024];
+        List<String> contentUrls = new ArrayList<String>(files);
+        for (int i = 0; i < files; i++)
+        {
+            ContentWriter writer = store.getWriter(new ContentContext(null, null));
+            try (OutputStream os = writer.getContentOutputStream())
+            {
+                long remaining = size;
+                while (remaining > 0)
+                {
+                    random.nextBytes(buffer);
+                    int length = (int) Math.min(buffer.length, remaining);
+                    os.write(buffer, 0, length);
+                    remaining -= length;
+                }
+            }
+            contentUrls.add(writer.getContentUrl());
+        }
+        return contentUrls;
+    }
+
+    private static ResourceUsage cleanse(String path, ContentCleanser cleanser, BenchmarkContentStoreCleaner storeCleaner,
+                ContentStore store, List<String> contentUrls)
+    {
+        List<File> files = new ArrayList<File>(contentUrls.size());
+        if (PATH_CLEANSER.equals(path))
+        {
+            for (String contentUrl : contentUrls)
+            {
+                files.add(((FileContentReader) store.getReader(contentUrl)).getFile());
+            }
+        }
+
+        ResourceUsage start = ResourceUsage.sample();
+        if (PATH_CLEANSER.equals(path))
+        {
+            for (File file : files)
+            {
+                cleanser.cleanse(file);
+            }
+        }
+        else
+        {
+            for (String contentUrl : contentUrls)
+            {
+                storeCleaner.cleanseAndDelete(contentUrl, store);
+            }
+        }
+        return ResourceUsage.sample().since(start);
+    }
+
+    private static void deleteContent(ContentStore store, List<String> contentUrls)
+    {
+        for (String contentUrl : contentUrls)
+        {
+            if (store.exists(contentUrl))
+            {
+                store.delete(contentUrl);
+            }
+        }
+    }
+
+    private static JSONObject toJSON(String cleanser, String path, long size, int files, int iteration, ResourceUsage usage) throws JSONException
+    {
+        double megabytes = (size * files) / MB;
+        double seconds = usage.getWallNanos() / 1e9d;
+
+        JSONObject result = new JSONObject();
+        result.put("cleanser", cleanser);
+        result.put("path", path);
+        result.put("fileSize", size);
+        result.put("files", files);
+        result.put("iteration", iteration);
+        result.put("seconds", seconds);
+        result.put("throughputMBPerSecond", megabytes / seconds);
+        result.put("cpuSecondsPerGB", (usage.getCpuNanos() / 1e9d) / (megabytes * MB / GB));
+        result.put("allocatedBytes", usage.getAllocatedBytes());
+        result.put("allocationRateMBPerSecond", usage.getAllocatedBytes() < 0 ? -1 : (usage.getAllocatedBytes() / MB) / seconds);
+        result.put("writeSyscalls", usage.getWriteSyscalls());
+        result.put("writeSyscallsPerMB", usage.getWriteSyscalls() < 0 ? -1 : usage.getWriteSyscalls() / megabytes);
+        result.put("bytesWritten", usage.getBytesWritten());
+        return result;
+    }
+
+    private static void deleteDirectory(File directory)
+    {
+        File[] children = directory.listFiles();
+        if (children != null)
+        {
+            for (File child : children)
+            {
+                deleteDirectory(child);
+            }
+        }
+        directory.delete();
+    }
+}
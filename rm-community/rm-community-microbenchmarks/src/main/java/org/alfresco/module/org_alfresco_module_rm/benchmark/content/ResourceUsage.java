@@ -0,0 +1,151 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.benchmark.content;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Snapshot of the resources used by the current thread and process.
+ * <p>
+ * CPU time and allocated bytes are those of the current thread.  Write system calls and bytes written are read from
+ * <tt>/proc/self/io</tt>, they are those of the whole process and are only available on Linux, -1 is reported
+ * otherwise.
+ *
+ * @since 2.7
+ */
+public final class ResourceUsage
+{
+    /** Process I/O accounting */
+    private static final File PROC_IO = new File("/proc/self/io");
+
+    /** Thread management bean, allocation accounting is HotSpot specific */
+    private static final java.lang.management.ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final long wallNanos;
+    private final long cpuNanos;
+    private final long allocatedBytes;
+    private final long writeSyscalls;
+    private final long bytesWritten;
+
+    private ResourceUsage(long wallNanos, long cpuNanos, long allocatedBytes, long writeSyscalls, long bytesWritten)
+    {
+        this.wallNanos = wallNanos;
+        this.cpuNanos = cpuNanos;
+        this.allocatedBytes = allocatedBytes;
+        this.writeSyscalls = writeSyscalls;
+        this.bytesWritten = bytesWritten;
+    }
+
+    /**
+     * @return  {@link ResourceUsage}   resources used so far
+     */
+    public static ResourceUsage sample()
+    {
+        long writeSyscalls = -1;
+        long bytesWritten = -1;
+        if (PROC_IO.canRead())
+        {
+            try
+            {
+                List<String> lines = Files.readAllLines(PROC_IO.toPath(), StandardCharsets.US_ASCII);
+                for (String line : lines)
+                {
+                    if (line.startsWith("syscw:"))
+                    {
+                        writeSyscalls = Long.parseLong(line.substring(6).trim());
+                    }
+                    else if (line.startsWith("wchar:"))
+                    {
+                        bytesWritten = Long.parseLong(line.substring(6).trim());
+                    }
+                }
+            }
+            catch (IOException e)
+            {
+                // I/O accounting is not available
+            }
+        }
+
+        long allocatedBytes = -1;
+        if (THREADS instanceof com.sun.management.ThreadMXBean)
+        {
+            allocatedBytes = ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+
+        return new ResourceUsage(System.nanoTime(), THREADS.getCurrentThreadCpuTime(), allocatedBytes, writeSyscalls, bytesWritten);
+    }
+
+    /**
+     * @param start             earlier snapshot
+     * @return {@link ResourceUsage}  resources used since the earlier snapshot
+     */
+    public ResourceUsage since(ResourceUsage start)
+    {
+        return new ResourceUsage(wallNanos - start.wallNanos,
+                                 cpuNanos - start.cpuNanos,
+                                 difference(allocatedBytes, start.allocatedBytes),
+                                 difference(writeSyscalls, start.writeSyscalls),
+                                 difference(bytesWritten, start.bytesWritten));
+    }
+
+    private static long difference(long end, long start)
+    {
+        return (end < 0 || start < 0) ? -1 : end - start;
+    }
+
+    public long getWallNanos()
+    {
+        return wallNanos;
+    }
+
+    public long getCpuNanos()
+    {
+        return cpuNanos;
+    }
+
+    public long getAllocatedBytes()
+    {
+        return allocatedBytes;
+    }
+
+    public long getWriteSyscalls()
+    {
+        return writeSyscalls;
+    }
+
+    public long getBytesWritten()
+    {
+        return bytesWritten;
+    }
+}
@@ -0,0 +1,46 @@
+<#--
+ #%L
+ Alfresco Records Management Module
+ %%
+ Copyright (C) 2005 - 2017 Alfresco Software Limited
+ %%
+ This file is part of the Alfresco software.
+ -
+ If the software was purchased under a paid Alfresco license, the terms of
+ the paid license agreement will prevail.  Otherwise, the software is
+ provided under the following open source license terms:
+ -
+ Alfresco is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ -
+ Alfresco is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ -
+ You should have received a copy of the GNU Lesser General Public License
+ along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ #L%
+-->
+<#escape x as jsonUtils.encodeJSONString(x)>
+{
+   "data":
+   {
+      "serverTime": ${serverTime?c},
+      "jobs":
+      {
+      <#list jobs?keys as jobName>
+         <#assign metrics = jobs[jobName]>
+         "${jobName}":
+         {
+         <#list metrics?keys as metric>
+            "${metric}": ${metrics[metric]?c}<#if metric_has_next>,</#if>
+         </#list>
+         }<#if jobName_has_next>,</#if>
+      </#list>
+      }
+   }
+}
+</#escape>
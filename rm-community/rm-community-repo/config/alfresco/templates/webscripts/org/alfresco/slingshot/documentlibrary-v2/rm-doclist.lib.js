@@ -262,6 +262,9 @@ function rm_doclist_main()
        locationNode,
        item;
 
+   // Evaluate the records management values of the whole page in one go
+   rmService.prefetchNodeValues(nodes);
+
    // Loop through and evaluate each node in this result set
    for each (node in nodes)
    {
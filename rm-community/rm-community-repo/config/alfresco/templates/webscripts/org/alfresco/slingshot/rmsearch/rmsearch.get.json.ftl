@@ -66,7 +66,13 @@
          }
       }<#if item_has_next>,</#if>
       </#list>
-   ]
+   ]<#if paging??>,
+   "paging":
+   {
+      "totalItems": ${paging.totalItems?c},
+      "hasMoreItems": ${paging.hasMoreItems?string("true", "false")}<#if paging.nextCursor??>,
+      "nextCursor": "${paging.nextCursor}"</#if>
+   }</#if>
    <#else>
       "errorMessage": "${errorMessage}"
    </#if>
@@ -33,8 +33,11 @@ import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.alfresco.error.AlfrescoRuntimeException;
 import org.alfresco.model.ContentModel;
@@ -44,6 +47,7 @@ import org.alfresco.repo.content.MimetypeMap;
 import org.alfresco.repo.dictionary.DictionaryRepositoryBootstrap;
 import org.alfresco.repo.dictionary.M2Model;
 import org.alfresco.repo.dictionary.M2Namespace;
+import org.alfresco.repo.transaction.AlfrescoTransactionSupport;
 import org.alfresco.service.cmr.dictionary.AspectDefinition;
 import org.alfresco.service.cmr.dictionary.AssociationDefinition;
 import org.alfresco.service.cmr.dictionary.DictionaryException;
@@ -74,6 +78,7 @@ public class RecordsManagementAdminBase implements RecordsManagementCustomModel
     /** Constants */
     private static final String SOURCE_TARGET_ID_SEPARATOR = "__";
     private static final NodeRef RM_CUSTOM_MODEL_NODE_REF = new NodeRef(StoreRef.STORE_REF_WORKSPACE_SPACESSTORE, "records_management_custom_model");
+    private static final String KEY_CUSTOM_MODEL_CHANGE_SET = "rm.admin.customModelChangeSet";
 
     /** I18N */
     private static final String MSG_CUSTOM_MODEL_NOT_FOUND = "rm.admin.custom-model-not-found";
@@ -263,6 +268,30 @@ public class RecordsManagementAdminBase implements RecordsManagementCustomModel
      * @return The deserialized model
      */
     protected M2Model readCustomContentModel(NodeRef modelNodeRef)
+    {
+        CustomModelChangeSet changeSet = getCustomModelChangeSet();
+        if (changeSet != null)
+        {
+            // work on the in-memory copy so that the changes in the set build on each other
+            M2Model model = changeSet.getModel(modelNodeRef);
+            if (model == null)
+            {
+                model = loadCustomContentModel(modelNodeRef);
+                changeSet.putModel(modelNodeRef, model);
+            }
+            return model;
+        }
+
+        return loadCustomContentModel(modelNodeRef);
+    }
+
+    /**
+     * Reads and deserializes the content of the model
+     *
+     * @param modelNodeRef The node reference of the model
+     * @return The deserialized model
+     */
+    private M2Model loadCustomContentModel(NodeRef modelNodeRef)
     {
         ContentReader reader = getContentService().getReader(modelNodeRef, ContentModel.TYPE_CONTENT);
         if (!reader.exists())
@@ -303,6 +332,25 @@ public class RecordsManagementAdminBase implements RecordsManagementCustomModel
      * @param deserializedModel The deserialized model
      */
     protected void writeCustomContentModel(NodeRef modelRef, M2Model deserializedModel)
+    {
+        CustomModelChangeSet changeSet = getCustomModelChangeSet();
+        if (changeSet != null)
+        {
+            // the model is saved, and so deployed, once when the change set is applied
+            changeSet.markChanged(modelRef, deserializedModel);
+            return;
+        }
+
+        saveCustomContentModel(modelRef, deserializedModel);
+    }
+
+    /**
+     * Serializes the model and saves it as the content of the model node
+     *
+     * @param modelRef The node reference of the model
+     * @param deserializedModel The deserialized model
+     */
+    protected void saveCustomContentModel(NodeRef modelRef, M2Model deserializedModel)
     {
         ContentWriter writer = getContentService().getWriter(modelRef, ContentModel.TYPE_CONTENT, true);
         writer.setMimetype(MimetypeMap.MIMETYPE_XML);
@@ -325,6 +373,93 @@ public class RecordsManagementAdminBase implements RecordsManagementCustomModel
         }
     }
 
+    /**
+     * Gets the custom model change set bound to the current transaction
+     *
+     * @return The current change set, <code>null</code> if custom model changes are written straight away
+     */
+    protected CustomModelChangeSet getCustomModelChangeSet()
+    {
+        return AlfrescoTransactionSupport.getResource(KEY_CUSTOM_MODEL_CHANGE_SET);
+    }
+
+    /**
+     * Binds a new custom model change set to the current transaction.  Until it is unbound the
+     * custom models are read from and written to the change set rather than the repository.
+     *
+     * @return The new change set
+     */
+    protected CustomModelChangeSet bindCustomModelChangeSet()
+    {
+        CustomModelChangeSet changeSet = new CustomModelChangeSet();
+        AlfrescoTransactionSupport.bindResource(KEY_CUSTOM_MODEL_CHANGE_SET, changeSet);
+        return changeSet;
+    }
+
+    /**
+     * Unbinds the custom model change set from the current transaction
+     */
+    protected void unbindCustomModelChangeSet()
+    {
+        AlfrescoTransactionSupport.unbindResource(KEY_CUSTOM_MODEL_CHANGE_SET);
+    }
+
+    /**
+     * In-memory copies of the custom models edited by a set of changes, along with the models that
+     * need saving once all the changes have been made.
+     *
+     * @since 2.7
+     */
+    protected static class CustomModelChangeSet
+    {
+        /** Models read so far, by model node */
+        private final Map<NodeRef, M2Model> models = new LinkedHashMap<NodeRef, M2Model>();
+
+        /** Models that have been changed */
+        private final Set<NodeRef> changedModels = new LinkedHashSet<NodeRef>();
+
+        /** Number of changes made */
+        private int changeCount = 0;
+
+        private M2Model getModel(NodeRef modelRef)
+        {
+            return models.get(modelRef);
+        }
+
+        private void putModel(NodeRef modelRef, M2Model model)
+        {
+            models.put(modelRef, model);
+        }
+
+        private void markChanged(NodeRef modelRef, M2Model model)
+        {
+            models.put(modelRef, model);
+            changedModels.add(modelRef);
+            changeCount++;
+        }
+
+        /**
+         * @return The changed models, by model node
+         */
+        public Map<NodeRef, M2Model> getChangedModels()
+        {
+            Map<NodeRef, M2Model> result = new LinkedHashMap<NodeRef, M2Model>();
+            for (NodeRef modelRef : changedModels)
+            {
+                result.put(modelRef, models.get(modelRef));
+            }
+            return result;
+        }
+
+        /**
+         * @return The number of changes made
+         */
+        public int getChangeCount()
+        {
+            return changeCount;
+        }
+    }
+
     /**
      * Checks if the given association definition title exists
      *
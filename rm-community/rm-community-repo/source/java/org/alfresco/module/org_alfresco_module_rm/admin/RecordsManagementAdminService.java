@@ -397,6 +397,44 @@ public interface RecordsManagementAdminService
      */
     void changeCustomConstraintTitle(QName constraintName, String title);
 
+    /**
+     * Applies a set of custom property and constraint definition changes as one.
+     * <p>
+     * The changes made by the given callback are applied to in-memory copies of the custom models, so
+     * later changes see the earlier ones: a property added in the set can be relabelled, renamed,
+     * constrained or removed later in the same set, and a type made customisable can be given
+     * properties.  Methods that return dictionary definitions, such as
+     * {@link #getCustomPropertyDefinitions()}, only see the changes once the set has been applied.
+     * <p>
+     * Once the callback returns the changed models are validated together and each is saved once, so
+     * the dictionary is reloaded once for the whole set rather than once per change. If the callback or the validation fails no model is changed.
+     * <p>
+     * Custom reference definitions are not part of the custom content model and are not batched.
+     *
+     * @param changes the custom model changes to apply
+     * @return the value returned by the callback
+     * @throws CustomMetadataException if one of the changes fails
+     * @since 2.7
+     */
+    <R> R applyCustomModelChanges(CustomModelChanges<R> changes) throws CustomMetadataException;
+
+    /**
+     * A set of custom model changes, made by calling the custom property and constraint
+     * definition methods of this service.
+     *
+     * @since 2.7
+     */
+    interface CustomModelChanges<R>
+    {
+        /**
+         * Makes the changes.
+         *
+         * @return a result to hand back to the caller
+         * @throws CustomMetadataException if a change fails
+         */
+        R apply() throws CustomMetadataException;
+    }
+
     /**
      * This method iterates over the custom properties, references looking for one whose id
      * exactly matches that specified.
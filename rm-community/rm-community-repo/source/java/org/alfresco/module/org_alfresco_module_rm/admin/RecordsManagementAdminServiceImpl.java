@@ -49,11 +49,14 @@ import org.alfresco.module.org_alfresco_module_rm.model.RecordsManagementModel;
 import org.alfresco.module.org_alfresco_module_rm.relationship.RelationshipDefinition;
 import org.alfresco.module.org_alfresco_module_rm.relationship.RelationshipDisplayName;
 import org.alfresco.module.org_alfresco_module_rm.relationship.RelationshipService;
+import org.alfresco.repo.dictionary.DictionaryDAO;
 import org.alfresco.repo.dictionary.IndexTokenisationMode;
 import org.alfresco.repo.dictionary.M2Aspect;
 import org.alfresco.repo.dictionary.M2Constraint;
 import org.alfresco.repo.dictionary.M2Model;
+import org.alfresco.repo.dictionary.M2Namespace;
 import org.alfresco.repo.dictionary.M2Property;
+import org.alfresco.repo.dictionary.NamespaceDAO;
 import org.alfresco.repo.node.NodeServicePolicies;
 import org.alfresco.repo.policy.Behaviour.NotificationFrequency;
 import org.alfresco.repo.policy.annotation.Behaviour;
@@ -62,7 +65,9 @@ import org.alfresco.repo.policy.annotation.BehaviourKind;
 import org.alfresco.repo.security.authentication.AuthenticationUtil;
 import org.alfresco.repo.security.authentication.AuthenticationUtil.RunAsWork;
 import org.alfresco.repo.security.authority.RMAuthority;
+import org.alfresco.repo.transaction.AlfrescoTransactionSupport;
 import org.alfresco.repo.transaction.RetryingTransactionHelper.RetryingTransactionCallback;
+import org.alfresco.repo.transaction.TransactionListenerAdapter;
 import org.alfresco.service.cmr.dictionary.AspectDefinition;
 import org.alfresco.service.cmr.dictionary.AssociationDefinition;
 import org.alfresco.service.cmr.dictionary.Constraint;
@@ -122,6 +127,12 @@ public class RecordsManagementAdminServiceImpl extends RecordsManagementAdminBas
     /** Transaction service */
     private TransactionService transactionService;
 
+    /** Dictionary DAO */
+    private DictionaryDAO dictionaryDAO;
+
+    /** Namespace DAO */
+    private NamespaceDAO namespaceDAO;
+
     /** List of types that can be customisable */
     private List<QName> pendingCustomisableTypes;
     private Map<QName, QName> customisableTypes;
@@ -137,6 +148,22 @@ public class RecordsManagementAdminServiceImpl extends RecordsManagementAdminBas
         this.transactionService = transactionService;
     }
 
+    /**
+     * @param dictionaryDAO dictionary DAO, used to validate custom model change sets
+     */
+    public void setDictionaryDAO(DictionaryDAO dictionaryDAO)
+    {
+        this.dictionaryDAO = dictionaryDAO;
+    }
+
+    /**
+     * @param namespaceDAO namespace DAO, used to validate custom model change sets
+     */
+    public void setNamespaceDAO(NamespaceDAO namespaceDAO)
+    {
+        this.namespaceDAO = namespaceDAO;
+    }
+
     /**
      * @param relationshipService The relationship service instance
      */
@@ -565,7 +592,7 @@ public class RecordsManagementAdminServiceImpl extends RecordsManagementAdminBas
         else
         {
             QName customAspect = getCustomAspect(type);
-            if (getDictionaryService().getAspect(customAspect) == null)
+            if (!isCustomAspectDefined(customAspect))
             {
                 NodeRef modelRef = getCustomModelRef(customAspect.getNamespaceURI());
                 M2Model model = readCustomContentModel(modelRef);
@@ -598,7 +625,7 @@ public class RecordsManagementAdminServiceImpl extends RecordsManagementAdminBas
         }
 
         QName customAspect = getCustomAspect(type);
-        if (getDictionaryService().getAspect(customAspect) != null)
+        if (isCustomAspectDefined(customAspect))
         {
             // TODO need to confirm that the custom properties are not being used!
 
@@ -627,7 +654,7 @@ public class RecordsManagementAdminServiceImpl extends RecordsManagementAdminBas
 
         boolean result = false;
         if (RM_CUSTOM_URI.equals(propertyName.getNamespaceURI()) &&
-                getDictionaryService().getProperty(propertyName) != null)
+                isCustomPropertyDefined(propertyName))
         {
             result = true;
         }
@@ -774,8 +801,7 @@ public class RecordsManagementAdminServiceImpl extends RecordsManagementAdminBas
     {
         mandatory("propQName", propQName);
 
-        PropertyDefinition propDefn = getDictionaryService().getProperty(propQName);
-        if (propDefn == null)
+        if (!isCustomPropertyDefined(propQName))
         {
             throw new AlfrescoRuntimeException(I18NUtil.getMessage(MSG_PROP_EXIST, propQName));
         }
@@ -788,8 +814,7 @@ public class RecordsManagementAdminServiceImpl extends RecordsManagementAdminBas
         QName newPropQName = getQNameForClientId(newName);
         if (newPropQName != null)
         {
-           PropertyDefinition newPropDefn = getDictionaryService().getProperty(newPropQName);
-           if (newPropDefn != null && !propDefn.equals(newPropDefn))
+           if (!newPropQName.equals(propQName) && isCustomPropertyDefined(newPropQName))
            {
               // The requested QName is already in use
               String propIdAsString = newPropQName.toPrefixString(getNamespaceService());
@@ -821,8 +846,7 @@ public class RecordsManagementAdminServiceImpl extends RecordsManagementAdminBas
     {
         mandatory("propQName", propQName);
 
-        PropertyDefinition propDefn = getDictionaryService().getProperty(propQName);
-        if (propDefn == null)
+        if (!isCustomPropertyDefined(propQName))
         {
             throw new AlfrescoRuntimeException(I18NUtil.getMessage(MSG_PROP_EXIST, propQName));
         }
@@ -857,8 +881,7 @@ public class RecordsManagementAdminServiceImpl extends RecordsManagementAdminBas
         mandatory("propQName", propQName);
         mandatory("newLovConstraint", newLovConstraint);
 
-        PropertyDefinition propDefn = getDictionaryService().getProperty(propQName);
-        if (propDefn == null)
+        if (!isCustomPropertyDefined(propQName))
         {
             throw new AlfrescoRuntimeException(I18NUtil.getMessage(MSG_PROP_EXIST, propQName));
         }
@@ -908,8 +931,7 @@ public class RecordsManagementAdminServiceImpl extends RecordsManagementAdminBas
     {
         mandatory("propQName", propQName);
 
-        PropertyDefinition propDefn = getDictionaryService().getProperty(propQName);
-        if (propDefn == null)
+        if (!isCustomPropertyDefined(propQName))
         {
             throw new AlfrescoRuntimeException(I18NUtil.getMessage(MSG_PROP_EXIST, propQName));
         }
@@ -959,6 +981,73 @@ public class RecordsManagementAdminServiceImpl extends RecordsManagementAdminBas
         throw new AlfrescoRuntimeException(I18NUtil.getMessage(MSG_CUSTOM_PROP_EXIST, propQName));
     }
 
+    /**
+     * Gets the model changed by the current custom model change set that defines the given namespace.
+     *
+     * @param uri namespace URI
+     * @return the changed model, or null if there is no change set or it has not changed that model
+     */
+    private M2Model getChangedCustomModel(String uri)
+    {
+        CustomModelChangeSet changeSet = getCustomModelChangeSet();
+        if (changeSet != null)
+        {
+            for (M2Model model : changeSet.getChangedModels().values())
+            {
+                for (M2Namespace namespace : model.getNamespaces())
+                {
+                    if (namespace.getUri().equals(uri))
+                    {
+                        return model;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Indicates whether an aspect is defined.  Inside a change set the pending model is checked,
+     * since the dictionary does not see the changes until the set is applied.
+     *
+     * @param aspectQName aspect name
+     * @return true if the aspect is defined, false otherwise
+     */
+    private boolean isCustomAspectDefined(QName aspectQName)
+    {
+        M2Model model = getChangedCustomModel(aspectQName.getNamespaceURI());
+        if (model != null)
+        {
+            return model.getAspect(aspectQName.toPrefixString(getNamespaceService())) != null;
+        }
+        return getDictionaryService().getAspect(aspectQName) != null;
+    }
+
+    /**
+     * Indicates whether a property is defined.  Inside a change set the pending model is checked,
+     * since the dictionary does not see the changes until the set is applied.
+     *
+     * @param propQName property name
+     * @return true if the property is defined, false otherwise
+     */
+    private boolean isCustomPropertyDefined(QName propQName)
+    {
+        M2Model model = getChangedCustomModel(propQName.getNamespaceURI());
+        if (model != null)
+        {
+            String propQNameAsString = propQName.toPrefixString(getNamespaceService());
+            for (M2Aspect aspect : model.getAspects())
+            {
+                if (aspect.getProperty(propQNameAsString) != null)
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return getDictionaryService().getProperty(propQName) != null;
+    }
+
     /**
      * @see org.alfresco.module.org_alfresco_module_rm.RecordsManagementAdminService#removeCustomPropertyDefinition(org.alfresco.service.namespace.QName)
      */
@@ -1307,6 +1396,84 @@ public class RecordsManagementAdminServiceImpl extends RecordsManagementAdminBas
         }
     }
 
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.admin.RecordsManagementAdminService#applyCustomModelChanges(org.alfresco.module.org_alfresco_module_rm.admin.RecordsManagementAdminService.CustomModelChanges)
+     */
+    @Override
+    public <R> R applyCustomModelChanges(CustomModelChanges<R> changes) throws CustomMetadataException
+    {
+        mandatory("changes", changes);
+
+        if (getCustomModelChangeSet() != null)
+        {
+            // already inside a change set, so these changes simply join it
+            return changes.apply();
+        }
+
+        CustomModelChangeSet changeSet = bindCustomModelChangeSet();
+        try
+        {
+            R result = changes.apply();
+
+            Map<NodeRef, M2Model> changedModels = changeSet.getChangedModels();
+            if (!changedModels.isEmpty())
+            {
+                // validate all the changes together before anything is saved
+                for (M2Model model : changedModels.values())
+                {
+                    model.compile(dictionaryDAO, namespaceDAO, true);
+                }
+
+                AlfrescoTransactionSupport.bindListener(new CustomModelDeploymentListener(changeSet.getChangeCount(), changedModels.size()));
+                for (Map.Entry<NodeRef, M2Model> entry : changedModels.entrySet())
+                {
+                    saveCustomContentModel(entry.getKey(), entry.getValue());
+                }
+            }
+
+            return result;
+        }
+        finally
+        {
+            unbindCustomModelChangeSet();
+        }
+    }
+
+    /**
+     * Reports how long the dictionary took to validate and reload the models saved by a change set.
+     * <p>
+     * The models are deployed as the transaction commits, so the time is taken from the start of the
+     * commit to its end.
+     */
+    private class CustomModelDeploymentListener extends TransactionListenerAdapter
+    {
+        private final int changeCount;
+        private final int modelCount;
+        private long commitStart;
+
+        private CustomModelDeploymentListener(int changeCount, int modelCount)
+        {
+            this.changeCount = changeCount;
+            this.modelCount = modelCount;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly)
+        {
+            commitStart = System.currentTimeMillis();
+        }
+
+        @Override
+        public void afterCommit()
+        {
+            if (logger.isInfoEnabled())
+            {
+                logger.info("applyCustomModelChanges: " + changeCount + " change(s) to " + modelCount +
+                            " model(s) deployed, dictionary reload took " + (System.currentTimeMillis() - commitStart) + "ms");
+            }
+        }
+    }
+
     /**
      * @see org.alfresco.module.org_alfresco_module_rm.admin.RecordsManagementAdminService#getQNameForClientId(java.lang.String)
      */
@@ -29,6 +29,7 @@ package org.alfresco.module.org_alfresco_module_rm.audit;
 
 import java.io.File;
 import java.io.Serializable;
+import java.io.Writer;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -203,6 +204,22 @@ public interface RecordsManagementAuditService extends RecordsManagementAuditSer
      */
     File getAuditTrailFile(RecordsManagementAuditQueryParameters params, ReportFormat format);
 
+    /**
+     * Writes the audit log entries matching the provided parameters directly to
+     * the given writer, without holding the audit trail in memory or in a
+     * temporary file.  The writer is flushed after each page of entries.
+     * <p>
+     * The parameters are all optional so an empty RecordsManagementAuditQueryParameters
+     * object will result in ALL audit log entries for the RM system being
+     * written.
+     *
+     * @param params        Parameters to use to retrieve audit trail (never <tt>null</tt>)
+     * @param writer        Writer the audit trail is streamed to (never <tt>null</tt>)
+     * @param format        The format the report should be produced in
+     * @since 2.7
+     */
+    void writeAuditTrail(RecordsManagementAuditQueryParameters params, Writer writer, ReportFormat format);
+
     /**
      * Retrieves a list of audit log entries using the provided parameters
      * represented by the RecordsManagementAuditQueryParameters instance.
@@ -39,6 +39,7 @@ import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -51,6 +52,7 @@ import org.alfresco.module.org_alfresco_module_rm.action.RecordsManagementAction
 import org.alfresco.module.org_alfresco_module_rm.audit.event.AuditEvent;
 import org.alfresco.module.org_alfresco_module_rm.capability.CapabilityService;
 import org.alfresco.module.org_alfresco_module_rm.fileplan.FilePlanService;
+import org.alfresco.module.org_alfresco_module_rm.query.RecordsManagementAuditQueryDAO;
 import org.alfresco.repo.audit.AuditComponent;
 import org.alfresco.repo.audit.model.AuditApplication;
 import org.alfresco.repo.content.MimetypeMap;
@@ -75,6 +77,7 @@ import org.alfresco.service.cmr.security.AccessStatus;
 import org.alfresco.service.namespace.NamespaceService;
 import org.alfresco.service.namespace.QName;
 import org.alfresco.service.transaction.TransactionService;
+import org.alfresco.util.GUID;
 import org.alfresco.util.Pair;
 import org.alfresco.util.PropertyCheck;
 import org.alfresco.util.PropertyMap;
@@ -189,6 +192,7 @@ public class RecordsManagementAuditServiceImpl extends AbstractLifecycleBean
     private ContentService contentService;
     private AuditComponent auditComponent;
     private AuditService auditService;
+    private RecordsManagementAuditQueryDAO recordsManagementAuditQueryDAO;
     private RecordsManagementActionService rmActionService;
     private FilePlanService filePlanService;
     private NamespaceService namespaceService;
@@ -196,6 +200,9 @@ public class RecordsManagementAuditServiceImpl extends AbstractLifecycleBean
 
     private boolean shutdown = false;
 
+    /** Number of audit entries read from each audit application per query */
+    private int auditQueryPageSize = 500;
+
     private List<String> ignoredAuditProperties;
 
     private List<QName> propertiesToBeRemoved = new ArrayList<QName>();
@@ -261,6 +268,14 @@ public class RecordsManagementAuditServiceImpl extends AbstractLifecycleBean
         this.auditService = auditService;
     }
 
+    /**
+     * Set the DAO used to query the RM audit entries
+     */
+    public void setRecordsManagementAuditQueryDAO(RecordsManagementAuditQueryDAO recordsManagementAuditQueryDAO)
+    {
+        this.recordsManagementAuditQueryDAO = recordsManagementAuditQueryDAO;
+    }
+
     /**
      * Sets the RecordsManagementActionService instance
      */
@@ -302,6 +317,14 @@ public class RecordsManagementAuditServiceImpl extends AbstractLifecycleBean
         this.ignoredAuditProperties = ignoredAuditProperties;
     }
 
+    /**
+     * @param auditQueryPageSize number of audit entries read from each audit application per query
+     */
+    public void setAuditQueryPageSize(int auditQueryPageSize)
+    {
+        this.auditQueryPageSize = auditQueryPageSize;
+    }
+
     /**
      * @see org.alfresco.module.org_alfresco_module_rm.audit.RecordsManagementAuditService#registerAuditEvent(java.lang.String, java.lang.String)
      */
@@ -336,6 +359,7 @@ public class RecordsManagementAuditServiceImpl extends AbstractLifecycleBean
         PropertyCheck.mandatory(this, "contentService", contentService);
         PropertyCheck.mandatory(this, "auditComponent", auditComponent);
         PropertyCheck.mandatory(this, "auditService", auditService);
+        PropertyCheck.mandatory(this, "recordsManagementAuditQueryDAO", recordsManagementAuditQueryDAO);
         PropertyCheck.mandatory(this, "rmActionService", rmActionService);
         PropertyCheck.mandatory(this, "dictionaryService", dictionaryService);
         PropertyCheck.mandatory(this, "filePlanService", filePlanService);
@@ -790,6 +814,26 @@ public class RecordsManagementAuditServiceImpl extends AbstractLifecycleBean
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeAuditTrail(RecordsManagementAuditQueryParameters params, Writer writer, ReportFormat format)
+    {
+        ParameterCheck.mandatory("params", params);
+        ParameterCheck.mandatory("writer", writer);
+
+        try
+        {
+            getAuditTrailImpl(params, null, writer, format);
+            writer.flush();
+        }
+        catch (IOException e)
+        {
+            throw new AlfrescoRuntimeException(MSG_TRAIL_FILE_FAIL, e);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -814,6 +858,11 @@ public class RecordsManagementAuditServiceImpl extends AbstractLifecycleBean
 
     /**
      * Get the audit trail, optionally dumping the results the the given writer dumping to a list.
+     * <p>
+     * The entries of the DOD5015 and RM audit applications are read a page at a time, using the
+     * last entry id read as the cursor for the next page, and are merged in time order.  The writer
+     * is flushed after each page of entries written.  Access decisions and type titles are remembered
+     * for the duration of the call.
      *
      * @param params                the search parameters
      * @param results               the list to which individual results will be dumped
@@ -832,220 +881,6 @@ public class RecordsManagementAuditServiceImpl extends AbstractLifecycleBean
             logger.debug("Retrieving audit trail in '" + reportFormat + "' format using parameters: " + params);
         }
 
-        // define the callback
-        AuditQueryCallback callback = new AuditQueryCallback()
-        {
-            private boolean firstEntry = true;
-
-
-            @Override
-            public boolean valuesRequired()
-            {
-                return true;
-            }
-
-            /**
-             * Just log the error, but continue
-             */
-            @Override
-            public boolean handleAuditEntryError(Long entryId, String errorMsg, Throwable error)
-            {
-                logger.warn(errorMsg, error);
-                return true;
-            }
-
-            @Override
-            @SuppressWarnings("unchecked")
-            public boolean handleAuditEntry(
-                    Long entryId,
-                    String applicationName,
-                    String user,
-                    long time,
-                    Map<String, Serializable> values)
-            {
-                // Check for context shutdown
-                if (shutdown)
-                {
-                    return false;
-                }
-
-
-                Date timestamp = new Date(time);
-                String eventName = null;
-                String fullName = null;
-                String userRoles = null;
-                NodeRef nodeRef = null;
-                String nodeName = null;
-                String nodeType = null;
-                String nodeIdentifier = null;
-                String namePath = null;
-                Map<QName, Serializable> beforeProperties = null;
-                Map<QName, Serializable> afterProperties = null;
-
-                if (values.containsKey(RM_AUDIT_DATA_EVENT_NAME))
-                {
-                    // This data is /RM/event/...
-                    eventName = (String) values.get(RM_AUDIT_DATA_EVENT_NAME);
-                    fullName = (String) values.get(RM_AUDIT_DATA_PERSON_FULLNAME);
-                    userRoles = (String) values.get(RM_AUDIT_DATA_PERSON_ROLES);
-                    nodeRef = (NodeRef) values.get(RM_AUDIT_DATA_NODE_NODEREF);
-                    nodeName = (String) values.get(RM_AUDIT_DATA_NODE_NAME);
-                    QName nodeTypeQname = (QName) values.get(RM_AUDIT_DATA_NODE_TYPE);
-                    nodeIdentifier = (String) values.get(RM_AUDIT_DATA_NODE_IDENTIFIER);
-                    namePath = (String) values.get(RM_AUDIT_DATA_NODE_NAMEPATH);
-                    beforeProperties = (Map<QName, Serializable>) values.get(RM_AUDIT_DATA_NODE_CHANGES_BEFORE);
-                    afterProperties = (Map<QName, Serializable>) values.get(RM_AUDIT_DATA_NODE_CHANGES_AFTER);
-
-                    // Convert some of the values to recognizable forms
-                    nodeType = null;
-                    if (nodeTypeQname != null)
-                    {
-                        TypeDefinition typeDef = dictionaryService.getType(nodeTypeQname);
-                        nodeType = (typeDef != null) ? typeDef.getTitle(dictionaryService) : null;
-                    }
-                }
-                else if (values.containsKey(DOD5015_AUDIT_DATA_EVENT_NAME))
-                {
-                    // This data is /RM/event/...
-                    eventName = (String) values.get(DOD5015_AUDIT_DATA_EVENT_NAME);
-                    fullName = (String) values.get(DOD5015_AUDIT_DATA_PERSON_FULLNAME);
-                    userRoles = (String) values.get(DOD5015_AUDIT_DATA_PERSON_ROLES);
-                    nodeRef = (NodeRef) values.get(DOD5015_AUDIT_DATA_NODE_NODEREF);
-                    nodeName = (String) values.get(DOD5015_AUDIT_DATA_NODE_NAME);
-                    QName nodeTypeQname = (QName) values.get(DOD5015_AUDIT_DATA_NODE_TYPE);
-                    nodeIdentifier = (String) values.get(DOD5015_AUDIT_DATA_NODE_IDENTIFIER);
-                    namePath = (String) values.get(DOD5015_AUDIT_DATA_NODE_NAMEPATH);
-                    beforeProperties = (Map<QName, Serializable>) values.get( DOD5015_AUDIT_DATA_NODE_CHANGES_BEFORE);
-                    afterProperties = (Map<QName, Serializable>) values.get(DOD5015_AUDIT_DATA_NODE_CHANGES_AFTER);
-
-                    // Convert some of the values to recognizable forms
-                    nodeType = null;
-                    if (nodeTypeQname != null)
-                    {
-                        TypeDefinition typeDef = dictionaryService.getType(nodeTypeQname);
-                        nodeType = (typeDef != null) ? typeDef.getTitle(dictionaryService) : null;
-                    }
-                }
-                else if (values.containsKey(RM_AUDIT_DATA_LOGIN_USERNAME))
-                {
-                    user = (String) values.get(RM_AUDIT_DATA_LOGIN_USERNAME);
-                    if (values.containsKey(RM_AUDIT_DATA_LOGIN_ERROR))
-                    {
-                        eventName = RM_AUDIT_EVENT_LOGIN_FAILURE;
-                        // The user didn't log in
-                        fullName = user;
-                    }
-                    else
-                    {
-                        eventName = RM_AUDIT_EVENT_LOGIN_SUCCESS;
-                        fullName = (String) values.get(RM_AUDIT_DATA_LOGIN_FULLNAME);
-                    }
-                }
-                else if (values.containsKey(DOD5015_AUDIT_DATA_LOGIN_USERNAME))
-                {
-                    user = (String) values.get(DOD5015_AUDIT_DATA_LOGIN_USERNAME);
-                    if (values.containsKey(DOD5015_AUDIT_DATA_LOGIN_ERROR))
-                    {
-                        eventName = RM_AUDIT_EVENT_LOGIN_FAILURE;
-                        // The user didn't log in
-                        fullName = user;
-                    }
-                    else
-                    {
-                        eventName = RM_AUDIT_EVENT_LOGIN_SUCCESS;
-                        fullName = (String) values.get(DOD5015_AUDIT_DATA_LOGIN_FULLNAME);
-                    }
-                }
-                else
-                {
-                    // This is not recognisable data
-                    logger.warn(
-                            "Unable to process audit entry for RM.  Unexpected data: \n" +
-                            "   Entry: " + entryId + "\n" +
-                            "   Data:  " + values);
-                    // Skip it
-                    return true;
-                }
-
-                if(nodeRef != null && nodeService.exists(nodeRef) &&
-                    !AccessStatus.ALLOWED.equals(
-                        capabilityService.getCapabilityAccessState(nodeRef, ACCESS_AUDIT_CAPABILITY)))
-                {
-                    return true;
-                }
-
-                // TODO: Refactor this to use the builder pattern
-                RecordsManagementAuditEntry entry = new RecordsManagementAuditEntry(
-                        timestamp,
-                        user,
-                        fullName,
-                        // A concatenated string of roles
-                        userRoles,
-                        nodeRef,
-                        nodeName,
-                        nodeType,
-                        eventName,
-                        nodeIdentifier,
-                        namePath,
-                        beforeProperties,
-                        afterProperties);
-
-                // write out the entry to the file in requested format
-                writeEntryToFile(entry);
-
-                if (results != null)
-                {
-                    results.add(entry);
-                }
-
-                if (logger.isDebugEnabled())
-                {
-                    logger.debug("   " + entry);
-                }
-
-                // Keep going
-                return true;
-            }
-
-            private void writeEntryToFile(RecordsManagementAuditEntry entry)
-            {
-                if (writer == null)
-                {
-                    return;
-                }
-                try
-                {
-                    if (!firstEntry)
-                    {
-                        if (reportFormat == ReportFormat.HTML)
-                        {
-                            writer.write("\n");
-                        }
-                        else
-                        {
-                            writer.write(",");
-                        }
-                    }
-                    else
-                    {
-                        firstEntry = false;
-                    }
-
-                    // write the entry to the file
-                    if (reportFormat == ReportFormat.JSON)
-                    {
-                        writer.write("\n\t\t");
-                    }
-
-                    writeAuditTrailEntry(writer, entry, reportFormat);
-                }
-                catch (IOException ioe)
-                {
-                    throw new AlfrescoRuntimeException(MSG_TRAIL_FILE_FAIL, ioe);
-                }
-            }
-        };
-
         String user = params.getUser();
         Long fromTime = getFromDateTime(params.getDateFrom());
         Long toTime = getToDateTime(params.getDateTo());
@@ -1073,6 +908,10 @@ public class RecordsManagementAuditServiceImpl extends AbstractLifecycleBean
         {
             dod5015AuditQueryParams.addSearchKey(DOD5015_AUDIT_DATA_NODE_NODEREF, nodeRef);
         }
+        if (params.getEvent() != null)
+        {
+            dod5015AuditQueryParams.addSearchKey(DOD5015_AUDIT_DATA_EVENT_NAME, params.getEvent());
+        }
 
         //
         AuditQueryParameters auditQueryParams = new AuditQueryParameters();
@@ -1085,14 +924,51 @@ public class RecordsManagementAuditServiceImpl extends AbstractLifecycleBean
         {
             auditQueryParams.addSearchKey(RM_AUDIT_DATA_NODE_NODEREF, nodeRef);
         }
-        else if (params.getEvent() != null)
+        if (params.getEvent() != null)
         {
             auditQueryParams.addSearchKey(RM_AUDIT_DATA_EVENT_NAME, params.getEvent());
         }
 
-        // Get audit entries
-        auditService.auditQuery(callback, dod5015AuditQueryParams, maxEntries);
-        auditService.auditQuery(callback, auditQueryParams, maxEntries);
+        // Page through the audit entries of both applications
+        AuditEntryPager dod5015Entries = new AuditEntryPager(dod5015AuditQueryParams, forward, maxEntries);
+        AuditEntryPager rmEntries = new AuditEntryPager(auditQueryParams, forward, maxEntries);
+
+        // Decisions remembered for the duration of the audit trail
+        Map<NodeRef, Boolean> accessDecisions = new HashMap<NodeRef, Boolean>();
+        Map<QName, String> typeTitles = new HashMap<QName, String>();
+
+        boolean firstEntry = true;
+        int entriesWritten = 0;
+        AuditTrailEntry auditTrailEntry = nextAuditTrailEntry(dod5015Entries, rmEntries, forward);
+        // Check for context shutdown
+        while (auditTrailEntry != null && !shutdown)
+        {
+            RecordsManagementAuditEntry entry = createAuditEntry(auditTrailEntry, accessDecisions, typeTitles);
+            if (entry != null)
+            {
+                // write out the entry to the file in requested format
+                writeEntry(writer, entry, reportFormat, firstEntry);
+                firstEntry = false;
+
+                // hand each page over to the client rather than holding the whole trail
+                if (writer != null && ++entriesWritten % auditQueryPageSize == 0)
+                {
+                    writer.flush();
+                }
+
+                if (results != null)
+                {
+                    results.add(entry);
+                }
+
+                if (logger.isDebugEnabled())
+                {
+                    logger.debug("   " + entry);
+                }
+            }
+
+            auditTrailEntry = nextAuditTrailEntry(dod5015Entries, rmEntries, forward);
+        }
 
         // finish off the audit trail report
         writeAuditTrailFooter(writer, reportFormat);
@@ -1106,6 +982,255 @@ public class RecordsManagementAuditServiceImpl extends AbstractLifecycleBean
         auditEvent(nodeRef, AUDIT_EVENT_VIEW, null, null, true);
     }
 
+    /**
+     * Takes the next audit entry, in time order, from the given audit applications.
+     *
+     * @param first     entries of the first audit application
+     * @param second    entries of the second audit application
+     * @param forward   true if the entries are in ascending time order, false otherwise
+     * @return {@link AuditTrailEntry}  next audit entry, null if there are none left
+     */
+    private AuditTrailEntry nextAuditTrailEntry(AuditEntryPager first, AuditEntryPager second, boolean forward)
+    {
+        AuditTrailEntry firstEntry = first.peek();
+        AuditTrailEntry secondEntry = second.peek();
+
+        AuditEntryPager next;
+        if (firstEntry == null)
+        {
+            next = second;
+        }
+        else if (secondEntry == null)
+        {
+            next = first;
+        }
+        else
+        {
+            // order by time and then by entry id, which both applications share
+            int compare = Long.compare(firstEntry.getTime(), secondEntry.getTime());
+            if (compare == 0)
+            {
+                compare = Long.compare(firstEntry.getId(), secondEntry.getId());
+            }
+            next = (forward ? compare <= 0 : compare >= 0) ? first : second;
+        }
+
+        return next.next();
+    }
+
+    /**
+     * Creates the records management audit entry for the given audit entry.
+     *
+     * @param auditTrailEntry   audit entry
+     * @param accessDecisions   access audit decisions made so far, keyed by node
+     * @param typeTitles        type titles resolved so far, keyed by type
+     * @return {@link RecordsManagementAuditEntry}  records management audit entry, null if the entry should be skipped
+     */
+    @SuppressWarnings("unchecked")
+    private RecordsManagementAuditEntry createAuditEntry(
+            AuditTrailEntry auditTrailEntry,
+            Map<NodeRef, Boolean> accessDecisions,
+            Map<QName, String> typeTitles)
+    {
+        Map<String, Serializable> values = auditTrailEntry.getValues();
+        Date timestamp = new Date(auditTrailEntry.getTime());
+        String user = auditTrailEntry.getUser();
+        String eventName = null;
+        String fullName = null;
+        String userRoles = null;
+        NodeRef nodeRef = null;
+        String nodeName = null;
+        String nodeType = null;
+        String nodeIdentifier = null;
+        String namePath = null;
+        Map<QName, Serializable> beforeProperties = null;
+        Map<QName, Serializable> afterProperties = null;
+
+        if (values.containsKey(RM_AUDIT_DATA_EVENT_NAME))
+        {
+            // This data is /RM/event/...
+            eventName = (String) values.get(RM_AUDIT_DATA_EVENT_NAME);
+            fullName = (String) values.get(RM_AUDIT_DATA_PERSON_FULLNAME);
+            userRoles = (String) values.get(RM_AUDIT_DATA_PERSON_ROLES);
+            nodeRef = (NodeRef) values.get(RM_AUDIT_DATA_NODE_NODEREF);
+            nodeName = (String) values.get(RM_AUDIT_DATA_NODE_NAME);
+            QName nodeTypeQname = (QName) values.get(RM_AUDIT_DATA_NODE_TYPE);
+            nodeIdentifier = (String) values.get(RM_AUDIT_DATA_NODE_IDENTIFIER);
+            namePath = (String) values.get(RM_AUDIT_DATA_NODE_NAMEPATH);
+            beforeProperties = (Map<QName, Serializable>) values.get(RM_AUDIT_DATA_NODE_CHANGES_BEFORE);
+            afterProperties = (Map<QName, Serializable>) values.get(RM_AUDIT_DATA_NODE_CHANGES_AFTER);
+
+            // Convert some of the values to recognizable forms
+            nodeType = getTypeTitle(nodeTypeQname, typeTitles);
+        }
+        else if (values.containsKey(DOD5015_AUDIT_DATA_EVENT_NAME))
+        {
+            // This data is /RM/event/...
+            eventName = (String) values.get(DOD5015_AUDIT_DATA_EVENT_NAME);
+            fullName = (String) values.get(DOD5015_AUDIT_DATA_PERSON_FULLNAME);
+            userRoles = (String) values.get(DOD5015_AUDIT_DATA_PERSON_ROLES);
+            nodeRef = (NodeRef) values.get(DOD5015_AUDIT_DATA_NODE_NODEREF);
+            nodeName = (String) values.get(DOD5015_AUDIT_DATA_NODE_NAME);
+            QName nodeTypeQname = (QName) values.get(DOD5015_AUDIT_DATA_NODE_TYPE);
+            nodeIdentifier = (String) values.get(DOD5015_AUDIT_DATA_NODE_IDENTIFIER);
+            namePath = (String) values.get(DOD5015_AUDIT_DATA_NODE_NAMEPATH);
+            beforeProperties = (Map<QName, Serializable>) values.get( DOD5015_AUDIT_DATA_NODE_CHANGES_BEFORE);
+            afterProperties = (Map<QName, Serializable>) values.get(DOD5015_AUDIT_DATA_NODE_CHANGES_AFTER);
+
+            // Convert some of the values to recognizable forms
+            nodeType = getTypeTitle(nodeTypeQname, typeTitles);
+        }
+        else if (values.containsKey(RM_AUDIT_DATA_LOGIN_USERNAME))
+        {
+            user = (String) values.get(RM_AUDIT_DATA_LOGIN_USERNAME);
+            if (values.containsKey(RM_AUDIT_DATA_LOGIN_ERROR))
+            {
+                eventName = RM_AUDIT_EVENT_LOGIN_FAILURE;
+                // The user didn't log in
+                fullName = user;
+            }
+            else
+            {
+                eventName = RM_AUDIT_EVENT_LOGIN_SUCCESS;
+                fullName = (String) values.get(RM_AUDIT_DATA_LOGIN_FULLNAME);
+            }
+        }
+        else if (values.containsKey(DOD5015_AUDIT_DATA_LOGIN_USERNAME))
+        {
+            user = (String) values.get(DOD5015_AUDIT_DATA_LOGIN_USERNAME);
+            if (values.containsKey(DOD5015_AUDIT_DATA_LOGIN_ERROR))
+            {
+                eventName = RM_AUDIT_EVENT_LOGIN_FAILURE;
+                // The user didn't log in
+                fullName = user;
+            }
+            else
+            {
+                eventName = RM_AUDIT_EVENT_LOGIN_SUCCESS;
+                fullName = (String) values.get(DOD5015_AUDIT_DATA_LOGIN_FULLNAME);
+            }
+        }
+        else
+        {
+            // This is not recognisable data
+            logger.warn(
+                    "Unable to process audit entry for RM.  Unexpected data: \n" +
+                    "   Entry: " + auditTrailEntry.getId() + "\n" +
+                    "   Data:  " + values);
+            // Skip it
+            return null;
+        }
+
+        if (nodeRef != null && !canAccessAudit(nodeRef, accessDecisions))
+        {
+            return null;
+        }
+
+        // TODO: Refactor this to use the builder pattern
+        return new RecordsManagementAuditEntry(
+                timestamp,
+                user,
+                fullName,
+                // A concatenated string of roles
+                userRoles,
+                nodeRef,
+                nodeName,
+                nodeType,
+                eventName,
+                nodeIdentifier,
+                namePath,
+                beforeProperties,
+                afterProperties);
+    }
+
+    /**
+     * Indicates whether the current user can see the audit entries of the given node.  Entries of
+     * nodes that no longer exist are always shown.
+     *
+     * @param nodeRef           node reference
+     * @param accessDecisions   access audit decisions made so far, keyed by node
+     * @return boolean  true if the audit entries of the node can be seen, false otherwise
+     */
+    private boolean canAccessAudit(NodeRef nodeRef, Map<NodeRef, Boolean> accessDecisions)
+    {
+        Boolean canAccess = accessDecisions.get(nodeRef);
+        if (canAccess == null)
+        {
+            canAccess = !nodeService.exists(nodeRef) ||
+                        AccessStatus.ALLOWED.equals(capabilityService.getCapabilityAccessState(nodeRef, ACCESS_AUDIT_CAPABILITY));
+            accessDecisions.put(nodeRef, canAccess);
+        }
+        return canAccess;
+    }
+
+    /**
+     * Gets the display title of the given type.
+     *
+     * @param type          type, may be null
+     * @param typeTitles    type titles resolved so far, keyed by type
+     * @return {@link String}   type title, null if none
+     */
+    private String getTypeTitle(QName type, Map<QName, String> typeTitles)
+    {
+        String typeTitle = null;
+        if (type != null)
+        {
+            if (typeTitles.containsKey(type))
+            {
+                typeTitle = typeTitles.get(type);
+            }
+            else
+            {
+                TypeDefinition typeDef = dictionaryService.getType(type);
+                typeTitle = (typeDef != null) ? typeDef.getTitle(dictionaryService) : null;
+                typeTitles.put(type, typeTitle);
+            }
+        }
+        return typeTitle;
+    }
+
+    /**
+     * Writes an audit trail entry, with its separator, to the given writer.
+     *
+     * @param writer        The writer to write to, may be null
+     * @param entry         The entry to write
+     * @param reportFormat  The format to write the entry in
+     * @param firstEntry    true if this is the first entry of the audit trail
+     */
+    private void writeEntry(Writer writer, RecordsManagementAuditEntry entry, ReportFormat reportFormat, boolean firstEntry)
+    {
+        if (writer == null)
+        {
+            return;
+        }
+        try
+        {
+            if (!firstEntry)
+            {
+                if (reportFormat == ReportFormat.HTML)
+                {
+                    writer.write("\n");
+                }
+                else
+                {
+                    writer.write(",");
+                }
+            }
+
+            // write the entry to the file
+            if (reportFormat == ReportFormat.JSON)
+            {
+                writer.write("\n\t\t");
+            }
+
+            writeAuditTrailEntry(writer, entry, reportFormat);
+        }
+        catch (IOException ioe)
+        {
+            throw new AlfrescoRuntimeException(MSG_TRAIL_FILE_FAIL, ioe);
+        }
+    }
+
     /**
      * Calculates the start of the given date.
      * For example, if you had the date time of 12 Aug 2013 12:10:15.158
@@ -1202,45 +1327,37 @@ public class RecordsManagementAuditServiceImpl extends AbstractLifecycleBean
 
         // NOTE: the underlying RM services will check all the remaining pre-conditions
 
-        NodeRef record = null;
-
-        // get the audit trail for the provided parameters
-        File auditTrail = this.getAuditTrailFile(params, format);
+        // name the audit trail
+        String auditTrailName = AUDIT_TRAIL_FILE_PREFIX + GUID.generate() +
+                    (format == ReportFormat.HTML ? AUDIT_TRAIL_HTML_FILE_SUFFIX : AUDIT_TRAIL_JSON_FILE_SUFFIX);
 
         if (logger.isDebugEnabled())
         {
-            logger.debug("Filing audit trail in file " + auditTrail.getAbsolutePath() +
+            logger.debug("Filing audit trail " + auditTrailName +
                         " as a record in record folder: " + destination);
         }
 
-        try
+        Map<QName, Serializable> properties = new HashMap<QName, Serializable>(1);
+        properties.put(ContentModel.PROP_NAME, auditTrailName);
+
+        // file the audit log as an undeclared record
+        NodeRef record = this.nodeService.createNode(destination,
+                    ContentModel.ASSOC_CONTAINS,
+                    QName.createQName(NamespaceService.CONTENT_MODEL_1_0_URI,
+                                QName.createValidLocalName(auditTrailName)),
+                    ContentModel.TYPE_CONTENT, properties).getChildRef();
+
+        // stream the audit trail straight into the record's content
+        ContentWriter writer = this.contentService.getWriter(record, ContentModel.PROP_CONTENT, true);
+        writer.setMimetype(format == ReportFormat.HTML ? MimetypeMap.MIMETYPE_HTML : MimetypeMap.MIMETYPE_JSON);
+        writer.setEncoding("UTF-8");
+        try (Writer contentWriter = new BufferedWriter(new OutputStreamWriter(writer.getContentOutputStream(), "UTF-8")))
         {
-            Map<QName, Serializable> properties = new HashMap<QName, Serializable>(1);
-            properties.put(ContentModel.PROP_NAME, auditTrail.getName());
-
-            // file the audit log as an undeclared record
-            record = this.nodeService.createNode(destination,
-                        ContentModel.ASSOC_CONTAINS,
-                        QName.createQName(NamespaceService.CONTENT_MODEL_1_0_URI,
-                                    QName.createValidLocalName(auditTrail.getName())),
-                        ContentModel.TYPE_CONTENT, properties).getChildRef();
-
-            // Set the content
-            ContentWriter writer = this.contentService.getWriter(record, ContentModel.PROP_CONTENT, true);
-            writer.setMimetype(format == ReportFormat.HTML ? MimetypeMap.MIMETYPE_HTML : MimetypeMap.MIMETYPE_JSON);
-            writer.setEncoding("UTF-8");
-            writer.putContent(auditTrail);
+            getAuditTrailImpl(params, null, contentWriter, format);
         }
-        finally
+        catch (IOException e)
         {
-            if (logger.isDebugEnabled())
-            {
-                logger.debug("Audit trail report saved to temporary file: " + auditTrail.getAbsolutePath());
-            }
-            else
-            {
-                auditTrail.delete();
-            }
+            throw new AlfrescoRuntimeException(MSG_TRAIL_FILE_FAIL, e);
         }
 
         return record;
@@ -1638,6 +1755,166 @@ public class RecordsManagementAuditServiceImpl extends AbstractLifecycleBean
         return label;
     }
 
+    /**
+     * An audit entry read from one of the audit applications.
+     *
+     * @since 2.7
+     */
+    private static class AuditTrailEntry
+    {
+        private final long id;
+        private final String user;
+        private final long time;
+        private final Map<String, Serializable> values;
+
+        public AuditTrailEntry(long id, String user, long time, Map<String, Serializable> values)
+        {
+            this.id = id;
+            this.user = user;
+            this.time = time;
+            this.values = values;
+        }
+
+        public long getId()
+        {
+            return id;
+        }
+
+        public String getUser()
+        {
+            return user;
+        }
+
+        public long getTime()
+        {
+            return time;
+        }
+
+        public Map<String, Serializable> getValues()
+        {
+            return values;
+        }
+    }
+
+    /**
+     * Reads the entries of an audit application a page at a time, using the id of the last
+     * entry read as the cursor for the next page.
+     *
+     * @since 2.7
+     */
+    private class AuditEntryPager implements AuditQueryCallback
+    {
+        private final AuditQueryParameters queryParameters;
+        private final boolean forward;
+        private final LinkedList<AuditTrailEntry> page = new LinkedList<AuditTrailEntry>();
+
+        /** number of entries that may still be read */
+        private int remaining;
+
+        /** id of the last entry read */
+        private Long lastId;
+
+        /** number of entries read by the current query */
+        private int pageCount;
+
+        private boolean exhausted = false;
+
+        public AuditEntryPager(AuditQueryParameters queryParameters, boolean forward, int maxEntries)
+        {
+            this.queryParameters = queryParameters;
+            this.forward = forward;
+            this.remaining = maxEntries > 0 ? maxEntries : Integer.MAX_VALUE;
+        }
+
+        /**
+         * @return {@link AuditTrailEntry}  next entry, without consuming it, null if there are none left
+         */
+        public AuditTrailEntry peek()
+        {
+            if (page.isEmpty() && !exhausted)
+            {
+                readPage();
+            }
+            return page.peek();
+        }
+
+        /**
+         * @return {@link AuditTrailEntry}  next entry, null if there are none left
+         */
+        public AuditTrailEntry next()
+        {
+            AuditTrailEntry entry = peek();
+            if (entry != null)
+            {
+                page.removeFirst();
+            }
+            return entry;
+        }
+
+        private void readPage()
+        {
+            int pageSize = Math.min(auditQueryPageSize, remaining);
+            if (pageSize <= 0)
+            {
+                exhausted = true;
+                return;
+            }
+
+            // continue after the last entry read
+            if (lastId != null)
+            {
+                if (forward)
+                {
+                    queryParameters.setFromId(lastId + 1);
+                }
+                else
+                {
+                    queryParameters.setToId(lastId);
+                }
+            }
+
+            pageCount = 0;
+            recordsManagementAuditQueryDAO.findAuditEntries(this, queryParameters, pageSize);
+            remaining -= pageCount;
+            if (pageCount < pageSize)
+            {
+                exhausted = true;
+            }
+        }
+
+        @Override
+        public boolean valuesRequired()
+        {
+            return true;
+        }
+
+        /**
+         * Just log the error, but continue
+         */
+        @Override
+        public boolean handleAuditEntryError(Long entryId, String errorMsg, Throwable error)
+        {
+            lastId = entryId;
+            pageCount++;
+            logger.warn(errorMsg, error);
+            return true;
+        }
+
+        @Override
+        public boolean handleAuditEntry(
+                Long entryId,
+                String applicationName,
+                String user,
+                long time,
+                Map<String, Serializable> values)
+        {
+            lastId = entryId;
+            pageCount++;
+            page.add(new AuditTrailEntry(entryId, user, time, values));
+            return true;
+        }
+    }
+
     /**
      * A class to carry audit information through the transaction.
      *
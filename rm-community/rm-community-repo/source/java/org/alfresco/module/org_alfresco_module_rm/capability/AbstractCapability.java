@@ -28,6 +28,7 @@
 package org.alfresco.module.org_alfresco_module_rm.capability;
 
 import org.alfresco.module.org_alfresco_module_rm.model.RecordsManagementModel;
+import org.alfresco.module.org_alfresco_module_rm.security.CapabilityProfiler;
 import org.alfresco.module.org_alfresco_module_rm.security.RMMethodSecurityInterceptor;
 import org.alfresco.service.cmr.repository.NodeRef;
 import org.alfresco.service.cmr.security.AccessStatus;
@@ -206,6 +207,7 @@ public abstract class AbstractCapability extends RMSecurityCommon
     {
         String prefix = "hasPermissionRaw" + getName();
         int result = getTransactionCache(prefix, nodeRef);
+        CapabilityProfiler.cacheLookup("rm.capability.hasPermission", result != NOSET_VALUE);
         if (result == NOSET_VALUE)
         {
             if (checkRmRead(nodeRef) == AccessDecisionVoter.ACCESS_DENIED)
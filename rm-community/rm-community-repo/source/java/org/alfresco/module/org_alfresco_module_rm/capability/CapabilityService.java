@@ -27,6 +27,7 @@
 
 package org.alfresco.module.org_alfresco_module_rm.capability;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -98,6 +99,29 @@ public interface CapabilityService
     */
    Map<Capability, AccessStatus> getCapabilitiesAccessState(NodeRef nodeRef, List<String> capabilityNames);
 
+   /**
+    * Get the access state of the assignable capabilities for a number of nodes at once, based on the current user.
+    *
+    * @param nodeRefs          node references
+    * @param includePrivate    indicates that the private, or non-assignable capabilities are included in the result
+    * @return {@link Map}&lt;{@link NodeRef}, {@link Map}&lt;{@link Capability}, {@link AccessStatus}&gt;&gt; capability access state for each node
+    * @since 2.7
+    */
+   Map<NodeRef, Map<Capability, AccessStatus>> getCapabilitiesAccessState(Collection<NodeRef> nodeRefs, boolean includePrivate);
+
+   /**
+    * Get the access state of the named capabilities for a number of nodes at once, based on the current user.
+    * <p>
+    * The read checks, file plan permissions and capability conditions shared by the capabilities are
+    * evaluated once for the whole batch rather than once for each capability.
+    *
+    * @param nodeRefs          node references
+    * @param capabilityNames   capability names, unknown names are ignored
+    * @return {@link Map}&lt;{@link NodeRef}, {@link Map}&lt;{@link Capability}, {@link AccessStatus}&gt;&gt; capability access state for each node
+    * @since 2.7
+    */
+   Map<NodeRef, Map<Capability, AccessStatus>> getCapabilitiesAccessState(Collection<NodeRef> nodeRefs, List<String> capabilityNames);
+
    /**
     * Helper method to get the access state for a single capability.
     *
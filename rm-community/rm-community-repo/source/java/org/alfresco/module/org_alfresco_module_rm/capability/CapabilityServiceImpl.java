@@ -28,6 +28,7 @@
 package org.alfresco.module.org_alfresco_module_rm.capability;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -36,8 +37,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.alfresco.module.org_alfresco_module_rm.capability.declarative.DeclarativeCapability;
+import org.alfresco.repo.transaction.AlfrescoTransactionSupport;
 import org.alfresco.service.cmr.repository.NodeRef;
 import org.alfresco.service.cmr.security.AccessStatus;
+import org.alfresco.util.Pair;
 import org.alfresco.util.ParameterCheck;
 
 /**
@@ -163,6 +167,98 @@ public class CapabilityServiceImpl implements CapabilityService
         return answer;
     }
 
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.capability.CapabilityService#getCapabilitiesAccessState(java.util.Collection, boolean)
+     */
+    @Override
+    public Map<NodeRef, Map<Capability, AccessStatus>> getCapabilitiesAccessState(Collection<NodeRef> nodeRefs, boolean includePrivate)
+    {
+        ParameterCheck.mandatory("nodeRefs", nodeRefs);
+
+        return getCapabilitiesAccessState(nodeRefs, getCapabilities(includePrivate));
+    }
+
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.capability.CapabilityService#getCapabilitiesAccessState(java.util.Collection, java.util.List)
+     */
+    @Override
+    public Map<NodeRef, Map<Capability, AccessStatus>> getCapabilitiesAccessState(Collection<NodeRef> nodeRefs, List<String> capabilityNames)
+    {
+        ParameterCheck.mandatory("nodeRefs", nodeRefs);
+        ParameterCheck.mandatory("capabilityNames", capabilityNames);
+
+        Set<Capability> listOfCapabilities = new HashSet<Capability>(capabilityNames.size());
+        for (String capabilityName : capabilityNames)
+        {
+            Capability capability = capabilities.get(capabilityName);
+            if (capability != null)
+            {
+                listOfCapabilities.add(capability);
+            }
+        }
+        return getCapabilitiesAccessState(nodeRefs, listOfCapabilities);
+    }
+
+    /**
+     * Evaluates the given capabilities for each node.
+     * <p>
+     * The RM read checks of all the nodes are made in one batch and the capability conditions and file plan
+     * permissions shared by the capabilities are only evaluated once per node, or file plan, for the batch.
+     *
+     * @param nodeRefs              node references
+     * @param listOfCapabilities    capabilities
+     * @return {@link Map}&lt;{@link NodeRef}, {@link Map}&lt;{@link Capability}, {@link AccessStatus}&gt;&gt; capability access state for each node
+     */
+    private Map<NodeRef, Map<Capability, AccessStatus>> getCapabilitiesAccessState(Collection<NodeRef> nodeRefs, Set<Capability> listOfCapabilities)
+    {
+        Map<NodeRef, Map<Capability, AccessStatus>> answer = new HashMap<NodeRef, Map<Capability, AccessStatus>>(nodeRefs.size());
+        if (nodeRefs.isEmpty() || listOfCapabilities.isEmpty())
+        {
+            for (NodeRef nodeRef : nodeRefs)
+            {
+                answer.put(nodeRef, new HashMap<Capability, AccessStatus>());
+            }
+            return answer;
+        }
+
+        // the read check cache is shared by all the capabilities, so any of them can prime it
+        for (Capability capability : listOfCapabilities)
+        {
+            if (capability instanceof AbstractCapability)
+            {
+                ((AbstractCapability) capability).checkRead(nodeRefs, new HashMap<NodeRef, Integer>(nodeRefs.size()));
+                break;
+            }
+        }
+
+        // share the condition and permission evaluations between the capabilities for the duration of the batch
+        boolean bound = (AlfrescoTransactionSupport.getResource(DeclarativeCapability.KEY_BATCH_EVALUATIONS) == null);
+        if (bound)
+        {
+            AlfrescoTransactionSupport.bindResource(DeclarativeCapability.KEY_BATCH_EVALUATIONS, new HashMap<Pair<String, NodeRef>, Boolean>());
+        }
+        try
+        {
+            for (NodeRef nodeRef : nodeRefs)
+            {
+                Map<Capability, AccessStatus> states = new HashMap<Capability, AccessStatus>(listOfCapabilities.size());
+                for (Capability capability : listOfCapabilities)
+                {
+                    states.put(capability, capability.hasPermission(nodeRef));
+                }
+                answer.put(nodeRef, states);
+            }
+        }
+        finally
+        {
+            if (bound)
+            {
+                AlfrescoTransactionSupport.unbindResource(DeclarativeCapability.KEY_BATCH_EVALUATIONS);
+            }
+        }
+        return answer;
+    }
+
     /**
      * @see org.alfresco.module.org_alfresco_module_rm.capability.CapabilityService#getCapabilityAccessState(org.alfresco.service.cmr.repository.NodeRef, java.lang.String)
      */
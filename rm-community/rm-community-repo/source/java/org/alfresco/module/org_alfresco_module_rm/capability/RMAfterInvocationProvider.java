@@ -28,6 +28,7 @@
 package org.alfresco.module.org_alfresco_module_rm.capability;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
@@ -80,6 +81,9 @@ public class RMAfterInvocationProvider extends RMSecurityCommon
 
     private static final String AFTER_RM = "AFTER_RM";
 
+    /** number of returned values whose read checks are evaluated together */
+    private static final int READ_CHECK_BATCH_SIZE = 1000;
+
     private int maxPermissionChecks;
 
     private long maxPermissionCheckTimeMillis;
@@ -512,10 +516,18 @@ public class RMAfterInvocationProvider extends RMSecurityCommon
                         PermissionEvaluationMode.EAGER,
                         returnedObject.getResultSetMetaData().getSearchParameters()));
 
+        // read checks evaluated in batches ahead of the filtering
+        Map<NodeRef, Integer> readChecks = new HashMap<NodeRef, Integer>();
+
         for (int i = 0; i < returnedObject.length(); i++)
         {
             long currentTimeMillis = System.currentTimeMillis();
 
+            if (i % READ_CHECK_BATCH_SIZE == 0)
+            {
+                prefetchReadChecks(returnedObject, i, readChecks);
+            }
+
             // All permission checks must pass
             inclusionMask.set(i, true);
 
@@ -525,8 +537,8 @@ public class RMAfterInvocationProvider extends RMSecurityCommon
             }
             else
             {
-	            int parentCheckRead = checkRead(returnedObject.getChildAssocRef(i).getParentRef());
-	            int childCheckRead = checkRead(returnedObject.getNodeRef(i));
+	            int parentCheckRead = getReadCheck(readChecks, returnedObject.getChildAssocRef(i).getParentRef());
+	            int childCheckRead = getReadCheck(readChecks, returnedObject.getNodeRef(i));
 
 	            for (ConfigAttributeDefintion cad : supportedDefinitions)
 	            {
@@ -632,6 +644,12 @@ public class RMAfterInvocationProvider extends RMSecurityCommon
         long startTimeMillis = System.currentTimeMillis();
         int count = 0;
 
+        // Read checks are evaluated in batches, so the cut-off counts the distinct permission evaluations
+        List<Object> values = new ArrayList<Object>(returnedObject);
+        Map<NodeRef, Integer> readChecks = new HashMap<NodeRef, Integer>();
+        int evaluations = 0;
+        int prefetched = 0;
+
         // Keep values explicitly
         List<Object> keepValues = new ArrayList<Object>(returnedObject.size());
 
@@ -640,19 +658,18 @@ public class RMAfterInvocationProvider extends RMSecurityCommon
             // if the maximum result size or time has been exceeded, then we have to remove only
             long currentTimeMillis = System.currentTimeMillis();
 
-            // NOTE: for reference - the "maxPermissionChecks" has never been honoured by this loop (since previously the count was not being incremented)
             if (count >= targetResultCount)
             {
                 // We have enough results.  We stop without cutoff.
                 break;
             }
-            else if (count >= maxPermissionChecks)
+            else if (count == prefetched && evaluations >= maxPermissionChecks)
             {
                 // We have been cut off by count
                 cutoff = true;
                 if (logger.isDebugEnabled())
                 {
-                    logger.debug("decide (collection) cut-off: " + count + " checks exceeded " + maxPermissionChecks + " checks");
+                    logger.debug("decide (collection) cut-off: " + evaluations + " checks exceeded " + maxPermissionChecks + " checks");
                 }
                 break;
             }
@@ -667,6 +684,16 @@ public class RMAfterInvocationProvider extends RMSecurityCommon
                 break;
             }
 
+            if (count == prefetched)
+            {
+                // never evaluate more values than the remaining checks allow
+                long batchSize = Math.min(READ_CHECK_BATCH_SIZE,
+                                          Math.min(targetResultCount - count, (long) maxPermissionChecks - evaluations));
+                List<Object> batch = values.subList(count, (int) Math.min(values.size(), count + batchSize));
+                evaluations += prefetchReadChecks(batch, supportedDefinitions, readChecks);
+                prefetched = count + batch.size();
+            }
+
             boolean allowed = true;
             for (ConfigAttributeDefintion cad : supportedDefinitions)
             {
@@ -744,7 +771,7 @@ public class RMAfterInvocationProvider extends RMSecurityCommon
 
                     if (allowed &&
                         testNodeRef != null &&
-                        checkRead(testNodeRef) != AccessDecisionVoter.ACCESS_GRANTED)
+                        getReadCheck(readChecks, testNodeRef) != AccessDecisionVoter.ACCESS_GRANTED)
                     {
                         allowed = false;
                         // No point evaluating more ConfigAttributeDefintions
@@ -796,12 +823,21 @@ public class RMAfterInvocationProvider extends RMSecurityCommon
             return returnedObject;
         }
 
+        // read checks evaluated in batches ahead of the filtering
+        List<Object> values = Arrays.asList(returnedObject);
+        Map<NodeRef, Integer> readChecks = new HashMap<NodeRef, Integer>();
+
         for (int i = 0, l = returnedObject.length; i < l; i++)
         {
             Object current = returnedObject[i];
 
-            int parentReadCheck = checkRead(getParentReadCheckNode(current));
-            int childReadChek = checkRead(getChildReadCheckNode(current));
+            if (i % READ_CHECK_BATCH_SIZE == 0)
+            {
+                prefetchReadChecks(values.subList(i, Math.min(l, i + READ_CHECK_BATCH_SIZE)), supportedDefinitions, readChecks);
+            }
+
+            int parentReadCheck = getReadCheck(readChecks, getParentReadCheckNode(current));
+            int childReadChek = getReadCheck(readChecks, getChildReadCheckNode(current));
 
             for (ConfigAttributeDefintion cad : supportedDefinitions)
             {
@@ -909,6 +945,10 @@ public class RMAfterInvocationProvider extends RMSecurityCommon
         {
             testNodeRef = ((ChildAssociationRef) current).getParentRef();
         }
+        else if (AssociationRef.class.isAssignableFrom(current.getClass()))
+        {
+            testNodeRef = ((AssociationRef) current).getSourceRef();
+        }
         else if (PermissionCheckValue.class.isAssignableFrom(current.getClass()))
         {
             NodeRef nodeRef = ((PermissionCheckValue) current).getNodeRef();
@@ -936,6 +976,10 @@ public class RMAfterInvocationProvider extends RMSecurityCommon
         {
             testNodeRef = ((ChildAssociationRef) current).getChildRef();
         }
+        else if (AssociationRef.class.isAssignableFrom(current.getClass()))
+        {
+            testNodeRef = ((AssociationRef) current).getTargetRef();
+        }
         else if (PermissionCheckValue.class.isAssignableFrom(current.getClass()))
         {
             testNodeRef = ((PermissionCheckValue) current).getNodeRef();
@@ -947,6 +991,91 @@ public class RMAfterInvocationProvider extends RMSecurityCommon
         return testNodeRef;
     }
 
+    /**
+     * Evaluates, in one batch, the read checks of the result set rows starting at the given index.
+     *
+     * @param resultSet     result set
+     * @param start         index of the first row
+     * @param readChecks    read check results, keyed by node reference
+     * @return int          number of distinct permission evaluations made
+     */
+    private int prefetchReadChecks(ResultSet resultSet, int start, Map<NodeRef, Integer> readChecks)
+    {
+        List<NodeRef> nodeRefs = new ArrayList<NodeRef>(READ_CHECK_BATCH_SIZE * 2);
+        for (int i = start, l = Math.min(resultSet.length(), start + READ_CHECK_BATCH_SIZE); i < l; i++)
+        {
+            NodeRef nodeRef = resultSet.getNodeRef(i);
+            if (nodeService.exists(nodeRef))
+            {
+                nodeRefs.add(resultSet.getChildAssocRef(i).getParentRef());
+                nodeRefs.add(nodeRef);
+            }
+        }
+        return checkRead(nodeRefs, readChecks);
+    }
+
+    /**
+     * Evaluates, in one batch, the read checks of the given returned values.
+     *
+     * @param values                returned values
+     * @param supportedDefinitions  supported definitions, used to decide whether parent and/or child are checked
+     * @param readChecks            read check results, keyed by node reference
+     * @return int                  number of distinct permission evaluations made
+     */
+    private int prefetchReadChecks(List<Object> values, List<ConfigAttributeDefintion> supportedDefinitions, Map<NodeRef, Integer> readChecks)
+    {
+        boolean checkParent = false;
+        boolean checkChild = false;
+        for (ConfigAttributeDefintion cad : supportedDefinitions)
+        {
+            if (cad.parent)
+            {
+                checkParent = true;
+            }
+            else
+            {
+                checkChild = true;
+            }
+        }
+
+        List<NodeRef> nodeRefs = new ArrayList<NodeRef>(values.size() * 2);
+        for (Object value : values)
+        {
+            if (checkParent)
+            {
+                nodeRefs.add(getParentReadCheckNode(value));
+            }
+            if (checkChild)
+            {
+                nodeRefs.add(getChildReadCheckNode(value));
+            }
+        }
+        return checkRead(nodeRefs, readChecks);
+    }
+
+    /**
+     * Gets the read check result for a node, falling back to an individual check if it has not been evaluated already.
+     *
+     * @param readChecks    read check results, keyed by node reference
+     * @param nodeRef       node reference, can be null
+     * @return int          see {@link AccessDecisionVoter}
+     */
+    private int getReadCheck(Map<NodeRef, Integer> readChecks, NodeRef nodeRef)
+    {
+        if (nodeRef == null)
+        {
+            return AccessDecisionVoter.ACCESS_ABSTAIN;
+        }
+
+        Integer result = readChecks.get(nodeRef);
+        if (result == null)
+        {
+            result = checkRead(nodeRef);
+            readChecks.put(nodeRef, result);
+        }
+        return result;
+    }
+
     private class ConfigAttributeDefintion
     {
 
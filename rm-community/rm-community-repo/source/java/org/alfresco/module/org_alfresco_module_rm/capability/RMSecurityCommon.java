@@ -27,12 +27,18 @@
 
 package org.alfresco.module.org_alfresco_module_rm.capability;
 
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
+import org.alfresco.model.ContentModel;
 import org.alfresco.module.org_alfresco_module_rm.capability.impl.ViewRecordsCapability;
 import org.alfresco.module.org_alfresco_module_rm.caveat.RMCaveatConfigComponent;
 import org.alfresco.module.org_alfresco_module_rm.fileplan.FilePlanService;
 import org.alfresco.module.org_alfresco_module_rm.model.RecordsManagementModel;
+import org.alfresco.module.org_alfresco_module_rm.security.CapabilityProfiler;
 import org.alfresco.repo.security.authentication.AuthenticationUtil;
 import org.alfresco.repo.transaction.AlfrescoTransactionSupport;
 import org.alfresco.repo.transaction.TransactionalResourceHelper;
@@ -43,6 +49,7 @@ import org.alfresco.service.cmr.repository.NodeService;
 import org.alfresco.service.cmr.repository.StoreRef;
 import org.alfresco.service.cmr.security.AccessStatus;
 import org.alfresco.service.cmr.security.PermissionService;
+import org.alfresco.service.namespace.QName;
 import org.alfresco.util.Pair;
 import org.aopalliance.intercept.MethodInvocation;
 import org.apache.commons.logging.Log;
@@ -216,6 +223,104 @@ public class RMSecurityCommon implements ApplicationContextAware
         return result;
     }
 
+    /**
+     * Check for RM read on a number of nodes at once.
+     * <p>
+     * The nodes are grouped by their ACL and by the node state that the read permission depends on (file plan,
+     * owner, lock owner and extended readers and writers).  The permission checks are evaluated once for each
+     * distinct group and the result is applied to all the members of the group.  Caveats are still checked
+     * for each node.
+     *
+     * @param nodeRefs  node references, null values are ignored
+     * @param results   map the read check result, see {@link AccessDecisionVoter}, is added to for each node
+     * @return int      number of distinct permission evaluations that were made
+     */
+    public int checkRead(Collection<NodeRef> nodeRefs, Map<NodeRef, Integer> results)
+    {
+        int evaluations = 0;
+
+        Map<Pair<String, NodeRef>, Integer> transactionCache = TransactionalResourceHelper.getMap("rm.security.checkRMRead");
+        Map<List<Serializable>, Integer> groupCache = TransactionalResourceHelper.getMap("rm.security.checkRMReadGroup");
+        String user = AuthenticationUtil.getRunAsUser();
+
+        for (NodeRef nodeRef : nodeRefs)
+        {
+            if (nodeRef == null || results.containsKey(nodeRef))
+            {
+                continue;
+            }
+
+            Pair<String, NodeRef> key = new Pair<String, NodeRef>(user, nodeRef);
+            Integer result = transactionCache.get(key);
+            CapabilityProfiler.cacheLookup("rm.security.checkRMRead", result != null);
+            if (result == null)
+            {
+                if (!nodeService.hasAspect(nodeRef, RecordsManagementModel.ASPECT_FILE_PLAN_COMPONENT))
+                {
+                    // not a records management node, so abstain without caching as checkRead does
+                    results.put(nodeRef, AccessDecisionVoter.ACCESS_ABSTAIN);
+                    continue;
+                }
+
+                NodeRef filePlan = getFilePlanService().getFilePlan(nodeRef);
+                List<Serializable> groupKey = getReadGroupKey(user, nodeRef, filePlan);
+                result = groupCache.get(groupKey);
+                CapabilityProfiler.cacheLookup("rm.security.checkRMReadGroup", result != null);
+                if (result == null)
+                {
+                    result = checkRmReadPermissions(nodeRef, filePlan);
+                    groupCache.put(groupKey, result);
+                    evaluations++;
+                }
+
+                if (result == AccessDecisionVoter.ACCESS_GRANTED && !caveatConfigComponent.hasAccess(nodeRef))
+                {
+                    result = AccessDecisionVoter.ACCESS_DENIED;
+                }
+
+                // cache result
+                transactionCache.put(key, result);
+            }
+
+            results.put(nodeRef, result);
+        }
+
+        return evaluations;
+    }
+
+    /**
+     * Gets the key that groups together nodes whose read permission checks will give the same result.
+     *
+     * @param user      user the check is made for
+     * @param nodeRef   node reference
+     * @param filePlan  file plan the node belongs to
+     * @return {@link List}&lt;{@link Serializable}&gt; read group key
+     */
+    private List<Serializable> getReadGroupKey(String user, NodeRef nodeRef, NodeRef filePlan)
+    {
+        // the dynamic authorities are evaluated against these properties rather than the ACL
+        Map<QName, Serializable> props = nodeService.getProperties(nodeRef);
+        Serializable owner = props.get(ContentModel.PROP_OWNER);
+        if (owner == null)
+        {
+            owner = props.get(ContentModel.PROP_CREATOR);
+        }
+
+        // the extended security properties are deprecated, but the dynamic authorities still read them
+        @SuppressWarnings("deprecation")
+        Serializable readers = props.get(RecordsManagementModel.PROP_READERS);
+        @SuppressWarnings("deprecation")
+        Serializable writers = props.get(RecordsManagementModel.PROP_WRITERS);
+
+        return Arrays.asList(user,
+                             nodeService.getNodeAclId(nodeRef),
+                             filePlan,
+                             owner,
+                             props.get(ContentModel.PROP_LOCK_OWNER),
+                             readers,
+                             writers);
+    }
+
     /**
      * Core RM read check
      *
@@ -229,42 +334,22 @@ public class RMSecurityCommon implements ApplicationContextAware
     	Map<Pair<String, NodeRef>, Integer> transactionCache = TransactionalResourceHelper.getMap("rm.security.checkRMRead");
     	Pair<String, NodeRef> key = new Pair<String, NodeRef>(AuthenticationUtil.getRunAsUser(), nodeRef);
 
-    	if (transactionCache.containsKey(key))
+    	boolean cached = transactionCache.containsKey(key);
+    	CapabilityProfiler.cacheLookup("rm.security.checkRMRead", cached);
+    	if (cached)
     	{
     		result = transactionCache.get(key);
     	}
     	else
     	{
-	        if (permissionService.hasPermission(nodeRef, RMPermissionModel.READ_RECORDS) == AccessStatus.DENIED)
+	        // Get the file plan for the node
+	        NodeRef filePlan = getFilePlanService().getFilePlan(nodeRef);
+
+	        result = checkRmReadPermissions(nodeRef, filePlan);
+	        if (result == AccessDecisionVoter.ACCESS_GRANTED && !caveatConfigComponent.hasAccess(nodeRef))
 	        {
-	            if (logger.isDebugEnabled())
-	            {
-	                logger.debug("\t\tUser does not have read record permission on node, access denied.  (nodeRef=" + nodeRef.toString() + ", user=" + AuthenticationUtil.getRunAsUser() + ")");
-	            }
 	            result = AccessDecisionVoter.ACCESS_DENIED;
 	        }
-	        else
-	        {
-		        // Get the file plan for the node
-		        NodeRef filePlan = getFilePlanService().getFilePlan(nodeRef);
-		        if (filePlan != null &&
-		            hasViewCapability(filePlan) == AccessStatus.DENIED)
-		        {
-		            if (logger.isDebugEnabled())
-		            {
-		                logger.debug("\t\tUser does not have view records capability permission on node, access denied. (filePlan=" + filePlan.toString() + ", user=" + AuthenticationUtil.getRunAsUser() + ")");
-		            }
-		            result = AccessDecisionVoter.ACCESS_DENIED;
-		        }
-		        else if (!caveatConfigComponent.hasAccess(nodeRef))
-		        {
-		            result = AccessDecisionVoter.ACCESS_DENIED;
-		        }
-		        else
-		        {
-		            result = AccessDecisionVoter.ACCESS_GRANTED;
-		        }
-	        }
 
 	        // cache result
 	        transactionCache.put(key, result);
@@ -273,6 +358,40 @@ public class RMSecurityCommon implements ApplicationContextAware
     	return result;
     }
 
+    /**
+     * Checks the read records permission on the node and the view records capability on its file plan.
+     *
+     * @param nodeRef   node reference
+     * @param filePlan  file plan of the node, can be null
+     * @return int      see {@link AccessDecisionVoter}
+     */
+    private int checkRmReadPermissions(NodeRef nodeRef, NodeRef filePlan)
+    {
+        int result;
+        if (permissionService.hasPermission(nodeRef, RMPermissionModel.READ_RECORDS) == AccessStatus.DENIED)
+        {
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("\t\tUser does not have read record permission on node, access denied.  (nodeRef=" + nodeRef.toString() + ", user=" + AuthenticationUtil.getRunAsUser() + ")");
+            }
+            result = AccessDecisionVoter.ACCESS_DENIED;
+        }
+        else if (filePlan != null &&
+                 hasViewCapability(filePlan) == AccessStatus.DENIED)
+        {
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("\t\tUser does not have view records capability permission on node, access denied. (filePlan=" + filePlan.toString() + ", user=" + AuthenticationUtil.getRunAsUser() + ")");
+            }
+            result = AccessDecisionVoter.ACCESS_DENIED;
+        }
+        else
+        {
+            result = AccessDecisionVoter.ACCESS_GRANTED;
+        }
+        return result;
+    }
+
     /**
      * Helper method to determine whether the current user has view capability on the file plan
      *
@@ -284,7 +403,9 @@ public class RMSecurityCommon implements ApplicationContextAware
     	Map<Pair<String, NodeRef>, AccessStatus> transactionCache = TransactionalResourceHelper.getMap("rm.security.hasViewCapability");
     	Pair<String, NodeRef> key = new Pair<String, NodeRef>(AuthenticationUtil.getRunAsUser(), filePlan);
 
-    	if (transactionCache.containsKey(key))
+    	boolean cached = transactionCache.containsKey(key);
+    	CapabilityProfiler.cacheLookup("rm.security.hasViewCapability", cached);
+    	if (cached)
     	{
     		return transactionCache.get(key);
     	}
@@ -39,11 +39,14 @@ import org.alfresco.error.AlfrescoRuntimeException;
 import org.alfresco.module.org_alfresco_module_rm.capability.AbstractCapability;
 import org.alfresco.module.org_alfresco_module_rm.capability.Capability;
 import org.alfresco.module.org_alfresco_module_rm.fileplan.FilePlanComponentKind;
+import org.alfresco.module.org_alfresco_module_rm.security.CapabilityProfiler;
 import org.alfresco.module.org_alfresco_module_rm.security.RMMethodSecurityInterceptor;
 import org.alfresco.repo.security.authentication.AuthenticationUtil;
+import org.alfresco.repo.transaction.AlfrescoTransactionSupport;
 import org.alfresco.repo.transaction.TransactionalResourceHelper;
 import org.alfresco.service.cmr.repository.NodeRef;
 import org.alfresco.service.cmr.security.AccessStatus;
+import org.alfresco.util.Pair;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -57,6 +60,14 @@ public class DeclarativeCapability extends AbstractCapability
     /** Logger */
     protected static final Log LOGGER = LogFactory.getLog(DeclarativeCapability.class);
 
+    /**
+     * Transaction resource key of the condition and permission evaluations shared by the capabilities
+     * while a batch of nodes is evaluated.
+     *
+     * @since 2.7
+     */
+    public static final String KEY_BATCH_EVALUATIONS = "rm.declarativeCapability.batchEvaluations";
+
     /** Required permissions */
     protected List<String> permissions;
 
@@ -180,9 +191,21 @@ public class DeclarativeCapability extends AbstractCapability
             return result;
         }
 
+        Map<Pair<String, NodeRef>, Boolean> batchEvaluations = getBatchEvaluations();
         for (String permission : permissions)
         {
-             if (permissionService.hasPermission(filePlan, permission) != AccessStatus.ALLOWED)
+            Pair<String, NodeRef> key = new Pair<String, NodeRef>("permission." + permission, filePlan);
+            Boolean allowed = (batchEvaluations == null ? null : batchEvaluations.get(key));
+            if (allowed == null)
+            {
+                allowed = (permissionService.hasPermission(filePlan, permission) == AccessStatus.ALLOWED);
+                if (batchEvaluations != null)
+                {
+                    batchEvaluations.put(key, allowed);
+                }
+            }
+
+            if (!allowed)
             {
                 result = false;
                 break;
@@ -219,6 +242,7 @@ public class DeclarativeCapability extends AbstractCapability
         boolean result = true;
         if (conditions != null)
         {
+            Map<Pair<String, NodeRef>, Boolean> batchEvaluations = getBatchEvaluations();
             for (Map.Entry<String, Boolean> entry : conditions.entrySet())
             {
                 boolean expected = entry.getValue().booleanValue();
@@ -230,8 +254,23 @@ public class DeclarativeCapability extends AbstractCapability
                     throw new AlfrescoRuntimeException("Capability condition " + conditionName + " does not exist.  Check the configuration of the capability " + name + ".");
                 }
 
-                // determine the actual value
-                boolean actual = condition.evaluate(nodeRef);
+                // determine the actual value, reusing the value from this batch if already known
+                Pair<String, NodeRef> key = new Pair<String, NodeRef>("condition." + conditionName, nodeRef);
+                Boolean actual = (batchEvaluations == null ? null : batchEvaluations.get(key));
+                if (batchEvaluations != null)
+                {
+                    CapabilityProfiler.cacheLookup(KEY_BATCH_EVALUATIONS, actual != null);
+                }
+                if (actual == null)
+                {
+                    long start = CapabilityProfiler.start();
+                    actual = condition.evaluate(nodeRef);
+                    CapabilityProfiler.conditionEvaluated(conditionName, start, expected != actual);
+                    if (batchEvaluations != null)
+                    {
+                        batchEvaluations.put(key, actual);
+                    }
+                }
 
                 // report information about condition (for exception reporting)
                 RMMethodSecurityInterceptor.reportCapabilityCondition(getName(), condition.getName(), expected, actual);
@@ -252,6 +291,17 @@ public class DeclarativeCapability extends AbstractCapability
         return result;
     }
 
+    /**
+     * Gets the condition and permission evaluations of the current batch.
+     *
+     * @return {@link Map}&lt;{@link Pair}&lt;String, {@link NodeRef}&gt;, Boolean&gt; batch evaluations, null if no batch is being evaluated
+     */
+    @SuppressWarnings("unchecked")
+    private Map<Pair<String, NodeRef>, Boolean> getBatchEvaluations()
+    {
+        return (Map<Pair<String, NodeRef>, Boolean>) AlfrescoTransactionSupport.getResource(KEY_BATCH_EVALUATIONS);
+    }
+
     /**
      * Checks the set conditions.
      *
@@ -321,10 +371,14 @@ public class DeclarativeCapability extends AbstractCapability
         String key = getName() + "|" + nodeRef.toString() + "|" + AuthenticationUtil.getRunAsUser();
         if (map.containsKey(key))
         {
+            CapabilityProfiler.cacheLookup("rm.declarativeCapability", true);
             result = map.get(key);
         }
         else
         {
+            CapabilityProfiler.cacheLookup("rm.declarativeCapability", false);
+            long start = CapabilityProfiler.start();
+
 	        // Check we are dealing with a file plan component
 	        if (getFilePlanService().isFilePlanComponent(nodeRef))
 	        {
@@ -350,6 +404,8 @@ public class DeclarativeCapability extends AbstractCapability
 	        }
 
 	        map.put(key, result);
+
+	        CapabilityProfiler.capabilityEvaluated(getName(), start, result == AccessDecisionVoter.ACCESS_DENIED);
 	    }
 
         return result;
@@ -27,14 +27,18 @@
 
 package org.alfresco.module.org_alfresco_module_rm.event;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.alfresco.error.AlfrescoRuntimeException;
 import org.alfresco.model.ContentModel;
+import org.alfresco.repo.cache.SimpleCache;
 import org.alfresco.repo.security.authentication.AuthenticationUtil;
 import org.alfresco.service.cmr.repository.ContentReader;
 import org.alfresco.service.cmr.repository.ContentService;
@@ -42,6 +46,8 @@ import org.alfresco.service.cmr.repository.ContentWriter;
 import org.alfresco.service.cmr.repository.NodeRef;
 import org.alfresco.service.cmr.repository.NodeService;
 import org.alfresco.service.cmr.repository.StoreRef;
+import org.alfresco.util.EqualsHelper;
+import org.alfresco.util.Pair;
 import org.alfresco.util.ParameterCheck;
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -65,11 +71,17 @@ public class RecordsManagementEventServiceImpl implements RecordsManagementEvent
     /** Content service */
     private ContentService contentService;
 
+    /** Key of the event configuration in the event configuration cache */
+    private static final String EVENT_CONFIGURATION_KEY = "rm.eventConfiguration";
+
     /** Registered event types */
     private Map<String, RecordsManagementEventType> eventTypes = new HashMap<String, RecordsManagementEventType>(7);
 
-    /** Available events */
-    private Map<String, RecordsManagementEvent> events;
+    /** Event configuration cache, shared across the cluster */
+    private SimpleCache<String, EventConfiguration> eventConfigurationCache;
+
+    /** Available events, built from the cached event configuration with the given version */
+    private volatile Pair<String, Map<String, RecordsManagementEvent>> events;
 
     /**
      * Set the node service
@@ -91,6 +103,16 @@ public class RecordsManagementEventServiceImpl implements RecordsManagementEvent
         this.contentService = contentService;
     }
 
+    /**
+     * Set the event configuration cache
+     *
+     * @param eventConfigurationCache event configuration cache
+     */
+    public void setEventConfigurationCache(SimpleCache<String, EventConfiguration> eventConfigurationCache)
+    {
+        this.eventConfigurationCache = eventConfigurationCache;
+    }
+
     /**
      * @see org.alfresco.module.org_alfresco_module_rm.event.RecordsManagementEventService#registerEventType(org.alfresco.module.org_alfresco_module_rm.event.RecordsManagementEventType)
      */
@@ -237,12 +259,13 @@ public class RecordsManagementEventServiceImpl implements RecordsManagementEvent
                         + eventType + ")");
         }
 
-        // Create event and add to map
+        // Create event and add to a copy of the map
         RecordsManagementEvent event = new RecordsManagementEvent(eventTypes.get(eventType), eventName, eventDisplayLabel);
-        getEventMap().put(event.getName(), event);
+        Map<String, RecordsManagementEvent> events = new LinkedHashMap<String, RecordsManagementEvent>(getEventMap());
+        events.put(event.getName(), event);
 
         // Persist the changes to the event list
-        saveEvents();
+        saveEvents(events);
 
         return new RecordsManagementEvent(eventTypes.get(eventType), eventName, eventDisplayLabel);
     }
@@ -252,37 +275,81 @@ public class RecordsManagementEventServiceImpl implements RecordsManagementEvent
      */
     public void removeEvent(String eventName)
     {
-        // Remove the event from the map
-        getEventMap().remove(eventName);
+        // Remove the event from a copy of the map
+        Map<String, RecordsManagementEvent> events = new LinkedHashMap<String, RecordsManagementEvent>(getEventMap());
+        events.remove(eventName);
 
         // Persist the changes to the event list
-        saveEvents();
+        saveEvents(events);
     }
 
     /**
-     * Helper method to get the event map. Loads initial instance from persisted
-     * configuration file.
+     * Helper method to get the event map. The event configuration is taken from the
+     * shared cache, and only loaded from the persisted configuration file when it is
+     * not cached.  The events are only rebuilt when the configuration version changes.
      *
-     * @return Map<String, RecordsManagementEvent> map of available events by
+     * @return Map<String, RecordsManagementEvent> unmodifiable map of available events by
      *         event name
      */
     private Map<String, RecordsManagementEvent> getEventMap()
     {
-        if (this.events == null)
+        EventConfiguration configuration = eventConfigurationCache.get(EVENT_CONFIGURATION_KEY);
+        if (configuration == null)
+        {
+            configuration = loadEvents();
+            eventConfigurationCache.put(EVENT_CONFIGURATION_KEY, configuration);
+        }
+
+        Pair<String, Map<String, RecordsManagementEvent>> current = this.events;
+        if (current == null || !EqualsHelper.nullSafeEquals(current.getFirst(), configuration.getVersion()))
+        {
+            current = new Pair<String, Map<String, RecordsManagementEvent>>(configuration.getVersion(), buildEvents(configuration));
+            this.events = current;
+        }
+        return current.getSecond();
+    }
+
+    /**
+     * Build the events described by an event configuration.
+     *
+     * @param configuration event configuration
+     * @return Map<String, RecordsManagementEvent> unmodifiable map of events by event name
+     */
+    private Map<String, RecordsManagementEvent> buildEvents(EventConfiguration configuration)
+    {
+        Map<String, RecordsManagementEvent> result = new LinkedHashMap<String, RecordsManagementEvent>(configuration.getEvents().size());
+        for (String[] eventDetails : configuration.getEvents())
         {
-            loadEvents();
+            String eventType = eventDetails[0];
+            String eventName = eventDetails[1];
+
+            // Check that the eventType is valid
+            if (!eventTypes.containsKey(eventType))
+            {
+                throw new AlfrescoRuntimeException(
+                            "Can not load rm event configuration because event " +
+                            eventName +
+                            " has an undefined eventType. ("
+                            + eventType + ")");
+            }
+
+            // Create event and add to map
+            RecordsManagementEvent event = new RecordsManagementEvent(eventTypes.get(eventType), eventName, eventDetails[2]);
+            result.put(event.getName(), event);
         }
-        return this.events;
+        return Collections.unmodifiableMap(result);
     }
 
     /**
      * Load the events from the persistant storage
+     *
+     * @return {@link EventConfiguration} event configuration
      */
-    private void loadEvents()
+    private EventConfiguration loadEvents()
     {
-        AuthenticationUtil.runAs(new AuthenticationUtil.RunAsWork<Object>()
+        return AuthenticationUtil.runAs(new AuthenticationUtil.RunAsWork<EventConfiguration>()
         {
-            public Object doWork() throws Exception
+            public EventConfiguration doWork() throws Exception
             {
                 // Get the event config node
                 if (!nodeService.exists(CONFIG_NODE_REF))
@@ -297,8 +364,7 @@ public class RecordsManagementEventServiceImpl implements RecordsManagementEvent
                 JSONObject configJSON = new JSONObject(jsonString);
                 JSONArray eventsJSON = configJSON.getJSONArray("events");
 
-                events = new HashMap<String, RecordsManagementEvent>(eventsJSON.length());
-
+                List<String[]> events = new ArrayList<String[]>(eventsJSON.length());
                 for (int i = 0; i < eventsJSON.length(); i++)
                 {
                     // Get the JSON object that represents the event
@@ -315,35 +381,26 @@ public class RecordsManagementEventServiceImpl implements RecordsManagementEvent
                         eventDisplayLabel = translated;
                     }
 
-
-                    // Check that the eventType is valid
-                    if (!eventTypes.containsKey(eventType))
-                    {
-                        throw new AlfrescoRuntimeException(
-                                    "Can not load rm event configuration because event " +
-                                    eventName +
-                                    " has an undefined eventType. ("
-                                    + eventType + ")");
-                    }
-
-                    // Create event and add to map
-                    RecordsManagementEvent event = new RecordsManagementEvent(eventTypes.get(eventType), eventName, eventDisplayLabel);
-                    events.put(event.getName(), event);
+                    events.add(new String[] { eventType, eventName, eventDisplayLabel });
                 }
-                return null;
+
+                return new EventConfiguration(reader.getContentUrl(), events);
             }
 
         }, AuthenticationUtil.getSystemUserName());
     }
 
     /**
-     * Save the events to the peristant storage
+     * Save the events to the peristant storage, and publish them in the shared cache
+     * under the version of the written configuration file.
+     *
+     * @param events map of events by event name
      */
-    private void saveEvents()
+    private void saveEvents(final Map<String, RecordsManagementEvent> events)
     {
-        AuthenticationUtil.runAs(new AuthenticationUtil.RunAsWork<Object>()
+        EventConfiguration configuration = AuthenticationUtil.runAs(new AuthenticationUtil.RunAsWork<EventConfiguration>()
         {
-            public Object doWork() throws Exception
+            public EventConfiguration doWork() throws Exception
             {
                 // Get the event config node
                 if (!nodeService.exists(CONFIG_NODE_REF))
@@ -353,6 +410,7 @@ public class RecordsManagementEventServiceImpl implements RecordsManagementEvent
 
                 JSONObject configJSON = new JSONObject();
                 JSONArray eventsJSON = new JSONArray();
+                List<String[]> eventDetails = new ArrayList<String[]>(events.size());
 
                 int index = 0;
                 for (RecordsManagementEvent event : events.values())
@@ -363,6 +421,7 @@ public class RecordsManagementEventServiceImpl implements RecordsManagementEvent
                     eventJSON.put("eventDisplayLabel", event.getDisplayLabel());
 
                     eventsJSON.put(index, eventJSON);
+                    eventDetails.add(new String[] { event.getType(), event.getName(), event.getDisplayLabel() });
                     index++;
                 }
                 configJSON.put("events", eventsJSON);
@@ -372,10 +431,13 @@ public class RecordsManagementEventServiceImpl implements RecordsManagementEvent
                         .getWriter(CONFIG_NODE_REF, ContentModel.PROP_CONTENT, true);
                 contentWriter.putContent(configJSON.toString());
 
-                return null;
+                return new EventConfiguration(contentWriter.getContentUrl(), eventDetails);
             }
 
         }, AuthenticationUtil.getSystemUserName());
+
+        // the cache is transactional, other nodes see the new version once this transaction commits
+        eventConfigurationCache.put(EVENT_CONFIGURATION_KEY, configuration);
     }
 
     /**
@@ -385,4 +447,44 @@ public class RecordsManagementEventServiceImpl implements RecordsManagementEvent
     {
         return this.eventTypes.get(eventTypeName);
     }
+
+    /**
+     * Event configuration as held in the shared cache.
+     * <p>
+     * Only holds the event type names, so that it can be shared between cluster members,
+     * and is versioned by the content URL of the configuration file it was read from or
+     * written to.
+     */
+    public static final class EventConfiguration implements Serializable
+    {
+        private static final long serialVersionUID = -1546405263154096584L;
+
+        /** version of the configuration */
+        private final String version;
+
+        /** event type, name and display label of each event */
+        private final List<String[]> events;
+
+        private EventConfiguration(String version, List<String[]> events)
+        {
+            this.version = version;
+            this.events = Collections.unmodifiableList(new ArrayList<String[]>(events));
+        }
+
+        /**
+         * @return String   version of the configuration
+         */
+        public String getVersion()
+        {
+            return version;
+        }
+
+        /**
+         * @return List<String[]> event type, name and display label of each event
+         */
+        public List<String[]> getEvents()
+        {
+            return events;
+        }
+    }
 }
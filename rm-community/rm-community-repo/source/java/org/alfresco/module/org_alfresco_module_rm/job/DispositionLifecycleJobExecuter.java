@@ -159,6 +159,10 @@ public class DispositionLifecycleJobExecuter extends RecordsManagementJobExecute
      */
     public void executeImpl()
     {
+        RecordsManagementJobMetrics jobMetrics = getJobMetrics();
+        long found = 0;
+        long processed = 0;
+
         try
         {
             logger.debug("Job Starting");
@@ -188,9 +192,23 @@ public class DispositionLifecycleJobExecuter extends RecordsManagementJobExecute
                     }
 
                     // process search results
+                    found += resultNodes.size();
                     for (NodeRef node : resultNodes)
                     {
-                        executeAction(node);
+                        Boolean result = executeAction(node);
+                        if (result == null)
+                        {
+                            jobMetrics.itemsSkipped(1);
+                        }
+                        else if (result)
+                        {
+                            jobMetrics.itemsProcessed(1);
+                            processed++;
+                        }
+                        else
+                        {
+                            jobMetrics.itemsFailed(1);
+                        }
                     }
                 }
             }
@@ -199,24 +217,33 @@ public class DispositionLifecycleJobExecuter extends RecordsManagementJobExecute
         }
         catch (AlfrescoRuntimeException exception)
         {
+            jobMetrics.runFailed();
             if (logger.isDebugEnabled())
             {
                 logger.debug(exception);
             }
         }
+        finally
+        {
+            // eligible disposition actions that are still waiting to be executed
+            jobMetrics.setBacklog(found - processed);
+        }
     }
 
     /**
      * Helper method that executes a disposition action
      *
      * @param actionNode - the disposition action to execute
+     * @return Boolean true if the action was executed, false if it failed and null if it was not eligible
      */
-    private void executeAction(final NodeRef actionNode)
+    private Boolean executeAction(final NodeRef actionNode)
     {
         RetryingTransactionCallback<Boolean> processTranCB = new RetryingTransactionCallback<Boolean>()
         {
             public Boolean execute()
             {
+                Boolean result = null;
+
                 final String dispAction = (String) nodeService.getProperty(actionNode,
                             RecordsManagementModel.PROP_DISPOSITION_ACTION);
 
@@ -240,6 +267,7 @@ public class DispositionLifecycleJobExecuter extends RecordsManagementJobExecute
                             {
                                 logger.debug("Processed action: " + dispAction + "on" + parent);
                             }
+                            result = Boolean.TRUE;
                         }
                         catch (AlfrescoRuntimeException exception)
                         {
@@ -247,19 +275,24 @@ public class DispositionLifecycleJobExecuter extends RecordsManagementJobExecute
                             {
                                 logger.debug(exception);
                             }
+                            result = Boolean.FALSE;
                         }
                     }
                 }
 
-                return Boolean.TRUE;
+                return result;
             }
         };
 
+        Boolean result = null;
+
         // if exists
         if (nodeService.exists(actionNode))
         {
-            retryingTransactionHelper.doInTransaction(processTranCB);
+            result = retryingTransactionHelper.doInTransaction(processTranCB);
         }
+
+        return result;
     }
 
     public PersonService getPersonService()
@@ -84,6 +84,8 @@ public class NotifyOfRecordsDueForReviewJobExecuter extends RecordsManagementJob
             logger.debug("Job " + this.getClass().getSimpleName() + " starting.");
         }
 
+        final RecordsManagementJobMetrics jobMetrics = getJobMetrics();
+
         AuthenticationUtil.runAs(new RunAsWork<Object>()
         {
             public Object doWork()
@@ -106,6 +108,9 @@ public class NotifyOfRecordsDueForReviewJobExecuter extends RecordsManagementJob
                     logger.debug("Found " + resultNodes.size() + " nodes due for review and without notification.");
                 }
 
+                // records stay due for review until they are reviewed
+                jobMetrics.setBacklog(resultNodes.size());
+
                 //If we have something to do and a template to do it with
                 if(resultNodes.size() != 0)
                 {
@@ -128,6 +133,7 @@ public class NotifyOfRecordsDueForReviewJobExecuter extends RecordsManagementJob
                     // don't retry the send email
                     retryingTransactionHelper.setMaxRetries(0);
                     retryingTransactionHelper.doInTransaction(txCallbackSendEmail);
+                    jobMetrics.itemsProcessed(resultNodes.size());
                 }
                 return null;
             }
@@ -124,6 +124,8 @@ public class PublishUpdatesJobExecuter extends RecordsManagementJobExecuter
             logger.debug("Job Starting");
         }
 
+        final RecordsManagementJobMetrics jobMetrics = getJobMetrics();
+
         AuthenticationUtil.runAs(new RunAsWork<Object>()
         {
             public Object doWork()
@@ -132,6 +134,8 @@ public class PublishUpdatesJobExecuter extends RecordsManagementJobExecuter
                 {
                     // Get a list of the nodes that have updates that need to be published
                     List<NodeRef> nodeRefs = getUpdatedNodes();
+                    long remaining = nodeRefs.size();
+                    jobMetrics.setBacklog(remaining);
 
                     // Deal with each updated disposition action in turn
                     for (NodeRef nodeRef : nodeRefs)
@@ -154,8 +158,17 @@ public class PublishUpdatesJobExecuter extends RecordsManagementJobExecuter
                                     }
 
                                     // Publish updates
-                                    publishUpdates(nodeRef);
-
+                                    try
+                                    {
+                                        publishUpdates(nodeRef);
+                                    }
+                                    catch (RuntimeException exception)
+                                    {
+                                        jobMetrics.itemsFailed(1);
+                                        throw exception;
+                                    }
+                                    jobMetrics.itemsProcessed(1);
+                                    jobMetrics.setBacklog(--remaining);
 
                                     if (logger.isDebugEnabled())
                                     {
@@ -173,6 +186,16 @@ public class PublishUpdatesJobExecuter extends RecordsManagementJobExecuter
                                     unmarkPublishInProgress(nodeRef);
                                 }
                             }
+                            else
+                            {
+                                // already being published by another run
+                                jobMetrics.itemsSkipped(1);
+                            }
+                        }
+                        else
+                        {
+                            jobMetrics.itemsSkipped(1);
+                            jobMetrics.setBacklog(--remaining);
                         }
                     }
                 }
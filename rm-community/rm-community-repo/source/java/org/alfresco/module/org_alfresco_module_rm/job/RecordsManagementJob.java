@@ -83,7 +83,11 @@ public class RecordsManagementJob implements Job
         @Override
         public void lockReleased()
         {
-            running.set(false);
+            // the lock was lost if it is released whilst the job is still running
+            if (running.getAndSet(false))
+            {
+                jobExecuter.getJobMetrics().lockLost();
+            }
         }
     }
 
@@ -154,18 +158,28 @@ public class RecordsManagementJob implements Job
         {
             public Void doWork()
             {
+                RecordsManagementJobMetrics jobMetrics = jobExecuter.getJobMetrics();
+
                 // try and get the lock
                 String lockToken = getLock();
                 if (lockToken != null)
                 {
+                    jobMetrics.lockAcquired();
+                    long startTime = jobMetrics.runStarted();
                     try
                     {
                         jobLockService.refreshLock(lockToken, getLockQName(), DEFAULT_TIME, lockCallback);
                         // do work
                         jobExecuter.execute();
                     }
+                    catch (RuntimeException | Error exception)
+                    {
+                        jobMetrics.runFailed();
+                        throw exception;
+                    }
                     finally
                     {
+                        jobMetrics.runFinished(startTime);
                         try
                         {
                             lockCallback.running.set(false);
@@ -182,6 +196,10 @@ public class RecordsManagementJob implements Job
                         }
                     }
                 }
+                else
+                {
+                    jobMetrics.lockContended();
+                }
 
                 // return
                 return null;
@@ -27,6 +27,7 @@
 
 package org.alfresco.module.org_alfresco_module_rm.job;
 
+import org.alfresco.module.org_alfresco_module_rm.metrics.MetricsRegistry;
 import org.alfresco.module.org_alfresco_module_rm.model.RecordsManagementModel;
 import org.alfresco.repo.admin.RepositoryState;
 import org.alfresco.repo.transaction.RetryingTransactionHelper;
@@ -45,6 +46,15 @@ public abstract class RecordsManagementJobExecuter implements RecordsManagementM
     /** Repository state helper */
     protected RepositoryState repositoryState;
 
+    /** Metrics registry */
+    protected MetricsRegistry metricsRegistry;
+
+    /** Job name metrics are reported under */
+    private String jobName;
+
+    /** Job metrics */
+    private RecordsManagementJobMetrics jobMetrics;
+
     /**
      * @param retryingTransactionHelper retrying transaction helper
      */
@@ -61,6 +71,36 @@ public abstract class RecordsManagementJobExecuter implements RecordsManagementM
         this.repositoryState = repositoryState;
     }
 
+    /**
+     * @param metricsRegistry   metrics registry
+     */
+    public void setMetricsRegistry(MetricsRegistry metricsRegistry)
+    {
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    /**
+     * @param jobName   job name metrics are reported under, defaults to the simple class name
+     */
+    public void setJobName(String jobName)
+    {
+        this.jobName = jobName;
+    }
+
+    /**
+     * Gets the job metrics.  Nothing is recorded if no metrics registry has been set.
+     *
+     * @return {@link RecordsManagementJobMetrics}   job metrics
+     */
+    public synchronized RecordsManagementJobMetrics getJobMetrics()
+    {
+        if (jobMetrics == null)
+        {
+            jobMetrics = new RecordsManagementJobMetrics(metricsRegistry, jobName != null ? jobName : getClass().getSimpleName());
+        }
+        return jobMetrics;
+    }
+
     /**
      * Executes the jobs work.
      */
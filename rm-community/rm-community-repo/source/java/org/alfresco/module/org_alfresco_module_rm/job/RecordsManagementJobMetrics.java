@@ -0,0 +1,298 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.job;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.alfresco.module.org_alfresco_module_rm.metrics.MetricsRegistry;
+import org.alfresco.module.org_alfresco_module_rm.metrics.MetricsRegistry.Gauge;
+
+/**
+ * Metrics of a records management job.
+ * <p>
+ * All the metrics of a job are named <tt>rm.job.&lt;jobName&gt;.&lt;metric&gt;</tt>.  A job run is
+ * timed and counted, as are the items processed, skipped and failed during the run and the
+ * outcome of taking the job lock.  The backlog gauge holds the number of items still waiting to
+ * be processed at the end of the last run, so a backlog that keeps growing shows the job is
+ * falling behind.
+ * <p>
+ * Nothing is recorded when no metrics registry has been provided.
+ *
+ * @since 2.7
+ */
+public class RecordsManagementJobMetrics
+{
+    /** metric name prefix */
+    public static final String PREFIX = "rm.job.";
+
+    /** job runs, run timer and failed runs */
+    public static final String RUNS = "runs";
+    public static final String RUN_TIME = "run.time";
+    public static final String RUNS_FAILED = "runs.failed";
+    public static final String RUNS_ERROR_RATE = "runs.errorRate";
+
+    /** job lock outcomes */
+    public static final String LOCK_ACQUIRED = "lock.acquired";
+    public static final String LOCK_CONTENDED = "lock.contended";
+    public static final String LOCK_LOST = "lock.lost";
+
+    /** items */
+    public static final String ITEMS_PROCESSED = "items.processed";
+    public static final String ITEMS_SKIPPED = "items.skipped";
+    public static final String ITEMS_FAILED = "items.failed";
+    public static final String ITEMS_ERROR_RATE = "items.errorRate";
+
+    /** gauges */
+    public static final String BACKLOG = "backlog";
+    public static final String LAST_RUN_START = "lastRun.startTime";
+    public static final String LAST_SUCCESS = "lastSuccess.time";
+    public static final String LAST_FAILURE = "lastFailure.time";
+
+    /** metrics registry, null if metrics are not recorded */
+    private final MetricsRegistry metricsRegistry;
+
+    /** job name */
+    private final String jobName;
+
+    /** backlog at the end of the last run */
+    private final AtomicLong backlog = new AtomicLong(-1);
+
+    /** last run start, success and failure times */
+    private final AtomicLong lastRunStart = new AtomicLong();
+    private final AtomicLong lastSuccess = new AtomicLong();
+    private final AtomicLong lastFailure = new AtomicLong();
+
+    /** indicates whether the current run has failed */
+    private volatile boolean currentRunFailed = false;
+
+    /**
+     * Constructor
+     *
+     * @param metricsRegistry   metrics registry, null if metrics are not recorded
+     * @param jobName           job name
+     */
+    public RecordsManagementJobMetrics(MetricsRegistry metricsRegistry, String jobName)
+    {
+        this.metricsRegistry = metricsRegistry;
+        this.jobName = jobName;
+
+        if (metricsRegistry != null)
+        {
+            registerTimeGauge(LAST_RUN_START, lastRunStart);
+            registerTimeGauge(LAST_SUCCESS, lastSuccess);
+            registerTimeGauge(LAST_FAILURE, lastFailure);
+            metricsRegistry.registerGauge(getName(BACKLOG), new Gauge()
+            {
+                @Override
+                public Number getValue()
+                {
+                    long value = backlog.get();
+                    return value < 0 ? null : value;
+                }
+            });
+            metricsRegistry.registerGauge(getName(RUNS_ERROR_RATE), new Gauge()
+            {
+                @Override
+                public Number getValue()
+                {
+                    return rate(getCount(RUNS_FAILED), getCount(RUNS));
+                }
+            });
+            metricsRegistry.registerGauge(getName(ITEMS_ERROR_RATE), new Gauge()
+            {
+                @Override
+                public Number getValue()
+                {
+                    long failed = getCount(ITEMS_FAILED);
+                    return rate(failed, failed + getCount(ITEMS_PROCESSED));
+                }
+            });
+        }
+    }
+
+    /**
+     * @return  job name
+     */
+    public String getJobName()
+    {
+        return jobName;
+    }
+
+    /**
+     * Gets the full name of one of the job's metrics.
+     *
+     * @param metric    metric
+     * @return {@link String}   full metric name
+     */
+    public String getName(String metric)
+    {
+        return PREFIX + jobName + "." + metric;
+    }
+
+    /**
+     * Called when a job run starts.
+     *
+     * @return long run start time
+     */
+    public long runStarted()
+    {
+        long now = System.currentTimeMillis();
+        currentRunFailed = false;
+        lastRunStart.set(now);
+        return now;
+    }
+
+    /**
+     * Called when a job run finishes, whether it succeeded or not.
+     *
+     * @param startTime run start time, as returned by {@link #runStarted()}
+     */
+    public void runFinished(long startTime)
+    {
+        long now = System.currentTimeMillis();
+        if (metricsRegistry != null)
+        {
+            metricsRegistry.increment(getName(RUNS), 1);
+            metricsRegistry.recordTime(getName(RUN_TIME), now - startTime);
+        }
+        if (!currentRunFailed)
+        {
+            lastSuccess.set(now);
+        }
+    }
+
+    /**
+     * Called when the current job run fails.
+     */
+    public void runFailed()
+    {
+        currentRunFailed = true;
+        lastFailure.set(System.currentTimeMillis());
+        increment(RUNS_FAILED, 1);
+    }
+
+    /**
+     * Called when the job lock has been taken.
+     */
+    public void lockAcquired()
+    {
+        increment(LOCK_ACQUIRED, 1);
+    }
+
+    /**
+     * Called when the job did not run because the job lock is held elsewhere.
+     */
+    public void lockContended()
+    {
+        increment(LOCK_CONTENDED, 1);
+    }
+
+    /**
+     * Called when the job lock was lost while the job was running.
+     */
+    public void lockLost()
+    {
+        increment(LOCK_LOST, 1);
+    }
+
+    /**
+     * @param count number of items processed
+     */
+    public void itemsProcessed(long count)
+    {
+        increment(ITEMS_PROCESSED, count);
+    }
+
+    /**
+     * @param count number of items skipped
+     */
+    public void itemsSkipped(long count)
+    {
+        increment(ITEMS_SKIPPED, count);
+    }
+
+    /**
+     * @param count number of items that could not be processed
+     */
+    public void itemsFailed(long count)
+    {
+        increment(ITEMS_FAILED, count);
+    }
+
+    /**
+     * @param count number of items still waiting to be processed
+     */
+    public void setBacklog(long count)
+    {
+        backlog.set(count);
+    }
+
+    /**
+     * Helper method to increment one of the job's counters.
+     */
+    private void increment(String metric, long delta)
+    {
+        if (metricsRegistry != null && delta != 0)
+        {
+            metricsRegistry.increment(getName(metric), delta);
+        }
+    }
+
+    /**
+     * Helper method to get one of the job's counters.
+     */
+    private long getCount(String metric)
+    {
+        return metricsRegistry.getCount(getName(metric));
+    }
+
+    /**
+     * Helper method to register a gauge reporting a time, not reported until the time is set.
+     */
+    private void registerTimeGauge(String metric, final AtomicLong time)
+    {
+        metricsRegistry.registerGauge(getName(metric), new Gauge()
+        {
+            @Override
+            public Number getValue()
+            {
+                long value = time.get();
+                return value == 0 ? null : value;
+            }
+        });
+    }
+
+    /**
+     * Helper method to calculate a rate, null if there is nothing to calculate it from.
+     */
+    private static Double rate(long count, long total)
+    {
+        return total == 0 ? null : (double) count / total;
+    }
+}
@@ -0,0 +1,394 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.job.publish;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.alfresco.model.ContentModel;
+import org.alfresco.module.org_alfresco_module_rm.fileplan.FilePlanComponentKind;
+import org.alfresco.module.org_alfresco_module_rm.fileplan.FilePlanService;
+import org.alfresco.module.org_alfresco_module_rm.freeze.FreezeService;
+import org.alfresco.module.org_alfresco_module_rm.model.RecordsManagementModel;
+import org.alfresco.module.org_alfresco_module_rm.vital.VitalRecordDefinition;
+import org.alfresco.module.org_alfresco_module_rm.vital.VitalRecordService;
+import org.alfresco.repo.policy.BehaviourFilter;
+import org.alfresco.repo.transaction.RetryingTransactionHelper;
+import org.alfresco.repo.transaction.RetryingTransactionHelper.RetryingTransactionCallback;
+import org.alfresco.service.cmr.repository.ChildAssociationRef;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.repository.NodeService;
+import org.alfresco.service.cmr.repository.Period;
+import org.alfresco.service.namespace.QName;
+import org.alfresco.service.namespace.RegexQNamePattern;
+import org.alfresco.util.EqualsHelper;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Vital record definition publish executor.
+ * <p>
+ * Propagates the vital record definition of a record category or record folder to all of its
+ * descendant record categories, record folders and records.  The descendants are updated in
+ * bounded batches, each committed in its own transaction, so that a change to a large category
+ * doesn't result in one huge transaction.
+ * <p>
+ * Nodes whose values already match the definition are skipped, which means that if the publish
+ * fails part way through it can safely be re-run and will only update the nodes that are still
+ * outstanding.  Containers that have their own vital record definition change waiting to be
+ * published are left for that change.
+ *
+ * @since 2.7
+ */
+public class VitalRecordDefinitionPublishExecutor extends BasePublishExecutor
+                                                  implements RecordsManagementModel
+{
+    /** Logger */
+    private static Log logger = LogFactory.getLog(VitalRecordDefinitionPublishExecutor.class);
+
+    /** Default batch size */
+    private static final int DEFAULT_BATCH_SIZE = 500;
+
+    /** Node service */
+    private NodeService nodeService;
+
+    /** File plan service */
+    private FilePlanService filePlanService;
+
+    /** Freeze service */
+    private FreezeService freezeService;
+
+    /** Vital record service */
+    private VitalRecordService vitalRecordService;
+
+    /** Behaviour filter */
+    private BehaviourFilter behaviourFilter;
+
+    /** Retrying transaction helper */
+    private RetryingTransactionHelper retryingTransactionHelper;
+
+    /** Number of descendants updated in each transaction */
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * @param nodeService   node service
+     */
+    public void setNodeService(NodeService nodeService)
+    {
+        this.nodeService = nodeService;
+    }
+
+    /**
+     * @param filePlanService   file plan service
+     */
+    public void setFilePlanService(FilePlanService filePlanService)
+    {
+        this.filePlanService = filePlanService;
+    }
+
+    /**
+     * @param freezeService freeze service
+     */
+    public void setFreezeService(FreezeService freezeService)
+    {
+        this.freezeService = freezeService;
+    }
+
+    /**
+     * @param vitalRecordService    vital record service
+     */
+    public void setVitalRecordService(VitalRecordService vitalRecordService)
+    {
+        this.vitalRecordService = vitalRecordService;
+    }
+
+    /**
+     * @param behaviourFilter   behaviour filter
+     */
+    public void setBehaviourFilter(BehaviourFilter behaviourFilter)
+    {
+        this.behaviourFilter = behaviourFilter;
+    }
+
+    /**
+     * @param retryingTransactionHelper retrying transaction helper
+     */
+    public void setRetryingTransactionHelper(RetryingTransactionHelper retryingTransactionHelper)
+    {
+        this.retryingTransactionHelper = retryingTransactionHelper;
+    }
+
+    /**
+     * @param batchSize number of descendants updated in each transaction
+     */
+    public void setBatchSize(int batchSize)
+    {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.job.publish.PublishExecutor#getName()
+     */
+    @Override
+    public String getName()
+    {
+        return UPDATE_TO_VITAL_RECORD_DEFINITION;
+    }
+
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.job.publish.PublishExecutor#publish(org.alfresco.service.cmr.repository.NodeRef)
+     */
+    @Override
+    public void publish(NodeRef nodeRef)
+    {
+        VitalRecordDefinition definition = vitalRecordService.getVitalRecordDefinition(nodeRef);
+        if (definition != null)
+        {
+            // the review date is the same for every record in the hierarchy, so only calculate it once
+            Date reviewAsOf = null;
+            if (definition.isEnabled())
+            {
+                reviewAsOf = definition.getNextReviewDate();
+            }
+
+            int updated = 0;
+            Deque<NodeRef> containers = new ArrayDeque<NodeRef>();
+            containers.add(nodeRef);
+            while (!containers.isEmpty())
+            {
+                List<ChildAssociationRef> assocs = nodeService.getChildAssocs(containers.removeFirst(), ContentModel.ASSOC_CONTAINS, RegexQNamePattern.MATCH_ALL);
+                for (int fromIndex = 0; fromIndex < assocs.size(); fromIndex += batchSize)
+                {
+                    int toIndex = Math.min(fromIndex + batchSize, assocs.size());
+                    BatchResult result = publishBatch(assocs.subList(fromIndex, toIndex), definition, reviewAsOf);
+                    containers.addAll(result.containers);
+                    updated += result.updated;
+                }
+            }
+
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("Published vital record definition of " + nodeRef + " to " + updated + " descendant(s).");
+            }
+        }
+    }
+
+    /**
+     * Publish the vital record definition to a batch of child nodes in a new transaction.
+     *
+     * @param assocs        child associations to process
+     * @param definition    vital record definition being published
+     * @param reviewAsOf    review as of date to set on vital records
+     * @return {@link BatchResult}  containers to descend into and the number of nodes updated
+     */
+    private BatchResult publishBatch(final List<ChildAssociationRef> assocs, final VitalRecordDefinition definition, final Date reviewAsOf)
+    {
+        return retryingTransactionHelper.doInTransaction(new RetryingTransactionCallback<BatchResult>()
+        {
+            @Override
+            public BatchResult execute()
+            {
+                BatchResult result = new BatchResult();
+
+                // the hierarchy is walked here, so don't let each update re-trigger the vital record behaviours
+                behaviourFilter.disableBehaviour(ASPECT_VITAL_RECORD_DEFINITION);
+                try
+                {
+                    for (ChildAssociationRef assoc : assocs)
+                    {
+                        NodeRef child = assoc.getChildRef();
+                        if (!freezeService.isFrozen(child))
+                        {
+                            FilePlanComponentKind kind = filePlanService.getFilePlanComponentKind(child);
+
+                            // a record takes its vital record definition from its primary parent
+                            if (FilePlanComponentKind.RECORD.equals(kind) && assoc.isPrimary())
+                            {
+                                if (publishToRecord(child, definition, reviewAsOf))
+                                {
+                                    result.updated++;
+                                }
+                            }
+                            else if ((FilePlanComponentKind.RECORD_CATEGORY.equals(kind) ||
+                                      FilePlanComponentKind.RECORD_FOLDER.equals(kind)) &&
+                                     !hasUnpublishedUpdate(child))
+                            {
+                                if (publishToContainer(child, kind, definition))
+                                {
+                                    result.updated++;
+                                }
+                                result.containers.add(child);
+                            }
+                        }
+                    }
+                }
+                finally
+                {
+                    behaviourFilter.enableBehaviour(ASPECT_VITAL_RECORD_DEFINITION);
+                }
+
+                return result;
+            }
+        }, false, true);
+    }
+
+    /**
+     * Indicates whether a container has its own vital record definition change waiting to be
+     * published.  If so it, and its contents, are left alone since they will be brought up to date
+     * when that change is published.
+     *
+     * @param container     record category or record folder
+     * @return boolean      true if the container has an unpublished vital record definition update, false otherwise
+     */
+    private boolean hasUnpublishedUpdate(NodeRef container)
+    {
+        return nodeService.hasAspect(container, ASPECT_UNPUBLISHED_UPDATE) &&
+               UPDATE_TO_VITAL_RECORD_DEFINITION.equals(nodeService.getProperty(container, PROP_UPDATE_TO));
+    }
+
+    /**
+     * Copy the vital record definition onto a record category or record folder.
+     *
+     * @param container     record category or record folder
+     * @param kind          file plan component kind of the container
+     * @param definition    vital record definition
+     * @return boolean      true if the container was updated, false if it was already up to date
+     */
+    private boolean publishToContainer(NodeRef container, FilePlanComponentKind kind, VitalRecordDefinition definition)
+    {
+        boolean updated = false;
+        Map<QName, Serializable> props = nodeService.getProperties(container);
+
+        if (!Boolean.valueOf(definition.isEnabled()).equals(props.get(PROP_VITAL_RECORD_INDICATOR)) ||
+            !EqualsHelper.nullSafeEquals(definition.getReviewPeriod(), props.get(PROP_REVIEW_PERIOD)))
+        {
+            nodeService.setProperty(container, PROP_VITAL_RECORD_INDICATOR, definition.isEnabled());
+            nodeService.setProperty(container, PROP_REVIEW_PERIOD, definition.getReviewPeriod());
+            updated = true;
+        }
+
+        // record folders carry the search rollup of their vital record definition
+        if (FilePlanComponentKind.RECORD_FOLDER.equals(kind))
+        {
+            updated = setSearchProperties(container, props, definition) || updated;
+        }
+
+        return updated;
+    }
+
+    /**
+     * Apply the vital record definition to a record.
+     *
+     * @param record        record
+     * @param definition    vital record definition
+     * @param reviewAsOf    review as of date
+     * @return boolean      true if the record was updated, false if it was already up to date
+     */
+    private boolean publishToRecord(NodeRef record, VitalRecordDefinition definition, Date reviewAsOf)
+    {
+        Map<QName, Serializable> props = nodeService.getProperties(record);
+
+        boolean isVital = nodeService.hasAspect(record, ASPECT_VITAL_RECORD);
+        boolean updated = setSearchProperties(record, props, definition);
+
+        // only re-calculate the review date when the record's definition is out of date
+        if (updated || isVital != (reviewAsOf != null))
+        {
+            if (reviewAsOf != null)
+            {
+                Map<QName, Serializable> reviewProps = new HashMap<QName, Serializable>(1);
+                reviewProps.put(PROP_REVIEW_AS_OF, reviewAsOf);
+
+                if (!isVital)
+                {
+                    nodeService.addAspect(record, ASPECT_VITAL_RECORD, reviewProps);
+                }
+                else
+                {
+                    nodeService.addProperties(record, reviewProps);
+                }
+            }
+            else if (isVital)
+            {
+                nodeService.removeAspect(record, ASPECT_VITAL_RECORD);
+            }
+            updated = true;
+        }
+
+        return updated;
+    }
+
+    /**
+     * Set the vital record definition search rollup properties, if they have changed.
+     *
+     * @param nodeRef       node reference
+     * @param props         current node properties
+     * @param definition    vital record definition
+     * @return boolean      true if the properties were changed, false otherwise
+     */
+    private boolean setSearchProperties(NodeRef nodeRef, Map<QName, Serializable> props, VitalRecordDefinition definition)
+    {
+        String periodType = null;
+        String periodExpression = null;
+        Period reviewPeriod = definition.getReviewPeriod();
+        if (definition.isEnabled() && reviewPeriod != null)
+        {
+            periodType = reviewPeriod.getPeriodType();
+            periodExpression = reviewPeriod.getExpression();
+        }
+
+        boolean updated = false;
+        if (!EqualsHelper.nullSafeEquals(periodType, props.get(PROP_RS_VITAL_RECORD_REVIEW_PERIOD)) ||
+            !EqualsHelper.nullSafeEquals(periodExpression, props.get(PROP_RS_VITAL_RECORD_REVIEW_PERIOD_EXPRESSION)))
+        {
+            nodeService.setProperty(nodeRef, PROP_RS_VITAL_RECORD_REVIEW_PERIOD, periodType);
+            nodeService.setProperty(nodeRef, PROP_RS_VITAL_RECORD_REVIEW_PERIOD_EXPRESSION, periodExpression);
+            updated = true;
+        }
+        return updated;
+    }
+
+    /**
+     * Result of publishing to a batch of nodes.
+     */
+    private static class BatchResult
+    {
+        /** containers to descend into */
+        private List<NodeRef> containers = new ArrayList<NodeRef>();
+
+        /** number of nodes updated */
+        private int updated = 0;
+    }
+}
@@ -27,13 +27,22 @@
 
 package org.alfresco.module.org_alfresco_module_rm.jscript;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
 import org.alfresco.module.org_alfresco_module_rm.RecordsManagementServiceRegistry;
+import org.alfresco.module.org_alfresco_module_rm.jscript.app.JSONConversionComponent;
 import org.alfresco.module.org_alfresco_module_rm.model.RecordsManagementModel;
 import org.alfresco.module.org_alfresco_module_rm.notification.RecordsManagementNotificationHelper;
 import org.alfresco.module.org_alfresco_module_rm.security.FilePlanPermissionService;
 import org.alfresco.repo.jscript.BaseScopableProcessorExtension;
 import org.alfresco.repo.jscript.ScriptNode;
+import org.alfresco.repo.jscript.ValueConverter;
 import org.alfresco.scripts.ScriptException;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.mozilla.javascript.Wrapper;
 
 /**
  * Records management service
@@ -49,6 +58,9 @@ public class ScriptRecordsManagmentService extends BaseScopableProcessorExtensio
     /** Records management notification helper */
     private RecordsManagementNotificationHelper notificationHelper;
 
+    /** JSON conversion component */
+    private JSONConversionComponent jsonConversionComponent;
+
     /**
      * Set records management service registry
      *
@@ -69,6 +81,61 @@ public class ScriptRecordsManagmentService extends BaseScopableProcessorExtensio
         this.notificationHelper = notificationHelper;
     }
 
+    /**
+     * @param jsonConversionComponent   JSON conversion component
+     */
+    public void setJsonConversionComponent(JSONConversionComponent jsonConversionComponent)
+    {
+        this.jsonConversionComponent = jsonConversionComponent;
+    }
+
+    /**
+     * Prepares a page of nodes for conversion to JSON, evaluating the records management
+     * values of all the nodes in one batch.
+     *
+     * @param nodes array of script nodes
+     * @since 2.7
+     */
+    public void prefetchNodeValues(Object nodes)
+    {
+        Object value = nodes;
+        if (value instanceof Wrapper)
+        {
+            value = ((Wrapper) value).unwrap();
+        }
+        if (!(value instanceof Collection) && !(value instanceof Object[]))
+        {
+            value = new ValueConverter().convertValueForJava(value);
+        }
+
+        Collection<?> values = null;
+        if (value instanceof Collection)
+        {
+            values = (Collection<?>) value;
+        }
+        else if (value instanceof Object[])
+        {
+            values = Arrays.asList((Object[]) value);
+        }
+
+        if (values != null)
+        {
+            List<NodeRef> nodeRefs = new ArrayList<NodeRef>(values.size());
+            for (Object item : values)
+            {
+                if (item instanceof ScriptNode)
+                {
+                    nodeRefs.add(((ScriptNode) item).getNodeRef());
+                }
+                else if (item instanceof NodeRef)
+                {
+                    nodeRefs.add((NodeRef) item);
+                }
+            }
+            jsonConversionComponent.prefetchRmNodeValues(nodeRefs);
+        }
+    }
+
     /**
      * Get records management node
      *
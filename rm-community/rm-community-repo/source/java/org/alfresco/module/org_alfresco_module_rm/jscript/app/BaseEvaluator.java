@@ -207,6 +207,15 @@ public abstract class BaseEvaluator implements RecordsManagementModel, BeanNameA
         this.capabilities = capabilties;
     }
 
+    /**
+     * @return {@link List}&lt;String&gt; names of the capabilities required by this evaluator, null if none
+     * @since 2.7
+     */
+    public List<String> getCapabilities()
+    {
+        return this.capabilities;
+    }
+
     /**
      * Helper method which sets on capability.
      *
@@ -31,9 +31,12 @@ import static org.alfresco.module.org_alfresco_module_rm.capability.RMPermission
 import static org.alfresco.service.cmr.security.AccessStatus.ALLOWED;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.alfresco.model.ContentModel;
 import org.alfresco.module.org_alfresco_module_rm.capability.CapabilityService;
@@ -48,6 +51,7 @@ import org.alfresco.repo.policy.JavaBehaviour;
 import org.alfresco.repo.policy.PolicyComponent;
 import org.alfresco.repo.security.authentication.AuthenticationUtil;
 import org.alfresco.repo.security.authentication.AuthenticationUtil.RunAsWork;
+import org.alfresco.repo.transaction.TransactionalResourceHelper;
 import org.alfresco.service.cmr.dictionary.DictionaryService;
 import org.alfresco.service.cmr.model.FileInfo;
 import org.alfresco.service.cmr.repository.ChildAssociationRef;
@@ -57,6 +61,7 @@ import org.alfresco.service.cmr.site.SiteInfo;
 import org.alfresco.service.cmr.site.SiteService;
 import org.alfresco.service.namespace.NamespaceService;
 import org.alfresco.service.namespace.QName;
+import org.alfresco.util.Pair;
 import org.alfresco.util.PathUtil;
 import org.apache.commons.lang.ArrayUtils;
 import org.json.simple.JSONArray;
@@ -114,6 +119,9 @@ public class JSONConversionComponent extends    org.alfresco.repo.jscript.app.JS
     /** Constants for checking the cache */
     private static final String RM_SITE_EXISTS = "rmSiteExists";
 
+    /** Transaction cache of the values shared by all the nodes of a file plan */
+    private static final String KEY_FILE_PLAN_VALUES = "rm.jsonConversionComponent.filePlanValues";
+
     /**
      * @param enabled   true if enabled, false otherwise
      */
@@ -270,6 +278,57 @@ public class JSONConversionComponent extends    org.alfresco.repo.jscript.app.JS
         }
     }
 
+    /**
+     * Evaluates, in one batch, the capabilities needed to convert the given nodes.
+     * <p>
+     * Call this before converting a page of nodes.  The view records capability and the capabilities required
+     * by the registered indicators and actions are evaluated for all the records management nodes at once and
+     * cached for the transaction, so that the conversion of each node reuses them rather than evaluating them
+     * one node at a time.
+     *
+     * @param nodeRefs  node references about to be converted
+     * @since 2.7
+     */
+    public void prefetchRmNodeValues(Collection<NodeRef> nodeRefs)
+    {
+        List<NodeRef> rmNodeRefs = new ArrayList<NodeRef>(nodeRefs.size());
+        for (NodeRef nodeRef : nodeRefs)
+        {
+            if (nodeRef != null && filePlanService.isFilePlanComponent(nodeRef))
+            {
+                rmNodeRefs.add(nodeRef);
+            }
+        }
+
+        if (!rmNodeRefs.isEmpty())
+        {
+            Set<String> capabilityNames = new HashSet<String>();
+            capabilityNames.add(ViewRecordsCapability.NAME);
+            addCapabilityNames(capabilityNames, indicators);
+            addCapabilityNames(capabilityNames, actions);
+
+            capabilityService.getCapabilitiesAccessState(rmNodeRefs, new ArrayList<String>(capabilityNames));
+        }
+    }
+
+    /**
+     * Helper method to add the capabilities required by the evaluators.
+     *
+     * @param capabilityNames   capability names
+     * @param evaluators        evaluators
+     */
+    private void addCapabilityNames(Set<String> capabilityNames, List<BaseEvaluator> evaluators)
+    {
+        for (BaseEvaluator evaluator : evaluators)
+        {
+            List<String> evaluatorCapabilities = evaluator.getCapabilities();
+            if (evaluatorCapabilities != null)
+            {
+                capabilityNames.addAll(evaluatorCapabilities);
+            }
+        }
+    }
+
     /**
      * Checks for the existance of the RM site
      *
@@ -409,12 +468,20 @@ public class JSONConversionComponent extends    org.alfresco.repo.jscript.app.JS
         {
             public Map<String, Object> doWork() throws Exception
             {
-                Map<String, Object> result = new HashMap<String, Object>();
-
                 // File plan node reference
                 NodeRef filePlan = filePlanService.getFilePlan(nodeRef);
-                if (filePlan != null)
+                if (filePlan == null)
                 {
+                    return new HashMap<String, Object>();
+                }
+
+                // the values are the same for every node of the file plan, so only resolve them once per transaction
+                Map<Pair<NodeRef, Boolean>, Map<String, Object>> filePlanValues = TransactionalResourceHelper.getMap(KEY_FILE_PLAN_VALUES);
+                Pair<NodeRef, Boolean> key = new Pair<NodeRef, Boolean>(filePlan, useShortQName);
+                Map<String, Object> result = filePlanValues.get(key);
+                if (result == null)
+                {
+                    result = new HashMap<String, Object>();
                     result.put("filePlan", filePlan.toString());
 
                     // Unfiled container node reference
@@ -426,6 +493,8 @@ public class JSONConversionComponent extends    org.alfresco.repo.jscript.app.JS
                         QName type = fileFolderService.getFileInfo(unfiledRecordContainer).getType();
                         result.put("type", useShortQName ? type.toPrefixString(namespaceService) : type.toString());
                     }
+
+                    filePlanValues.put(key, result);
                 }
 
                 return result;
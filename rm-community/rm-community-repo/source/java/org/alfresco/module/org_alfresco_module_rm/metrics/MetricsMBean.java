@@ -0,0 +1,172 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanException;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ReflectionException;
+
+/**
+ * Exposes the metrics of a {@link MetricsRegistry} over JMX.
+ * <p>
+ * Every metric is a read only attribute named after the metric.  The attributes are read from
+ * the registry when requested, so metrics created after registration show up as soon as they
+ * have been recorded.
+ *
+ * @since 2.7
+ */
+public class MetricsMBean implements DynamicMBean
+{
+    /** reset operation name */
+    public static final String OPERATION_RESET = "reset";
+
+    /** metrics registry */
+    private MetricsRegistry metricsRegistry;
+
+    /**
+     * @param metricsRegistry   metrics registry
+     */
+    public void setMetricsRegistry(MetricsRegistry metricsRegistry)
+    {
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    /**
+     * @see javax.management.DynamicMBean#getAttribute(java.lang.String)
+     */
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException
+    {
+        Number value = metricsRegistry.getMetrics().get(attribute);
+        if (value == null)
+        {
+            throw new AttributeNotFoundException("Metric " + attribute + " has not been recorded.");
+        }
+        return value;
+    }
+
+    /**
+     * @see javax.management.DynamicMBean#getAttributes(java.lang.String[])
+     */
+    @Override
+    public AttributeList getAttributes(String[] attributes)
+    {
+        Map<String, Number> metrics = metricsRegistry.getMetrics();
+        AttributeList result = new AttributeList(attributes.length);
+        for (String attribute : attributes)
+        {
+            Number value = metrics.get(attribute);
+            if (value != null)
+            {
+                result.add(new Attribute(attribute, value));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Metrics are read only.
+     *
+     * @see javax.management.DynamicMBean#setAttribute(javax.management.Attribute)
+     */
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException
+    {
+        throw new AttributeNotFoundException("Metric " + attribute.getName() + " is read only.");
+    }
+
+    /**
+     * Metrics are read only.
+     *
+     * @see javax.management.DynamicMBean#setAttributes(javax.management.AttributeList)
+     */
+    @Override
+    public AttributeList setAttributes(AttributeList attributes)
+    {
+        return new AttributeList();
+    }
+
+    /**
+     * @see javax.management.DynamicMBean#invoke(java.lang.String, java.lang.Object[], java.lang.String[])
+     */
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws MBeanException, ReflectionException
+    {
+        if (OPERATION_RESET.equals(actionName))
+        {
+            metricsRegistry.reset();
+            return null;
+        }
+        throw new ReflectionException(new NoSuchMethodException(actionName), "Unknown operation " + actionName);
+    }
+
+    /**
+     * @see javax.management.DynamicMBean#getMBeanInfo()
+     */
+    @Override
+    public MBeanInfo getMBeanInfo()
+    {
+        Map<String, Number> metrics = metricsRegistry.getMetrics();
+        List<MBeanAttributeInfo> attributes = new ArrayList<MBeanAttributeInfo>(metrics.size());
+        for (Map.Entry<String, Number> metric : metrics.entrySet())
+        {
+            attributes.add(new MBeanAttributeInfo(
+                        metric.getKey(),
+                        metric.getValue().getClass().getName(),
+                        metric.getKey(),
+                        true, false, false));
+        }
+
+        MBeanOperationInfo reset = new MBeanOperationInfo(
+                    OPERATION_RESET,
+                    "Resets the counters and timers",
+                    new MBeanParameterInfo[0],
+                    void.class.getName(),
+                    MBeanOperationInfo.ACTION);
+
+        return new MBeanInfo(
+                    getClass().getName(),
+                    "Records management metrics",
+                    attributes.toArray(new MBeanAttributeInfo[attributes.size()]),
+                    null,
+                    new MBeanOperationInfo[] { reset },
+                    null);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.metrics;
+
+import java.util.Map;
+
+/**
+ * Registry of the operational metrics reported by the records management module.
+ * <p>
+ * Metrics are identified by dotted names, for example <tt>rm.job.dispositionLifecycle.runs</tt>.
+ * Recording is expected to be cheap enough to be called on every item processed, so an
+ * implementation must not block or hold locks when counting or timing.
+ * <p>
+ * The module ships with {@link MetricsRegistryImpl}, other monitoring systems can be plugged
+ * in by overriding the <tt>rmMetricsRegistry</tt> bean.
+ *
+ * @since 2.7
+ */
+public interface MetricsRegistry
+{
+    /**
+     * Gauge whose value is read each time the metrics are reported.
+     */
+    interface Gauge
+    {
+        /**
+         * @return  current value of the gauge
+         */
+        Number getValue();
+    }
+
+    /**
+     * Increments a counter, creating it if needed.
+     *
+     * @param name  counter name
+     * @param delta amount to add
+     */
+    void increment(String name, long delta);
+
+    /**
+     * Gets the current value of a counter.
+     *
+     * @param name  counter name
+     * @return long counter value, 0 if the counter has not been incremented yet
+     */
+    long getCount(String name);
+
+    /**
+     * Records the duration of a timed operation, creating the timer if needed.
+     *
+     * @param name              timer name
+     * @param durationMillis    duration in milliseconds
+     */
+    void recordTime(String name, long durationMillis);
+
+    /**
+     * Registers a gauge, replacing any gauge already registered with the same name.
+     *
+     * @param name  gauge name
+     * @param gauge gauge
+     */
+    void registerGauge(String name, Gauge gauge);
+
+    /**
+     * Gets a snapshot of all the metrics.
+     * <p>
+     * Timers are reported as <tt>&lt;name&gt;.count</tt>, <tt>&lt;name&gt;.totalMillis</tt>,
+     * <tt>&lt;name&gt;.meanMillis</tt>, <tt>&lt;name&gt;.maxMillis</tt> and <tt>&lt;name&gt;.lastMillis</tt>.
+     *
+     * @return {@link Map}&lt;{@link String}, {@link Number}&gt;   metric values by name, sorted by name
+     */
+    Map<String, Number> getMetrics();
+
+    /**
+     * Resets all the counters and timers.  Gauges are left registered.
+     */
+    void reset();
+}
@@ -0,0 +1,235 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.metrics;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * In memory metrics registry.
+ * <p>
+ * Counters and timers are backed by {@link LongAdder}s, so recording never blocks even when
+ * many threads update the same metric.  Values are kept per server and are lost on restart.
+ *
+ * @since 2.7
+ */
+public class MetricsRegistryImpl implements MetricsRegistry
+{
+    /** logger */
+    private static Log logger = LogFactory.getLog(MetricsRegistryImpl.class);
+
+    /** timer value suffixes */
+    public static final String SUFFIX_COUNT = ".count";
+    public static final String SUFFIX_TOTAL = ".totalMillis";
+    public static final String SUFFIX_MEAN = ".meanMillis";
+    public static final String SUFFIX_MAX = ".maxMillis";
+    public static final String SUFFIX_LAST = ".lastMillis";
+
+    /** indicates whether metrics are recorded */
+    private boolean enabled = true;
+
+    /** counters */
+    private final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<String, LongAdder>();
+
+    /** timers */
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<String, Timer>();
+
+    /** gauges */
+    private final ConcurrentMap<String, Gauge> gauges = new ConcurrentHashMap<String, Gauge>();
+
+    /**
+     * Timer statistics
+     */
+    private static class Timer
+    {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+        private final AtomicLong last = new AtomicLong();
+
+        private void record(long duration)
+        {
+            count.increment();
+            total.add(duration);
+            last.set(duration);
+
+            long current = max.get();
+            while (duration > current && !max.compareAndSet(current, duration))
+            {
+                current = max.get();
+            }
+        }
+    }
+
+    /**
+     * @param enabled   true if metrics are recorded, false otherwise
+     */
+    public void setEnabled(boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return  boolean true if metrics are recorded, false otherwise
+     */
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.metrics.MetricsRegistry#increment(java.lang.String, long)
+     */
+    @Override
+    public void increment(String name, long delta)
+    {
+        if (enabled)
+        {
+            LongAdder counter = counters.get(name);
+            if (counter == null)
+            {
+                LongAdder newCounter = new LongAdder();
+                counter = counters.putIfAbsent(name, newCounter);
+                if (counter == null)
+                {
+                    counter = newCounter;
+                }
+            }
+            counter.add(delta);
+        }
+    }
+
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.metrics.MetricsRegistry#getCount(java.lang.String)
+     */
+    @Override
+    public long getCount(String name)
+    {
+        LongAdder counter = counters.get(name);
+        return counter == null ? 0L : counter.sum();
+    }
+
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.metrics.MetricsRegistry#recordTime(java.lang.String, long)
+     */
+    @Override
+    public void recordTime(String name, long durationMillis)
+    {
+        if (enabled)
+        {
+            Timer timer = timers.get(name);
+            if (timer == null)
+            {
+                Timer newTimer = new Timer();
+                timer = timers.putIfAbsent(name, newTimer);
+                if (timer == null)
+                {
+                    timer = newTimer;
+                }
+            }
+            timer.record(durationMillis);
+        }
+    }
+
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.metrics.MetricsRegistry#registerGauge(java.lang.String, org.alfresco.module.org_alfresco_module_rm.metrics.MetricsRegistry.Gauge)
+     */
+    @Override
+    public void registerGauge(String name, Gauge gauge)
+    {
+        gauges.put(name, gauge);
+    }
+
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.metrics.MetricsRegistry#getMetrics()
+     */
+    @Override
+    public Map<String, Number> getMetrics()
+    {
+        SortedMap<String, Number> metrics = new TreeMap<String, Number>();
+
+        for (Map.Entry<String, LongAdder> counter : counters.entrySet())
+        {
+            metrics.put(counter.getKey(), counter.getValue().sum());
+        }
+
+        for (Map.Entry<String, Timer> entry : timers.entrySet())
+        {
+            String name = entry.getKey();
+            Timer timer = entry.getValue();
+            long count = timer.count.sum();
+            long total = timer.total.sum();
+            metrics.put(name + SUFFIX_COUNT, count);
+            metrics.put(name + SUFFIX_TOTAL, total);
+            metrics.put(name + SUFFIX_MEAN, count == 0 ? 0D : (double) total / count);
+            metrics.put(name + SUFFIX_MAX, timer.max.get());
+            metrics.put(name + SUFFIX_LAST, timer.last.get());
+        }
+
+        for (Map.Entry<String, Gauge> gauge : gauges.entrySet())
+        {
+            try
+            {
+                Number value = gauge.getValue().getValue();
+                if (value != null)
+                {
+                    metrics.put(gauge.getKey(), value);
+                }
+            }
+            catch (RuntimeException exception)
+            {
+                // a failing gauge must not prevent the other metrics from being reported
+                if (logger.isDebugEnabled())
+                {
+                    logger.debug("Unable to read gauge " + gauge.getKey(), exception);
+                }
+            }
+        }
+
+        return metrics;
+    }
+
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.metrics.MetricsRegistry#reset()
+     */
+    @Override
+    public void reset()
+    {
+        counters.clear();
+        timers.clear();
+    }
+}
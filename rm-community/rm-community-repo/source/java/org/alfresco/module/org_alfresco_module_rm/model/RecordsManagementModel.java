@@ -229,6 +229,7 @@ public interface RecordsManagementModel extends RecordsManagementCustomModel
     QName PROP_UPDATED_PROPERTIES = QName.createQName(RM_URI, "updatedProperties");
     QName PROP_PUBLISH_IN_PROGRESS = QName.createQName(RM_URI, "publishInProgress");
     String UPDATE_TO_DISPOSITION_ACTION_DEFINITION = "dispositionActionDefinition";
+    String UPDATE_TO_VITAL_RECORD_DEFINITION = "vitalRecordDefinition";
 
     // Ghosted aspect
     QName ASPECT_GHOSTED = QName.createQName(RM_URI, "ghosted");
@@ -767,8 +767,12 @@ public class RecordsManagementSearchBehaviour implements RecordsManagementModel
 
     /**
      * Helper method to update the vital record defintion values
+     * <p>
+     * Only the record folder itself is updated here, the records it contains are brought up to date
+     * in batches when the vital record definition change is published.
      *
      * @param nodeRef   node reference
+     * @see org.alfresco.module.org_alfresco_module_rm.job.publish.VitalRecordDefinitionPublishExecutor
      */
     private void updateVitalRecordDefinitionValues(NodeRef nodeRef)
     {
@@ -777,16 +781,6 @@ public class RecordsManagementSearchBehaviour implements RecordsManagementModel
             // ensure the folder itself reflects the correct details
             applySearchAspect(nodeRef);
             setVitalRecordDefintionDetails(nodeRef);
-    
-            List<NodeRef> records = recordService.getRecords(nodeRef);
-            for (NodeRef record : records)
-            {
-                // Apply the search aspect
-                applySearchAspect(record);
-    
-                // Set the vital record definition details
-                setVitalRecordDefintionDetails(record);
-            }
         }
     }
 
@@ -28,9 +28,12 @@
 package org.alfresco.module.org_alfresco_module_rm.model.rma.aspect;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
-import org.alfresco.module.org_alfresco_module_rm.action.RecordsManagementActionService;
+import org.alfresco.error.AlfrescoRuntimeException;
 import org.alfresco.module.org_alfresco_module_rm.model.BaseBehaviourBean;
 import org.alfresco.repo.node.NodeServicePolicies;
 import org.alfresco.repo.policy.Behaviour.NotificationFrequency;
@@ -42,9 +45,14 @@ import org.alfresco.repo.security.authentication.AuthenticationUtil.RunAsWork;
 import org.alfresco.service.cmr.repository.NodeRef;
 import org.alfresco.service.namespace.QName;
 import org.alfresco.util.PropertyMap;
+import org.springframework.extensions.surf.util.I18NUtil;
 
 /**
- * rma:ghosted behaviour bean
+ * rma:vitalRecordDefinition behaviour bean
+ * <p>
+ * Changes to the vital record definition are not applied to the contents of the
+ * category or folder straight away.  Instead the node is marked as having an unpublished
+ * update, which is then propagated in batches by the publish updates job.
  *
  * @author Roy Wetherall
  * @since 2.2
@@ -56,16 +64,8 @@ import org.alfresco.util.PropertyMap;
 public class VitalRecordDefinitionAspect extends    BaseBehaviourBean
                                          implements NodeServicePolicies.OnUpdatePropertiesPolicy
 {
-    /** records management action service */
-    protected RecordsManagementActionService recordsManagementActionService;
-
-    /**
-     * @param recordsManagementActionService    records management action service
-     */
-    public void setRecordsManagementActionService(RecordsManagementActionService recordsManagementActionService)
-    {
-        this.recordsManagementActionService = recordsManagementActionService;
-    }
+    /** I18N */
+    private static final String MSG_UPDATE_VITAL_RECORD_DEF = "rm.service.update-vital-record-def";
 
     /**
      * @see org.alfresco.repo.node.NodeServicePolicies.OnUpdatePropertiesPolicy#onUpdateProperties(org.alfresco.service.cmr.repository.NodeRef, java.util.Map, java.util.Map)
@@ -90,7 +90,7 @@ public class VitalRecordDefinitionAspect extends    BaseBehaviourBean
                     if (changedProps.containsKey(PROP_VITAL_RECORD_INDICATOR) ||
                         changedProps.containsKey(PROP_REVIEW_PERIOD))
                     {
-                        recordsManagementActionService.executeRecordsManagementAction(nodeRef, "broadcastVitalRecordDefinition");
+                        markUnpublishedUpdate(nodeRef, new ArrayList<QName>(changedProps.keySet()));
                     }
                 }
                 return null;
@@ -98,4 +98,33 @@ public class VitalRecordDefinitionAspect extends    BaseBehaviourBean
         });
     }
 
+    /**
+     * Mark the node as having a vital record definition update that needs to be published
+     * to its contents.
+     *
+     * @param nodeRef       node reference
+     * @param changedProps  changed properties
+     * @since 2.7
+     */
+    public void markUnpublishedUpdate(NodeRef nodeRef, List<QName> changedProps)
+    {
+        Map<QName, Serializable> props = new HashMap<QName, Serializable>(2);
+        props.put(PROP_UPDATE_TO, UPDATE_TO_VITAL_RECORD_DEFINITION);
+        props.put(PROP_UPDATED_PROPERTIES, new ArrayList<QName>(changedProps));
+
+        if (!nodeService.hasAspect(nodeRef, ASPECT_UNPUBLISHED_UPDATE))
+        {
+            nodeService.addAspect(nodeRef, ASPECT_UNPUBLISHED_UPDATE, props);
+        }
+        else
+        {
+            // Check that there isn't an update currently being published
+            if (Boolean.TRUE.equals(nodeService.getProperty(nodeRef, PROP_PUBLISH_IN_PROGRESS)))
+            {
+                throw new AlfrescoRuntimeException(I18NUtil.getMessage(MSG_UPDATE_VITAL_RECORD_DEF));
+            }
+
+            nodeService.addProperties(nodeRef, props);
+        }
+    }
 }
@@ -0,0 +1,295 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.patch;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.alfresco.error.AlfrescoRuntimeException;
+import org.alfresco.repo.batch.BatchProcessor;
+import org.alfresco.repo.batch.BatchProcessor.BatchProcessWorkerAdaptor;
+import org.alfresco.repo.security.authentication.AuthenticationUtil;
+import org.alfresco.repo.transaction.RetryingTransactionHelper.RetryingTransactionCallback;
+import org.alfresco.service.cmr.attributes.AttributeService;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
+
+/**
+ * Module patch that processes its work in parallel, committed batches.
+ * <p>
+ * The work is taken from the {@link ModulePatchWorkProvider} a chunk at a time.  Each chunk is
+ * processed by a pool of worker threads, each batch of entries in its own transaction, and once
+ * the whole chunk is done the position reached is checkpointed.  If the repository is restarted
+ * before the patch completes, the patch continues from the last checkpoint, so processing an
+ * entry must be safe to repeat.  Throughput and estimated time remaining are logged per chunk.
+ * <p>
+ * {@link #applyInternal()} is called in a transaction before the batch work and can be overridden
+ * to make changes that are not batched.  It runs again when the patch continues after a restart.
+ *
+ * @param <T> the type of a work entry
+ * @since 2.7
+ */
+public abstract class AbstractBatchModulePatch<T> extends AbstractModulePatch
+                                                  implements ApplicationEventPublisherAware
+{
+    /** attribute key for the checkpoints */
+    static final String KEY_CHECKPOINT = "module-patch-checkpoint";
+
+    /** attribute service */
+    private AttributeService attributeService;
+
+    /** application event publisher */
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    /** number of worker threads */
+    private int workerThreads = 4;
+
+    /** number of entries processed per transaction */
+    private int batchSize = 200;
+
+    /** number of entries processed between checkpoints */
+    private int checkpointSize = 10000;
+
+    /**
+     * @param attributeService  attribute service
+     */
+    public void setAttributeService(AttributeService attributeService)
+    {
+        this.attributeService = attributeService;
+    }
+
+    /**
+     * @see org.springframework.context.ApplicationEventPublisherAware#setApplicationEventPublisher(org.springframework.context.ApplicationEventPublisher)
+     */
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher applicationEventPublisher)
+    {
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    /**
+     * @param workerThreads number of worker threads
+     */
+    public void setWorkerThreads(int workerThreads)
+    {
+        this.workerThreads = workerThreads;
+    }
+
+    /**
+     * @param batchSize number of entries processed per transaction
+     */
+    public void setBatchSize(int batchSize)
+    {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param checkpointSize    number of entries processed between checkpoints
+     */
+    public void setCheckpointSize(int checkpointSize)
+    {
+        this.checkpointSize = checkpointSize;
+    }
+
+    /**
+     * Gets the work provider for this patch.
+     *
+     * @return work provider
+     */
+    protected abstract ModulePatchWorkProvider<T> getWorkProvider();
+
+    /**
+     * Processes an entry of work.  Called as the system user in a transaction shared with the
+     * other entries of the batch.
+     *
+     * @param entry entry of work
+     * @throws Throwable if the entry can not be processed, failing the patch
+     */
+    protected abstract void process(T entry) throws Throwable;
+
+    /**
+     * No changes are made outside of the batch work by default.
+     *
+     * @see org.alfresco.module.org_alfresco_module_rm.patch.AbstractModulePatch#applyInternal()
+     */
+    @Override
+    public void applyInternal()
+    {
+        // intentionally empty
+    }
+
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.patch.AbstractModulePatch#applyPatch()
+     */
+    @Override
+    protected void applyPatch()
+    {
+        super.applyPatch();
+
+        ModulePatchWorkProvider<T> workProvider = getWorkProvider();
+        long startPosition = getCheckpoint();
+        long maxPosition = workProvider.getMaxPosition();
+        if (startPosition > 0 && LOGGER.isInfoEnabled())
+        {
+            LOGGER.info("   ... continuing module patch from checkpoint " + startPosition);
+        }
+
+        long startTime = System.nanoTime();
+        long position = startPosition;
+        long processed = 0;
+
+        List<T> chunk = workProvider.getNextWork(position, checkpointSize);
+        while (!chunk.isEmpty())
+        {
+            int errors = processChunk(chunk);
+            if (errors != 0)
+            {
+                throw new AlfrescoRuntimeException("Module patch " + getId() + " failed to process " + errors +
+                                                   " entries after position " + position + ", see the log for details.");
+            }
+
+            for (T entry : chunk)
+            {
+                position = Math.max(position, workProvider.getPosition(entry) + 1);
+            }
+            processed += chunk.size();
+            setCheckpoint(position);
+
+            if (LOGGER.isInfoEnabled())
+            {
+                logProgress(processed, startTime, position - startPosition, maxPosition - startPosition);
+            }
+
+            chunk = workProvider.getNextWork(position, checkpointSize);
+        }
+
+        // the work is done, so a restart does not need to look for any more
+        setCheckpoint(Long.MAX_VALUE);
+    }
+
+    /**
+     * Processes a chunk of work with the worker thread pool, committing each batch of entries.
+     *
+     * @param chunk entries of work
+     * @return the number of entries that failed
+     */
+    protected int processChunk(List<T> chunk)
+    {
+        BatchProcessor<T> batchProcessor = new BatchProcessor<T>(
+                getId(),
+                transactionService.getRetryingTransactionHelper(),
+                chunk,
+                workerThreads,
+                batchSize,
+                applicationEventPublisher,
+                LOGGER,
+                checkpointSize);
+
+        batchProcessor.process(new BatchProcessWorkerAdaptor<T>()
+        {
+            @Override
+            public void beforeProcess() throws Throwable
+            {
+                AuthenticationUtil.setRunAsUserSystem();
+            }
+
+            @Override
+            public void process(T entry) throws Throwable
+            {
+                AbstractBatchModulePatch.this.process(entry);
+            }
+
+            @Override
+            public void afterProcess() throws Throwable
+            {
+                AuthenticationUtil.clearCurrentSecurityContext();
+            }
+        }, true);
+
+        return batchProcessor.getTotalErrors();
+    }
+
+    /**
+     * Logs the throughput of the patch and, from the share of positions covered so far, an
+     * estimate of the time remaining.
+     */
+    private void logProgress(long processed, long startTime, long positionsDone, long positionsTotal)
+    {
+        long elapsed = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        long rate = processed * 1000 / elapsed;
+
+        StringBuilder msg = new StringBuilder("   ... ")
+            .append(getId()).append(": ")
+            .append(processed).append(" entries processed in ").append(elapsed).append("ms (")
+            .append(rate).append(" per second)");
+        if (positionsDone > 0 && positionsTotal > positionsDone)
+        {
+            long remaining = elapsed * (positionsTotal - positionsDone) / positionsDone;
+            msg.append(", about ").append(TimeUnit.MILLISECONDS.toMinutes(remaining)).append(" minutes remaining");
+        }
+        LOGGER.info(msg.toString());
+    }
+
+    /**
+     * Gets the position this patch has been checkpointed at.
+     *
+     * @return the checkpointed position, 0 if the patch has not been started
+     */
+    private long getCheckpoint()
+    {
+        return transactionService.getRetryingTransactionHelper().doInTransaction(new RetryingTransactionCallback<Long>()
+        {
+            @Override
+            public Long execute()
+            {
+                Long checkpoint = (Long)attributeService.getAttribute(KEY_CHECKPOINT, getModuleId(), getId());
+                return (checkpoint == null ? 0L : checkpoint);
+            }
+        }, true, true);
+    }
+
+    /**
+     * Checkpoints the position this patch has reached.  Committed straight away, since the patch as
+     * a whole is applied within the module startup transaction.
+     *
+     * @param position position reached
+     */
+    private void setCheckpoint(final long position)
+    {
+        transactionService.getRetryingTransactionHelper().doInTransaction(new RetryingTransactionCallback<Void>()
+        {
+            @Override
+            public Void execute()
+            {
+                attributeService.setAttribute(Long.valueOf(position), KEY_CHECKPOINT, getModuleId(), getId());
+                return null;
+            }
+        }, false, true);
+    }
+}
@@ -242,11 +242,7 @@ public abstract class AbstractModulePatch implements ModulePatch, BeanNameAware
                
         long startTime = System.nanoTime();
         
-        // do patch in transaction
-        transactionService.getRetryingTransactionHelper().doInTransaction(
-                new ApplyCallback(),
-                txnReadOnly,
-                txnRequiresNew);
+        applyPatch();
 
         long elapsedTime = System.nanoTime() - startTime;
         
@@ -256,6 +252,20 @@ public abstract class AbstractModulePatch implements ModulePatch, BeanNameAware
         }
     }
 
+    /**
+     * Runs the patch.  By default {@link #applyInternal()} is called in a single transaction.
+     *
+     * @since 2.7
+     */
+    protected void applyPatch()
+    {
+        // do patch in transaction
+        transactionService.getRetryingTransactionHelper().doInTransaction(
+                new ApplyCallback(),
+                txnReadOnly,
+                txnRequiresNew);
+    }
+
     /**
      * Apply patch internal method.  Implementations can assume a transaction has
      * been started.
@@ -138,6 +138,9 @@ public class ModulePatchExecuterImpl extends   AbstractModuleComponent
 
             // update the schema
             updateSchema(moduleSchema);
+
+            // the batch patch checkpoints are no longer needed
+            attributeService.removeAttributes(AbstractBatchModulePatch.KEY_CHECKPOINT, getModuleId());
         }
     }
 
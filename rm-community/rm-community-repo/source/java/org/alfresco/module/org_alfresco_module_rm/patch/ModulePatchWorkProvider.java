@@ -0,0 +1,70 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.patch;
+
+import java.util.List;
+
+/**
+ * Provides the work for a batch module patch.
+ * <p>
+ * Each entry of work has a position, such as a node id, and entries are handed out in position
+ * order.  The position after the last completed entry is checkpointed so that a restarted patch
+ * can ask for the work from there on.
+ *
+ * @param <T> the type of a work entry
+ * @since 2.7
+ * @see AbstractBatchModulePatch
+ */
+public interface ModulePatchWorkProvider<T>
+{
+    /**
+     * Gets the position after the last entry there is work for.  This is only used to
+     * estimate the progress of the patch.
+     *
+     * @return the maximum position
+     */
+    long getMaxPosition();
+
+    /**
+     * Gets the next entries of work.
+     *
+     * @param fromPosition the position to start from (inclusive)
+     * @param maxEntries   the maximum number of entries the caller wants
+     * @return the entries in position order, empty when there is no more work
+     */
+    List<T> getNextWork(long fromPosition, int maxEntries);
+
+    /**
+     * Gets the position of an entry of work.
+     *
+     * @param entry entry of work
+     * @return the position of the entry
+     */
+    long getPosition(T entry);
+}
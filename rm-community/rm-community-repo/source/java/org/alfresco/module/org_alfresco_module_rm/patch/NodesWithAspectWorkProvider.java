@@ -0,0 +1,115 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.patch;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.alfresco.repo.domain.patch.PatchDAO;
+import org.alfresco.repo.domain.qname.QNameDAO;
+import org.alfresco.service.namespace.QName;
+import org.alfresco.util.Pair;
+
+/**
+ * Work provider that hands out the ids of the nodes with a given aspect, positioned by node id.
+ *
+ * @since 2.7
+ */
+public class NodesWithAspectWorkProvider implements ModulePatchWorkProvider<Long>
+{
+    /** patch DAO */
+    private final PatchDAO patchDAO;
+
+    /** aspect qname id, null if the aspect has never been used */
+    private final Long aspectQNameId;
+
+    /** max node id, looked up once */
+    private Long maxNodeId;
+
+    /**
+     * @param patchDAO  patch DAO
+     * @param qnameDAO  qname DAO
+     * @param aspect    aspect the nodes have
+     */
+    public NodesWithAspectWorkProvider(PatchDAO patchDAO, QNameDAO qnameDAO, QName aspect)
+    {
+        this.patchDAO = patchDAO;
+
+        Pair<Long, QName> aspectPair = qnameDAO.getQName(aspect);
+        this.aspectQNameId = (aspectPair == null ? null : aspectPair.getFirst());
+    }
+
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.patch.ModulePatchWorkProvider#getMaxPosition()
+     */
+    @Override
+    public long getMaxPosition()
+    {
+        if (maxNodeId == null)
+        {
+            maxNodeId = patchDAO.getMaxAdmNodeID() + 1;
+        }
+        return maxNodeId;
+    }
+
+    /**
+     * Scans node id ranges of <code>maxEntries</code> ids until one holds nodes with the aspect.
+     *
+     * @see org.alfresco.module.org_alfresco_module_rm.patch.ModulePatchWorkProvider#getNextWork(long, int)
+     */
+    @Override
+    public List<Long> getNextWork(long fromPosition, int maxEntries)
+    {
+        if (aspectQNameId == null)
+        {
+            return Collections.emptyList();
+        }
+
+        long maxPosition = getMaxPosition();
+        for (long from = fromPosition; from < maxPosition; from += maxEntries)
+        {
+            long to = Math.min(from + maxEntries, maxPosition);
+            List<Long> nodeIds = patchDAO.getNodesByAspectQNameId(aspectQNameId, from, to);
+            if (!nodeIds.isEmpty())
+            {
+                return nodeIds;
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.patch.ModulePatchWorkProvider#getPosition(java.lang.Object)
+     */
+    @Override
+    public long getPosition(Long entry)
+    {
+        return entry;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.alfresco.util.Pair;
+
+/**
+ * Select parameter for <b>select_AuditEntries</b>.
+ *
+ * @since 2.7
+ */
+public class AuditEntriesQueryParams
+{
+    private Long auditAppNameId;
+    private Long auditUserId;
+    private Long fromId;
+    private Long toId;
+    private Long fromTime;
+    private Long toTime;
+    private boolean forward = true;
+    private Pair<Long, Long> drivingSearchKey;
+    private List<Pair<Long, Long>> searchKeys = new ArrayList<Pair<Long, Long>>();
+
+    public Long getAuditAppNameId()
+    {
+        return auditAppNameId;
+    }
+
+    public void setAuditAppNameId(Long auditAppNameId)
+    {
+        this.auditAppNameId = auditAppNameId;
+    }
+
+    public Long getAuditUserId()
+    {
+        return auditUserId;
+    }
+
+    public void setAuditUserId(Long auditUserId)
+    {
+        this.auditUserId = auditUserId;
+    }
+
+    public Long getFromId()
+    {
+        return fromId;
+    }
+
+    public void setFromId(Long fromId)
+    {
+        this.fromId = fromId;
+    }
+
+    public Long getToId()
+    {
+        return toId;
+    }
+
+    public void setToId(Long toId)
+    {
+        this.toId = toId;
+    }
+
+    public Long getFromTime()
+    {
+        return fromTime;
+    }
+
+    public void setFromTime(Long fromTime)
+    {
+        this.fromTime = fromTime;
+    }
+
+    public Long getToTime()
+    {
+        return toTime;
+    }
+
+    public void setToTime(Long toTime)
+    {
+        this.toTime = toTime;
+    }
+
+    public boolean isForward()
+    {
+        return forward;
+    }
+
+    public void setForward(boolean forward)
+    {
+        this.forward = forward;
+    }
+
+    /**
+     * @return  key and value property ids of the search key the query is driven from, null if none
+     */
+    public Pair<Long, Long> getDrivingSearchKey()
+    {
+        return drivingSearchKey;
+    }
+
+    /**
+     * @return  key and value property ids of the other search keys
+     */
+    public List<Pair<Long, Long>> getSearchKeys()
+    {
+        return searchKeys;
+    }
+
+    /**
+     * Adds a search key, the first one added drives the query.
+     *
+     * @param keyId     property id of the audit path
+     * @param valueId   property id of the audited value
+     */
+    public void addSearchKey(Long keyId, Long valueId)
+    {
+        Pair<Long, Long> searchKey = new Pair<Long, Long>(keyId, valueId);
+        if (drivingSearchKey == null)
+        {
+            drivingSearchKey = searchKey;
+        }
+        else
+        {
+            searchKeys.add(searchKey);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.query;
+
+/**
+ * Result of <b>select_AuditEntries</b>.
+ *
+ * @since 2.7
+ */
+public class AuditEntryQueryResult
+{
+    private Long id;
+    private Long auditTime;
+    private Long auditUserId;
+    private Long auditValuesId;
+
+    public Long getId()
+    {
+        return id;
+    }
+
+    public void setId(Long id)
+    {
+        this.id = id;
+    }
+
+    public Long getAuditTime()
+    {
+        return auditTime;
+    }
+
+    public void setAuditTime(Long auditTime)
+    {
+        this.auditTime = auditTime;
+    }
+
+    public Long getAuditUserId()
+    {
+        return auditUserId;
+    }
+
+    public void setAuditUserId(Long auditUserId)
+    {
+        this.auditUserId = auditUserId;
+    }
+
+    public Long getAuditValuesId()
+    {
+        return auditValuesId;
+    }
+
+    public void setAuditValuesId(Long auditValuesId)
+    {
+        this.auditValuesId = auditValuesId;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.query;
+
+import org.alfresco.service.cmr.audit.AuditQueryParameters;
+import org.alfresco.service.cmr.audit.AuditService.AuditQueryCallback;
+
+/**
+ * Records management audit query DAO
+ * <p>
+ * Unlike the generic audit query, all the search keys of the query parameters are matched in the
+ * database, so only the audit entries that match are read.
+ *
+ * @since 2.7
+ */
+public interface RecordsManagementAuditQueryDAO
+{
+    /**
+     * Finds the audit entries of an audit application.
+     * <p>
+     * The application name, user, time range, id range and every search key of the parameters
+     * must match.  Entries are returned in id order.
+     *
+     * @param callback      callback the matching entries are passed to
+     * @param parameters    audit query parameters, the application name is mandatory
+     * @param maxResults    maximum number of entries to return, zero or less for no limit
+     */
+    void findAuditEntries(AuditQueryCallback callback, AuditQueryParameters parameters, int maxResults);
+}
@@ -0,0 +1,179 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.query;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+import org.alfresco.repo.domain.propval.PropertyValueDAO;
+import org.alfresco.service.cmr.audit.AuditQueryParameters;
+import org.alfresco.service.cmr.audit.AuditService.AuditQueryCallback;
+import org.alfresco.util.Pair;
+import org.alfresco.util.ParameterCheck;
+import org.apache.ibatis.session.RowBounds;
+import org.mybatis.spring.SqlSessionTemplate;
+
+/**
+ * Records management audit query DAO implementation
+ * <p>
+ * Audit paths, values, users and application names are stored as shared property values, so
+ * they are resolved to their property ids up front and matched by id.  A value that has never
+ * been stored cannot have been audited, in which case nothing is queried at all.
+ *
+ * @since 2.7
+ */
+public class RecordsManagementAuditQueryDAOImpl implements RecordsManagementAuditQueryDAO
+{
+    private static final String SELECT_AUDIT_ENTRIES = "select_AuditEntries";
+
+    /** SQL session template */
+    protected SqlSessionTemplate template;
+
+    /** Property value DAO */
+    protected PropertyValueDAO propertyValueDAO;
+
+    /**
+     * @param sqlSessionTemplate    SQL session template
+     */
+    public final void setSqlSessionTemplate(SqlSessionTemplate sqlSessionTemplate)
+    {
+        this.template = sqlSessionTemplate;
+    }
+
+    /**
+     * @param propertyValueDAO  property value DAO
+     */
+    public void setPropertyValueDAO(PropertyValueDAO propertyValueDAO)
+    {
+        this.propertyValueDAO = propertyValueDAO;
+    }
+
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.query.RecordsManagementAuditQueryDAO#findAuditEntries(org.alfresco.service.cmr.audit.AuditService.AuditQueryCallback, org.alfresco.service.cmr.audit.AuditQueryParameters, int)
+     */
+    @Override
+    public void findAuditEntries(AuditQueryCallback callback, AuditQueryParameters parameters, int maxResults)
+    {
+        ParameterCheck.mandatory("callback", callback);
+        ParameterCheck.mandatory("parameters", parameters);
+        ParameterCheck.mandatory("applicationName", parameters.getApplicationName());
+
+        AuditEntriesQueryParams queryParams = new AuditEntriesQueryParams();
+
+        // resolve the application, user and search keys to property ids
+        Long auditAppNameId = getPropertyValueId(parameters.getApplicationName());
+        if (auditAppNameId == null)
+        {
+            return;
+        }
+        queryParams.setAuditAppNameId(auditAppNameId);
+
+        if (parameters.getUser() != null)
+        {
+            Long auditUserId = getPropertyValueId(parameters.getUser());
+            if (auditUserId == null)
+            {
+                return;
+            }
+            queryParams.setAuditUserId(auditUserId);
+        }
+
+        for (Pair<String, Serializable> searchKeyValue : parameters.getSearchKeyValues())
+        {
+            Long keyId = getPropertyValueId(searchKeyValue.getFirst());
+            Long valueId = getPropertyValueId(searchKeyValue.getSecond());
+            if (keyId == null || valueId == null)
+            {
+                return;
+            }
+            queryParams.addSearchKey(keyId, valueId);
+        }
+
+        queryParams.setFromId(parameters.getFromId());
+        queryParams.setToId(parameters.getToId());
+        queryParams.setFromTime(parameters.getFromTime());
+        queryParams.setToTime(parameters.getToTime());
+        queryParams.setForward(parameters.isForward());
+
+        // read the matching entries
+        RowBounds rowBounds = maxResults > 0 ? new RowBounds(0, maxResults) : RowBounds.DEFAULT;
+        List<AuditEntryQueryResult> results = template.selectList(SELECT_AUDIT_ENTRIES, queryParams, rowBounds);
+
+        for (AuditEntryQueryResult result : results)
+        {
+            if (!handleAuditEntry(callback, parameters.getApplicationName(), result))
+            {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Passes an audit entry to the callback, loading its user and values.
+     *
+     * @param callback          callback
+     * @param applicationName   audit application name
+     * @param result            audit entry
+     * @return boolean  true if the callback wants more entries, false otherwise
+     */
+    @SuppressWarnings("unchecked")
+    private boolean handleAuditEntry(AuditQueryCallback callback, String applicationName, AuditEntryQueryResult result)
+    {
+        String user = null;
+        Map<String, Serializable> values = null;
+        try
+        {
+            if (result.getAuditUserId() != null)
+            {
+                user = (String) propertyValueDAO.getPropertyValueById(result.getAuditUserId()).getSecond();
+            }
+            if (callback.valuesRequired())
+            {
+                values = (Map<String, Serializable>) propertyValueDAO.getPropertyById(result.getAuditValuesId());
+            }
+        }
+        catch (Throwable error)
+        {
+            return callback.handleAuditEntryError(result.getId(), "Failed to load audit entry " + result.getId(), error);
+        }
+
+        return callback.handleAuditEntry(result.getId(), applicationName, user, result.getAuditTime(), values);
+    }
+
+    /**
+     * @param value value
+     * @return {@link Long}  id of the property value, null if the value has never been stored
+     */
+    private Long getPropertyValueId(Serializable value)
+    {
+        Pair<Long, Serializable> pair = propertyValueDAO.getPropertyValue(value);
+        return pair == null ? null : pair.getFirst();
+    }
+}
@@ -27,14 +27,13 @@
 
 package org.alfresco.module.org_alfresco_module_rm.script;
 
-import java.io.File;
 import java.io.IOException;
 
 import org.alfresco.module.org_alfresco_module_rm.audit.RecordsManagementAuditQueryParameters;
 import org.alfresco.module.org_alfresco_module_rm.audit.RecordsManagementAuditService.ReportFormat;
 import org.alfresco.module.org_alfresco_module_rm.capability.CapabilityService;
 import org.alfresco.module.org_alfresco_module_rm.fileplan.FilePlanService;
-import org.alfresco.repo.web.scripts.content.ContentStreamer;
+import org.alfresco.repo.content.MimetypeMap;
 import org.alfresco.service.cmr.repository.NodeRef;
 import org.alfresco.service.cmr.security.AccessStatus;
 import org.apache.commons.logging.Log;
@@ -57,24 +56,17 @@ public class AuditLogGet extends BaseAuditRetrievalWebScript
 
     private static final String PARAM_EXPORT = "export";
     private static final String ACCESS_AUDIT_CAPABILITY = "AccessAudit";
+    private static final String HEADER_CONTENT_DISPOSITION = "Content-Disposition";
+    private static final String AUDIT_TRAIL_FILE_PREFIX = "audit_";
+    private static final String AUDIT_TRAIL_JSON_FILE_SUFFIX = ".json";
+    private static final String AUDIT_TRAIL_HTML_FILE_SUFFIX = ".html";
 
-    /** Content Streamer */
-    protected ContentStreamer contentStreamer;
-    
     /** Capability service */
     protected CapabilityService capabilityService;
 
     /** File plan service */
     protected FilePlanService filePlanService;
 
-    /**
-     * @param contentStreamer
-     */
-    public void setContentStreamer(ContentStreamer contentStreamer)
-    {
-        this.contentStreamer = contentStreamer;
-    }
-    
     /**
      * 
      * @param capabilityService Capability Service
@@ -96,60 +88,38 @@ public class AuditLogGet extends BaseAuditRetrievalWebScript
     @Override
     public void execute(WebScriptRequest req, WebScriptResponse res) throws IOException
     {
-        File auditTrail = null;
+        RecordsManagementAuditQueryParameters queryParams = parseQueryParameters(req);
+        ReportFormat reportFormat = parseReportFormat(req);
 
-        try
+        if( !userCanAccessAudit(queryParams) )
         {
-            
-            RecordsManagementAuditQueryParameters queryParams = parseQueryParameters(req);
-            ReportFormat reportFormat = parseReportFormat(req);
+            throw new WebScriptException(Status.STATUS_FORBIDDEN, "Access denied because the user does not have the Access Audit capability");
+        }
 
-            if( !userCanAccessAudit(queryParams) )
-            {
-                throw new WebScriptException(Status.STATUS_FORBIDDEN, "Access denied because the user does not have the Access Audit capability");
-            }
-            // parse the parameters and get a file containing the audit trail
-            auditTrail = this.rmAuditService.getAuditTrailFile(queryParams, reportFormat);
+        res.setContentType(reportFormat == ReportFormat.HTML ? MimetypeMap.MIMETYPE_HTML : MimetypeMap.MIMETYPE_JSON);
+        res.setContentEncoding("UTF-8");
 
-            if (logger.isDebugEnabled())
-            {
-                logger.debug("Streaming audit trail from file: " + auditTrail.getAbsolutePath());
-            }
+        String export = req.getParameter(PARAM_EXPORT);
+        if (export != null && Boolean.parseBoolean(export))
+        {
+            String attachFileName = AUDIT_TRAIL_FILE_PREFIX + System.currentTimeMillis() +
+                        (reportFormat == ReportFormat.HTML ? AUDIT_TRAIL_HTML_FILE_SUFFIX : AUDIT_TRAIL_JSON_FILE_SUFFIX);
 
-            boolean attach = false;
-            String attachFileName = null;
-            String export = req.getParameter(PARAM_EXPORT);
-            if (export != null && Boolean.parseBoolean(export))
+            if (logger.isDebugEnabled())
             {
-                attach = true;
-                attachFileName = auditTrail.getName();
-
-                if (logger.isDebugEnabled())
-                {
-                    logger.debug("Exporting audit trail using file name: " + attachFileName);
-                }
+                logger.debug("Exporting audit trail using file name: " + attachFileName);
             }
 
-            // stream the file back to the client
-            contentStreamer.streamContent(req, res, auditTrail, null, attach, attachFileName, null);
+            res.setHeader(HEADER_CONTENT_DISPOSITION, "attachment; filename=\"" + attachFileName + "\"");
         }
-        finally
+
+        if (logger.isDebugEnabled())
         {
-            if (auditTrail != null)
-            {
-                if (logger.isDebugEnabled())
-                {
-                    logger.debug(
-                            "Audit results written to file: \n" +
-                            "   File:      " + auditTrail + "\n" +
-                            "   Parameter: " + parseQueryParameters(req));
-                }
-                else
-                {
-                    auditTrail.delete();
-                }
-            }
+            logger.debug("Streaming audit trail using parameters: " + queryParams);
         }
+
+        // stream the audit trail back to the client
+        this.rmAuditService.writeAuditTrail(queryParams, res.getWriter(), reportFormat);
     }
 
     private boolean userCanAccessAudit(RecordsManagementAuditQueryParameters queryParams) 
@@ -0,0 +1,69 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.script;
+
+import java.io.IOException;
+
+import org.alfresco.module.org_alfresco_module_rm.security.CapabilityProfiler;
+import org.alfresco.repo.content.MimetypeMap;
+import org.springframework.extensions.webscripts.AbstractWebScript;
+import org.springframework.extensions.webscripts.WebScriptRequest;
+import org.springframework.extensions.webscripts.WebScriptResponse;
+
+/**
+ * Implementation for Java backed webscript to export a snapshot of the capability profiler.
+ *
+ * @since 2.7
+ */
+public class CapabilityProfileGet extends AbstractWebScript
+{
+    /** capability profiler */
+    protected CapabilityProfiler capabilityProfiler;
+
+    /**
+     * @param capabilityProfiler    capability profiler
+     */
+    public void setCapabilityProfiler(CapabilityProfiler capabilityProfiler)
+    {
+        this.capabilityProfiler = capabilityProfiler;
+    }
+
+    /**
+     * @see org.springframework.extensions.webscripts.WebScript#execute(org.springframework.extensions.webscripts.WebScriptRequest, org.springframework.extensions.webscripts.WebScriptResponse)
+     */
+    @Override
+    public void execute(WebScriptRequest req, WebScriptResponse res) throws IOException
+    {
+        String response = capabilityProfiler.exportSnapshot();
+
+        res.setContentType(MimetypeMap.MIMETYPE_JSON);
+        res.setContentEncoding("UTF-8");
+        res.getWriter().write(response);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.script;
+
+import java.io.IOException;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.springframework.extensions.webscripts.Status;
+import org.springframework.extensions.webscripts.WebScriptException;
+import org.springframework.extensions.webscripts.WebScriptRequest;
+import org.springframework.extensions.webscripts.WebScriptResponse;
+
+/**
+ * Implementation for Java backed webscript to switch the capability profiler on or off and reset it.
+ * <p>
+ * Responds with a snapshot of the profiler, taken before it is reset.
+ *
+ * @since 2.7
+ */
+public class CapabilityProfilePost extends CapabilityProfileGet
+{
+    /** request parameters */
+    private static final String PARAM_ENABLED = "enabled";
+    private static final String PARAM_RESET = "reset";
+
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.script.CapabilityProfileGet#execute(org.springframework.extensions.webscripts.WebScriptRequest, org.springframework.extensions.webscripts.WebScriptResponse)
+     */
+    @Override
+    public void execute(WebScriptRequest req, WebScriptResponse res) throws IOException
+    {
+        boolean reset;
+        try
+        {
+            JSONObject json = new JSONObject(new JSONTokener(req.getContent().getContent()));
+            if (json.has(PARAM_ENABLED))
+            {
+                capabilityProfiler.setEnabled(json.getBoolean(PARAM_ENABLED));
+            }
+            reset = json.optBoolean(PARAM_RESET, false);
+        }
+        catch (JSONException exception)
+        {
+            throw new WebScriptException(Status.STATUS_BAD_REQUEST, "Unable to parse the request body.", exception);
+        }
+
+        super.execute(req, res);
+
+        if (reset)
+        {
+            capabilityProfiler.reset();
+        }
+    }
+}
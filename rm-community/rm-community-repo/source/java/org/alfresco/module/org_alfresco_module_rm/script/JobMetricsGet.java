@@ -0,0 +1,103 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.script;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.alfresco.module.org_alfresco_module_rm.job.RecordsManagementJobMetrics;
+import org.alfresco.module.org_alfresco_module_rm.metrics.MetricsRegistry;
+import org.springframework.extensions.webscripts.Cache;
+import org.springframework.extensions.webscripts.DeclarativeWebScript;
+import org.springframework.extensions.webscripts.Status;
+import org.springframework.extensions.webscripts.WebScriptRequest;
+
+/**
+ * Implementation for Java backed webscript reporting the metrics of the records management jobs.
+ *
+ * @since 2.7
+ */
+public class JobMetricsGet extends DeclarativeWebScript
+{
+    /** metrics registry */
+    private MetricsRegistry metricsRegistry;
+
+    /**
+     * @param metricsRegistry   metrics registry
+     */
+    public void setMetricsRegistry(MetricsRegistry metricsRegistry)
+    {
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    /**
+     * @see org.springframework.extensions.webscripts.DeclarativeWebScript#executeImpl(org.springframework.extensions.webscripts.WebScriptRequest,
+     *      org.springframework.extensions.webscripts.Status,
+     *      org.springframework.extensions.webscripts.Cache)
+     */
+    @Override
+    protected Map<String, Object> executeImpl(WebScriptRequest req, Status status, Cache cache)
+    {
+        Map<String, Object> model = new HashMap<String, Object>(2);
+        model.put("serverTime", System.currentTimeMillis());
+        model.put("jobs", getJobMetrics());
+        return model;
+    }
+
+    /**
+     * Groups the job metrics by job name.
+     *
+     * @return {@link Map}&lt;{@link String}, {@link Map}&lt;{@link String}, {@link Number}&gt;&gt;  metrics by job name and metric
+     */
+    protected Map<String, Map<String, Number>> getJobMetrics()
+    {
+        Map<String, Map<String, Number>> jobs = new TreeMap<String, Map<String, Number>>();
+        for (Map.Entry<String, Number> metric : metricsRegistry.getMetrics().entrySet())
+        {
+            String name = metric.getKey();
+            if (name.startsWith(RecordsManagementJobMetrics.PREFIX))
+            {
+                int index = name.indexOf('.', RecordsManagementJobMetrics.PREFIX.length());
+                if (index != -1)
+                {
+                    String jobName = name.substring(RecordsManagementJobMetrics.PREFIX.length(), index);
+                    Map<String, Number> jobMetrics = jobs.get(jobName);
+                    if (jobMetrics == null)
+                    {
+                        jobMetrics = new TreeMap<String, Number>();
+                        jobs.put(jobName, jobMetrics);
+                    }
+                    jobMetrics.put(name.substring(index + 1), metric.getValue());
+                }
+            }
+        }
+        return jobs;
+    }
+}
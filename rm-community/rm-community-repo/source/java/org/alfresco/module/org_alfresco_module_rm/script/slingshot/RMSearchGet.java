@@ -30,17 +30,21 @@ package org.alfresco.module.org_alfresco_module_rm.script.slingshot;
 import java.io.Serializable;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 import org.alfresco.error.AlfrescoRuntimeException;
 import org.alfresco.model.ContentModel;
+import org.alfresco.module.org_alfresco_module_rm.search.RecordsManagementSearchPage;
 import org.alfresco.module.org_alfresco_module_rm.search.RecordsManagementSearchParameters;
 import org.alfresco.module.org_alfresco_module_rm.search.RecordsManagementSearchService;
 import org.alfresco.module.org_alfresco_module_rm.search.SavedSearchDetailsCompatibility;
+import org.alfresco.repo.cache.SimpleCache;
+import org.alfresco.rm.rest.api.impl.RMNodePathResolver;
 import org.alfresco.service.cmr.dictionary.DictionaryService;
 import org.alfresco.service.cmr.repository.ContentData;
 import org.alfresco.service.cmr.repository.NodeRef;
@@ -71,6 +75,8 @@ public class RMSearchGet extends DeclarativeWebScript
     private static final String PARAM_SORTBY = "sortby";
     private static final String PARAM_FILTERS = "filters";
     private static final String PARAM_MAX_ITEMS = "maxitems";
+    private static final String PARAM_PAGE_SIZE = "pagesize";
+    private static final String PARAM_CURSOR = "cursor";
 
     /** Records management search service */
     protected RecordsManagementSearchService recordsManagementSearchService;
@@ -93,8 +99,11 @@ public class RMSearchGet extends DeclarativeWebScript
     /** Person service */
     protected PersonService personService;
 
-    /** Person data cache */
-    private Map<String, String> personDataCache = null;
+    /** Person display name cache, shared between requests */
+    private SimpleCache<String, String> personDisplayNameCache;
+
+    /** Path resolver, caches the container paths between requests */
+    private RMNodePathResolver pathResolver;
 
     /**
      * @param recordsManagementSearchService    records management search service
@@ -152,6 +161,22 @@ public class RMSearchGet extends DeclarativeWebScript
         this.personService = personService;
     }
 
+    /**
+     * @param personDisplayNameCache    person display name cache
+     */
+    public void setPersonDisplayNameCache(SimpleCache<String, String> personDisplayNameCache)
+    {
+        this.personDisplayNameCache = personDisplayNameCache;
+    }
+
+    /**
+     * @param pathResolver  path resolver
+     */
+    public void setPathResolver(RMNodePathResolver pathResolver)
+    {
+        this.pathResolver = pathResolver;
+    }
+
     /*
      * @see org.alfresco.web.scripts.DeclarativeWebScript#executeImpl(org.alfresco.web.scripts.WebScriptRequest, org.alfresco.web.scripts.Status, org.alfresco.web.scripts.Cache)
      */
@@ -194,35 +219,118 @@ public class RMSearchGet extends DeclarativeWebScript
                 searchParameters.setMaxItems(Integer.parseInt(maxItems));
             }
 
-            // Execute search
-            List<Pair<NodeRef, NodeRef>> results = recordsManagementSearchService.search(siteId, query, searchParameters);
+            // Execute search, one page at a time if a page size is given
+            List<Pair<NodeRef, NodeRef>> results;
+            String pageSize = req.getParameter(PARAM_PAGE_SIZE);
+            if (pageSize != null && pageSize.length() != 0)
+            {
+                RecordsManagementSearchPage page = recordsManagementSearchService.search(siteId, query, searchParameters,
+                            req.getParameter(PARAM_CURSOR), Integer.parseInt(pageSize));
+                results = page.getPage();
+
+                Map<String, Object> paging = new HashMap<String, Object>(3);
+                paging.put("totalItems", page.getTotalResultCount().getSecond());
+                paging.put("hasMoreItems", page.hasMoreItems());
+                if (page.getNextCursor() != null)
+                {
+                    paging.put("nextCursor", page.getNextCursor());
+                }
+                model.put("paging", paging);
+            }
+            else
+            {
+                results = recordsManagementSearchService.search(siteId, query, searchParameters);
+            }
+
+            // Return model, the items are only built as the template renders them
+            model.put("items", new ItemIterator(results.iterator()));
+        }
+        catch (Exception ex)
+        {
+            model.put("errorMessage", ex.toString());
+        }
+        return model;
 
-            // Reset person data cache
-            personDataCache = new HashMap<String, String>(57);
+    }
 
-            // Process the result items
-            List<Item> items = new ArrayList<Item>(results.size());
-            for (Pair<NodeRef, NodeRef> pair : results)
+    /**
+     * Iterator that builds the result items one at a time, so that only the item being rendered is held in memory.
+     */
+    private class ItemIterator implements Iterator<Item>
+    {
+        /** search results */
+        private Iterator<Pair<NodeRef, NodeRef>> results;
+
+        /** next item, null if not yet built */
+        private Item next;
+
+        /** display paths of the containers built so far, keyed by parent container */
+        private Map<NodeRef, String> displayPaths = new HashMap<NodeRef, String>();
+
+        ItemIterator(Iterator<Pair<NodeRef, NodeRef>> results)
+        {
+            this.results = results;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            while (next == null && results.hasNext())
             {
+                Pair<NodeRef, NodeRef> pair = results.next();
+
                 // FIXME: See RM-478
                 // TC 3-3  Create User Groups
                 try
                 {
-                    Item item = new Item(pair.getFirst(), pair.getSecond());
-                    items.add(item);
+                    next = new Item(pair.getFirst(), pair.getSecond(), displayPaths);
                 }
                 catch(Exception e) {}
             }
+            return next != null;
+        }
 
-            // Return model
-            model.put("items", items);
+        @Override
+        public Item next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            Item result = next;
+            next = null;
+            return result;
         }
-        catch (Exception ex)
+
+        @Override
+        public void remove()
         {
-            model.put("errorMessage", ex.toString());
+            throw new UnsupportedOperationException();
         }
-        return model;
+    }
 
+    /**
+     * Gets the display path of the given container, sharing it with the other containers of the same parent.
+     * <p>
+     * The request remembers the display path of each parent it has seen.  Otherwise the path is built by the
+     * path resolver, whose container path cache is shared between requests and cleared when a container is
+     * moved or renamed.  Read permissions are checked afresh in each transaction.
+     *
+     * @param nodeRef       container node reference
+     * @param displayPaths  display paths already resolved by this request, keyed by parent container
+     * @return String       display path
+     */
+    private String getDisplayPath(NodeRef nodeRef, Map<NodeRef, String> displayPaths)
+    {
+        NodeRef primaryParent = pathResolver.getPrimaryParent(nodeRef);
+
+        String result = displayPaths.get(primaryParent);
+        if (result == null)
+        {
+            result = pathResolver.getDisplayPath(nodeRef);
+            displayPaths.put(primaryParent, result);
+        }
+        return result;
     }
 
     /**
@@ -241,7 +349,7 @@ public class RMSearchGet extends DeclarativeWebScript
         private Map<QName, Serializable> nodeProperties;
         private Map<String, Serializable> properties;
 
-        public Item(NodeRef parent, NodeRef nodeRef)
+        public Item(NodeRef parent, NodeRef nodeRef, Map<NodeRef, String> displayPaths)
         {
             // Set node ref
             this.nodeRef = nodeRef;
@@ -272,7 +380,7 @@ public class RMSearchGet extends DeclarativeWebScript
             {
                 this.size = -1;
 
-                String displayPath = nodeService.getPath(nodeRef).toDisplayPath(nodeService, permissionService);
+                String displayPath = getDisplayPath(nodeRef, displayPaths);
                 String[] pathElements = displayPath.split("/");
                 if (pathElements.length >= 5)
                 {
@@ -337,7 +445,7 @@ public class RMSearchGet extends DeclarativeWebScript
 
         private String getDisplayName(String userName)
         {
-            String result = personDataCache.get(userName);
+            String result = (userName == null ? null : personDisplayNameCache.get(userName));
             if (result == null)
             {
                 NodeRef person = personService.getPerson(userName);
@@ -353,7 +461,10 @@ public class RMSearchGet extends DeclarativeWebScript
                 {
                     result = userName;
                 }
-                personDataCache.put(userName, result);
+                if (userName != null)
+                {
+                    personDisplayNameCache.put(userName, result);
+                }
             }
 
             return result;
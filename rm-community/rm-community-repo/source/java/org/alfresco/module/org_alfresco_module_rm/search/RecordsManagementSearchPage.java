@@ -0,0 +1,114 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.search;
+
+import java.util.List;
+
+import org.alfresco.query.PagingResults;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.util.Pair;
+
+/**
+ * A page of records management search results.
+ * <p>
+ * The total result count is an estimate provided by the search layer, the results are never
+ * fully materialised to count them.
+ *
+ * @since 2.7
+ */
+public class RecordsManagementSearchPage implements PagingResults<Pair<NodeRef, NodeRef>>
+{
+    /** page of results as pairs of parent and child nodes */
+    private final List<Pair<NodeRef, NodeRef>> page;
+
+    /** cursor of the next page, null if there are no more results */
+    private final String nextCursor;
+
+    /** estimated total result count */
+    private final Pair<Integer, Integer> totalResultCount;
+
+    /**
+     * @param page              page of results
+     * @param nextCursor        cursor of the next page, null if there are no more results
+     * @param totalResultCount  lower and upper estimate of the total result count
+     */
+    public RecordsManagementSearchPage(List<Pair<NodeRef, NodeRef>> page, String nextCursor, Pair<Integer, Integer> totalResultCount)
+    {
+        this.page = page;
+        this.nextCursor = nextCursor;
+        this.totalResultCount = totalResultCount;
+    }
+
+    /**
+     * @see org.alfresco.query.PagingResults#getPage()
+     */
+    @Override
+    public List<Pair<NodeRef, NodeRef>> getPage()
+    {
+        return page;
+    }
+
+    /**
+     * @see org.alfresco.query.PagingResults#hasMoreItems()
+     */
+    @Override
+    public boolean hasMoreItems()
+    {
+        return nextCursor != null;
+    }
+
+    /**
+     * @see org.alfresco.query.PagingResults#getTotalResultCount()
+     */
+    @Override
+    public Pair<Integer, Integer> getTotalResultCount()
+    {
+        return totalResultCount;
+    }
+
+    /**
+     * @see org.alfresco.query.PagingResults#getQueryExecutionId()
+     */
+    @Override
+    public String getQueryExecutionId()
+    {
+        return null;
+    }
+
+    /**
+     * Gets the cursor to pass to {@link RecordsManagementSearchService#search(String, String, RecordsManagementSearchParameters, String, int)}
+     * to get the next page of results.
+     *
+     * @return String   next page cursor, null if there are no more results
+     */
+    public String getNextCursor()
+    {
+        return nextCursor;
+    }
+}
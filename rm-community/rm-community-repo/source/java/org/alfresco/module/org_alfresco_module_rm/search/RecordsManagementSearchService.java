@@ -49,6 +49,22 @@ public interface RecordsManagementSearchService
 	 */
 	List<Pair<NodeRef, NodeRef>> search(String siteId, String query, RecordsManagementSearchParameters searchParameters);
 
+	/**
+	 * Execute a records management search, returning a single page of results.
+	 * <p>
+	 * The page size and sort order are pushed down to the search layer.  The sort order is made stable
+	 * by ordering on the node database id last, so that the pages of a search are consistent.
+	 *
+	 * @param siteId           the id of the rm site to query
+	 * @param query            search query string
+	 * @param searchParameters search parameters, the max items are ignored in favour of the page size
+	 * @param cursor           cursor returned with the previous page, null for the first page
+	 * @param pageSize         maximum number of results in the page
+	 * @return {@link RecordsManagementSearchPage} page of search results as pairs for parent and child nodes
+	 * @since 2.7
+	 */
+	RecordsManagementSearchPage search(String siteId, String query, RecordsManagementSearchParameters searchParameters, String cursor, int pageSize);
+
 	/**
 	 * Get all the searches saved on the given records management site.
 	 * @param siteId   site id
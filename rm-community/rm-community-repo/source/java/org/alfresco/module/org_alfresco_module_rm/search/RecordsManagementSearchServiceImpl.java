@@ -28,12 +28,16 @@
 package org.alfresco.module.org_alfresco_module_rm.search;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 
 import org.alfresco.error.AlfrescoRuntimeException;
 import org.alfresco.model.ContentModel;
 import org.alfresco.module.org_alfresco_module_rm.model.RecordsManagementModel;
+import org.alfresco.repo.cache.SimpleCache;
 import org.alfresco.repo.content.MimetypeMap;
 import org.alfresco.repo.security.authentication.AuthenticationUtil;
 import org.alfresco.repo.security.authentication.AuthenticationUtil.RunAsWork;
@@ -47,6 +51,8 @@ import org.alfresco.service.cmr.repository.StoreRef;
 import org.alfresco.service.cmr.search.ResultSet;
 import org.alfresco.service.cmr.search.SearchParameters;
 import org.alfresco.service.cmr.search.SearchService;
+import org.alfresco.service.cmr.security.AccessStatus;
+import org.alfresco.service.cmr.security.PermissionService;
 import org.alfresco.service.cmr.site.SiteService;
 import org.alfresco.service.namespace.NamespaceService;
 import org.alfresco.service.namespace.QName;
@@ -85,6 +91,12 @@ public class RecordsManagementSearchServiceImpl implements RecordsManagementSear
 	/** List of report details */
 	private List<ReportDetails> reports = new ArrayList<ReportDetails>(13);
 
+	/** Permission service */
+	private PermissionService permissionService;
+
+	/** Saved search registry, parsed saved searches keyed by the container that holds them */
+	private SimpleCache<NodeRef, Map<String, SavedSearchDetails>> savedSearchCache;
+
 	/**
 	 * @param fileFolderService    file folder service
 	 */
@@ -117,6 +129,22 @@ public class RecordsManagementSearchServiceImpl implements RecordsManagementSear
         this.namespaceService = namespaceService;
     }
 
+	/**
+	 * @param permissionService permission service
+	 */
+	public void setPermissionService(PermissionService permissionService)
+    {
+        this.permissionService = permissionService;
+    }
+
+	/**
+	 * @param savedSearchCache saved search registry cache
+	 */
+	public void setSavedSearchCache(SimpleCache<NodeRef, Map<String, SavedSearchDetails>> savedSearchCache)
+    {
+        this.savedSearchCache = savedSearchCache;
+    }
+
 	/**
 	 * @param reportsJSON
 	 */
@@ -182,6 +210,80 @@ public class RecordsManagementSearchServiceImpl implements RecordsManagementSear
 	 */
     @Override
     public List<Pair<NodeRef, NodeRef>> search(String siteId, String query, RecordsManagementSearchParameters rmSearchParameters)
+    {
+        // create the search parameters
+        SearchParameters searchParameters = createSearchParameters(siteId, query, rmSearchParameters);
+        searchParameters.setMaxItems(rmSearchParameters.getMaxItems());
+
+        // execute query
+        ResultSet resultSet = searchService.query(searchParameters);
+        try
+        {
+            // return results
+            return getResults(resultSet);
+        }
+        finally
+        {
+            resultSet.close();
+        }
+    }
+
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.search.RecordsManagementSearchService#search(java.lang.String, java.lang.String, org.alfresco.module.org_alfresco_module_rm.search.RecordsManagementSearchParameters, java.lang.String, int)
+     */
+    @Override
+    public RecordsManagementSearchPage search(String siteId, String query, RecordsManagementSearchParameters rmSearchParameters, String cursor, int pageSize)
+    {
+        ParameterCheck.mandatoryString("siteId", siteId);
+        ParameterCheck.mandatory("rmSearchParameters", rmSearchParameters);
+        if (pageSize <= 0)
+        {
+            throw new AlfrescoRuntimeException("Unable to execute paged search, because the page size " + pageSize + " is not positive.");
+        }
+
+        int skipCount = parseCursor(cursor);
+
+        // create the search parameters, pushing the page down to the search layer
+        SearchParameters searchParameters = createSearchParameters(siteId, query, rmSearchParameters);
+        searchParameters.setSkipCount(skipCount);
+        searchParameters.setMaxItems(pageSize);
+
+        // break ties on the node database id so the order, and therefore the pages, are stable
+        searchParameters.addSort(ContentModel.PROP_NODE_DBID.toPrefixString(namespaceService), true);
+
+        // execute query
+        ResultSet resultSet = searchService.query(searchParameters);
+        try
+        {
+            List<Pair<NodeRef, NodeRef>> page = getResults(resultSet);
+
+            // use the number found by the search layer as the estimate of the total
+            int lowerCount = skipCount + page.size();
+            int upperCount = (int) Math.min(Integer.MAX_VALUE, Math.max(resultSet.getNumberFound(), lowerCount));
+
+            String nextCursor = null;
+            if (resultSet.hasMore() || upperCount > lowerCount)
+            {
+                nextCursor = Integer.toString(lowerCount);
+            }
+
+            return new RecordsManagementSearchPage(page, nextCursor, new Pair<Integer, Integer>(lowerCount, upperCount));
+        }
+        finally
+        {
+            resultSet.close();
+        }
+    }
+
+    /**
+     * Creates the search parameters for a records management search in the given site.
+     *
+     * @param siteId                site id
+     * @param query                 search query string
+     * @param rmSearchParameters    records management search parameters
+     * @return {@link SearchParameters}  search parameters, without the maximum number of items set
+     */
+    private SearchParameters createSearchParameters(String siteId, String query, RecordsManagementSearchParameters rmSearchParameters)
     {
         // build the full RM query
         StringBuilder fullQuery = new StringBuilder(1024);
@@ -197,7 +299,6 @@ public class RecordsManagementSearchServiceImpl implements RecordsManagementSear
         searchParameters.setQuery(fullQuery.toString());
         searchParameters.setLanguage(SearchService.LANGUAGE_FTS_ALFRESCO);
         searchParameters.addStore(StoreRef.STORE_REF_WORKSPACE_SPACESSTORE);
-        searchParameters.setMaxItems(rmSearchParameters.getMaxItems());
         searchParameters.setNamespace(RecordsManagementModel.RM_URI);
 
         // set sort
@@ -212,20 +313,52 @@ public class RecordsManagementSearchServiceImpl implements RecordsManagementSear
             searchParameters.addQueryTemplate(entry.getKey(), entry.getValue());
         }
 
-        // execute query
-        ResultSet resultSet = searchService.query(searchParameters);
-        
-        // process results
+        return searchParameters;
+    }
+
+    /**
+     * Gets the results of a search as pairs of parent and child nodes.
+     *
+     * @param resultSet     result set
+     * @return {@link List}&lt;{@link Pair}&lt;{@link NodeRef}, {@link NodeRef}&gt;&gt; search results
+     */
+    private List<Pair<NodeRef, NodeRef>> getResults(ResultSet resultSet)
+    {
         List<Pair<NodeRef, NodeRef>> result = new ArrayList<Pair<NodeRef, NodeRef>>(resultSet.length());
         for (ChildAssociationRef childAssoc : resultSet.getChildAssocRefs())
         {
-        	result.add(new Pair<NodeRef, NodeRef>(childAssoc.getParentRef(), childAssoc.getChildRef()));        	
+            result.add(new Pair<NodeRef, NodeRef>(childAssoc.getParentRef(), childAssoc.getChildRef()));
         }
-
-        // return results
         return result;
     }
 
+    /**
+     * Parses a search cursor into the number of results to skip.
+     *
+     * @param cursor    cursor, null for the first page
+     * @return int      number of results to skip
+     */
+    private int parseCursor(String cursor)
+    {
+        int skipCount = 0;
+        if (cursor != null && !cursor.isEmpty())
+        {
+            try
+            {
+                skipCount = Integer.parseInt(cursor);
+            }
+            catch (NumberFormatException exception)
+            {
+                throw new AlfrescoRuntimeException("Unable to execute paged search, because the cursor " + cursor + " is not valid.", exception);
+            }
+            if (skipCount < 0)
+            {
+                throw new AlfrescoRuntimeException("Unable to execute paged search, because the cursor " + cursor + " is not valid.");
+            }
+        }
+        return skipCount;
+    }
+
     /**
      *
      * @param queryTerm
@@ -386,22 +519,13 @@ public class RecordsManagementSearchServiceImpl implements RecordsManagementSear
         if (container != null)
         {
             // add the details of all the public saved searches
-            List<FileInfo> searches = fileFolderService.listFiles(container);
-            for (FileInfo search : searches)
-            {
-                addSearchDetailsToList(result, search.getNodeRef());
-            }
+            result.addAll(getSavedSearches(container).values());
 
             // add the details of any "private" searches for the current user
-            String userName = AuthenticationUtil.getFullyAuthenticatedUser();
-            NodeRef userContainer = fileFolderService.searchSimple(container, userName);
+            NodeRef userContainer = getUserContainer(container);
             if (userContainer != null)
             {
-                List<FileInfo> userSearches = fileFolderService.listFiles(userContainer);
-                for (FileInfo userSearch : userSearches)
-                {
-                    addSearchDetailsToList(result, userSearch.getNodeRef());
-                }
+                result.addAll(getSavedSearches(userContainer).values());
             }
         }
 
@@ -409,16 +533,76 @@ public class RecordsManagementSearchServiceImpl implements RecordsManagementSear
     }
 
     /**
-     * Add the search details to the list.
-     * @param searches      list of search details
-     * @param searchNode    search node
+     * Get the saved searches held in a container that the current user can read.
+     * <p>
+     * The details returned are shared with the registry and must not be modified
+     * without being saved again.
+     *
+     * @param container saved search container
+     * @return {@link Map}&lt;{@link String}, {@link SavedSearchDetails}&gt;   readable saved searches keyed by name
+     */
+    private Map<String, SavedSearchDetails> getSavedSearches(NodeRef container)
+    {
+        Map<String, SavedSearchDetails> searches = getRegisteredSavedSearches(container);
+        Map<String, SavedSearchDetails> result = new LinkedHashMap<String, SavedSearchDetails>(searches.size());
+        for (Entry<String, SavedSearchDetails> search : searches.entrySet())
+        {
+            // the registry is shared by all users, so the permissions are checked on every read
+            if (AccessStatus.ALLOWED.equals(permissionService.hasReadPermission(search.getValue().getNodeRef())))
+            {
+                result.put(search.getKey(), search.getValue());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get all the saved searches held in a container from the registry, loading and
+     * parsing them as the system user when the container is not yet registered.
+     *
+     * @param container saved search container
+     * @return {@link Map}&lt;{@link String}, {@link SavedSearchDetails}&gt;   all saved searches keyed by name
+     */
+    private Map<String, SavedSearchDetails> getRegisteredSavedSearches(final NodeRef container)
+    {
+        Map<String, SavedSearchDetails> searches = savedSearchCache.get(container);
+        if (searches == null)
+        {
+            // loaded without permission checks so the entry doesn't depend on the user that fills it
+            searches = AuthenticationUtil.runAsSystem(new RunAsWork<Map<String, SavedSearchDetails>>()
+            {
+                @Override
+                public Map<String, SavedSearchDetails> doWork()
+                {
+                    Map<String, SavedSearchDetails> loadedSearches = new LinkedHashMap<String, SavedSearchDetails>(17);
+                    for (FileInfo search : fileFolderService.listFiles(container))
+                    {
+                        ContentReader reader = fileFolderService.getReader(search.getNodeRef());
+                        if (reader != null)
+                        {
+                            String jsonString = reader.getContentString();
+                            SavedSearchDetails savedSearchDetails = SavedSearchDetails.createFromJSON(jsonString, namespaceService, RecordsManagementSearchServiceImpl.this, search.getNodeRef());
+                            loadedSearches.put(search.getName(), savedSearchDetails);
+                        }
+                    }
+                    return Collections.unmodifiableMap(loadedSearches);
+                }
+            });
+            savedSearchCache.put(container, searches);
+        }
+        return searches;
+    }
+
+    /**
+     * Get the private saved search container for the current user.
+     *
+     * @param container root saved search container
+     * @return {@link NodeRef}  user container, null if none
      */
-    private void addSearchDetailsToList(List<SavedSearchDetails> searches, NodeRef searchNode)
+    private NodeRef getUserContainer(NodeRef container)
     {
-        ContentReader reader = fileFolderService.getReader(searchNode);
-        String jsonString = reader.getContentString();
-        SavedSearchDetails savedSearchDetails = SavedSearchDetails.createFromJSON(jsonString, namespaceService, this, searchNode);
-        searches.add(savedSearchDetails);
+        String userName = AuthenticationUtil.getFullyAuthenticatedUser();
+        return fileFolderService.searchSimple(container, userName);
     }
 
     /**
@@ -433,17 +617,22 @@ public class RecordsManagementSearchServiceImpl implements RecordsManagementSear
 
         SavedSearchDetails result = null;
 
-        // get the saved search node
-        NodeRef searchNode = getSearchNodeRef(siteId, name);
-
-        if (searchNode != null)
+        // get the root saved search container
+        NodeRef container = siteService.getContainer(siteId, SEARCH_CONTAINER);
+        if (container != null)
         {
-            // get the json content
-            ContentReader reader = fileFolderService.getReader(searchNode);
-            String jsonString = reader.getContentString();
+            // try and find the public search
+            result = getSavedSearches(container).get(name);
 
-            // create the saved search details
-            result = SavedSearchDetails.createFromJSON(jsonString, namespaceService, this, searchNode);
+            // can't find it so check the users container
+            if (result == null)
+            {
+                NodeRef userContainer = getUserContainer(container);
+                if (userContainer != null)
+                {
+                    result = getSavedSearches(userContainer).get(name);
+                }
+            }
         }
 
         return result;
@@ -543,6 +732,9 @@ public class RecordsManagementSearchServiceImpl implements RecordsManagementSear
             }
         }, AuthenticationUtil.getSystemUserName());
 
+        // Reload the container's saved searches on next use
+        savedSearchCache.remove(container);
+
         return savedSearchDetails;
     }
 
@@ -561,6 +753,15 @@ public class RecordsManagementSearchServiceImpl implements RecordsManagementSear
         if (searchNode != null && fileFolderService.exists(searchNode))
         {
             fileFolderService.delete(searchNode);
+
+            // Reload the site's saved searches on next use
+            NodeRef container = siteService.getContainer(siteId, SEARCH_CONTAINER);
+            savedSearchCache.remove(container);
+            NodeRef userContainer = getUserContainer(container);
+            if (userContainer != null)
+            {
+                savedSearchCache.remove(userContainer);
+            }
         }
 	}
 
@@ -597,8 +798,7 @@ public class RecordsManagementSearchServiceImpl implements RecordsManagementSear
             // can't find it so check the users container
             if (searchNode == null)
             {
-                String userName = AuthenticationUtil.getFullyAuthenticatedUser();
-                NodeRef userContainer = fileFolderService.searchSimple(container, userName);
+                NodeRef userContainer = getUserContainer(container);
                 if (userContainer != null)
                 {
                     searchNode = fileFolderService.searchSimple(userContainer, name);
@@ -0,0 +1,494 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.security;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.alfresco.error.AlfrescoRuntimeException;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Capability evaluation profiler.
+ * <p>
+ * Records the latency distribution of each capability and capability condition evaluation, the
+ * hit ratio of the security caches and, for each method intercepted by the
+ * {@link RMMethodSecurityInterceptor}, how long the security checks took and how many capabilities
+ * and conditions they evaluated.
+ * <p>
+ * Like the capability report kept by the {@link RMMethodSecurityInterceptor}, the profiler is fed
+ * through static methods so that every capability and interceptor reports to the same place without
+ * any extra configuration.  When profiling is off each of them costs a single volatile read.
+ * Profiling is switched on and off at runtime through JMX and a snapshot can be exported as JSON.
+ *
+ * @since 2.7
+ */
+public final class CapabilityProfiler implements CapabilityProfilerMBean
+{
+    /** start value returned when profiling is off */
+    public static final long NOT_PROFILED = Long.MIN_VALUE;
+
+    /** JSON snapshot keys */
+    private static final String JSON_ENABLED = "enabled";
+    private static final String JSON_SINCE = "since";
+    private static final String JSON_CAPABILITIES = "capabilities";
+    private static final String JSON_CONDITIONS = "conditions";
+    private static final String JSON_METHODS = "methods";
+    private static final String JSON_CACHES = "caches";
+    private static final String JSON_NAME = "name";
+    private static final String JSON_DENIED = "denied";
+
+    /** the profiler */
+    private static final CapabilityProfiler INSTANCE = new CapabilityProfiler();
+
+    /**
+     * Capabilities and conditions evaluated by the current thread, used to work out how many
+     * evaluations each intercepted method needed.
+     */
+    private static final ThreadLocal<long[]> EVALUATIONS = new ThreadLocal<long[]>()
+    {
+        @Override
+        protected long[] initialValue()
+        {
+            return new long[2];
+        }
+    };
+
+    /**
+     * Evaluation statistics of a capability or condition
+     */
+    private static class EvaluationStats
+    {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder denied = new LongAdder();
+    }
+
+    /**
+     * Security check statistics of an intercepted method
+     */
+    private static class MethodStats
+    {
+        private final LatencyHistogram entryLatency = new LatencyHistogram();
+        private final LatencyHistogram afterInvocationLatency = new LatencyHistogram();
+        private final LongAdder denied = new LongAdder();
+        private final LongAdder capabilityEvaluations = new LongAdder();
+        private final LongAdder conditionEvaluations = new LongAdder();
+    }
+
+    /**
+     * Cache statistics
+     */
+    private static class CacheStats
+    {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+    }
+
+    /**
+     * Start of an intercepted method's security check
+     */
+    public static final class MethodSample
+    {
+        private final long start;
+        private final long capabilities;
+        private final long conditions;
+
+        private MethodSample(long start, long[] evaluations)
+        {
+            this.start = start;
+            this.capabilities = evaluations[0];
+            this.conditions = evaluations[1];
+        }
+    }
+
+    /** indicates whether profiling is on */
+    private volatile boolean enabled = false;
+
+    /** time recording started */
+    private volatile long since = System.currentTimeMillis();
+
+    /** recorded statistics */
+    private final ConcurrentMap<String, EvaluationStats> capabilities = new ConcurrentHashMap<String, EvaluationStats>();
+    private final ConcurrentMap<String, EvaluationStats> conditions = new ConcurrentHashMap<String, EvaluationStats>();
+    private final ConcurrentMap<String, MethodStats> methods = new ConcurrentHashMap<String, MethodStats>();
+    private final ConcurrentMap<String, CacheStats> caches = new ConcurrentHashMap<String, CacheStats>();
+
+    /**
+     * Private constructor, there is a single profiler.
+     */
+    private CapabilityProfiler()
+    {
+    }
+
+    /**
+     * @return  {@link CapabilityProfiler}  the capability profiler
+     */
+    public static CapabilityProfiler getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts timing an evaluation.
+     *
+     * @return long start time, {@link #NOT_PROFILED} if profiling is off
+     */
+    public static long start()
+    {
+        return INSTANCE.enabled ? System.nanoTime() : NOT_PROFILED;
+    }
+
+    /**
+     * Records a capability evaluation.
+     *
+     * @param name      capability name
+     * @param start     start time, as returned by {@link #start()}
+     * @param denied    true if the capability denied access
+     */
+    public static void capabilityEvaluated(String name, long start, boolean denied)
+    {
+        if (start != NOT_PROFILED)
+        {
+            EVALUATIONS.get()[0]++;
+            INSTANCE.record(INSTANCE.capabilities, name, start, denied);
+        }
+    }
+
+    /**
+     * Records a capability condition evaluation.
+     *
+     * @param name      condition bean name
+     * @param start     start time, as returned by {@link #start()}
+     * @param failed    true if the condition did not have the value the capability expected
+     */
+    public static void conditionEvaluated(String name, long start, boolean failed)
+    {
+        if (start != NOT_PROFILED)
+        {
+            EVALUATIONS.get()[1]++;
+            INSTANCE.record(INSTANCE.conditions, name, start, failed);
+        }
+    }
+
+    /**
+     * Records a security cache lookup.
+     *
+     * @param name  cache name
+     * @param hit   true if the value was found in the cache
+     */
+    public static void cacheLookup(String name, boolean hit)
+    {
+        if (INSTANCE.enabled)
+        {
+            CacheStats stats = INSTANCE.caches.get(name);
+            if (stats == null)
+            {
+                CacheStats newStats = new CacheStats();
+                stats = INSTANCE.caches.putIfAbsent(name, newStats);
+                if (stats == null)
+                {
+                    stats = newStats;
+                }
+            }
+            (hit ? stats.hits : stats.misses).increment();
+        }
+    }
+
+    /**
+     * Starts profiling the entry security check of an intercepted method.
+     *
+     * @return {@link MethodSample}  method sample, null if profiling is off
+     */
+    public static MethodSample startMethod()
+    {
+        return INSTANCE.enabled ? new MethodSample(System.nanoTime(), EVALUATIONS.get()) : null;
+    }
+
+    /**
+     * Records the entry security check of an intercepted method.
+     *
+     * @param sample    method sample, as returned by {@link #startMethod()}
+     * @param method    method name
+     * @param denied    true if access to the method was denied
+     */
+    public static void methodChecked(MethodSample sample, String method, boolean denied)
+    {
+        if (sample != null)
+        {
+            long[] evaluations = EVALUATIONS.get();
+            MethodStats stats = INSTANCE.getMethodStats(method);
+            stats.entryLatency.record(System.nanoTime() - sample.start);
+            stats.capabilityEvaluations.add(evaluations[0] - sample.capabilities);
+            stats.conditionEvaluations.add(evaluations[1] - sample.conditions);
+            if (denied)
+            {
+                stats.denied.increment();
+            }
+        }
+    }
+
+    /**
+     * Records the after invocation security check of an intercepted method.
+     *
+     * @param method    method name
+     * @param start     start time, as returned by {@link #start()}
+     */
+    public static void afterInvocationChecked(String method, long start)
+    {
+        if (start != NOT_PROFILED)
+        {
+            INSTANCE.getMethodStats(method).afterInvocationLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.security.CapabilityProfilerMBean#isEnabled()
+     */
+    @Override
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.security.CapabilityProfilerMBean#setEnabled(boolean)
+     */
+    @Override
+    public void setEnabled(boolean enabled)
+    {
+        if (enabled && !this.enabled)
+        {
+            since = System.currentTimeMillis();
+        }
+        this.enabled = enabled;
+    }
+
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.security.CapabilityProfilerMBean#reset()
+     */
+    @Override
+    public void reset()
+    {
+        capabilities.clear();
+        conditions.clear();
+        methods.clear();
+        caches.clear();
+        since = System.currentTimeMillis();
+    }
+
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.security.CapabilityProfilerMBean#exportSnapshot()
+     */
+    @Override
+    public String exportSnapshot()
+    {
+        return getSnapshot().toString();
+    }
+
+    /**
+     * Gets a snapshot of everything recorded so far.
+     * <p>
+     * Capabilities, conditions and methods are listed by decreasing total time, so the most
+     * expensive come first.  Latencies are in microseconds.
+     *
+     * @return {@link JSONObject}    snapshot
+     */
+    public JSONObject getSnapshot()
+    {
+        try
+        {
+            JSONObject snapshot = new JSONObject();
+            snapshot.put(JSON_ENABLED, enabled);
+            snapshot.put(JSON_SINCE, since);
+
+            snapshot.put(JSON_CAPABILITIES, toJSON(capabilities, JSON_DENIED));
+            snapshot.put(JSON_CONDITIONS, toJSON(conditions, "failed"));
+
+            // copied so that a concurrent reset can not remove entries whilst they are exported
+            Map<String, MethodStats> methodStats = new HashMap<String, MethodStats>(methods);
+            Map<String, Long> methodTotals = new HashMap<String, Long>();
+            for (Map.Entry<String, MethodStats> entry : methodStats.entrySet())
+            {
+                methodTotals.put(entry.getKey(), entry.getValue().entryLatency.getTotal() + entry.getValue().afterInvocationLatency.getTotal());
+            }
+
+            JSONArray jsonMethods = new JSONArray();
+            for (String method : sortByTotal(methodTotals))
+            {
+                MethodStats stats = methodStats.get(method);
+                JSONObject jsonMethod = new JSONObject();
+                jsonMethod.put(JSON_NAME, method);
+                jsonMethod.put("checks", stats.entryLatency.getCount());
+                jsonMethod.put(JSON_DENIED, stats.denied.sum());
+                jsonMethod.put("capabilityEvaluations", stats.capabilityEvaluations.sum());
+                jsonMethod.put("conditionEvaluations", stats.conditionEvaluations.sum());
+                jsonMethod.put("entry", toJSON(stats.entryLatency));
+                jsonMethod.put("afterInvocation", toJSON(stats.afterInvocationLatency));
+                jsonMethods.put(jsonMethod);
+            }
+            snapshot.put(JSON_METHODS, jsonMethods);
+
+            JSONArray jsonCaches = new JSONArray();
+            for (Map.Entry<String, CacheStats> entry : caches.entrySet())
+            {
+                long hits = entry.getValue().hits.sum();
+                long misses = entry.getValue().misses.sum();
+                JSONObject jsonCache = new JSONObject();
+                jsonCache.put(JSON_NAME, entry.getKey());
+                jsonCache.put("hits", hits);
+                jsonCache.put("misses", misses);
+                jsonCache.put("hitRatio", hits + misses == 0 ? 0D : (double) hits / (hits + misses));
+                jsonCaches.put(jsonCache);
+            }
+            snapshot.put(JSON_CACHES, jsonCaches);
+
+            return snapshot;
+        }
+        catch (JSONException exception)
+        {
+            throw new AlfrescoRuntimeException("Unable to generate the capability profiler snapshot.", exception);
+        }
+    }
+
+    /**
+     * Helper method to record an evaluation.
+     */
+    private void record(ConcurrentMap<String, EvaluationStats> statsMap, String name, long start, boolean denied)
+    {
+        EvaluationStats stats = statsMap.get(name);
+        if (stats == null)
+        {
+            EvaluationStats newStats = new EvaluationStats();
+            stats = statsMap.putIfAbsent(name, newStats);
+            if (stats == null)
+            {
+                stats = newStats;
+            }
+        }
+        stats.latency.record(System.nanoTime() - start);
+        if (denied)
+        {
+            stats.denied.increment();
+        }
+    }
+
+    /**
+     * Helper method to get the statistics of a method.
+     */
+    private MethodStats getMethodStats(String method)
+    {
+        MethodStats stats = methods.get(method);
+        if (stats == null)
+        {
+            MethodStats newStats = new MethodStats();
+            stats = methods.putIfAbsent(method, newStats);
+            if (stats == null)
+            {
+                stats = newStats;
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Helper method to convert evaluation statistics to JSON, most expensive first.
+     */
+    private static JSONArray toJSON(Map<String, EvaluationStats> liveStatsMap, String deniedKey) throws JSONException
+    {
+        Map<String, EvaluationStats> statsMap = new HashMap<String, EvaluationStats>(liveStatsMap);
+        Map<String, Long> totals = new HashMap<String, Long>();
+        for (Map.Entry<String, EvaluationStats> entry : statsMap.entrySet())
+        {
+            totals.put(entry.getKey(), entry.getValue().latency.getTotal());
+        }
+
+        JSONArray result = new JSONArray();
+        for (String name : sortByTotal(totals))
+        {
+            EvaluationStats stats = statsMap.get(name);
+            JSONObject json = toJSON(stats.latency);
+            json.put(JSON_NAME, name);
+            json.put(deniedKey, stats.denied.sum());
+            result.put(json);
+        }
+        return result;
+    }
+
+    /**
+     * Helper method to convert a latency histogram to JSON.
+     */
+    private static JSONObject toJSON(LatencyHistogram histogram) throws JSONException
+    {
+        JSONObject json = new JSONObject();
+        json.put("count", histogram.getCount());
+        json.put("totalMicros", toMicros(histogram.getTotal()));
+        json.put("meanMicros", histogram.getMean() / TimeUnit.MICROSECONDS.toNanos(1));
+        json.put("p50Micros", toMicros(histogram.getPercentile(0.5)));
+        json.put("p95Micros", toMicros(histogram.getPercentile(0.95)));
+        json.put("p99Micros", toMicros(histogram.getPercentile(0.99)));
+        json.put("p999Micros", toMicros(histogram.getPercentile(0.999)));
+        json.put("maxMicros", toMicros(histogram.getMax()));
+        return json;
+    }
+
+    /**
+     * Helper method to convert nanoseconds to microseconds.
+     */
+    private static long toMicros(long nanos)
+    {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    /**
+     * Helper method to sort names by decreasing total time.
+     */
+    private static List<String> sortByTotal(final Map<String, Long> totals)
+    {
+        List<String> names = new ArrayList<String>(totals.keySet());
+        Collections.sort(names, new Comparator<String>()
+        {
+            @Override
+            public int compare(String name1, String name2)
+            {
+                return Long.compare(totals.get(name2), totals.get(name1));
+            }
+        });
+        return names;
+    }
+}
@@ -0,0 +1,648 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.security;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.alfresco.module.org_alfresco_module_rm.model.RecordsManagementModel;
+import org.alfresco.repo.domain.node.NodeDAO;
+import org.alfresco.repo.domain.patch.PatchDAO;
+import org.alfresco.repo.domain.qname.QNameDAO;
+import org.alfresco.repo.lock.JobLockService;
+import org.alfresco.repo.lock.JobLockService.JobLockRefreshCallback;
+import org.alfresco.repo.lock.LockAcquisitionException;
+import org.alfresco.repo.security.authentication.AuthenticationUtil;
+import org.alfresco.repo.security.authentication.AuthenticationUtil.RunAsWork;
+import org.alfresco.repo.transaction.RetryingTransactionHelper.RetryingTransactionCallback;
+import org.alfresco.service.cmr.attributes.AttributeService;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.repository.NodeService;
+import org.alfresco.service.cmr.security.PermissionService;
+import org.alfresco.service.namespace.NamespaceService;
+import org.alfresco.service.namespace.QName;
+import org.alfresco.service.transaction.TransactionService;
+import org.alfresco.util.Pair;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Migrates records from the dynamic authority permissions of previous versions to the
+ * extended security API.
+ * <p>
+ * A migration runs in the background.  The node id space is split into disjoint ranges that a pool
+ * of worker threads migrate in parallel, each range in its own transaction.  The high-water mark,
+ * below which every range is done, is persisted so that a stopped or interrupted migration
+ * continues from there.  The mark never moves past a range with nodes that failed to migrate, so
+ * the next run retries them.  A job lock keeps the migration to one server of a cluster.
+ *
+ * @since 2.7
+ */
+@SuppressWarnings("deprecation")
+public class DynamicAuthoritiesMigration implements RecordsManagementModel
+{
+    /** logger */
+    private static Log logger = LogFactory.getLog(DynamicAuthoritiesMigration.class);
+
+    /** attribute key of the high-water mark */
+    private static final String KEY_HIGH_WATER_MARK = "rm-dynamicauthorities-migration";
+
+    /** job lock */
+    private static final QName LOCK_QNAME = QName.createQName(NamespaceService.SYSTEM_MODEL_1_0_URI, "rmDynamicAuthoritiesMigration");
+    private static final long LOCK_TTL = 30000L;
+
+    /** services */
+    private PatchDAO patchDAO;
+    private NodeDAO nodeDAO;
+    private QNameDAO qnameDAO;
+    private NodeService nodeService;
+    private PermissionService permissionService;
+    private ExtendedSecurityService extendedSecurityService;
+    private TransactionService transactionService;
+    private AttributeService attributeService;
+    private JobLockService jobLockService;
+
+    /** number of worker threads */
+    private int workerThreads = 4;
+
+    /** number of node ids per range */
+    private int rangeSize = 1000;
+
+    /** migration state */
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile boolean stopRequested = false;
+    private volatile long startTime;
+    private volatile long endTime;
+    private volatile long startHighWaterMark;
+    private volatile long highWaterMark;
+    private volatile long maxNodeId;
+    private final AtomicLong processedRecords = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private volatile String lastError;
+
+    /** service setters */
+    public void setPatchDAO(PatchDAO patchDAO)
+    {
+        this.patchDAO = patchDAO;
+    }
+
+    public void setNodeDAO(NodeDAO nodeDAO)
+    {
+        this.nodeDAO = nodeDAO;
+    }
+
+    public void setQnameDAO(QNameDAO qnameDAO)
+    {
+        this.qnameDAO = qnameDAO;
+    }
+
+    public void setNodeService(NodeService nodeService)
+    {
+        this.nodeService = nodeService;
+    }
+
+    public void setPermissionService(PermissionService permissionService)
+    {
+        this.permissionService = permissionService;
+    }
+
+    public void setExtendedSecurityService(ExtendedSecurityService extendedSecurityService)
+    {
+        this.extendedSecurityService = extendedSecurityService;
+    }
+
+    public void setTransactionService(TransactionService transactionService)
+    {
+        this.transactionService = transactionService;
+    }
+
+    public void setAttributeService(AttributeService attributeService)
+    {
+        this.attributeService = attributeService;
+    }
+
+    public void setJobLockService(JobLockService jobLockService)
+    {
+        this.jobLockService = jobLockService;
+    }
+
+    /**
+     * @param workerThreads number of worker threads
+     */
+    public void setWorkerThreads(int workerThreads)
+    {
+        this.workerThreads = workerThreads;
+    }
+
+    /**
+     * @param rangeSize number of node ids migrated per transaction
+     */
+    public void setRangeSize(int rangeSize)
+    {
+        this.rangeSize = rangeSize;
+    }
+
+    /**
+     * Starts the migration in the background, continuing from the persisted high-water mark.
+     *
+     * @return <code>true</code> if the migration was started, <code>false</code> if it is already running
+     */
+    public boolean start()
+    {
+        if (!running.compareAndSet(false, true))
+        {
+            return false;
+        }
+
+        stopRequested = false;
+        processedRecords.set(0);
+        errors.set(0);
+        lastError = null;
+        startTime = System.currentTimeMillis();
+        endTime = 0;
+
+        Thread thread = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    AuthenticationUtil.runAsSystem(new RunAsWork<Void>()
+                    {
+                        @Override
+                        public Void doWork() throws Exception
+                        {
+                            runWithLock();
+                            return null;
+                        }
+                    });
+                }
+                catch (RuntimeException e)
+                {
+                    lastError = e.getMessage();
+                    logger.error("Dynamic authorities migration failed.", e);
+                }
+                finally
+                {
+                    endTime = System.currentTimeMillis();
+                    running.set(false);
+                }
+            }
+        }, "rm-dynamicauthorities-migration");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    /**
+     * Asks a running migration to stop once the ranges in progress are done.
+     */
+    public void stop()
+    {
+        stopRequested = true;
+    }
+
+    /**
+     * Gets the status of the current, or last, migration.
+     *
+     * @return migration status
+     */
+    public MigrationStatus getStatus()
+    {
+        long now = (endTime == 0 ? System.currentTimeMillis() : endTime);
+        return new MigrationStatus(running.get(), startTime, now - startTime, processedRecords.get(),
+                                   highWaterMark - startHighWaterMark, highWaterMark, maxNodeId, errors.get(), lastError);
+    }
+
+    /**
+     * Runs the migration if the job lock can be taken.
+     */
+    private void runWithLock()
+    {
+        String lockToken;
+        try
+        {
+            lockToken = jobLockService.getLock(LOCK_QNAME, LOCK_TTL);
+        }
+        catch (LockAcquisitionException e)
+        {
+            lastError = "The migration is already running on another server.";
+            logger.info(lastError);
+            return;
+        }
+
+        final AtomicBoolean lockHeld = new AtomicBoolean(true);
+        try
+        {
+            jobLockService.refreshLock(lockToken, LOCK_QNAME, LOCK_TTL, new JobLockRefreshCallback()
+            {
+                @Override
+                public boolean isActive()
+                {
+                    return lockHeld.get();
+                }
+
+                @Override
+                public void lockReleased()
+                {
+                    // another server took over, so let the ranges in progress finish and stop
+                    lockHeld.set(false);
+                    stopRequested = true;
+                }
+            });
+            migrate();
+        }
+        finally
+        {
+            lockHeld.set(false);
+            try
+            {
+                jobLockService.releaseLock(lockToken, LOCK_QNAME);
+            }
+            catch (LockAcquisitionException e)
+            {
+                // ignore, the lock has already gone
+            }
+        }
+    }
+
+    /**
+     * Hands out the node id ranges to the worker threads and advances the high-water mark as they complete.
+     */
+    private void migrate()
+    {
+        final Pair<Long, Long> work = transactionService.getRetryingTransactionHelper().doInTransaction(new RetryingTransactionCallback<Pair<Long, Long>>()
+        {
+            @Override
+            public Pair<Long, Long> execute()
+            {
+                Pair<Long, QName> aspectPair = qnameDAO.getQName(ASPECT_EXTENDED_SECURITY);
+                Long mark = (Long)attributeService.getAttribute(KEY_HIGH_WATER_MARK);
+                return new Pair<Long, Long>(aspectPair == null ? null : aspectPair.getFirst(), mark == null ? 0L : mark);
+            }
+        }, true, true);
+
+        maxNodeId = patchDAO.getMaxAdmNodeID() + 1;
+        startHighWaterMark = work.getSecond();
+        highWaterMark = startHighWaterMark;
+        final Long aspectId = work.getFirst();
+        if (aspectId == null)
+        {
+            // nothing has ever had the extended security aspect
+            saveHighWaterMark(maxNodeId);
+            return;
+        }
+
+        logger.info("Dynamic authorities migration started at node id " + highWaterMark + " of " + maxNodeId);
+
+        ExecutorService executor = Executors.newFixedThreadPool(workerThreads);
+        try
+        {
+            CompletionService<Pair<Long, Boolean>> completionService = new ExecutorCompletionService<Pair<Long, Boolean>>(executor);
+
+            // range start to whether the range is done, in node id order
+            TreeMap<Long, Boolean> ranges = new TreeMap<Long, Boolean>();
+
+            // starts of the ranges with nodes that failed to migrate
+            Set<Long> failedRanges = new HashSet<Long>();
+            boolean failed = false;
+            long next = highWaterMark;
+            while (!ranges.isEmpty() || (!stopRequested && next < maxNodeId))
+            {
+                while (!stopRequested && ranges.size() < workerThreads && next < maxNodeId)
+                {
+                    completionService.submit(new RangeWorker(aspectId, next, Math.min(next + rangeSize, maxNodeId)));
+                    ranges.put(next, Boolean.FALSE);
+                    next += rangeSize;
+                }
+
+                Pair<Long, Boolean> result = completionService.take().get();
+                ranges.put(result.getFirst(), Boolean.TRUE);
+                if (!result.getSecond())
+                {
+                    failedRanges.add(result.getFirst());
+                }
+
+                // move the high-water mark past the completed ranges at the bottom, stopping at the first failed range
+                long mark = highWaterMark;
+                while (!ranges.isEmpty() && ranges.firstEntry().getValue())
+                {
+                    long rangeStart = ranges.pollFirstEntry().getKey();
+                    failed = failed || failedRanges.contains(rangeStart);
+                    if (!failed)
+                    {
+                        mark = Math.min(rangeStart + rangeSize, maxNodeId);
+                    }
+                }
+                if (mark != highWaterMark)
+                {
+                    saveHighWaterMark(mark);
+                }
+            }
+        }
+        catch (Exception e)
+        {
+            throw new IllegalStateException("Dynamic authorities migration interrupted at node id " + highWaterMark, e);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        logger.info("Dynamic authorities migration " + (highWaterMark < maxNodeId ? "stopped" : "completed") + " at node id " +
+                    highWaterMark + ", " + processedRecords.get() + " records migrated, " + errors.get() + " errors");
+        if (errors.get() > 0)
+        {
+            logger.info("The nodes that failed to migrate are retried from node id " + highWaterMark + " by the next run.");
+        }
+    }
+
+    /**
+     * Persists the high-water mark.
+     *
+     * @param mark node id below which all ranges are done
+     */
+    private void saveHighWaterMark(final long mark)
+    {
+        transactionService.getRetryingTransactionHelper().doInTransaction(new RetryingTransactionCallback<Void>()
+        {
+            @Override
+            public Void execute()
+            {
+                attributeService.setAttribute(Long.valueOf(mark), KEY_HIGH_WATER_MARK);
+                return null;
+            }
+        }, false, true);
+        highWaterMark = mark;
+    }
+
+    /**
+     * Migrates the nodes of a range of node ids in one transaction.  If that fails, each node is retried
+     * in a transaction of its own so that one bad node does not hold back the rest of the range.
+     */
+    private class RangeWorker implements Callable<Pair<Long, Boolean>>
+    {
+        private final Long aspectId;
+        private final long from;
+        private final long to;
+
+        private RangeWorker(Long aspectId, long from, long to)
+        {
+            this.aspectId = aspectId;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * @return the start of the range and whether all its nodes were migrated
+         */
+        @Override
+        public Pair<Long, Boolean> call()
+        {
+            return AuthenticationUtil.runAsSystem(new RunAsWork<Pair<Long, Boolean>>()
+            {
+                @Override
+                public Pair<Long, Boolean> doWork()
+                {
+                    boolean migrated = true;
+                    try
+                    {
+                        int count = transactionService.getRetryingTransactionHelper().doInTransaction(new RetryingTransactionCallback<Integer>()
+                        {
+                            @Override
+                            public Integer execute()
+                            {
+                                List<Long> nodeIds = patchDAO.getNodesByAspectQNameId(aspectId, from, to);
+                                for (Long nodeId : nodeIds)
+                                {
+                                    migrate(nodeDAO.getNodePair(nodeId).getSecond());
+                                }
+                                return nodeIds.size();
+                            }
+                        }, false, true);
+                        processedRecords.addAndGet(count);
+                    }
+                    catch (RuntimeException e)
+                    {
+                        migrated = migrateNodeByNode();
+                    }
+                    return new Pair<Long, Boolean>(from, migrated);
+                }
+            });
+        }
+
+        /**
+         * @return <code>true</code> if all the nodes of the range were migrated
+         */
+        private boolean migrateNodeByNode()
+        {
+            List<Long> nodeIds = transactionService.getRetryingTransactionHelper().doInTransaction(new RetryingTransactionCallback<List<Long>>()
+            {
+                @Override
+                public List<Long> execute()
+                {
+                    return new ArrayList<Long>(patchDAO.getNodesByAspectQNameId(aspectId, from, to));
+                }
+            }, true, true);
+
+            boolean migrated = true;
+            for (final Long nodeId : nodeIds)
+            {
+                try
+                {
+                    transactionService.getRetryingTransactionHelper().doInTransaction(new RetryingTransactionCallback<Void>()
+                    {
+                        @Override
+                        public Void execute()
+                        {
+                            migrate(nodeDAO.getNodePair(nodeId).getSecond());
+                            return null;
+                        }
+                    }, false, true);
+                    processedRecords.incrementAndGet();
+                }
+                catch (RuntimeException e)
+                {
+                    errors.incrementAndGet();
+                    lastError = "Node " + nodeId + ": " + e.getMessage();
+                    logger.error("Dynamic authorities migration failed for node " + nodeId, e);
+                    migrated = false;
+                }
+            }
+            return migrated;
+        }
+    }
+
+    /**
+     * Migrates a node: removes the dynamic authority permissions and, for records, sets the
+     * extended security through the API.
+     *
+     * @param nodeRef node reference
+     */
+    @SuppressWarnings("unchecked")
+    public void migrate(NodeRef nodeRef)
+    {
+        // get the reader/writer data
+        Map<String, Integer> readers = (Map<String, Integer>)nodeService.getProperty(nodeRef, PROP_READERS);
+        Map<String, Integer> writers = (Map<String, Integer>)nodeService.getProperty(nodeRef, PROP_WRITERS);
+
+        // remove extended security aspect
+        nodeService.removeAspect(nodeRef, ASPECT_EXTENDED_SECURITY);
+
+        // remove dynamic authority permissions
+        permissionService.clearPermission(nodeRef, ExtendedReaderDynamicAuthority.EXTENDED_READER);
+        permissionService.clearPermission(nodeRef, ExtendedWriterDynamicAuthority.EXTENDED_WRITER);
+
+        // if record then ...
+        if (nodeService.hasAspect(nodeRef, ASPECT_RECORD))
+        {
+            Set<String> readersKeySet = null;
+            if (readers != null)
+            {
+                readersKeySet = readers.keySet();
+            }
+            Set<String> writersKeySet = null;
+            if (writers != null)
+            {
+                writersKeySet = writers.keySet();
+            }
+            // re-set extended security via API
+            extendedSecurityService.set(nodeRef, readersKeySet, writersKeySet);
+        }
+    }
+
+    /**
+     * Status of a migration.
+     */
+    public static class MigrationStatus
+    {
+        private final boolean running;
+        private final long startTime;
+        private final long elapsedTime;
+        private final long processedRecords;
+        private final long migratedRange;
+        private final long highWaterMark;
+        private final long maxNodeId;
+        private final long errors;
+        private final String lastError;
+
+        private MigrationStatus(boolean running, long startTime, long elapsedTime, long processedRecords,
+                                long migratedRange, long highWaterMark, long maxNodeId, long errors, String lastError)
+        {
+            this.running = running;
+            this.startTime = startTime;
+            this.elapsedTime = elapsedTime;
+            this.processedRecords = processedRecords;
+            this.migratedRange = migratedRange;
+            this.highWaterMark = highWaterMark;
+            this.maxNodeId = maxNodeId;
+            this.errors = errors;
+            this.lastError = lastError;
+        }
+
+        /** @return whether the migration is running on this server */
+        public boolean isRunning()
+        {
+            return running;
+        }
+
+        /** @return when the migration was started, 0 if it has not been started since the server started */
+        public long getStartTime()
+        {
+            return startTime;
+        }
+
+        /** @return number of records migrated */
+        public long getProcessedRecords()
+        {
+            return processedRecords;
+        }
+
+        /** @return records migrated per second */
+        public long getRecordsPerSecond()
+        {
+            return elapsedTime == 0 ? 0 : processedRecords * 1000 / elapsedTime;
+        }
+
+        /** @return node ids covered per second */
+        public long getNodeIdsPerSecond()
+        {
+            return elapsedTime == 0 ? 0 : migratedRange * 1000 / elapsedTime;
+        }
+
+        /** @return node id below which every node has been migrated */
+        public long getHighWaterMark()
+        {
+            return highWaterMark;
+        }
+
+        /** @return node id the migration runs up to */
+        public long getMaxNodeId()
+        {
+            return maxNodeId;
+        }
+
+        /** @return number of node ids left to migrate */
+        public long getRemainingRange()
+        {
+            return Math.max(0, maxNodeId - highWaterMark);
+        }
+
+        /** @return estimated seconds until the migration completes, -1 if unknown */
+        public long getEstimatedSecondsRemaining()
+        {
+            long rate = getNodeIdsPerSecond();
+            return rate == 0 ? -1 : getRemainingRange() / rate;
+        }
+
+        /** @return number of nodes that failed to migrate */
+        public long getErrors()
+        {
+            return errors;
+        }
+
+        /** @return the last error, or null */
+        public String getLastError()
+        {
+            return lastError;
+        }
+    }
+}
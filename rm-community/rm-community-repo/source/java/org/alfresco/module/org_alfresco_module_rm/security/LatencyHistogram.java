@@ -0,0 +1,198 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free latency histogram.
+ * <p>
+ * Latencies are recorded in nanoseconds into logarithmic buckets, four per power of two, so a
+ * reported percentile is at most 25% above the actual value.  Recording costs a few atomic
+ * increments and never allocates, so the histogram can be updated on every security check.
+ *
+ * @since 2.7
+ */
+public class LatencyHistogram
+{
+    /** sub buckets per power of two */
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** number of buckets needed to cover all positive long values */
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    /** bucket counts */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    /** number of recorded values */
+    private final LongAdder count = new LongAdder();
+
+    /** sum of the recorded values */
+    private final LongAdder total = new LongAdder();
+
+    /** largest recorded value */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos latency in nanoseconds, negative values are recorded as zero
+     */
+    public void record(long nanos)
+    {
+        long value = Math.max(nanos, 0L);
+        buckets.incrementAndGet(bucketIndex(value));
+        count.increment();
+        total.add(value);
+
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value))
+        {
+            current = max.get();
+        }
+    }
+
+    /**
+     * @return  long    number of recorded latencies
+     */
+    public long getCount()
+    {
+        return count.sum();
+    }
+
+    /**
+     * @return  long    sum of the recorded latencies in nanoseconds
+     */
+    public long getTotal()
+    {
+        return total.sum();
+    }
+
+    /**
+     * @return  long    largest recorded latency in nanoseconds
+     */
+    public long getMax()
+    {
+        return max.get();
+    }
+
+    /**
+     * @return  double  mean latency in nanoseconds, 0 if nothing has been recorded
+     */
+    public double getMean()
+    {
+        long recorded = count.sum();
+        return recorded == 0 ? 0D : (double) total.sum() / recorded;
+    }
+
+    /**
+     * Gets the latency below which the given fraction of the recorded latencies fall.
+     *
+     * @param quantile  quantile, between 0 and 1
+     * @return long     upper bound of the bucket holding the quantile in nanoseconds, 0 if nothing has been recorded
+     */
+    public long getPercentile(double quantile)
+    {
+        long[] counts = new long[BUCKETS];
+        long recorded = 0;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            counts[i] = buckets.get(i);
+            recorded += counts[i];
+        }
+
+        long result = 0;
+        if (recorded != 0)
+        {
+            long rank = Math.max(1L, (long) Math.ceil(quantile * recorded));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++)
+            {
+                seen += counts[i];
+                if (seen >= rank)
+                {
+                    result = Math.min(bucketUpperBound(i), max.get());
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the bucket a value is counted in.
+     *
+     * @param value     value, not negative
+     * @return int      bucket index
+     */
+    static int bucketIndex(long value)
+    {
+        int index;
+        if (value < SUB_BUCKETS)
+        {
+            index = (int) value;
+        }
+        else
+        {
+            int magnitude = 63 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            index = (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+        }
+        return index;
+    }
+
+    /**
+     * Gets the largest value counted in a bucket.
+     *
+     * @param index     bucket index
+     * @return long     largest value of the bucket
+     */
+    static long bucketUpperBound(int index)
+    {
+        long result;
+        if (index < SUB_BUCKETS)
+        {
+            result = index;
+        }
+        else
+        {
+            int shift = index / SUB_BUCKETS - 1;
+            long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+            result = lower + (1L << shift) - 1;
+            if (result < 0)
+            {
+                result = Long.MAX_VALUE;
+            }
+        }
+        return result;
+    }
+}
@@ -262,6 +262,8 @@ public class RMMethodSecurityInterceptor extends MethodSecurityInterceptor
     protected InterceptorStatusToken beforeInvocation(Object object)
     {
         InterceptorStatusToken result = null;
+        CapabilityProfiler.MethodSample sample = CapabilityProfiler.startMethod();
+        boolean denied = false;
         try
         {
             // clear the capability report information
@@ -274,6 +276,8 @@ public class RMMethodSecurityInterceptor extends MethodSecurityInterceptor
         }
         catch (AccessDeniedException exception)
         {
+            denied = true;
+
             if (LOGGER.isDebugEnabled())
             {
                 MethodInvocation mi = (MethodInvocation)object;
@@ -335,6 +339,13 @@ public class RMMethodSecurityInterceptor extends MethodSecurityInterceptor
                 throw exception;
             }
         }
+        finally
+        {
+            if (sample != null)
+            {
+                CapabilityProfiler.methodChecked(sample, getMethodName((MethodInvocation)object), denied);
+            }
+        }
         return result;
     }
 
@@ -353,9 +364,25 @@ public class RMMethodSecurityInterceptor extends MethodSecurityInterceptor
         }
         finally
         {
+            long start = CapabilityProfiler.start();
             result = super.afterInvocation(token, result);
+            if (start != CapabilityProfiler.NOT_PROFILED)
+            {
+                CapabilityProfiler.afterInvocationChecked(getMethodName(mi), start);
+            }
         }
 
         return result;
     }
+
+    /**
+     * Helper method to get the name a method is profiled under.
+     *
+     * @param mi    method invocation
+     * @return {@link String}   interface and method name
+     */
+    private static String getMethodName(MethodInvocation mi)
+    {
+        return mi.getMethod().getDeclaringClass().getSimpleName() + "." + mi.getMethod().getName();
+    }
 }
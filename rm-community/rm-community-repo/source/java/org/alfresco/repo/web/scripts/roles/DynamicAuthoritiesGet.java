@@ -56,15 +56,12 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import javax.servlet.http.HttpServletResponse;
 
 import org.alfresco.model.ContentModel;
 import org.alfresco.module.org_alfresco_module_rm.model.RecordsManagementModel;
-import org.alfresco.module.org_alfresco_module_rm.security.ExtendedReaderDynamicAuthority;
-import org.alfresco.module.org_alfresco_module_rm.security.ExtendedSecurityService;
-import org.alfresco.module.org_alfresco_module_rm.security.ExtendedWriterDynamicAuthority;
+import org.alfresco.module.org_alfresco_module_rm.security.DynamicAuthoritiesMigration;
 import org.alfresco.repo.domain.node.NodeDAO;
 import org.alfresco.repo.domain.patch.PatchDAO;
 import org.alfresco.repo.domain.qname.QNameDAO;
@@ -74,7 +71,6 @@ import org.alfresco.service.cmr.model.FileFolderService;
 import org.alfresco.service.cmr.model.FileInfo;
 import org.alfresco.service.cmr.repository.NodeRef;
 import org.alfresco.service.cmr.repository.NodeService;
-import org.alfresco.service.cmr.security.PermissionService;
 import org.alfresco.service.namespace.QName;
 import org.alfresco.service.transaction.TransactionService;
 import org.alfresco.util.Pair;
@@ -128,8 +124,7 @@ public class DynamicAuthoritiesGet extends AbstractWebScript implements RecordsM
     private NodeDAO nodeDAO;
     private QNameDAO qnameDAO;
     private NodeService nodeService;
-    private PermissionService permissionService;
-    private ExtendedSecurityService extendedSecurityService;
+    private DynamicAuthoritiesMigration dynamicAuthoritiesMigration;
     private TransactionService transactionService;
     /** Content Streamer */
     protected ContentStreamer contentStreamer;
@@ -156,14 +151,9 @@ public class DynamicAuthoritiesGet extends AbstractWebScript implements RecordsM
         this.nodeService = nodeService;
     }
 
-    public void setPermissionService(PermissionService permissionService)
+    public void setDynamicAuthoritiesMigration(DynamicAuthoritiesMigration dynamicAuthoritiesMigration)
     {
-        this.permissionService = permissionService;
-    }
-
-    public void setExtendedSecurityService(ExtendedSecurityService extendedSecurityService)
-    {
-        this.extendedSecurityService = extendedSecurityService;
+        this.dynamicAuthoritiesMigration = dynamicAuthoritiesMigration;
     }
 
     public void setTransactionService(TransactionService transactionService)
@@ -586,35 +576,8 @@ public class DynamicAuthoritiesGet extends AbstractWebScript implements RecordsM
      *
      * @param nodeRef
      */
-    @SuppressWarnings({ "unchecked"})
     protected void processNode(NodeRef nodeRef)
     {
-        // get the reader/writer data
-        Map<String, Integer> readers = (Map<String, Integer>)nodeService.getProperty(nodeRef, PROP_READERS);
-        Map<String, Integer> writers = (Map<String, Integer>)nodeService.getProperty(nodeRef, PROP_WRITERS);
-
-        // remove extended security aspect
-        nodeService.removeAspect(nodeRef, ASPECT_EXTENDED_SECURITY);
-
-        // remove dynamic authority permissions
-        permissionService.clearPermission(nodeRef, ExtendedReaderDynamicAuthority.EXTENDED_READER);
-        permissionService.clearPermission(nodeRef, ExtendedWriterDynamicAuthority.EXTENDED_WRITER);
-
-        // if record then ...
-        if (nodeService.hasAspect(nodeRef, ASPECT_RECORD))
-        {
-            Set<String> readersKeySet = null;
-            if (readers != null)
-        {
-                readersKeySet = readers.keySet();
-            }
-            Set<String> writersKeySet = null;
-            if (writers != null)
-            {
-                writersKeySet = writers.keySet();
-            }
-            // re-set extended security via API
-            extendedSecurityService.set(nodeRef, readersKeySet, writersKeySet);
-        }
+        dynamicAuthoritiesMigration.migrate(nodeRef);
     }
 }
@@ -0,0 +1,416 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.rm.rest.api.bulkcreate;
+
+import static org.alfresco.util.ParameterCheck.mandatory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.alfresco.module.org_alfresco_module_rm.capability.RMPermissionModel;
+import org.alfresco.module.org_alfresco_module_rm.model.RecordsManagementModel;
+import org.alfresco.repo.activities.ActivityType;
+import org.alfresco.repo.node.integrity.IntegrityException;
+import org.alfresco.repo.security.permissions.AccessDeniedException;
+import org.alfresco.repo.transaction.RetryingTransactionHelper.RetryingTransactionCallback;
+import org.alfresco.rest.framework.WebApiDescription;
+import org.alfresco.rest.framework.core.exceptions.ConstraintViolatedException;
+import org.alfresco.rest.framework.core.exceptions.InvalidArgumentException;
+import org.alfresco.rest.framework.core.exceptions.NotFoundException;
+import org.alfresco.rest.framework.core.exceptions.PermissionDeniedException;
+import org.alfresco.rest.framework.resource.EntityResource;
+import org.alfresco.rest.framework.resource.actions.interfaces.EntityResourceAction;
+import org.alfresco.rest.framework.resource.parameters.Parameters;
+import org.alfresco.rm.rest.api.impl.FilePlanComponentsApiUtils;
+import org.alfresco.rm.rest.api.model.BulkCreateItem;
+import org.alfresco.service.cmr.model.FileExistsException;
+import org.alfresco.service.cmr.model.FileFolderService;
+import org.alfresco.service.cmr.model.FileInfo;
+import org.alfresco.service.cmr.repository.DuplicateChildNodeNameException;
+import org.alfresco.service.cmr.repository.InvalidNodeRefException;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.repository.NodeService;
+import org.alfresco.service.cmr.security.AccessStatus;
+import org.alfresco.service.cmr.security.PermissionService;
+import org.alfresco.service.namespace.QName;
+import org.alfresco.service.transaction.TransactionService;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.extensions.webscripts.Status;
+
+/**
+ * Bulk create of file plan components.
+ * <p>
+ * Creates many nodes, possibly under different parents, in one request.  Each distinct
+ * parent is resolved and checked once, the nodes are then created in bounded batches
+ * each committed in its own transaction.  A failing batch is replayed one node per
+ * transaction so that only the failing nodes are reported as such.  The result list
+ * has one entry per requested node, in request order, carrying its status code.
+ * <p>
+ * The batches commit independently of the request transaction, which the REST framework
+ * retries on failure.  Each item therefore remembers the node its batch committed, and a
+ * retried request reports those nodes again instead of creating them a second time.  The
+ * activity of a node is posted in its batch transaction, so it is neither lost nor repeated.
+ * Failures are reported with a fixed message per status code, the exception is only logged.
+ *
+ * @since 2.7
+ */
+@EntityResource(name = "bulk-create", title = "Bulk create file plan components")
+public class BulkCreateEntityResource implements EntityResourceAction.Create<BulkCreateItem>
+{
+    /** logger */
+    private static Log logger = LogFactory.getLog(BulkCreateEntityResource.class);
+
+    /** status code used for items that failed an integrity check */
+    private static final int STATUS_UNPROCESSABLE_ENTITY = 422;
+
+    /** the types of node children can be created in */
+    private static final Set<QName> PARENT_TYPES = new HashSet<>(Arrays.asList(
+                RecordsManagementModel.TYPE_FILE_PLAN,
+                RecordsManagementModel.TYPE_RECORD_CATEGORY,
+                RecordsManagementModel.TYPE_RECORD_FOLDER,
+                RecordsManagementModel.TYPE_UNFILED_RECORD_CONTAINER,
+                RecordsManagementModel.TYPE_UNFILED_RECORD_FOLDER));
+
+    private FilePlanComponentsApiUtils apiUtils;
+    private FileFolderService fileFolderService;
+    private NodeService nodeService;
+    private PermissionService permissionService;
+    private TransactionService transactionService;
+
+    /** number of nodes created per transaction */
+    private int batchSize = 100;
+
+    /** maximum number of nodes accepted in one request */
+    private int maxItems = 1000;
+
+    public void setApiUtils(FilePlanComponentsApiUtils apiUtils)
+    {
+        this.apiUtils = apiUtils;
+    }
+
+    public void setFileFolderService(FileFolderService fileFolderService)
+    {
+        this.fileFolderService = fileFolderService;
+    }
+
+    public void setNodeService(NodeService nodeService)
+    {
+        this.nodeService = nodeService;
+    }
+
+    public void setPermissionService(PermissionService permissionService)
+    {
+        this.permissionService = permissionService;
+    }
+
+    public void setTransactionService(TransactionService transactionService)
+    {
+        this.transactionService = transactionService;
+    }
+
+    public void setBatchSize(int batchSize)
+    {
+        this.batchSize = batchSize;
+    }
+
+    public void setMaxItems(int maxItems)
+    {
+        this.maxItems = maxItems;
+    }
+
+    @Override
+    @WebApiDescription(title = "Create one (or more) file plan components, possibly under different parents")
+    public List<BulkCreateItem> create(List<BulkCreateItem> nodeInfos, Parameters parameters)
+    {
+        mandatory("nodeInfos", nodeInfos);
+        mandatory("parameters", parameters);
+
+        if (nodeInfos.size() > maxItems)
+        {
+            throw new InvalidArgumentException("A bulk create request can contain at most " + maxItems + " items.");
+        }
+
+        // resolve and check each distinct parent once
+        Map<String, NodeRef> parents = new HashMap<>();
+        Map<String, BulkCreateItem> parentFailures = new HashMap<>();
+        Map<NodeRef, List<BulkCreateItem>> itemsByParent = new LinkedHashMap<>();
+        for (BulkCreateItem nodeInfo : nodeInfos)
+        {
+            NodeRef createdNodeRef = nodeInfo.getCreatedNodeRef();
+            if (createdNodeRef != null && nodeService.exists(createdNodeRef))
+            {
+                // already committed, with its activity, by an earlier attempt of this request
+                setSuccess(nodeInfo, nodeService.getPrimaryParent(createdNodeRef).getParentRef(), createdNodeRef);
+                continue;
+            }
+
+            if (nodeInfo.getParentId() == null)
+            {
+                setFailure(nodeInfo, Status.STATUS_BAD_REQUEST, "parentId is mandatory");
+                continue;
+            }
+
+            String parentId = nodeInfo.getParentId().getId();
+            BulkCreateItem parentFailure = parentFailures.get(parentId);
+            if (parentFailure != null)
+            {
+                // the parent has already been rejected
+                setFailure(nodeInfo, parentFailure.getStatusCode(), parentFailure.getError());
+                continue;
+            }
+
+            NodeRef parentNodeRef = parents.get(parentId);
+            if (parentNodeRef == null)
+            {
+                parentNodeRef = resolveParent(parentId, nodeInfo);
+                if (parentNodeRef == null)
+                {
+                    parentFailures.put(parentId, nodeInfo);
+                    continue;
+                }
+                parents.put(parentId, parentNodeRef);
+            }
+
+            List<BulkCreateItem> items = itemsByParent.get(parentNodeRef);
+            if (items == null)
+            {
+                items = new ArrayList<>();
+                itemsByParent.put(parentNodeRef, items);
+            }
+            items.add(nodeInfo);
+        }
+
+        // create the nodes, batch by batch
+        for (Map.Entry<NodeRef, List<BulkCreateItem>> entry : itemsByParent.entrySet())
+        {
+            NodeRef parentNodeRef = entry.getKey();
+            List<BulkCreateItem> items = entry.getValue();
+            for (int start = 0; start < items.size(); start += batchSize)
+            {
+                List<BulkCreateItem> batch = items.subList(start, Math.min(start + batchSize, items.size()));
+                createBatch(parentNodeRef, batch, parameters);
+            }
+        }
+
+        return nodeInfos;
+    }
+
+    /**
+     * Resolve the parent with the given id and check that children can be filed into it.
+     *
+     * @param parentId  parent id or placeholder
+     * @param nodeInfo  item the failure is recorded against, if any
+     * @return the parent node reference, null if it can not be used
+     */
+    private NodeRef resolveParent(String parentId, BulkCreateItem nodeInfo)
+    {
+        try
+        {
+            NodeRef parentNodeRef = apiUtils.lookupNode(parentId);
+            if (!nodeService.exists(parentNodeRef))
+            {
+                setFailure(nodeInfo, Status.STATUS_NOT_FOUND, "The parent node " + parentId + " does not exist");
+                return null;
+            }
+            if (!PARENT_TYPES.contains(nodeService.getType(parentNodeRef)))
+            {
+                setFailure(nodeInfo, Status.STATUS_BAD_REQUEST, "The parent node " + parentId + " can not contain file plan components");
+                return null;
+            }
+            if (!AccessStatus.ALLOWED.equals(permissionService.hasPermission(parentNodeRef, RMPermissionModel.FILING)))
+            {
+                setFailure(nodeInfo, Status.STATUS_FORBIDDEN, "Filing permission denied on parent node " + parentId);
+                return null;
+            }
+            return parentNodeRef;
+        }
+        catch (RuntimeException e)
+        {
+            setFailure(nodeInfo, e);
+            return null;
+        }
+    }
+
+    /**
+     * Create a batch of nodes in one transaction, falling back to one transaction per
+     * node if the batch fails.
+     */
+    private void createBatch(final NodeRef parentNodeRef, final List<BulkCreateItem> batch, final Parameters parameters)
+    {
+        List<NodeRef> createdNodes;
+        try
+        {
+            createdNodes = transactionService.getRetryingTransactionHelper().doInTransaction(new RetryingTransactionCallback<List<NodeRef>>()
+            {
+                public List<NodeRef> execute()
+                {
+                    List<NodeRef> createdNodes = new ArrayList<>(batch.size());
+                    for (BulkCreateItem nodeInfo : batch)
+                    {
+                        // the activity commits with the node, so a retried request neither loses nor repeats it
+                        NodeRef nodeRef = apiUtils.createRMNode(parentNodeRef, nodeInfo, parameters);
+                        apiUtils.postActivity(fileFolderService.getFileInfo(nodeRef), parentNodeRef, ActivityType.FILE_ADDED);
+                        createdNodes.add(nodeRef);
+                    }
+                    return createdNodes;
+                }
+            }, false, true);
+        }
+        catch (RuntimeException e)
+        {
+            if (batch.size() == 1)
+            {
+                setFailure(batch.get(0), e);
+                return;
+            }
+
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("Bulk create batch of " + batch.size() + " nodes failed, retrying one node at a time.", e);
+            }
+
+            for (int i = 0; i < batch.size(); i++)
+            {
+                createBatch(parentNodeRef, batch.subList(i, i + 1), parameters);
+            }
+            return;
+        }
+
+        // the batch is committed, so failures from here on must not replay it
+        for (int i = 0; i < batch.size(); i++)
+        {
+            batch.get(i).setCreatedNodeRef(createdNodes.get(i));
+        }
+        for (int i = 0; i < batch.size(); i++)
+        {
+            setSuccess(batch.get(i), parentNodeRef, createdNodes.get(i));
+        }
+    }
+
+    /**
+     * Record a successfully created node against its item.
+     */
+    private void setSuccess(BulkCreateItem nodeInfo, NodeRef parentNodeRef, NodeRef newNodeRef)
+    {
+        FileInfo info = fileFolderService.getFileInfo(newNodeRef);
+
+        nodeInfo.setNodeRef(newNodeRef);
+        nodeInfo.setParentId(parentNodeRef);
+        nodeInfo.setName(info.getName());
+        nodeInfo.setStatusCode(Status.STATUS_CREATED);
+        nodeInfo.setError(null);
+    }
+
+    /**
+     * Record the failure raised while creating a node against its item.  The client only
+     * gets a fixed message for the status code, the exception itself is logged.
+     */
+    private void setFailure(BulkCreateItem nodeInfo, RuntimeException e)
+    {
+        int statusCode = getStatusCode(e);
+        if (statusCode == Status.STATUS_INTERNAL_SERVER_ERROR)
+        {
+            logger.error("Bulk create of node " + nodeInfo.getName() + " failed.", e);
+        }
+        else if (logger.isDebugEnabled())
+        {
+            logger.debug("Bulk create of node " + nodeInfo.getName() + " failed.", e);
+        }
+        setFailure(nodeInfo, statusCode, getErrorMessage(statusCode));
+    }
+
+    /**
+     * Record a failure against an item.
+     */
+    private void setFailure(BulkCreateItem nodeInfo, int statusCode, String error)
+    {
+        nodeInfo.setStatusCode(statusCode);
+        nodeInfo.setError(error);
+    }
+
+    /**
+     * Map an exception raised while creating a node to the status code the single
+     * create endpoints would have answered with.
+     */
+    private int getStatusCode(RuntimeException e)
+    {
+        if (e instanceof InvalidArgumentException)
+        {
+            return Status.STATUS_BAD_REQUEST;
+        }
+        else if (e instanceof AccessDeniedException || e instanceof net.sf.acegisecurity.AccessDeniedException ||
+                    e instanceof PermissionDeniedException)
+        {
+            return Status.STATUS_FORBIDDEN;
+        }
+        else if (e instanceof NotFoundException || e instanceof InvalidNodeRefException)
+        {
+            return Status.STATUS_NOT_FOUND;
+        }
+        else if (e instanceof ConstraintViolatedException || e instanceof FileExistsException ||
+                    e instanceof DuplicateChildNodeNameException)
+        {
+            return Status.STATUS_CONFLICT;
+        }
+        else if (e instanceof IntegrityException)
+        {
+            return STATUS_UNPROCESSABLE_ENTITY;
+        }
+        return Status.STATUS_INTERNAL_SERVER_ERROR;
+    }
+
+    /**
+     * Get the message reported to the client for a status code.
+     */
+    private String getErrorMessage(int statusCode)
+    {
+        switch (statusCode)
+        {
+            case Status.STATUS_BAD_REQUEST:
+                return "Invalid argument";
+            case Status.STATUS_FORBIDDEN:
+                return "Permission denied";
+            case Status.STATUS_NOT_FOUND:
+                return "Node not found";
+            case Status.STATUS_CONFLICT:
+                return "A node with the same name already exists or a constraint was violated";
+            case STATUS_UNPROCESSABLE_ENTITY:
+                return "Integrity violation";
+            default:
+                return "Unexpected error while creating the node";
+        }
+    }
+}
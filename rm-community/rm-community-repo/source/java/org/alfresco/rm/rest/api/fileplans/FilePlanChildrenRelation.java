@@ -151,6 +151,7 @@ public class FilePlanChildrenRelation implements RelationshipResourceAction.Read
                 Util.getPagingRequest(parameters.getPaging()));
 
         final List<FileInfo> page = pagingResults.getPage();
+        nodesModelFactory.prefetchNodes(page, parameters);
         Map<String, UserInfo> mapUserInfo = new HashMap<>();
         List<RecordCategory> nodes = new AbstractList<RecordCategory>()
         {
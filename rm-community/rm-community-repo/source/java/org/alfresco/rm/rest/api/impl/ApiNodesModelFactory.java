@@ -39,6 +39,7 @@ import org.alfresco.model.ContentModel;
 import org.alfresco.module.org_alfresco_module_rm.disposition.DispositionSchedule;
 import org.alfresco.module.org_alfresco_module_rm.disposition.DispositionService;
 import org.alfresco.module.org_alfresco_module_rm.model.RecordsManagementModel;
+import org.alfresco.repo.domain.node.NodeDAO;
 import org.alfresco.rest.api.Nodes;
 import org.alfresco.rest.api.model.AssocChild;
 import org.alfresco.rest.api.model.ContentInfo;
@@ -101,6 +102,8 @@ public class ApiNodesModelFactory
     private PersonService personService;
     private DispositionService dispositionService;
     private ServiceRegistry serviceRegistry;
+    private RMNodePathResolver pathResolver;
+    private NodeDAO nodeDAO;
 
     public NodeService getNodeService()
     {
@@ -152,6 +155,60 @@ public class ApiNodesModelFactory
         this.serviceRegistry = serviceRegistry;
     }
 
+    public void setPathResolver(RMNodePathResolver pathResolver)
+    {
+        this.pathResolver = pathResolver;
+    }
+
+    public void setNodeDAO(NodeDAO nodeDAO)
+    {
+        this.nodeDAO = nodeDAO;
+    }
+
+    /**
+     * Helper method that checks whether an optional field was both included and not filtered out.
+     *
+     * @param param the name of the field
+     * @param includeParam the requested include parameters
+     * @param propertyFilter the requested fields
+     * @return true if the field has to be mapped, false otherwise
+     */
+    private boolean isIncluded(String param, List<String> includeParam, BeanPropertiesFilter propertyFilter)
+    {
+        return includeParam != null && includeParam.contains(param) && propertyFilter.isAllowed(param);
+    }
+
+    /**
+     * Loads the nodes of a page in bulk, if the requested fields need more than their
+     * file info, so that the nodes are not loaded one by one while being mapped.
+     *
+     * @param page the file info of the nodes about to be mapped
+     * @param parameters the request parameters
+     */
+    public void prefetchNodes(List<FileInfo> page, Parameters parameters)
+    {
+        if (page.size() < 2)
+        {
+            return;
+        }
+
+        List<String> includeParam = parameters.getInclude();
+        BeanPropertiesFilter propertyFilter = parameters.getFilter();
+        if (isIncluded(RMNode.PARAM_ASPECT_NAMES, includeParam, propertyFilter) ||
+            isIncluded(RMNode.PARAM_ALLOWABLE_OPERATIONS, includeParam, propertyFilter) ||
+            isIncluded(RMNode.PARAM_PATH, includeParam, propertyFilter) ||
+            isIncluded(RMNode.PARAM_INCLUDE_ASSOCIATION, includeParam, propertyFilter) ||
+            isIncluded(Record.PARAM_IS_COMPLETED, includeParam, propertyFilter))
+        {
+            List<NodeRef> nodeRefs = new ArrayList<>(page.size());
+            for (FileInfo info : page)
+            {
+                nodeRefs.add(info.getNodeRef());
+            }
+            nodeDAO.cacheNodes(nodeRefs);
+        }
+    }
+
     /**
      * Helper method that sets the basic information for most of the node types.
      *
@@ -169,7 +226,7 @@ public class ApiNodesModelFactory
         }
         if (propertyFilter.isAllowed(RMNode.PARAM_PARENT_ID))
         {
-            rmNode.setParentId(nodeService.getPrimaryParent(info.getNodeRef()).getParentRef());
+            rmNode.setParentId(pathResolver.getPrimaryParent(info.getNodeRef()));
         }
         if (propertyFilter.isAllowed(RMNode.PARAM_NAME))
         {
@@ -223,27 +280,28 @@ public class ApiNodesModelFactory
      * @param rmNode
      * @param info
      * @param includeParam
+     * @param propertyFilter
      * @param isMinimalInfo
      */
-    private void mapOptionalInfo(RMNode rmNode, FileInfo info, List<String> includeParam, boolean isMinimalInfo)
+    private void mapOptionalInfo(RMNode rmNode, FileInfo info, List<String> includeParam, BeanPropertiesFilter propertyFilter, boolean isMinimalInfo)
     {
         if (includeParam == null || includeParam.isEmpty())
         {
             return;
         }
-        if (includeParam.contains(RMNode.PARAM_ALLOWABLE_OPERATIONS))
+        if (isIncluded(RMNode.PARAM_ALLOWABLE_OPERATIONS, includeParam, propertyFilter))
         {
             rmNode.setAllowableOperations(apiUtils.getAllowableOperations(info.getNodeRef(), info.getType()));
         }
-        if (includeParam.contains(RMNode.PARAM_PATH))
+        if (isIncluded(RMNode.PARAM_PATH, includeParam, propertyFilter))
         {
             rmNode.setPath(apiUtils.lookupPathInfo(info.getNodeRef()));
         }
-        if (isMinimalInfo && includeParam.contains(RMNode.PARAM_ASPECT_NAMES))
+        if (isMinimalInfo && isIncluded(RMNode.PARAM_ASPECT_NAMES, includeParam, propertyFilter))
         {
             rmNode.setAspectNames(mapFromNodeAspects(nodeService.getAspects(info.getNodeRef())));
         }
-        if (isMinimalInfo && includeParam.contains(RMNode.PARAM_PROPERTIES))
+        if (isMinimalInfo && isIncluded(RMNode.PARAM_PROPERTIES, includeParam, propertyFilter))
         {
             rmNode.setProperties(mapFromNodeProperties(info.getProperties()));
         }
@@ -297,7 +355,7 @@ public class ApiNodesModelFactory
         }
         if (propertyFilter.isAllowed(RMNode.PARAM_PARENT_ID))
         {
-            transferContainer.setParentId(nodeService.getPrimaryParent(info.getNodeRef()).getParentRef());
+            transferContainer.setParentId(pathResolver.getPrimaryParent(info.getNodeRef()));
         }
         if (propertyFilter.isAllowed(RMNode.PARAM_NAME))
         {
@@ -349,15 +407,15 @@ public class ApiNodesModelFactory
         {
             return;
         }
-        if (includeParam.contains(RMNode.PARAM_ALLOWABLE_OPERATIONS))
+        if (isIncluded(RMNode.PARAM_ALLOWABLE_OPERATIONS, includeParam, propertyFilter))
         {
             transferContainer.setAllowableOperations(apiUtils.getAllowableOperations(info.getNodeRef(), info.getType()));
         }
-        if (isMinimalInfo && includeParam.contains(RMNode.PARAM_ASPECT_NAMES))
+        if (isMinimalInfo && isIncluded(RMNode.PARAM_ASPECT_NAMES, includeParam, propertyFilter))
         {
             transferContainer.setAspectNames(mapFromNodeAspects(nodeService.getAspects(info.getNodeRef())));
         }
-        if (isMinimalInfo && includeParam.contains(RMNode.PARAM_PROPERTIES))
+        if (isMinimalInfo && isIncluded(RMNode.PARAM_PROPERTIES, includeParam, propertyFilter))
         {
             transferContainer.setProperties(mapFromNodeProperties(info.getProperties()));
         }
@@ -378,7 +436,7 @@ public class ApiNodesModelFactory
         }
         if (propertyFilter.isAllowed(RMNode.PARAM_PARENT_ID))
         {
-            transfer.setParentId(nodeService.getPrimaryParent(info.getNodeRef()).getParentRef());
+            transfer.setParentId(pathResolver.getPrimaryParent(info.getNodeRef()));
         }
         if (propertyFilter.isAllowed(RMNode.PARAM_NAME))
         {
@@ -416,29 +474,29 @@ public class ApiNodesModelFactory
         {
             return;
         }
-        if (includeParam.contains(RMNode.PARAM_ALLOWABLE_OPERATIONS))
+        if (isIncluded(RMNode.PARAM_ALLOWABLE_OPERATIONS, includeParam, propertyFilter))
         {
             transfer.setAllowableOperations(apiUtils.getAllowableOperations(info.getNodeRef(), info.getType()));
         }
-        if (isMinimalInfo && includeParam.contains(RMNode.PARAM_ASPECT_NAMES))
+        if (isMinimalInfo && isIncluded(RMNode.PARAM_ASPECT_NAMES, includeParam, propertyFilter))
         {
             transfer.setAspectNames(mapFromNodeAspects(nodeService.getAspects(info.getNodeRef())));
         }
-        if (isMinimalInfo && includeParam.contains(RMNode.PARAM_PROPERTIES))
+        if (isMinimalInfo && isIncluded(RMNode.PARAM_PROPERTIES, includeParam, propertyFilter))
         {
             transfer.setProperties(mapFromNodeProperties(info.getProperties()));
         }
-        if ((!isMinimalInfo && propertyFilter.isAllowed(Transfer.PARAM_TRANSFER_ACCESSION_INDICATOR)) || (isMinimalInfo && includeParam.contains(Transfer.PARAM_TRANSFER_ACCESSION_INDICATOR)))
+        if ((!isMinimalInfo && propertyFilter.isAllowed(Transfer.PARAM_TRANSFER_ACCESSION_INDICATOR)) || (isMinimalInfo && isIncluded(Transfer.PARAM_TRANSFER_ACCESSION_INDICATOR, includeParam, propertyFilter)))
         {
-            transfer.setTransferAccessionIndicator((Boolean) nodeService.getProperty(info.getNodeRef(), RecordsManagementModel.PROP_TRANSFER_ACCESSION_INDICATOR));
+            transfer.setTransferAccessionIndicator((Boolean) info.getProperties().get(RecordsManagementModel.PROP_TRANSFER_ACCESSION_INDICATOR));
         }
-        if ((!isMinimalInfo && propertyFilter.isAllowed(Transfer.PARAM_TRANSFER_LOCATION)) || (isMinimalInfo && includeParam.contains(Transfer.PARAM_TRANSFER_LOCATION)))
+        if ((!isMinimalInfo && propertyFilter.isAllowed(Transfer.PARAM_TRANSFER_LOCATION)) || (isMinimalInfo && isIncluded(Transfer.PARAM_TRANSFER_LOCATION, includeParam, propertyFilter)))
         {
-            transfer.setTransferLocation((String) nodeService.getProperty(info.getNodeRef(), RecordsManagementModel.PROP_TRANSFER_LOCATION));
+            transfer.setTransferLocation((String) info.getProperties().get(RecordsManagementModel.PROP_TRANSFER_LOCATION));
         }
-        if ((!isMinimalInfo && propertyFilter.isAllowed(Transfer.PARAM_TRANSFER_PDF_INDICATOR)) || (isMinimalInfo && includeParam.contains(Transfer.PARAM_TRANSFER_PDF_INDICATOR)))
+        if ((!isMinimalInfo && propertyFilter.isAllowed(Transfer.PARAM_TRANSFER_PDF_INDICATOR)) || (isMinimalInfo && isIncluded(Transfer.PARAM_TRANSFER_PDF_INDICATOR, includeParam, propertyFilter)))
         {
-            transfer.setTransferPDFIndicator((Boolean) nodeService.getProperty(info.getNodeRef(), RecordsManagementModel.PROP_TRANSFER_PDF_INDICATOR));
+            transfer.setTransferPDFIndicator((Boolean) info.getProperties().get(RecordsManagementModel.PROP_TRANSFER_PDF_INDICATOR));
         }
     }
 
@@ -447,9 +505,10 @@ public class ApiNodesModelFactory
      *
      * @param transferChild
      * @param info
+     * @param includeParam
      * @param propertyFilter
      */
-    private void mapTransferChildInfo(TransferChild transferChild, FileInfo info, List<String> includeParam, boolean isMinimalInfo)
+    private void mapTransferChildInfo(TransferChild transferChild, FileInfo info, List<String> includeParam, BeanPropertiesFilter propertyFilter, boolean isMinimalInfo)
     {
         if (includeParam == null || includeParam.isEmpty())
         {
@@ -457,30 +516,30 @@ public class ApiNodesModelFactory
         }
         if (RecordsManagementModel.TYPE_RECORD_FOLDER.equals(info.getType()))
         {
-            if (isMinimalInfo && includeParam.contains(TransferChild.PARAM_IS_RECORD_FOLDER))
+            if (isMinimalInfo && isIncluded(TransferChild.PARAM_IS_RECORD_FOLDER, includeParam, propertyFilter))
             {
                 transferChild.setIsRecordFolder(true);
             }
-            if (isMinimalInfo && includeParam.contains(TransferChild.PARAM_IS_RECORD))
+            if (isMinimalInfo && isIncluded(TransferChild.PARAM_IS_RECORD, includeParam, propertyFilter))
             {
                 transferChild.setIsRecord(false);
             }
-            if(isMinimalInfo && includeParam.contains(RMNode.PARAM_IS_CLOSED))
+            if(isMinimalInfo && isIncluded(RMNode.PARAM_IS_CLOSED, includeParam, propertyFilter))
             {
-                transferChild.setIsClosed((Boolean) nodeService.getProperty(info.getNodeRef(), RecordsManagementModel.PROP_IS_CLOSED));
+                transferChild.setIsClosed((Boolean) info.getProperties().get(RecordsManagementModel.PROP_IS_CLOSED));
             }
         }
         else
         {
-            if (isMinimalInfo && includeParam.contains(TransferChild.PARAM_IS_RECORD_FOLDER))
+            if (isMinimalInfo && isIncluded(TransferChild.PARAM_IS_RECORD_FOLDER, includeParam, propertyFilter))
             {
                 transferChild.setIsRecordFolder(false);
             }
-            if (isMinimalInfo && includeParam.contains(TransferChild.PARAM_IS_RECORD))
+            if (isMinimalInfo && isIncluded(TransferChild.PARAM_IS_RECORD, includeParam, propertyFilter))
             {
                 transferChild.setIsRecord(true);
             }
-            if(isMinimalInfo && includeParam.contains(RMNode.PARAM_IS_CLOSED))
+            if(isMinimalInfo && isIncluded(RMNode.PARAM_IS_CLOSED, includeParam, propertyFilter))
             {
                 transferChild.setIsClosed(null);
             }
@@ -503,39 +562,39 @@ public class ApiNodesModelFactory
         }
         if(RecordsManagementModel.TYPE_RECORD_FOLDER.equals(info.getType()))
         {
-            if((!isMinimalInfo && propertyFilter.isAllowed(RecordCategoryChild.PARAM_IS_RECORD_FOLDER)) || (isMinimalInfo && includeParam.contains(RecordCategoryChild.PARAM_IS_RECORD_FOLDER)))
+            if((!isMinimalInfo && propertyFilter.isAllowed(RecordCategoryChild.PARAM_IS_RECORD_FOLDER)) || (isMinimalInfo && isIncluded(RecordCategoryChild.PARAM_IS_RECORD_FOLDER, includeParam, propertyFilter)))
             {
                 recordCategoryChild.setIsRecordFolder(true);
             }
-            if((!isMinimalInfo && propertyFilter.isAllowed(RecordCategoryChild.PARAM_IS_RECORD_CATEGORY)) || (isMinimalInfo && includeParam.contains(RecordCategoryChild.PARAM_IS_RECORD_CATEGORY)))
+            if((!isMinimalInfo && propertyFilter.isAllowed(RecordCategoryChild.PARAM_IS_RECORD_CATEGORY)) || (isMinimalInfo && isIncluded(RecordCategoryChild.PARAM_IS_RECORD_CATEGORY, includeParam, propertyFilter)))
             {
                 recordCategoryChild.setIsRecordCategory(false);
             }
-            if((!isMinimalInfo && propertyFilter.isAllowed(RMNode.PARAM_IS_CLOSED)) || (isMinimalInfo && includeParam.contains(RMNode.PARAM_IS_CLOSED)))
+            if((!isMinimalInfo && propertyFilter.isAllowed(RMNode.PARAM_IS_CLOSED)) || (isMinimalInfo && isIncluded(RMNode.PARAM_IS_CLOSED, includeParam, propertyFilter)))
             {
-                recordCategoryChild.setIsClosed((Boolean) nodeService.getProperty(info.getNodeRef(), RecordsManagementModel.PROP_IS_CLOSED));
+                recordCategoryChild.setIsClosed((Boolean) info.getProperties().get(RecordsManagementModel.PROP_IS_CLOSED));
             }
-            if (includeParam.contains(RMNode.PARAM_HAS_RETENTION_SCHEDULE))
+            if (isIncluded(RMNode.PARAM_HAS_RETENTION_SCHEDULE, includeParam, propertyFilter))
             {
                 recordCategoryChild.setHasRetentionSchedule(null);
             }
         }
         else
         {
-            if((!isMinimalInfo && propertyFilter.isAllowed(RecordCategoryChild.PARAM_IS_RECORD_FOLDER)) || (isMinimalInfo && includeParam.contains(RecordCategoryChild.PARAM_IS_RECORD_FOLDER)))
+            if((!isMinimalInfo && propertyFilter.isAllowed(RecordCategoryChild.PARAM_IS_RECORD_FOLDER)) || (isMinimalInfo && isIncluded(RecordCategoryChild.PARAM_IS_RECORD_FOLDER, includeParam, propertyFilter)))
             {
                 recordCategoryChild.setIsRecordFolder(false);
             }
-            if((!isMinimalInfo && propertyFilter.isAllowed(RecordCategoryChild.PARAM_IS_RECORD_CATEGORY)) || (isMinimalInfo && includeParam.contains(RecordCategoryChild.PARAM_IS_RECORD_CATEGORY)))
+            if((!isMinimalInfo && propertyFilter.isAllowed(RecordCategoryChild.PARAM_IS_RECORD_CATEGORY)) || (isMinimalInfo && isIncluded(RecordCategoryChild.PARAM_IS_RECORD_CATEGORY, includeParam, propertyFilter)))
             {
                 recordCategoryChild.setIsRecordCategory(true);
             }
-            if (includeParam.contains(RMNode.PARAM_HAS_RETENTION_SCHEDULE))
+            if (isIncluded(RMNode.PARAM_HAS_RETENTION_SCHEDULE, includeParam, propertyFilter))
             {
                 DispositionSchedule ds = dispositionService.getDispositionSchedule(info.getNodeRef());
                 recordCategoryChild.setHasRetentionSchedule(ds !=null ? true : false);
             }
-            if((!isMinimalInfo && propertyFilter.isAllowed(RMNode.PARAM_IS_CLOSED)) || (isMinimalInfo && includeParam.contains(RMNode.PARAM_IS_CLOSED)))
+            if((!isMinimalInfo && propertyFilter.isAllowed(RMNode.PARAM_IS_CLOSED)) || (isMinimalInfo && isIncluded(RMNode.PARAM_IS_CLOSED, includeParam, propertyFilter)))
             {
                 recordCategoryChild.setIsClosed(null);
             }
@@ -549,18 +608,19 @@ public class ApiNodesModelFactory
      * @param record the record to set the fields to
      * @param info info of the record
      * @param includeParam the requested include parameters
+     * @param propertyFilter the requested fields
      */
-    private void mapRecordInfo(Record record, FileInfo info, List<String> includeParam)
+    private void mapRecordInfo(Record record, FileInfo info, List<String> includeParam, BeanPropertiesFilter propertyFilter)
     {
         if (includeParam == null || includeParam.isEmpty())
         {
             return;
         }
-        if (includeParam.contains(Record.PARAM_IS_COMPLETED))
+        if (isIncluded(Record.PARAM_IS_COMPLETED, includeParam, propertyFilter))
         {
             record.setIsCompleted(nodeService.hasAspect(info.getNodeRef(), RecordsManagementModel.ASPECT_DECLARED_RECORD));
         }
-        if(includeParam.contains(Record.PARAM_CONTENT))
+        if (isIncluded(Record.PARAM_CONTENT, includeParam, propertyFilter))
         {
             Serializable val = info.getProperties().get(ContentModel.PROP_CONTENT);
 
@@ -601,10 +661,11 @@ public class ApiNodesModelFactory
      * @param rmNode
      * @param info
      * @param includeParam
+     * @param propertyFilter
      */
-    private void mapAssociations(RMNode rmNode, FileInfo info, List<String> includeParam)
+    private void mapAssociations(RMNode rmNode, FileInfo info, List<String> includeParam, BeanPropertiesFilter propertyFilter)
     {
-        if (includeParam.contains(RMNode.PARAM_INCLUDE_ASSOCIATION))
+        if (isIncluded(RMNode.PARAM_INCLUDE_ASSOCIATION, includeParam, propertyFilter))
         {
             NodeRef nodeRef = info.getNodeRef();
             ChildAssociationRef parentAssocRef = nodeService.getPrimaryParent(nodeRef);
@@ -651,7 +712,7 @@ public class ApiNodesModelFactory
     {
         FilePlan filePlan = new FilePlan();
         mapBasicInfo(filePlan, info, parameters.getFilter(), mapUserInfo, isMinimalInfo);
-        mapOptionalInfo(filePlan, info, parameters.getInclude(), isMinimalInfo);
+        mapOptionalInfo(filePlan, info, parameters.getInclude(), parameters.getFilter(), isMinimalInfo);
         return filePlan;
     }
 
@@ -670,9 +731,9 @@ public class ApiNodesModelFactory
     {
         RecordCategory recordCategory = new RecordCategory();
         mapBasicInfo(recordCategory, info, parameters.getFilter(), mapUserInfo, isMinimalInfo);
-        mapOptionalInfo(recordCategory, info, parameters.getInclude(), isMinimalInfo);
+        mapOptionalInfo(recordCategory, info, parameters.getInclude(), parameters.getFilter(), isMinimalInfo);
 
-        if (parameters.getInclude().contains(RMNode.PARAM_HAS_RETENTION_SCHEDULE))
+        if (isIncluded(RMNode.PARAM_HAS_RETENTION_SCHEDULE, parameters.getInclude(), parameters.getFilter()))
         {
             DispositionSchedule ds = dispositionService.getDispositionSchedule(info.getNodeRef());
             recordCategory.setHasRetentionSchedule(ds !=null ? true : false);
@@ -696,11 +757,11 @@ public class ApiNodesModelFactory
     {
         RecordFolder recordFolder = new RecordFolder();
         mapBasicInfo(recordFolder, info, parameters.getFilter(), mapUserInfo, isMinimalInfo);
-        mapOptionalInfo(recordFolder, info, parameters.getInclude(), isMinimalInfo);
+        mapOptionalInfo(recordFolder, info, parameters.getInclude(), parameters.getFilter(), isMinimalInfo);
 
-        if (parameters.getInclude().contains(RMNode.PARAM_IS_CLOSED))
+        if (isIncluded(RMNode.PARAM_IS_CLOSED, parameters.getInclude(), parameters.getFilter()))
         {
-            recordFolder.setIsClosed((Boolean) nodeService.getProperty(info.getNodeRef(), RecordsManagementModel.PROP_IS_CLOSED));
+            recordFolder.setIsClosed((Boolean) info.getProperties().get(RecordsManagementModel.PROP_IS_CLOSED));
         }
 
         return recordFolder;
@@ -721,7 +782,7 @@ public class ApiNodesModelFactory
     {
         UnfiledContainer unfiledContainer = new UnfiledContainer();
         mapBasicInfo(unfiledContainer, info, parameters.getFilter(), mapUserInfo, isMinimalInfo);
-        mapOptionalInfo(unfiledContainer, info, parameters.getInclude(), isMinimalInfo);
+        mapOptionalInfo(unfiledContainer, info, parameters.getInclude(), parameters.getFilter(), isMinimalInfo);
         return unfiledContainer;
     }
 
@@ -776,8 +837,8 @@ public class ApiNodesModelFactory
     {
         TransferChild transferChild = new TransferChild();
         mapBasicInfo(transferChild, info, parameters.getFilter(), mapUserInfo, isMinimalInfo);
-        mapOptionalInfo(transferChild, info, parameters.getInclude(), isMinimalInfo);
-        mapTransferChildInfo(transferChild, info, parameters.getInclude(), isMinimalInfo);
+        mapOptionalInfo(transferChild, info, parameters.getInclude(), parameters.getFilter(), isMinimalInfo);
+        mapTransferChildInfo(transferChild, info, parameters.getInclude(), parameters.getFilter(), isMinimalInfo);
         return transferChild;
     }
 
@@ -795,11 +856,11 @@ public class ApiNodesModelFactory
     {
         UnfiledContainerChild unfiledContainerChild = new UnfiledContainerChild();
         mapBasicInfo(unfiledContainerChild, info, parameters.getFilter(), mapUserInfo, isMinimalInfo);
-        mapOptionalInfo(unfiledContainerChild, info, parameters.getInclude(), isMinimalInfo);
+        mapOptionalInfo(unfiledContainerChild, info, parameters.getInclude(), parameters.getFilter(), isMinimalInfo);
         mapUnfiledChildInfo(unfiledContainerChild, info, parameters.getFilter());
         if (unfiledContainerChild.getIsRecord())
         {
-            mapAssociations(unfiledContainerChild, info, parameters.getInclude());
+            mapAssociations(unfiledContainerChild, info, parameters.getInclude(), parameters.getFilter());
         }
         return unfiledContainerChild;
     }
@@ -818,7 +879,7 @@ public class ApiNodesModelFactory
     {
         UnfiledRecordFolder unfiledChild = new UnfiledRecordFolder();
         mapBasicInfo(unfiledChild, info, parameters.getFilter(), mapUserInfo, isMinimalInfo);
-        mapOptionalInfo(unfiledChild, info, parameters.getInclude(), isMinimalInfo);
+        mapOptionalInfo(unfiledChild, info, parameters.getInclude(), parameters.getFilter(), isMinimalInfo);
         return unfiledChild;
     }
 
@@ -836,11 +897,11 @@ public class ApiNodesModelFactory
     {
         UnfiledRecordFolderChild unfiledRecordFolderChild = new UnfiledRecordFolderChild();
         mapBasicInfo(unfiledRecordFolderChild, info, parameters.getFilter(), mapUserInfo, isMinimalInfo);
-        mapOptionalInfo(unfiledRecordFolderChild, info, parameters.getInclude(), isMinimalInfo);
+        mapOptionalInfo(unfiledRecordFolderChild, info, parameters.getInclude(), parameters.getFilter(), isMinimalInfo);
         mapUnfiledChildInfo(unfiledRecordFolderChild, info, parameters.getFilter());
         if (unfiledRecordFolderChild.getIsRecord())
         {
-            mapAssociations(unfiledRecordFolderChild, info, parameters.getInclude());
+            mapAssociations(unfiledRecordFolderChild, info, parameters.getInclude(), parameters.getFilter());
         }
         return unfiledRecordFolderChild;
     }
@@ -859,7 +920,7 @@ public class ApiNodesModelFactory
     {
         RecordCategoryChild recordCategoryChild = new RecordCategoryChild();
         mapBasicInfo(recordCategoryChild, info, parameters.getFilter(), mapUserInfo, isMinimalInfo);
-        mapOptionalInfo(recordCategoryChild, info, parameters.getInclude(), isMinimalInfo);
+        mapOptionalInfo(recordCategoryChild, info, parameters.getInclude(), parameters.getFilter(), isMinimalInfo);
         mapRecordCategoryChildInfo(recordCategoryChild, info, parameters.getInclude(), parameters.getFilter(), isMinimalInfo);
         return recordCategoryChild;
     }
@@ -877,9 +938,9 @@ public class ApiNodesModelFactory
     {
         Record record = new Record();
         mapBasicInfo(record, info, parameters.getFilter(), mapUserInfo, isMinimalInfo);
-        mapOptionalInfo(record, info, parameters.getInclude(), isMinimalInfo);
-        mapRecordInfo(record, info, parameters.getInclude());
-        mapAssociations(record, info, parameters.getInclude());
+        mapOptionalInfo(record, info, parameters.getInclude(), parameters.getFilter(), isMinimalInfo);
+        mapRecordInfo(record, info, parameters.getInclude(), parameters.getFilter());
+        mapAssociations(record, info, parameters.getInclude(), parameters.getFilter());
         return record;
     }
 }
@@ -39,6 +39,7 @@ import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -59,11 +60,13 @@ import org.alfresco.repo.node.getchildren.GetChildrenCannedQuery;
 import org.alfresco.repo.node.integrity.IntegrityException;
 import org.alfresco.repo.security.authentication.AuthenticationUtil.RunAsWork;
 import org.alfresco.repo.tenant.TenantUtil;
+import org.alfresco.repo.transaction.AlfrescoTransactionSupport;
+import org.alfresco.repo.transaction.AlfrescoTransactionSupport.TxnReadState;
+import org.alfresco.repo.transaction.TransactionalResourceHelper;
 import org.alfresco.rest.antlr.WhereClauseParser;
 import org.alfresco.rest.api.Activities;
 import org.alfresco.rest.api.Nodes;
 import org.alfresco.rest.api.model.PathInfo;
-import org.alfresco.rest.api.model.PathInfo.ElementInfo;
 import org.alfresco.rest.framework.core.exceptions.ConstraintViolatedException;
 import org.alfresco.rest.framework.core.exceptions.EntityNotFoundException;
 import org.alfresco.rest.framework.core.exceptions.InsufficientStorageException;
@@ -95,13 +98,11 @@ import org.alfresco.service.cmr.repository.DuplicateChildNodeNameException;
 import org.alfresco.service.cmr.repository.MimetypeService;
 import org.alfresco.service.cmr.repository.NodeRef;
 import org.alfresco.service.cmr.repository.NodeService;
-import org.alfresco.service.cmr.repository.Path;
-import org.alfresco.service.cmr.repository.Path.Element;
 import org.alfresco.service.cmr.repository.StoreRef;
-import org.alfresco.service.cmr.security.AccessStatus;
 import org.alfresco.service.cmr.security.PermissionService;
 import org.alfresco.service.cmr.usage.ContentQuotaException;
 import org.alfresco.service.namespace.QName;
+import org.alfresco.service.namespace.RegexQNamePattern;
 import org.alfresco.util.Pair;
 import org.alfresco.util.ParameterCheck;
 import org.apache.commons.lang.StringUtils;
@@ -151,6 +152,7 @@ public class FilePlanComponentsApiUtils
     private AuthenticationUtil authenticationUtil;
     private ActivityPoster activityPoster;
     private RMSites sites;
+    private RMNodePathResolver pathResolver;
 
     public void setNodes(Nodes nodes)
     {
@@ -217,6 +219,11 @@ public class FilePlanComponentsApiUtils
         this.sites = sites;
     }
 
+    public void setPathResolver(RMNodePathResolver pathResolver)
+    {
+        this.pathResolver = pathResolver;
+    }
+
     /**
      * lookup node and validate type
      *
@@ -258,6 +265,33 @@ public class FilePlanComponentsApiUtils
         ParameterCheck.mandatoryString("nodeId", nodeId);
         ParameterCheck.mandatory("expectedNodeType", expectedNodeType);
 
+        NodeRef nodeRef = lookupNode(nodeId);
+
+        QName nodeType = nodeService.getType(nodeRef);
+        if (!nodeType.equals(expectedNodeType))
+        {
+            throw new InvalidArgumentException("The given id:'" + nodeId + "' (nodeType:" + nodeType.toString()
+            + ") is not valid for this endpoint. Expected nodeType is:" + expectedNodeType.toString());
+        }
+
+        if(StringUtils.isNotBlank(relativePath))
+        {
+            nodeRef = lookupAndValidateRelativePath(nodeRef, relativePath, readOnlyRelativePath, expectedNodeType);
+        }
+        return nodeRef;
+    }
+
+    /**
+     * lookup node by id or placeholder
+     *
+     * @param nodeId node id or one of the placeholders
+     * @return the node
+     * @throws EntityNotFoundException
+     */
+    public NodeRef lookupNode(String nodeId) throws EntityNotFoundException
+    {
+        ParameterCheck.mandatoryString("nodeId", nodeId);
+
         /*
          * Lookup by placeholder
          */
@@ -315,17 +349,6 @@ public class FilePlanComponentsApiUtils
             nodeRef = new NodeRef(StoreRef.STORE_REF_WORKSPACE_SPACESSTORE, nodeId);
         }
 
-        QName nodeType = nodeService.getType(nodeRef);
-        if (!nodeType.equals(expectedNodeType))
-        {
-            throw new InvalidArgumentException("The given id:'" + nodeId + "' (nodeType:" + nodeType.toString()
-            + ") is not valid for this endpoint. Expected nodeType is:" + expectedNodeType.toString());
-        }
-
-        if(StringUtils.isNotBlank(relativePath))
-        {
-            nodeRef = lookupAndValidateRelativePath(nodeRef, relativePath, readOnlyRelativePath, expectedNodeType);
-        }
         return nodeRef;
     }
 
@@ -858,11 +881,84 @@ public class FilePlanComponentsApiUtils
 
     /**
      * Helper method that generates allowable operation for the provided node
+     * <p>
+     * Within a read only transaction the result is shared by all the nodes with the same
+     * allowable operations group key, so a page of similar nodes is only evaluated once.
+     *
      * @param nodeRef the node to get the allowable operations for
      * @param type the type of the provided nodeRef
      * @return a sublist of [{@link Nodes.OP_DELETE}, {@link Nodes.OP_CREATE}, {@link Nodes.OP_UPDATE}] representing the allowable operations for the provided node
      */
     protected List<String> getAllowableOperations(NodeRef nodeRef, QName typeQName)
+    {
+        if (AlfrescoTransactionSupport.getTransactionReadState() != TxnReadState.TXN_READ_ONLY)
+        {
+            // nodes may change within the transaction
+            return evaluateAllowableOperations(nodeRef, typeQName);
+        }
+
+        Map<List<Serializable>, List<String>> transactionCache = TransactionalResourceHelper.getMap("rm.rest.allowableOperations");
+        List<Serializable> key = getAllowableOperationsGroupKey(nodeRef, typeQName);
+        List<String> allowableOperations = transactionCache.get(key);
+        if (allowableOperations == null)
+        {
+            allowableOperations = evaluateAllowableOperations(nodeRef, typeQName);
+            transactionCache.put(key, allowableOperations);
+        }
+        return new ArrayList<>(allowableOperations);
+    }
+
+    /**
+     * Gets the key grouping the nodes that have the same allowable operations.
+     * <p>
+     * The Delete, FillingPermissionOnly and Update capabilities only depend on the
+     * permissions on the node, its kind and its frozen, cut off, declared and closed
+     * state.  These are all covered by the ACL, the dynamic authority properties, the type,
+     * the aspects and the closed state of the node and of the folders it is filed in.
+     *
+     * @param nodeRef   node reference
+     * @param typeQName type of the node
+     * @return {@link List}&lt;{@link Serializable}&gt; allowable operations group key
+     */
+    private List<Serializable> getAllowableOperationsGroupKey(NodeRef nodeRef, QName typeQName)
+    {
+        // the dynamic authorities are evaluated against these properties rather than the ACL
+        Map<QName, Serializable> props = nodeService.getProperties(nodeRef);
+        Serializable owner = props.get(ContentModel.PROP_OWNER);
+        if (owner == null)
+        {
+            owner = props.get(ContentModel.PROP_CREATOR);
+        }
+
+        // the extended security properties are deprecated, but the dynamic authorities still read them
+        @SuppressWarnings("deprecation")
+        Serializable readers = props.get(RecordsManagementModel.PROP_READERS);
+        @SuppressWarnings("deprecation")
+        Serializable writers = props.get(RecordsManagementModel.PROP_WRITERS);
+
+        // a record is closed when any of the folders it is filed in is closed
+        ArrayList<NodeRef> parents = new ArrayList<>();
+        for (ChildAssociationRef parentAssoc : nodeService.getParentAssocs(nodeRef, ContentModel.ASSOC_CONTAINS, RegexQNamePattern.MATCH_ALL))
+        {
+            parents.add(parentAssoc.getParentRef());
+        }
+
+        return Arrays.asList(authenticationUtil.getRunAsUser(),
+                             typeQName,
+                             new HashSet<>(nodeService.getAspects(nodeRef)),
+                             nodeService.getNodeAclId(nodeRef),
+                             owner,
+                             props.get(ContentModel.PROP_LOCK_OWNER),
+                             readers,
+                             writers,
+                             props.get(RecordsManagementModel.PROP_IS_CLOSED),
+                             parents);
+    }
+
+    /**
+     * Evaluates the allowable operations for the provided node.
+     */
+    private List<String> evaluateAllowableOperations(NodeRef nodeRef, QName typeQName)
     {
         List<String> allowableOperations = new ArrayList<>();
 
@@ -897,52 +993,7 @@ public class FilePlanComponentsApiUtils
 
     protected PathInfo lookupPathInfo(NodeRef nodeRefIn)
     {
-        List<ElementInfo> pathElements = new ArrayList<>();
-        Boolean isComplete = Boolean.TRUE;
-        final Path nodePath = nodeService.getPath(nodeRefIn);;
-        final int pathIndex = 2;
-
-        for (int i = nodePath.size() - pathIndex; i >= 0; i--)
-        {
-            Element element = nodePath.get(i);
-            if (element instanceof Path.ChildAssocElement)
-            {
-                ChildAssociationRef elementRef = ((Path.ChildAssocElement) element).getRef();
-                if (elementRef.getParentRef() != null)
-                {
-                    NodeRef childNodeRef = elementRef.getChildRef();
-                    if (permissionService.hasPermission(childNodeRef, PermissionService.READ) == AccessStatus.ALLOWED)
-                    {
-                        Serializable nameProp = nodeService.getProperty(childNodeRef, ContentModel.PROP_NAME);
-                        pathElements.add(0, new ElementInfo(childNodeRef.getId(), nameProp.toString()));
-                    }
-                    else
-                    {
-                        // Just return the pathInfo up to the location where the user has access
-                        isComplete = Boolean.FALSE;
-                        break;
-                    }
-                }
-            }
-        }
-
-        String pathStr = null;
-        if (!pathElements.isEmpty())
-        {
-            StringBuilder sb = new StringBuilder(120);
-            for (PathInfo.ElementInfo e : pathElements)
-            {
-                sb.append("/").append(e.getName());
-            }
-            pathStr = sb.toString();
-        }
-        else
-        {
-            // There is no path element, so set it to null in order to be
-            // ignored by Jackson during serialisation
-            isComplete = null;
-        }
-        return new PathInfo(pathStr, isComplete, pathElements);
+        return pathResolver.lookupPathInfo(nodeRefIn);
     }
 
     /**
@@ -0,0 +1,301 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.rm.rest.api.impl;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.alfresco.model.ContentModel;
+import org.alfresco.module.org_alfresco_module_rm.model.RecordsManagementModel;
+import org.alfresco.module.org_alfresco_module_rm.util.TransactionalResourceHelper;
+import org.alfresco.repo.cache.SimpleCache;
+import org.alfresco.repo.node.NodeServicePolicies;
+import org.alfresco.repo.policy.JavaBehaviour;
+import org.alfresco.repo.policy.PolicyComponent;
+import org.alfresco.repo.security.authentication.AuthenticationUtil;
+import org.alfresco.rest.api.model.PathInfo;
+import org.alfresco.rest.api.model.PathInfo.ElementInfo;
+import org.alfresco.service.cmr.repository.ChildAssociationRef;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.repository.NodeService;
+import org.alfresco.service.cmr.repository.Path;
+import org.alfresco.service.cmr.security.AccessStatus;
+import org.alfresco.service.cmr.security.PermissionService;
+import org.alfresco.service.namespace.QName;
+import org.alfresco.util.EqualsHelper;
+import org.alfresco.util.Pair;
+
+/**
+ * Resolves the primary parent and the path of the nodes returned by the REST API.
+ * <p>
+ * The unsecured path of each container is held in a shared cache, which is cleared
+ * whenever a file plan container is moved or renamed.  Primary parents and read
+ * permissions are remembered for the duration of the transaction, so the nodes of a
+ * page that share their ancestry only cause it to be resolved and checked once.
+ * <p>
+ * The RM search web script resolves the display paths of its results through here too.
+ *
+ * @since 2.7
+ */
+public class RMNodePathResolver implements RecordsManagementModel,
+                                           NodeServicePolicies.OnMoveNodePolicy,
+                                           NodeServicePolicies.OnUpdatePropertiesPolicy
+{
+    /** transaction resource keys */
+    private static final String KEY_PRIMARY_PARENTS = "rm.rest.pathResolver.primaryParents";
+    private static final String KEY_READABLE_NODES = "rm.rest.pathResolver.readableNodes.";
+
+    private NodeService nodeService;
+    private PermissionService permissionService;
+    private PolicyComponent policyComponent;
+    private TransactionalResourceHelper transactionalResourceHelper;
+
+    /** container node reference to the id and name of each element of its path, root excluded */
+    private SimpleCache<NodeRef, List<Pair<NodeRef, String>>> containerPathCache;
+
+    public void setNodeService(NodeService nodeService)
+    {
+        this.nodeService = nodeService;
+    }
+
+    public void setPermissionService(PermissionService permissionService)
+    {
+        this.permissionService = permissionService;
+    }
+
+    public void setPolicyComponent(PolicyComponent policyComponent)
+    {
+        this.policyComponent = policyComponent;
+    }
+
+    public void setTransactionalResourceHelper(TransactionalResourceHelper transactionalResourceHelper)
+    {
+        this.transactionalResourceHelper = transactionalResourceHelper;
+    }
+
+    public void setContainerPathCache(SimpleCache<NodeRef, List<Pair<NodeRef, String>>> containerPathCache)
+    {
+        this.containerPathCache = containerPathCache;
+    }
+
+    /**
+     * Initialisation method
+     */
+    public void init()
+    {
+        policyComponent.bindClassBehaviour(
+                NodeServicePolicies.OnMoveNodePolicy.QNAME,
+                ASPECT_FILE_PLAN_COMPONENT,
+                new JavaBehaviour(this, "onMoveNode"));
+        policyComponent.bindClassBehaviour(
+                NodeServicePolicies.OnUpdatePropertiesPolicy.QNAME,
+                ASPECT_FILE_PLAN_COMPONENT,
+                new JavaBehaviour(this, "onUpdateProperties"));
+    }
+
+    /**
+     * Moving a container changes the path of everything below it.  The moved node's
+     * primary parent is also forgotten for the rest of the transaction.
+     *
+     * @see org.alfresco.repo.node.NodeServicePolicies.OnMoveNodePolicy#onMoveNode(org.alfresco.service.cmr.repository.ChildAssociationRef, org.alfresco.service.cmr.repository.ChildAssociationRef)
+     */
+    @Override
+    public void onMoveNode(ChildAssociationRef oldChildAssocRef, ChildAssociationRef newChildAssocRef)
+    {
+        transactionalResourceHelper.getMap(KEY_PRIMARY_PARENTS).remove(newChildAssocRef.getChildRef());
+        if (isContainer(newChildAssocRef.getChildRef()))
+        {
+            containerPathCache.clear();
+        }
+    }
+
+    /**
+     * Renaming a container changes the path of everything below it.
+     *
+     * @see org.alfresco.repo.node.NodeServicePolicies.OnUpdatePropertiesPolicy#onUpdateProperties(org.alfresco.service.cmr.repository.NodeRef, java.util.Map, java.util.Map)
+     */
+    @Override
+    public void onUpdateProperties(NodeRef nodeRef, Map<QName, Serializable> before, Map<QName, Serializable> after)
+    {
+        if (!before.isEmpty() &&
+            !EqualsHelper.nullSafeEquals(before.get(ContentModel.PROP_NAME), after.get(ContentModel.PROP_NAME)) &&
+            isContainer(nodeRef))
+        {
+            containerPathCache.clear();
+        }
+    }
+
+    /**
+     * Records never have children, so only the moves and renames of other nodes matter.
+     */
+    private boolean isContainer(NodeRef nodeRef)
+    {
+        return nodeService.exists(nodeRef) && !nodeService.hasAspect(nodeRef, ASPECT_RECORD);
+    }
+
+    /**
+     * Get the primary parent of a node.
+     *
+     * @param nodeRef node reference
+     * @return primary parent node reference, null if the node is a root node
+     */
+    public NodeRef getPrimaryParent(NodeRef nodeRef)
+    {
+        Map<NodeRef, NodeRef> primaryParents = transactionalResourceHelper.getMap(KEY_PRIMARY_PARENTS);
+        if (primaryParents.containsKey(nodeRef))
+        {
+            return primaryParents.get(nodeRef);
+        }
+
+        NodeRef parent = nodeService.getPrimaryParent(nodeRef).getParentRef();
+        primaryParents.put(nodeRef, parent);
+        return parent;
+    }
+
+    /**
+     * Get the path of a node, as far up as the current user can read.
+     *
+     * @param nodeRef node reference
+     * @return path information
+     */
+    public PathInfo lookupPathInfo(NodeRef nodeRef)
+    {
+        List<ElementInfo> pathElements = new ArrayList<>();
+        Boolean isComplete = Boolean.TRUE;
+
+        NodeRef parent = getPrimaryParent(nodeRef);
+        if (parent != null)
+        {
+            Map<NodeRef, Boolean> readableNodes = transactionalResourceHelper.getMap(KEY_READABLE_NODES + AuthenticationUtil.getRunAsUser());
+            List<Pair<NodeRef, String>> containerPath = getContainerPath(parent);
+            for (int i = containerPath.size() - 1; i >= 0; i--)
+            {
+                Pair<NodeRef, String> element = containerPath.get(i);
+                if (isReadable(element.getFirst(), readableNodes))
+                {
+                    pathElements.add(0, new ElementInfo(element.getFirst().getId(), element.getSecond()));
+                }
+                else
+                {
+                    // Just return the pathInfo up to the location where the user has access
+                    isComplete = Boolean.FALSE;
+                    break;
+                }
+            }
+        }
+
+        String pathStr = null;
+        if (!pathElements.isEmpty())
+        {
+            StringBuilder sb = new StringBuilder(120);
+            for (PathInfo.ElementInfo e : pathElements)
+            {
+                sb.append("/").append(e.getName());
+            }
+            pathStr = sb.toString();
+        }
+        else
+        {
+            // There is no path element, so set it to null in order to be
+            // ignored by Jackson during serialisation
+            isComplete = null;
+        }
+        return new PathInfo(pathStr, isComplete, pathElements);
+    }
+
+    /**
+     * Get the display path of a node, as {@link Path#toDisplayPath(NodeService, PermissionService)}
+     * would build it: the names of its ancestors, with "..." in place of those the current user
+     * can not read.
+     *
+     * @param nodeRef node reference
+     * @return display path, empty for a root node
+     */
+    public String getDisplayPath(NodeRef nodeRef)
+    {
+        StringBuilder displayPath = new StringBuilder(120);
+
+        NodeRef parent = getPrimaryParent(nodeRef);
+        if (parent != null)
+        {
+            Map<NodeRef, Boolean> readableNodes = transactionalResourceHelper.getMap(KEY_READABLE_NODES + AuthenticationUtil.getRunAsUser());
+            for (Pair<NodeRef, String> element : getContainerPath(parent))
+            {
+                displayPath.append("/").append(isReadable(element.getFirst(), readableNodes) ? element.getSecond() : "...");
+            }
+        }
+        return displayPath.toString();
+    }
+
+    /**
+     * Check whether the current user can read a node, remembering the answer for the transaction.
+     */
+    private boolean isReadable(NodeRef nodeRef, Map<NodeRef, Boolean> readableNodes)
+    {
+        Boolean readable = readableNodes.get(nodeRef);
+        if (readable == null)
+        {
+            readable = (permissionService.hasPermission(nodeRef, PermissionService.READ) == AccessStatus.ALLOWED);
+            readableNodes.put(nodeRef, readable);
+        }
+        return readable;
+    }
+
+    /**
+     * Get the unsecured path of a container, including the container itself.
+     */
+    private List<Pair<NodeRef, String>> getContainerPath(NodeRef container)
+    {
+        List<Pair<NodeRef, String>> containerPath = containerPathCache.get(container);
+        if (containerPath == null)
+        {
+            Path path = nodeService.getPath(container);
+            containerPath = new ArrayList<>(path.size());
+            for (Path.Element element : path)
+            {
+                if (element instanceof Path.ChildAssocElement)
+                {
+                    ChildAssociationRef elementRef = ((Path.ChildAssocElement) element).getRef();
+                    if (elementRef.getParentRef() != null)
+                    {
+                        NodeRef childNodeRef = elementRef.getChildRef();
+                        Serializable nameProp = nodeService.getProperty(childNodeRef, ContentModel.PROP_NAME);
+                        containerPath.add(new Pair<>(childNodeRef, nameProp.toString()));
+                    }
+                }
+            }
+            containerPath = Collections.unmodifiableList(containerPath);
+            containerPathCache.put(container, containerPath);
+        }
+        return containerPath;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.rm.rest.api.model;
+
+import org.alfresco.service.cmr.repository.NodeRef;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * POJO object carrying information for one item of a bulk create request.
+ * <p>
+ * On input it describes the node to create and its parent, on output it
+ * additionally reports the outcome of creating that node.
+ *
+ * @since 2.7
+ */
+public class BulkCreateItem extends RMNode
+{
+    public static final String PARAM_STATUS_CODE = "statusCode";
+    public static final String PARAM_ERROR = "error";
+
+    private Integer statusCode;
+    private String error;
+
+    /** node committed for this item, kept across retries of the request and never read from or written to JSON */
+    private NodeRef createdNodeRef;
+
+    public BulkCreateItem()
+    {
+        super();
+    }
+
+    public Integer getStatusCode()
+    {
+        return statusCode;
+    }
+
+    public void setStatusCode(Integer statusCode)
+    {
+        this.statusCode = statusCode;
+    }
+
+    public String getError()
+    {
+        return error;
+    }
+
+    public void setError(String error)
+    {
+        this.error = error;
+    }
+
+    @JsonIgnore
+    public NodeRef getCreatedNodeRef()
+    {
+        return createdNodeRef;
+    }
+
+    @JsonIgnore
+    public void setCreatedNodeRef(NodeRef createdNodeRef)
+    {
+        this.createdNodeRef = createdNodeRef;
+    }
+}
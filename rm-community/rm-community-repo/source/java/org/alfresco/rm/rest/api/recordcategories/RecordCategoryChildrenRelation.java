@@ -142,6 +142,7 @@ public class RecordCategoryChildrenRelation implements RelationshipResourceActio
                 Util.getPagingRequest(parameters.getPaging()));
 
         final List<FileInfo> page = pagingResults.getPage();
+        nodesModelFactory.prefetchNodes(page, parameters);
         Map<String, UserInfo> mapUserInfo = new HashMap<>();
         List<RecordCategoryChild> nodes = new AbstractList<RecordCategoryChild>()
         {
@@ -122,6 +122,7 @@ public class RecordFolderChildrenRelation implements RelationshipResourceAction.
                 apiUtils.getSortProperties(parameters), null, Util.getPagingRequest(parameters.getPaging()));
 
         final List<FileInfo> page = pagingResults.getPage();
+        nodesModelFactory.prefetchNodes(page, parameters);
         Map<String, UserInfo> mapUserInfo = new HashMap<>();
         List<Record> nodes = new AbstractList<Record>()
         {
@@ -110,6 +110,7 @@ public class TransferContainerChildrenRelation implements RelationshipResourceAc
                 Util.getPagingRequest(parameters.getPaging()));
 
         final List<FileInfo> page = pagingResults.getPage();
+        nodesModelFactory.prefetchNodes(page, parameters);
         Map<String, UserInfo> mapUserInfo = new HashMap<>();
         List<Transfer> nodes = new AbstractList<Transfer>()
         {
@@ -106,6 +106,7 @@ public class TransferChildrenRelation implements RelationshipResourceAction.Read
                 Util.getPagingRequest(parameters.getPaging()));
 
         final List<FileInfo> page = pagingResults.getPage();
+        nodesModelFactory.prefetchNodes(page, parameters);
         Map<String, UserInfo> mapUserInfo = new HashMap<>();
         List<TransferChild> nodes = new AbstractList<TransferChild>()
         {
@@ -140,6 +140,7 @@ public class UnfiledContainerChildrenRelation implements RelationshipResourceAct
                 Util.getPagingRequest(parameters.getPaging()));
 
         final List<FileInfo> page = pagingResults.getPage();
+        nodesModelFactory.prefetchNodes(page, parameters);
         Map<String, UserInfo> mapUserInfo = new HashMap<>();
         List<UnfiledContainerChild> nodes = new AbstractList<UnfiledContainerChild>()
         {
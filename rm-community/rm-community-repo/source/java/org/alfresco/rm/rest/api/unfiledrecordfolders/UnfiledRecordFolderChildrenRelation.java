@@ -138,6 +138,7 @@ public class UnfiledRecordFolderChildrenRelation implements RelationshipResource
                 Util.getPagingRequest(parameters.getPaging()));
 
         final List<FileInfo> page = pagingResults.getPage();
+        nodesModelFactory.prefetchNodes(page, parameters);
         Map<String, UserInfo> mapUserInfo = new HashMap<>();
         List<UnfiledRecordFolderChild> nodes = new AbstractList<UnfiledRecordFolderChild>()
         {
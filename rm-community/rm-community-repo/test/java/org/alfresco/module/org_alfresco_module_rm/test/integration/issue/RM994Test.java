@@ -27,6 +27,7 @@
 
 package org.alfresco.module.org_alfresco_module_rm.test.integration.issue;
 
+import org.alfresco.module.org_alfresco_module_rm.job.PublishUpdatesJobExecuter;
 import org.alfresco.module.org_alfresco_module_rm.test.util.BaseRMTestCase;
 import org.alfresco.module.org_alfresco_module_rm.vital.VitalRecordDefinition;
 import org.alfresco.service.cmr.repository.NodeRef;
@@ -74,6 +75,14 @@ public class RM994Test extends BaseRMTestCase
 
                 return null;
             }
+
+            @Override
+            public void test(Void result) throws Exception
+            {
+                // publish the vital record definition to the contents of the category
+                PublishUpdatesJobExecuter updater = (PublishUpdatesJobExecuter)applicationContext.getBean("publishUpdatesJobExecuter");
+                updater.executeImpl();
+            }
         });
 
         doTestInTransaction(new Test<Void>()
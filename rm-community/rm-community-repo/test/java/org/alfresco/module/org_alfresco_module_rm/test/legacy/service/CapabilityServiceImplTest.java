@@ -27,13 +27,17 @@
 
 package org.alfresco.module.org_alfresco_module_rm.test.legacy.service;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import org.alfresco.module.org_alfresco_module_rm.capability.Capability;
 import org.alfresco.module.org_alfresco_module_rm.capability.CapabilityService;
 import org.alfresco.module.org_alfresco_module_rm.capability.Group;
 import org.alfresco.module.org_alfresco_module_rm.capability.GroupImpl;
 import org.alfresco.module.org_alfresco_module_rm.test.util.BaseRMTestCase;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.security.AccessStatus;
 
 /**
  * Test class for testing the methods in {@link CapabilityService}
@@ -43,6 +47,12 @@ import org.alfresco.module.org_alfresco_module_rm.test.util.BaseRMTestCase;
  */
 public class CapabilityServiceImplTest extends BaseRMTestCase
 {
+    @Override
+    protected boolean isRecordTest()
+    {
+        return true;
+    }
+
     public void testGetAddRemoveGroups() throws Exception
     {
         doTestInTransaction(new Test<Void>()
@@ -141,4 +151,42 @@ public class CapabilityServiceImplTest extends BaseRMTestCase
             }
         });
     }
+
+    public void testGetCapabilitiesAccessStateForNodes() throws Exception
+    {
+        doTestInTransaction(new Test<Void>()
+        {
+            @Override
+            public Void run() throws Exception
+            {
+                List<NodeRef> nodeRefs = Arrays.asList(rmContainer, rmFolder, recordOne, recordTwo);
+                Map<NodeRef, Map<Capability, AccessStatus>> accessStates = capabilityService.getCapabilitiesAccessState(nodeRefs, true);
+                assertEquals(nodeRefs.size(), accessStates.size());
+
+                // the batch gives the same result as evaluating each node on its own
+                for (NodeRef nodeRef : nodeRefs)
+                {
+                    assertEquals(capabilityService.getCapabilitiesAccessState(nodeRef, true), accessStates.get(nodeRef));
+                }
+
+                return null;
+            }
+        });
+
+        doTestInTransaction(new Test<Void>()
+        {
+            @Override
+            public Void run() throws Exception
+            {
+                List<String> capabilityNames = Arrays.asList("ViewRecords", "EditRecordMetadata", "unknownCapability");
+                Map<NodeRef, Map<Capability, AccessStatus>> accessStates = capabilityService.getCapabilitiesAccessState(Arrays.asList(recordOne), capabilityNames);
+
+                Map<Capability, AccessStatus> accessState = accessStates.get(recordOne);
+                assertEquals(2, accessState.size());
+                assertEquals(AccessStatus.ALLOWED, accessState.get(capabilityService.getCapability("ViewRecords")));
+
+                return null;
+            }
+        });
+    }
 }
@@ -34,6 +34,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.alfresco.error.AlfrescoRuntimeException;
 import org.alfresco.module.org_alfresco_module_rm.RecordsManagementPolicies;
 import org.alfresco.module.org_alfresco_module_rm.RecordsManagementPolicies.BeforeCreateReference;
 import org.alfresco.module.org_alfresco_module_rm.RecordsManagementPolicies.OnCreateReference;
@@ -377,6 +378,228 @@ public class RecordsManagementAdminServiceImplTest extends    BaseRMTestCase
         });
     }
 
+    /**
+     * @see RecordsManagementAdminService#applyCustomModelChanges(org.alfresco.module.org_alfresco_module_rm.admin.RecordsManagementAdminService.CustomModelChanges)
+     */
+    public void testApplyCustomModelChanges() throws Exception
+    {
+        final QName propOne = QName.createQName(RecordsManagementCustomModel.RM_CUSTOM_URI, "myBatchProp1" + testRunID);
+        final QName propTwo = QName.createQName(RecordsManagementCustomModel.RM_CUSTOM_URI, "myBatchProp2" + testRunID);
+
+        // Add two properties in one change set
+        doTestInTransaction(new Test<List<QName>>()
+        {
+            @Override
+            public List<QName> run() throws Exception
+            {
+                return rmAdminService.applyCustomModelChanges(new RecordsManagementAdminService.CustomModelChanges<List<QName>>()
+                {
+                    @Override
+                    public List<QName> apply() throws CustomMetadataException
+                    {
+                        List<QName> result = new ArrayList<QName>(2);
+                        result.add(rmAdminService.addCustomPropertyDefinition(propOne, ASPECT_RECORD, "BatchLabel1", DataTypeDefinition.TEXT, "Title", "Description"));
+                        result.add(rmAdminService.addCustomPropertyDefinition(propTwo, ASPECT_RECORD, "BatchLabel2", DataTypeDefinition.INT, "Title", "Description"));
+                        return result;
+                    }
+                });
+            }
+
+            @Override
+            public void test(List<QName> result) throws Exception
+            {
+                createdCustomProperties.addAll(result);
+
+                Map<QName, PropertyDefinition> propDefs = rmAdminService.getCustomPropertyDefinitions(ASPECT_RECORD);
+                assertEquals("BatchLabel1", propDefs.get(propOne).getTitle(dictionaryService));
+                assertEquals(DataTypeDefinition.INT, propDefs.get(propTwo).getDataType().getName());
+            }
+        });
+
+        // Failure: later changes in a set see the earlier ones
+        doTestInTransaction(new FailureTest
+        (
+            "Can not create a property with the same id twice in one change set",
+            CustomMetadataException.class
+        )
+        {
+            @Override
+            public void run() throws Exception
+            {
+                final QName propThree = QName.createQName(RecordsManagementCustomModel.RM_CUSTOM_URI, "myBatchProp3" + testRunID);
+                rmAdminService.applyCustomModelChanges(new RecordsManagementAdminService.CustomModelChanges<Void>()
+                {
+                    @Override
+                    public Void apply() throws CustomMetadataException
+                    {
+                        rmAdminService.addCustomPropertyDefinition(propThree, ASPECT_RECORD, "BatchLabel3", DataTypeDefinition.TEXT, "Title", "Description");
+                        rmAdminService.addCustomPropertyDefinition(propThree, ASPECT_RECORD, "BatchLabel3", DataTypeDefinition.TEXT, "Title", "Description");
+                        return null;
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * @see RecordsManagementAdminService#applyCustomModelChanges(org.alfresco.module.org_alfresco_module_rm.admin.RecordsManagementAdminService.CustomModelChanges)
+     */
+    public void testApplyCustomModelChangesUpdatesAddedProperties() throws Exception
+    {
+        final QName propOne = QName.createQName(RecordsManagementCustomModel.RM_CUSTOM_URI, "myBatchUpdateProp1" + testRunID);
+        final QName propTwo = QName.createQName(RecordsManagementCustomModel.RM_CUSTOM_URI, "myBatchUpdateProp2" + testRunID);
+        final String renamedLocalName = "myBatchRenamedProp" + testRunID;
+        final QName propRenamed = QName.createQName(RecordsManagementCustomModel.RM_CUSTOM_URI, renamedLocalName);
+
+        // Add properties and update them in the same change set
+        doTestInTransaction(new Test<Void>()
+        {
+            @Override
+            public Void run() throws Exception
+            {
+                return rmAdminService.applyCustomModelChanges(new RecordsManagementAdminService.CustomModelChanges<Void>()
+                {
+                    @Override
+                    public Void apply() throws CustomMetadataException
+                    {
+                        rmAdminService.addCustomPropertyDefinition(propOne, ASPECT_RECORD, "BatchUpdateLabel1", DataTypeDefinition.TEXT, "Title", "Description");
+                        rmAdminService.updateCustomPropertyDefinitionName(propOne, renamedLocalName);
+
+                        rmAdminService.addCustomPropertyDefinition(propTwo, ASPECT_RECORD, "BatchUpdateLabel2", DataTypeDefinition.TEXT, "Title", "Description");
+                        rmAdminService.setCustomPropertyDefinitionLabel(propTwo, "BatchUpdateLabel2Changed");
+                        rmAdminService.setCustomPropertyDefinitionConstraint(propTwo, RecordsManagementCustomModel.CONSTRAINT_CUSTOM_SMLIST);
+                        return null;
+                    }
+                });
+            }
+
+            @Override
+            public void test(Void result) throws Exception
+            {
+                createdCustomProperties.add(propRenamed);
+                createdCustomProperties.add(propTwo);
+
+                assertFalse(rmAdminService.existsCustomProperty(propOne));
+                assertTrue(rmAdminService.existsCustomProperty(propRenamed));
+
+                PropertyDefinition propDef = rmAdminService.getCustomPropertyDefinitions(ASPECT_RECORD).get(propTwo);
+                assertNotNull(propDef);
+                assertEquals("BatchUpdateLabel2Changed", propDef.getTitle(dictionaryService));
+                assertEquals(1, propDef.getConstraints().size());
+                assertEquals("rmc:smList", propDef.getConstraints().get(0).getConstraint().getShortName());
+            }
+        });
+    }
+
+    /**
+     * @see RecordsManagementAdminService#applyCustomModelChanges(org.alfresco.module.org_alfresco_module_rm.admin.RecordsManagementAdminService.CustomModelChanges)
+     */
+    public void testApplyCustomModelChangesRemovesAddedProperty() throws Exception
+    {
+        final QName propOne = QName.createQName(RecordsManagementCustomModel.RM_CUSTOM_URI, "myBatchRemoveProp1" + testRunID);
+
+        // Add a property, constrain it and remove it again in the same change set
+        doTestInTransaction(new Test<Void>()
+        {
+            @Override
+            public Void run() throws Exception
+            {
+                return rmAdminService.applyCustomModelChanges(new RecordsManagementAdminService.CustomModelChanges<Void>()
+                {
+                    @Override
+                    public Void apply() throws CustomMetadataException
+                    {
+                        rmAdminService.addCustomPropertyDefinition(propOne, ASPECT_RECORD, "BatchRemoveLabel1", DataTypeDefinition.TEXT, "Title", "Description");
+                        rmAdminService.setCustomPropertyDefinitionConstraint(propOne, RecordsManagementCustomModel.CONSTRAINT_CUSTOM_SMLIST);
+                        rmAdminService.removeCustomPropertyDefinitionConstraints(propOne);
+                        assertTrue(rmAdminService.existsCustomProperty(propOne));
+
+                        rmAdminService.removeCustomPropertyDefinition(propOne);
+                        assertFalse(rmAdminService.existsCustomProperty(propOne));
+                        return null;
+                    }
+                });
+            }
+
+            @Override
+            public void test(Void result) throws Exception
+            {
+                assertFalse(rmAdminService.existsCustomProperty(propOne));
+                assertNull(rmAdminService.getCustomPropertyDefinitions(ASPECT_RECORD).get(propOne));
+            }
+        });
+
+        // Failure: a property removed earlier in the set can not be updated
+        doTestInTransaction(new FailureTest
+        (
+            "Can not relabel a property removed earlier in the change set",
+            AlfrescoRuntimeException.class
+        )
+        {
+            @Override
+            public void run() throws Exception
+            {
+                final QName propTwo = QName.createQName(RecordsManagementCustomModel.RM_CUSTOM_URI, "myBatchRemoveProp2" + testRunID);
+                rmAdminService.applyCustomModelChanges(new RecordsManagementAdminService.CustomModelChanges<Void>()
+                {
+                    @Override
+                    public Void apply() throws CustomMetadataException
+                    {
+                        rmAdminService.addCustomPropertyDefinition(propTwo, ASPECT_RECORD, "BatchRemoveLabel2", DataTypeDefinition.TEXT, "Title", "Description");
+                        rmAdminService.removeCustomPropertyDefinition(propTwo);
+                        rmAdminService.setCustomPropertyDefinitionLabel(propTwo, "BatchRemoveLabel2Changed");
+                        return null;
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * @see RecordsManagementAdminService#applyCustomModelChanges(org.alfresco.module.org_alfresco_module_rm.admin.RecordsManagementAdminService.CustomModelChanges)
+     */
+    public void testApplyCustomModelChangesMakeCustomisable() throws Exception
+    {
+        final QName propOne = QName.createQName(RecordsManagementCustomModel.RM_CUSTOM_URI, "myBatchCustomTypeProp1" + testRunID);
+
+        // Make a type customisable and give it a property in the same change set
+        doTestInTransaction(new Test<QName>()
+        {
+            @Override
+            public QName run() throws Exception
+            {
+                return rmAdminService.applyCustomModelChanges(new RecordsManagementAdminService.CustomModelChanges<QName>()
+                {
+                    @Override
+                    public QName apply() throws CustomMetadataException
+                    {
+                        rmAdminService.makeCustomisable(TYPE_CUSTOM_TYPE);
+                        madeCustomisable.add(TYPE_CUSTOM_TYPE);
+
+                        // making it customisable again in the same set is a no-op
+                        rmAdminService.makeCustomisable(TYPE_CUSTOM_TYPE);
+
+                        QName result = rmAdminService.addCustomPropertyDefinition(propOne, TYPE_CUSTOM_TYPE, "BatchCustomTypeLabel1", DataTypeDefinition.TEXT, "Title", "Description");
+                        rmAdminService.setCustomPropertyDefinitionLabel(result, "BatchCustomTypeLabel1Changed");
+                        return result;
+                    }
+                });
+            }
+
+            @Override
+            public void test(QName result) throws Exception
+            {
+                createdCustomProperties.add(result);
+
+                assertTrue(rmAdminService.isCustomisable(TYPE_CUSTOM_TYPE));
+                Map<QName, PropertyDefinition> propDefs = rmAdminService.getCustomPropertyDefinitions(TYPE_CUSTOM_TYPE);
+                assertNotNull(propDefs);
+                assertEquals(1, propDefs.size());
+                assertEquals("BatchCustomTypeLabel1Changed", propDefs.get(propOne).getTitle(dictionaryService));
+            }
+        });
+    }
+
     /**
      * @see RecordsManagementAdminService#makeCustomisable(QName)
      */
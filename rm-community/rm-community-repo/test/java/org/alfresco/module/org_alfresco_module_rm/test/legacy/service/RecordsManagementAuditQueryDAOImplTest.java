@@ -0,0 +1,452 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.module.org_alfresco_module_rm.test.legacy.service;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.alfresco.module.org_alfresco_module_rm.query.RecordsManagementAuditQueryDAO;
+import org.alfresco.module.org_alfresco_module_rm.test.util.BaseRMTestCase;
+import org.alfresco.repo.audit.AuditComponent;
+import org.alfresco.service.cmr.audit.AuditQueryParameters;
+import org.alfresco.service.cmr.audit.AuditService.AuditQueryCallback;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.util.GUID;
+
+/**
+ * Records management audit query DAO test
+ * <p>
+ * The audit entries are written straight through the audit component so that each test
+ * knows exactly which entries there are:
+ * <pre>
+ *  entry  user             node         event
+ *  one    admin            rmFolder     eventOne
+ *  two    admin            rmContainer  eventOne
+ *  ---------------------------------------------- midTime
+ *  three  records manager  rmFolder     eventTwo
+ *  four   records manager  rmContainer  eventOne
+ * </pre>
+ *
+ * @since 2.7
+ */
+public class RecordsManagementAuditQueryDAOImplTest extends BaseRMTestCase
+{
+    private static final String RM_AUDIT_APPLICATION_NAME = "RM";
+    private static final String RM_AUDIT_PATH_ROOT = "/RM";
+    private static final String RM_AUDIT_DATA_EVENT_NAME = "/RM/event/name/value";
+    private static final String RM_AUDIT_DATA_NODE_NODEREF = "/RM/event/node/noderef";
+
+    /** audit query DAO */
+    private RecordsManagementAuditQueryDAO auditQueryDAO;
+
+    /** audit component */
+    private AuditComponent auditComponent;
+
+    /** events, unique to the test so no other audit entries match them */
+    private String eventOne;
+    private String eventTwo;
+
+    /** time before the first entry and between the second and third entries */
+    private long startTime;
+    private long midTime;
+
+    /** the entries, in the order they were written */
+    private AuditEntry one;
+    private AuditEntry two;
+    private AuditEntry three;
+    private AuditEntry four;
+
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.test.util.BaseRMTestCase#initServices()
+     */
+    @Override
+    protected void initServices()
+    {
+        super.initServices();
+
+        auditQueryDAO = (RecordsManagementAuditQueryDAO)applicationContext.getBean("recordsManagementAuditQueryDAO");
+        auditComponent = (AuditComponent)applicationContext.getBean("auditComponent");
+    }
+
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.test.util.BaseRMTestCase#isUserTest()
+     */
+    @Override
+    protected boolean isUserTest()
+    {
+        return true;
+    }
+
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.test.util.BaseRMTestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        doTestInTransaction(new Test<Void>()
+        {
+            @Override
+            public Void run() throws Exception
+            {
+                rmAuditService.startAuditLog(filePlan);
+                return null;
+            }
+        });
+
+        eventOne = "eventOne-" + GUID.generate();
+        eventTwo = "eventTwo-" + GUID.generate();
+
+        startTime = nextMillisecond();
+        recordEntry(ADMIN_USER, rmFolder, eventOne);
+        recordEntry(ADMIN_USER, rmContainer, eventOne);
+        midTime = nextMillisecond();
+        recordEntry(recordsManagerName, rmFolder, eventTwo);
+        recordEntry(recordsManagerName, rmContainer, eventOne);
+
+        List<AuditEntry> entries = findEntries(params(startTime, null), 0);
+        assertEquals(4, entries.size());
+        one = entries.get(0);
+        two = entries.get(1);
+        three = entries.get(2);
+        four = entries.get(3);
+
+        assertEquals(new AuditEntry(0L, ADMIN_USER, rmFolder, eventOne), one);
+        assertEquals(new AuditEntry(0L, ADMIN_USER, rmContainer, eventOne), two);
+        assertEquals(new AuditEntry(0L, recordsManagerName, rmFolder, eventTwo), three);
+        assertEquals(new AuditEntry(0L, recordsManagerName, rmContainer, eventOne), four);
+    }
+
+    /**
+     * Test that the entries are returned in id order, forwards or backwards
+     */
+    public void testOrdering()
+    {
+        assertTrue(one.id < two.id && two.id < three.id && three.id < four.id);
+
+        AuditQueryParameters params = params(startTime, null);
+        params.setForward(false);
+        checkEntries(params, 0, four, three, two, one);
+
+        // without a time range the entries are the last ones in the application
+        List<AuditEntry> entries = findEntries(params(null, null), 0);
+        assertTrue(entries.size() >= 4);
+        assertEquals(Arrays.asList(one, two, three, four), entries.subList(entries.size() - 4, entries.size()));
+    }
+
+    /**
+     * Test the time range filter
+     */
+    public void testDateRange()
+    {
+        checkEntries(params(midTime, null), 0, three, four);
+        checkEntries(params(startTime, midTime), 0, one, two);
+        checkEntries(params(startTime, startTime), 0);
+    }
+
+    /**
+     * Test the id range filter
+     */
+    public void testIdRange()
+    {
+        AuditQueryParameters params = params(null, null);
+        params.setFromId(two.id);
+        params.setToId(four.id);
+        checkEntries(params, 0, two, three);
+    }
+
+    /**
+     * Test the user filter, on its own and with a time range
+     */
+    public void testUser()
+    {
+        AuditQueryParameters params = params(startTime, null);
+        params.setUser(recordsManagerName);
+        checkEntries(params, 0, three, four);
+
+        params = params(startTime, null);
+        params.setUser(ADMIN_USER);
+        checkEntries(params, 0, one, two);
+
+        params = params(startTime, midTime);
+        params.setUser(recordsManagerName);
+        checkEntries(params, 0);
+
+        // a user that has never been audited
+        params = params(null, null);
+        params.setUser(GUID.generate());
+        checkEntries(params, 0);
+    }
+
+    /**
+     * Test the node filter, on its own and with a time range
+     */
+    public void testNode()
+    {
+        AuditQueryParameters params = params(startTime, null);
+        params.addSearchKey(RM_AUDIT_DATA_NODE_NODEREF, rmFolder);
+        checkEntries(params, 0, one, three);
+
+        params = params(midTime, null);
+        params.addSearchKey(RM_AUDIT_DATA_NODE_NODEREF, rmContainer);
+        checkEntries(params, 0, four);
+    }
+
+    /**
+     * Test the event filter, on its own and with a time range
+     */
+    public void testEvent()
+    {
+        AuditQueryParameters params = params(null, null);
+        params.addSearchKey(RM_AUDIT_DATA_EVENT_NAME, eventOne);
+        checkEntries(params, 0, one, two, four);
+
+        params = params(startTime, midTime);
+        params.addSearchKey(RM_AUDIT_DATA_EVENT_NAME, eventTwo);
+        checkEntries(params, 0);
+
+        // an event that has never been audited
+        params = params(null, null);
+        params.addSearchKey(RM_AUDIT_DATA_EVENT_NAME, GUID.generate());
+        checkEntries(params, 0);
+    }
+
+    /**
+     * Test the node and event filters together, with and without the user and time range
+     */
+    public void testNodeAndEvent()
+    {
+        AuditQueryParameters params = params(null, null);
+        params.addSearchKey(RM_AUDIT_DATA_NODE_NODEREF, rmFolder);
+        params.addSearchKey(RM_AUDIT_DATA_EVENT_NAME, eventOne);
+        checkEntries(params, 0, one);
+
+        params = params(null, null);
+        params.addSearchKey(RM_AUDIT_DATA_NODE_NODEREF, rmContainer);
+        params.addSearchKey(RM_AUDIT_DATA_EVENT_NAME, eventOne);
+        checkEntries(params, 0, two, four);
+
+        params.setUser(recordsManagerName);
+        checkEntries(params, 0, four);
+
+        params = params(startTime, midTime);
+        params.addSearchKey(RM_AUDIT_DATA_NODE_NODEREF, rmContainer);
+        params.addSearchKey(RM_AUDIT_DATA_EVENT_NAME, eventOne);
+        params.setUser(ADMIN_USER);
+        checkEntries(params, 0, two);
+
+        // the search keys are matched in any order
+        params = params(null, null);
+        params.addSearchKey(RM_AUDIT_DATA_EVENT_NAME, eventTwo);
+        params.addSearchKey(RM_AUDIT_DATA_NODE_NODEREF, rmFolder);
+        checkEntries(params, 0, three);
+    }
+
+    /**
+     * Test the maximum number of entries, for each filter and in both directions
+     */
+    public void testMaxEntries()
+    {
+        checkEntries(params(startTime, null), 3, one, two, three);
+
+        AuditQueryParameters params = params(startTime, null);
+        params.setForward(false);
+        checkEntries(params, 3, four, three, two);
+
+        params = params(null, null);
+        params.addSearchKey(RM_AUDIT_DATA_EVENT_NAME, eventOne);
+        checkEntries(params, 2, one, two);
+        params.setForward(false);
+        checkEntries(params, 2, four, two);
+
+        params = params(null, null);
+        params.addSearchKey(RM_AUDIT_DATA_NODE_NODEREF, rmFolder);
+        checkEntries(params, 1, one);
+
+        params = params(startTime, null);
+        params.setUser(recordsManagerName);
+        checkEntries(params, 1, three);
+
+        checkEntries(params(midTime, null), 5, three, four);
+    }
+
+    /**
+     * Helper method to build query parameters for the RM audit application.
+     *
+     * @param fromTime  inclusive start of the time range, null for none
+     * @param toTime    exclusive end of the time range, null for none
+     * @return {@link AuditQueryParameters} query parameters
+     */
+    private AuditQueryParameters params(Long fromTime, Long toTime)
+    {
+        AuditQueryParameters params = new AuditQueryParameters();
+        params.setApplicationName(RM_AUDIT_APPLICATION_NAME);
+        params.setFromTime(fromTime);
+        params.setToTime(toTime);
+        return params;
+    }
+
+    /**
+     * Helper method to check the entries found by a query.
+     *
+     * @param params        query parameters
+     * @param maxResults    maximum number of entries, zero for no limit
+     * @param expected      the expected entries, in order
+     */
+    private void checkEntries(AuditQueryParameters params, int maxResults, AuditEntry... expected)
+    {
+        assertEquals(Arrays.asList(expected), findEntries(params, maxResults));
+    }
+
+    /**
+     * Helper method to find the audit entries matching a query.
+     *
+     * @param params        query parameters
+     * @param maxResults    maximum number of entries, zero for no limit
+     * @return {@link List}&lt;{@link AuditEntry}&gt; entries in the order they were found
+     */
+    private List<AuditEntry> findEntries(final AuditQueryParameters params, final int maxResults)
+    {
+        return doTestInTransaction(new Test<List<AuditEntry>>()
+        {
+            @Override
+            public List<AuditEntry> run() throws Exception
+            {
+                final List<AuditEntry> entries = new ArrayList<AuditEntry>();
+                auditQueryDAO.findAuditEntries(new AuditQueryCallback()
+                {
+                    @Override
+                    public boolean valuesRequired()
+                    {
+                        return true;
+                    }
+
+                    @Override
+                    public boolean handleAuditEntry(Long entryId, String applicationName, String user, long time, Map<String, Serializable> values)
+                    {
+                        entries.add(new AuditEntry(entryId, user, (NodeRef)values.get(RM_AUDIT_DATA_NODE_NODEREF), (String)values.get(RM_AUDIT_DATA_EVENT_NAME)));
+                        return true;
+                    }
+
+                    @Override
+                    public boolean handleAuditEntryError(Long entryId, String errorMsg, Throwable error)
+                    {
+                        fail(errorMsg);
+                        return false;
+                    }
+                }, params, maxResults);
+                return entries;
+            }
+        });
+    }
+
+    /**
+     * Helper method to write an audit entry.
+     *
+     * @param user      user the entry is written as
+     * @param nodeRef   audited node
+     * @param event     audited event
+     */
+    private void recordEntry(final String user, final NodeRef nodeRef, final String event)
+    {
+        doTestInTransaction(new Test<Void>()
+        {
+            @Override
+            public Void run() throws Exception
+            {
+                Map<String, Serializable> auditMap = new HashMap<String, Serializable>(2);
+                auditMap.put("/event/name", event);
+                auditMap.put("/event/node", nodeRef);
+                assertFalse(auditComponent.recordAuditValues(RM_AUDIT_PATH_ROOT, auditMap).isEmpty());
+                return null;
+            }
+        }, user);
+    }
+
+    /**
+     * Helper method to get a time that is after everything audited so far and before anything
+     * audited from now on.
+     *
+     * @return long time in milliseconds
+     */
+    private long nextMillisecond() throws InterruptedException
+    {
+        Thread.sleep(2);
+        long time = System.currentTimeMillis();
+        Thread.sleep(2);
+        return time;
+    }
+
+    /**
+     * An audit entry, compared on everything but its id so that the expected entries can be
+     * built from the values that were audited.
+     */
+    private static class AuditEntry
+    {
+        private final Long id;
+        private final String user;
+        private final NodeRef nodeRef;
+        private final String event;
+
+        private AuditEntry(Long id, String user, NodeRef nodeRef, String event)
+        {
+            this.id = id;
+            this.user = user;
+            this.nodeRef = nodeRef;
+            this.event = event;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof AuditEntry))
+            {
+                return false;
+            }
+            AuditEntry other = (AuditEntry)obj;
+            return user.equals(other.user) && nodeRef.equals(other.nodeRef) && event.equals(other.event);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return event.hashCode();
+        }
+
+        @Override
+        public String toString()
+        {
+            return id + ": " + user + " " + nodeRef + " " + event;
+        }
+    }
+}
@@ -28,6 +28,8 @@
 package org.alfresco.module.org_alfresco_module_rm.test.legacy.service;
 
 import java.io.Serializable;
+import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -38,6 +40,7 @@ import org.alfresco.model.ContentModel;
 import org.alfresco.module.org_alfresco_module_rm.audit.RecordsManagementAuditEntry;
 import org.alfresco.module.org_alfresco_module_rm.audit.RecordsManagementAuditQueryParameters;
 import org.alfresco.module.org_alfresco_module_rm.audit.RecordsManagementAuditService;
+import org.alfresco.module.org_alfresco_module_rm.audit.RecordsManagementAuditServiceImpl;
 import org.alfresco.module.org_alfresco_module_rm.audit.event.AuditEvent;
 import org.alfresco.module.org_alfresco_module_rm.capability.RMPermissionModel;
 import org.alfresco.module.org_alfresco_module_rm.test.util.BaseRMTestCase;
@@ -199,6 +202,89 @@ public class RecordsManagementAuditServiceImplTest extends BaseRMTestCase
         });
     }
     
+    /**
+     * Test that the audit trail is the same whatever the size of the pages it is read in.
+     */
+    public void testGetAuditTrailInPages()
+    {
+        updateTitle(filePlan, ADMIN_USER);
+        updateTitle(rmFolder, ADMIN_USER);
+        updateTitle(record, ADMIN_USER);
+
+        List<RecordsManagementAuditEntry> entries = getAuditTrail(ADMIN_USER);
+
+        RecordsManagementAuditServiceImpl rmAuditServiceImpl = (RecordsManagementAuditServiceImpl)applicationContext.getBean("recordsManagementAuditService");
+        rmAuditServiceImpl.setAuditQueryPageSize(1);
+        try
+        {
+            // the view of the first audit trail is audited too
+            List<RecordsManagementAuditEntry> pagedEntries = getAuditTrail(entries.size() + 1, ADMIN_USER);
+
+            assertEquals("audit.view", pagedEntries.get(0).getEvent());
+            for (int i = 0; i < entries.size(); i++)
+            {
+                assertEquals(entries.get(i).getEvent(), pagedEntries.get(i + 1).getEvent());
+                assertEquals(entries.get(i).getTimestamp(), pagedEntries.get(i + 1).getTimestamp());
+            }
+
+            // show the results are still limited
+            RecordsManagementAuditQueryParameters params = new RecordsManagementAuditQueryParameters();
+            params.setMaxEntries(2);
+            getAuditTrail(params, 2, ADMIN_USER);
+        }
+        finally
+        {
+            rmAuditServiceImpl.setAuditQueryPageSize(500);
+        }
+    }
+
+    /**
+     * Test that the audit trail is handed over to the writer a page at a time rather than
+     * once all the entries have been written.
+     */
+    public void testWriteAuditTrailFlushesPages()
+    {
+        updateTitle(filePlan, ADMIN_USER);
+        updateTitle(rmFolder, ADMIN_USER);
+        updateTitle(record, ADMIN_USER);
+
+        RecordsManagementAuditServiceImpl rmAuditServiceImpl = (RecordsManagementAuditServiceImpl)applicationContext.getBean("recordsManagementAuditService");
+        rmAuditServiceImpl.setAuditQueryPageSize(1);
+        try
+        {
+            // the length of the audit trail written at each flush
+            final List<Integer> flushedLengths = new ArrayList<Integer>();
+            final StringWriter writer = new StringWriter()
+            {
+                @Override
+                public void flush()
+                {
+                    flushedLengths.add(getBuffer().length());
+                }
+            };
+
+            doTestInTransaction(new Test<Void>()
+            {
+                @Override
+                public Void run() throws Exception
+                {
+                    rmAuditService.writeAuditTrail(new RecordsManagementAuditQueryParameters(), writer, RecordsManagementAuditService.ReportFormat.JSON);
+                    return null;
+                }
+            }, ADMIN_USER);
+
+            int auditTrailLength = writer.getBuffer().length();
+            assertTrue("Expected a flush per entry: " + flushedLengths, flushedLengths.size() > 3);
+            assertTrue(flushedLengths.get(0) > 0);
+            assertTrue(flushedLengths.get(0) < auditTrailLength);
+            assertEquals(auditTrailLength, flushedLengths.get(flushedLengths.size() - 1).intValue());
+        }
+        finally
+        {
+            rmAuditServiceImpl.setAuditQueryPageSize(500);
+        }
+    }
+
     /**
      * Test getAuditTrail method and parameter filters.
      */
@@ -292,6 +378,12 @@ public class RecordsManagementAuditServiceImplTest extends BaseRMTestCase
         params.setEvent("Update RM Object");
         getAuditTrail(params, 10, ADMIN_USER);
 
+        // test filter by object and event
+        params.setNodeRef(record);
+        getAuditTrail(params, 5, ADMIN_USER);
+        params.setUser(recordsManagerName);
+        getAuditTrail(params, 1, ADMIN_USER);
+
         // test filter by property
        // params = new RecordsManagementAuditQueryParameters();
         //params.setProperty(PROP_ADDRESSEES);
@@ -29,12 +29,17 @@ package org.alfresco.module.org_alfresco_module_rm.test.legacy.service;
 
 import java.util.List;
 
+import org.alfresco.model.ContentModel;
 import org.alfresco.module.org_alfresco_module_rm.event.RecordsManagementEvent;
+import org.alfresco.module.org_alfresco_module_rm.event.RecordsManagementEventServiceImpl.EventConfiguration;
 import org.alfresco.module.org_alfresco_module_rm.event.RecordsManagementEventType;
 import org.alfresco.module.org_alfresco_module_rm.model.RecordsManagementModel;
 import org.alfresco.module.org_alfresco_module_rm.test.util.BaseRMTestCase;
+import org.alfresco.repo.cache.SimpleCache;
 import org.alfresco.repo.security.authentication.AuthenticationUtil;
 import org.alfresco.repo.transaction.RetryingTransactionHelper;
+import org.alfresco.service.cmr.repository.ContentData;
+import org.alfresco.service.cmr.repository.NodeRef;
 import org.alfresco.service.cmr.repository.StoreRef;
 
 /**
@@ -120,6 +125,40 @@ public class RecordsManagementEventServiceImplTest extends BaseRMTestCase implem
         });
     }
 
+    @SuppressWarnings("unchecked")
+    public void testEventConfigurationCache()
+    {
+        final SimpleCache<String, EventConfiguration> cache = (SimpleCache<String, EventConfiguration>)applicationContext.getBean("rmEventConfigurationCache");
+        final NodeRef configNodeRef = new NodeRef(SPACES_STORE, "rm_event_config");
+
+        transactionHelper.doInTransaction(new RetryingTransactionHelper.RetryingTransactionCallback<Void>()
+        {
+            public Void execute() throws Throwable
+            {
+                rmEventService.addEvent("rmEventType.simple", "myCachedEvent", "My Cached Event");
+                return null;
+            }
+        });
+
+        transactionHelper.doInTransaction(new RetryingTransactionHelper.RetryingTransactionCallback<Void>()
+        {
+            public Void execute() throws Throwable
+            {
+                // the cached configuration is the one that was written
+                assertTrue(containsEvent(rmEventService.getEvents(), "myCachedEvent"));
+                ContentData contentData = (ContentData)nodeService.getProperty(configNodeRef, ContentModel.PROP_CONTENT);
+                assertEquals(contentData.getContentUrl(), cache.get("rm.eventConfiguration").getVersion());
+
+                // the configuration is reloaded from the repository when it is not cached
+                cache.clear();
+                assertTrue(containsEvent(rmEventService.getEvents(), "myCachedEvent"));
+
+                rmEventService.removeEvent("myCachedEvent");
+                return null;
+            }
+        });
+    }
+
     private boolean containsEvent(List<RecordsManagementEvent> events, String eventName)
     {
         boolean result = false;
@@ -31,11 +31,13 @@ import static org.alfresco.util.GUID.generate;
 
 import java.util.List;
 
+import org.alfresco.module.org_alfresco_module_rm.search.RecordsManagementSearchPage;
 import org.alfresco.module.org_alfresco_module_rm.search.RecordsManagementSearchParameters;
 import org.alfresco.module.org_alfresco_module_rm.search.SavedSearchDetails;
 import org.alfresco.module.org_alfresco_module_rm.test.util.BaseRMTestCase;
 import org.alfresco.repo.security.authentication.AuthenticationUtil;
 import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.security.PermissionService;
 import org.alfresco.util.Pair;
 
 /**
@@ -55,8 +57,10 @@ public class RecordsManagementSearchServiceImplTest extends BaseRMTestCase
     private static final String SEARCH2 = "search2";
     private static final String SEARCH3 = "search3";
     private static final String SEARCH4 = "search4";
+    private static final String SEARCH5 = "search5";
 
     private String user;
+    private String restrictedUser;
 
     private NodeRef folderLevelRecordFolder;
     private NodeRef recordLevelRecordFolder;
@@ -83,6 +87,8 @@ public class RecordsManagementSearchServiceImplTest extends BaseRMTestCase
 
                 user = generate();
                 createPerson(user);
+                restrictedUser = generate();
+                createPerson(restrictedUser);
 
                 return null;
             }
@@ -141,6 +147,35 @@ public class RecordsManagementSearchServiceImplTest extends BaseRMTestCase
         //
     }
 
+    public void testPagedSearch()
+    {
+        doTestInTransaction(new Test<Void>()
+        {
+            @Override
+            public Void run()
+            {
+                String query = "keywords:\"elephant\"";
+                RecordsManagementSearchParameters params = new RecordsManagementSearchParameters();
+                params.setIncludeUndeclaredRecords(true);
+
+                // first page
+                RecordsManagementSearchPage page = rmSearchService.search(siteId, query, params, null, 1);
+                assertNotNull(page);
+                assertEquals(1, page.getPage().size());
+                assertTrue(page.hasMoreItems());
+                assertNotNull(page.getNextCursor());
+
+                // second page
+                RecordsManagementSearchPage nextPage = rmSearchService.search(siteId, query, params, page.getNextCursor(), 1);
+                assertNotNull(nextPage);
+                assertEquals(1, nextPage.getPage().size());
+                assertFalse(page.getPage().get(0).equals(nextPage.getPage().get(0)));
+
+                return null;
+            }
+        }, AuthenticationUtil.getSystemUserName());
+    }
+
     public void testSaveSearch()
     {
         // Add some saved searches (as admin user)
@@ -255,7 +290,99 @@ public class RecordsManagementSearchServiceImplTest extends BaseRMTestCase
         });
 
         // Delete searches (as admin user)
-        // TODO
+        doTestInTransaction(new Test<Void>()
+        {
+            @Override
+            public Void run()
+            {
+                rmSearchService.deleteSavedSearch(siteId, SEARCH1);
+                rmSearchService.deleteSavedSearch(siteId, SEARCH2);
+
+                return null;
+            }
+        });
+
+        // Get searches (as admin user)
+        doTestInTransaction(new Test<Void>()
+        {
+            @Override
+            public Void run()
+            {
+                List<SavedSearchDetails> searches = rmSearchService.getSavedSearches(siteId);
+                assertNotNull(searches);
+                assertEquals(numberOfReports, searches.size());
+
+                assertNull(rmSearchService.getSavedSearch(siteId, SEARCH1));
+                assertNull(rmSearchService.getSavedSearch(siteId, SEARCH2));
+
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Saved searches are registered once per container, whichever user reads them first, so
+     * each user must only get the searches they can read.
+     */
+    public void testSavedSearchPermissions()
+    {
+        // Save a public search the restricted user can't read (as admin user)
+        doTestInTransaction(new Test<Void>()
+        {
+            @Override
+            public Void run()
+            {
+                rmSearchService.saveSearch(siteId, SEARCH5, "description5", "query5", new RecordsManagementSearchParameters(), true);
+                NodeRef searchNode = rmSearchService.getSavedSearch(siteId, SEARCH5).getNodeRef();
+                permissionService.setPermission(searchNode, restrictedUser, PermissionService.READ, false);
+
+                return null;
+            }
+        });
+
+        // The restricted user registers the container first
+        checkSavedSearchVisible(restrictedUser, SEARCH5, false);
+        checkSavedSearchVisible(user, SEARCH5, true);
+
+        // Save the search again so the container is registered again (as admin user)
+        doTestInTransaction(new Test<Void>()
+        {
+            @Override
+            public Void run()
+            {
+                rmSearchService.saveSearch(siteId, SEARCH5, "change", "change", new RecordsManagementSearchParameters(), true);
+
+                return null;
+            }
+        });
+
+        // The user that can read the search registers the container first
+        checkSavedSearchVisible(user, SEARCH5, true);
+        checkSavedSearchVisible(restrictedUser, SEARCH5, false);
+    }
+
+    /**
+     * Check whether a saved search is returned to a user.
+     */
+    private void checkSavedSearchVisible(String userName, final String name, final boolean visible)
+    {
+        doTestInTransaction(new Test<Void>()
+        {
+            @Override
+            public Void run()
+            {
+                assertEquals(visible, rmSearchService.getSavedSearch(siteId, name) != null);
+
+                boolean listed = false;
+                for (SavedSearchDetails search : rmSearchService.getSavedSearches(siteId))
+                {
+                    listed = listed || name.equals(search.getName());
+                }
+                assertEquals(visible, listed);
+
+                return null;
+            }
+        }, userName);
     }
 
     /**
@@ -29,6 +29,7 @@ package org.alfresco.module.org_alfresco_module_rm.test.legacy.service;
 
 import java.util.Date;
 
+import org.alfresco.module.org_alfresco_module_rm.job.PublishUpdatesJobExecuter;
 import org.alfresco.module.org_alfresco_module_rm.model.behaviour.RecordsManagementSearchBehaviour;
 import org.alfresco.module.org_alfresco_module_rm.test.util.BaseRMTestCase;
 import org.alfresco.module.org_alfresco_module_rm.vital.VitalRecordDefinition;
@@ -109,10 +110,15 @@ public class VitalRecordServiceImplTest extends BaseRMTestCase
 
         // Setup vital record definitions
         setupVitalRecordDefinition(mhContainer21, true, PERIOD_WEEK);
+        publishUpdates();
         setupVitalRecordDefinition(mhContainer32, false, PERIOD_WEEK);
+        publishUpdates();
         setupVitalRecordDefinition(mhContainer33, true, PERIOD_WEEK);
+        publishUpdates();
         setupVitalRecordDefinition(mhContainer23, true, PERIOD_WEEK);
+        publishUpdates();
         setupVitalRecordDefinition(mhContainer35, true, PERIOD_MONTH);
+        publishUpdates();
 
         // Create records
         retryingTransactionHelper.doInTransaction(new RetryingTransactionCallback<Object>()
@@ -152,6 +158,16 @@ public class VitalRecordServiceImplTest extends BaseRMTestCase
         });
     }
 
+    /**
+     * Helper to publish any pending vital record definition updates to the contents of the
+     * changed record categories and record folders.
+     */
+    private void publishUpdates()
+    {
+        PublishUpdatesJobExecuter updater = (PublishUpdatesJobExecuter)applicationContext.getBean("publishUpdatesJobExecuter");
+        updater.executeImpl();
+    }
+
     /**
      * Based on the initial data:
      *  - check category, folder and record raw values.
@@ -319,6 +335,8 @@ public class VitalRecordServiceImplTest extends BaseRMTestCase
             @Override
             public void test(Void result) throws Exception
             {
+                publishUpdates();
+
                 assertHasVitalRecordDefinition(mhContainer, false, null);
                 assertHasVitalRecordDefinition(mhContainer11, false, null);
                 assertHasVitalRecordDefinition(mhContainer12, false, null);
@@ -358,6 +376,8 @@ public class VitalRecordServiceImplTest extends BaseRMTestCase
             @Override
             public void test(Void result) throws Exception
             {
+                publishUpdates();
+
                 assertHasVitalRecordDefinition(mhContainer, false, null);
                 assertHasVitalRecordDefinition(mhContainer11, false, null);
                 assertHasVitalRecordDefinition(mhContainer12, false, null);
@@ -397,6 +417,8 @@ public class VitalRecordServiceImplTest extends BaseRMTestCase
             @Override
             public void test(Void result) throws Exception
             {
+                publishUpdates();
+
                 assertHasVitalRecordDefinition(mhContainer, false, null);
                 assertHasVitalRecordDefinition(mhContainer11, false, null);
                 assertHasVitalRecordDefinition(mhContainer12, true, PERIOD_MONTH);
@@ -37,7 +37,9 @@ import org.alfresco.repo.security.authentication.AuthenticationUtil;
 import org.alfresco.repo.transaction.RetryingTransactionHelper.RetryingTransactionCallback;
 import org.alfresco.service.cmr.repository.NodeRef;
 import org.alfresco.util.GUID;
+import org.springframework.extensions.webscripts.Container;
 import org.springframework.extensions.webscripts.Status;
+import org.springframework.extensions.webscripts.WebScript;
 import org.springframework.extensions.webscripts.TestWebScriptServer.GetRequest;
 
 public class AuditRestApiTest extends BaseRMWebScriptTestCase
@@ -59,6 +61,18 @@ public class AuditRestApiTest extends BaseRMWebScriptTestCase
         sendRequest(new GetRequest(recordAuditUrl), Status.STATUS_FORBIDDEN, USER_WITHOUT_AUDIT_CAPABILITY );
     }
 
+    /**
+     * The audit log is streamed, so the web script must write straight to the response
+     * rather than to the web script framework's buffer.
+     */
+    public void testAuditLogIsNotBuffered()
+    {
+        Container container = (Container) applicationContext.getBean("webscripts.container");
+        WebScript auditLog = container.getRegistry().getWebScript("org/alfresco/rma/rmauditlog.get");
+        assertNotNull(auditLog);
+        assertEquals(0, auditLog.getDescription().getRequiredTransactionParameters().getBufferSize());
+    }
+
     @Override
     protected void setupTestData()
     {
@@ -0,0 +1,217 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.capability;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.alfresco.model.ContentModel;
+import org.alfresco.module.org_alfresco_module_rm.capability.impl.ViewRecordsCapability;
+import org.alfresco.module.org_alfresco_module_rm.caveat.RMCaveatConfigComponent;
+import org.alfresco.module.org_alfresco_module_rm.test.util.BaseUnitTest;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.security.AccessStatus;
+import org.alfresco.service.namespace.QName;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import net.sf.acegisecurity.vote.AccessDecisionVoter;
+
+/**
+ * RM security common unit test
+ *
+ * @since 2.7
+ */
+public class RMSecurityCommonUnitTest extends BaseUnitTest
+{
+    /** RM security common */
+    private @InjectMocks RMSecurityCommon securityCommon;
+
+    /** mocked caveat config component */
+    private @Mock RMCaveatConfigComponent mockedCaveatConfigComponent;
+
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.test.util.BaseUnitTest#before()
+     */
+    @Before
+    @Override
+    public void before() throws Exception
+    {
+        super.before();
+
+        // the read checks are cached in the transaction
+        TransactionSynchronizationManager.initSynchronization();
+
+        doReturn(AccessStatus.ALLOWED).when(mockedPermissionService).hasPermission(filePlan, ViewRecordsCapability.NAME);
+        doReturn(true).when(mockedCaveatConfigComponent).hasAccess(any(NodeRef.class));
+    }
+
+    /**
+     * Clear the transaction resources
+     */
+    @After
+    public void after()
+    {
+        for (Object key : new ArrayList<Object>(TransactionSynchronizationManager.getResourceMap().keySet()))
+        {
+            TransactionSynchronizationManager.unbindResource(key);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    /**
+     * Given records that share two distinct ACLs
+     * When I check read on them all at once
+     * Then the permissions are evaluated once per ACL
+     * And the result is applied to each record
+     */
+    @Test
+    public void readCheckEvaluatedOncePerGroup()
+    {
+        List<NodeRef> allowed = generateRecords(5, 1L, AccessStatus.ALLOWED);
+        List<NodeRef> denied = generateRecords(5, 2L, AccessStatus.DENIED);
+
+        List<NodeRef> nodeRefs = new ArrayList<NodeRef>(allowed);
+        nodeRefs.addAll(denied);
+        Map<NodeRef, Integer> results = new HashMap<NodeRef, Integer>();
+
+        assertEquals(2, securityCommon.checkRead(nodeRefs, results));
+
+        assertEquals(10, results.size());
+        for (NodeRef nodeRef : allowed)
+        {
+            assertEquals(AccessDecisionVoter.ACCESS_GRANTED, results.get(nodeRef).intValue());
+        }
+        for (NodeRef nodeRef : denied)
+        {
+            assertEquals(AccessDecisionVoter.ACCESS_DENIED, results.get(nodeRef).intValue());
+        }
+        verify(mockedPermissionService, times(2)).hasPermission(any(NodeRef.class), eq(RMPermissionModel.READ_RECORDS));
+    }
+
+    /**
+     * Given records that share an ACL but have different owners
+     * When I check read on them all at once
+     * Then the permissions are evaluated for each owner
+     */
+    @Test
+    public void readCheckGroupedByOwner()
+    {
+        List<NodeRef> nodeRefs = generateRecords(2, 1L, AccessStatus.ALLOWED);
+        doReturn(singletonProperty(ContentModel.PROP_OWNER, "userOne")).when(mockedNodeService).getProperties(nodeRefs.get(0));
+        doReturn(singletonProperty(ContentModel.PROP_OWNER, "userTwo")).when(mockedNodeService).getProperties(nodeRefs.get(1));
+
+        assertEquals(2, securityCommon.checkRead(nodeRefs, new HashMap<NodeRef, Integer>()));
+    }
+
+    /**
+     * Given a record the user can not see because of its caveats
+     * When I check read on it together with a record in the same group
+     * Then only the record with the caveat is denied
+     */
+    @Test
+    public void caveatCheckedForEachRecord()
+    {
+        List<NodeRef> nodeRefs = generateRecords(2, 1L, AccessStatus.ALLOWED);
+        doReturn(false).when(mockedCaveatConfigComponent).hasAccess(nodeRefs.get(1));
+
+        Map<NodeRef, Integer> results = new HashMap<NodeRef, Integer>();
+        assertEquals(1, securityCommon.checkRead(nodeRefs, results));
+
+        assertEquals(AccessDecisionVoter.ACCESS_GRANTED, results.get(nodeRefs.get(0)).intValue());
+        assertEquals(AccessDecisionVoter.ACCESS_DENIED, results.get(nodeRefs.get(1)).intValue());
+    }
+
+    /**
+     * Given a node that is not a file plan component
+     * When I check read on it
+     * Then the check abstains without evaluating any permissions
+     */
+    @Test
+    public void nonRecordsManagementNodeAbstains()
+    {
+        NodeRef nodeRef = generateNodeRef();
+        List<NodeRef> nodeRefs = new ArrayList<NodeRef>(1);
+        nodeRefs.add(nodeRef);
+
+        Map<NodeRef, Integer> results = new HashMap<NodeRef, Integer>();
+        assertEquals(0, securityCommon.checkRead(nodeRefs, results));
+
+        assertEquals(AccessDecisionVoter.ACCESS_ABSTAIN, results.get(nodeRef).intValue());
+    }
+
+    /**
+     * Helper method to generate records sharing an ACL.
+     *
+     * @param count         number of records
+     * @param aclId         ACL id of the records
+     * @param accessStatus  read records permission on the records
+     * @return {@link List}&lt;{@link NodeRef}&gt; records
+     */
+    private List<NodeRef> generateRecords(int count, Long aclId, AccessStatus accessStatus)
+    {
+        List<NodeRef> records = new ArrayList<NodeRef>(count);
+        for (int i = 0; i < count; i++)
+        {
+            NodeRef record = generateRecord();
+            doReturn(aclId).when(mockedNodeService).getNodeAclId(record);
+            doReturn(accessStatus).when(mockedPermissionService).hasPermission(record, RMPermissionModel.READ_RECORDS);
+            records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * Helper method to create a property map with a single value.
+     *
+     * @param property  property qualified name
+     * @param value     property value
+     * @return {@link Map}&lt;{@link QName}, {@link Serializable}&gt; properties
+     */
+    private Map<QName, Serializable> singletonProperty(QName property, Serializable value)
+    {
+        Map<QName, Serializable> properties = new HashMap<QName, Serializable>(1);
+        properties.put(property, value);
+        return properties;
+    }
+}
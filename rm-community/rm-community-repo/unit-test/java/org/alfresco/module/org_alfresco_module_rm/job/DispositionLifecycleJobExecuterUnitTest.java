@@ -34,6 +34,7 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyMap;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -44,7 +45,10 @@ import static org.mockito.Mockito.when;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
+import org.alfresco.error.AlfrescoRuntimeException;
+import org.alfresco.module.org_alfresco_module_rm.metrics.MetricsRegistryImpl;
 import org.alfresco.module.org_alfresco_module_rm.model.RecordsManagementModel;
 import org.alfresco.module.org_alfresco_module_rm.test.util.BaseUnitTest;
 import org.alfresco.repo.transaction.RetryingTransactionHelper.RetryingTransactionCallback;
@@ -247,6 +251,44 @@ public class DispositionLifecycleJobExecuterUnitTest extends BaseUnitTest
         verifyNoMoreInteractions(mockedNodeService, mockedRecordsManagementActionService);
     }
 
+    /**
+     * Given one eligible disposition action that executes, one that fails and one that is not eligible
+     * When the job executer runs
+     * Then each is counted and the failed one is left in the backlog
+     */
+    @Test
+    public void dispositionActionMetrics()
+    {
+        // test data
+        NodeRef node1 = generateNodeRef();
+        NodeRef node2 = generateNodeRef();
+        NodeRef node3 = generateNodeRef();
+        NodeRef parent1 = generateNodeRef();
+        NodeRef parent2 = generateNodeRef();
+        MetricsRegistryImpl metricsRegistry = new MetricsRegistryImpl();
+        executer.setMetricsRegistry(metricsRegistry);
+        executer.setJobName("dispositionLifecycle");
+
+        // given
+        doReturn(buildList(node1, node2, node3)).when(mockedResultSet).getNodeRefs();
+        doReturn(CUTOFF).when(mockedNodeService).getProperty(node1, RecordsManagementModel.PROP_DISPOSITION_ACTION);
+        doReturn(CUTOFF).when(mockedNodeService).getProperty(node2, RecordsManagementModel.PROP_DISPOSITION_ACTION);
+        doReturn(DESTROY).when(mockedNodeService).getProperty(node3, RecordsManagementModel.PROP_DISPOSITION_ACTION);
+        doReturn(new ChildAssociationRef(ASSOC_NEXT_DISPOSITION_ACTION, parent1, generateQName(), node1)).when(mockedNodeService).getPrimaryParent(node1);
+        doReturn(new ChildAssociationRef(ASSOC_NEXT_DISPOSITION_ACTION, parent2, generateQName(), node2)).when(mockedNodeService).getPrimaryParent(node2);
+        doThrow(new AlfrescoRuntimeException("failed")).when(mockedRecordsManagementActionService).executeRecordsManagementAction(eq(parent2), eq(CUTOFF), anyMap());
+
+        // when
+        executer.executeImpl();
+
+        // then
+        Map<String, Number> metrics = metricsRegistry.getMetrics();
+        assertEquals(1L, metrics.get("rm.job.dispositionLifecycle.items.processed"));
+        assertEquals(1L, metrics.get("rm.job.dispositionLifecycle.items.failed"));
+        assertEquals(1L, metrics.get("rm.job.dispositionLifecycle.items.skipped"));
+        assertEquals(2L, metrics.get("rm.job.dispositionLifecycle.backlog"));
+    }
+
     /**
      * Brittle unit test that simply checks the generated query is an exact string when the supplied disposition actions
      * are "CUTOFF" and "RETAIN" (see {@link #before}).
@@ -0,0 +1,212 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.job;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.alfresco.module.org_alfresco_module_rm.metrics.MetricsMBean;
+import org.alfresco.module.org_alfresco_module_rm.metrics.MetricsRegistryImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Records management job metrics unit test.
+ *
+ * @since 2.7
+ */
+public class RecordsManagementJobMetricsUnitTest
+{
+    /** job name */
+    private static final String JOB = "testJob";
+
+    /** metrics registry */
+    private MetricsRegistryImpl metricsRegistry;
+
+    /** job metrics */
+    private RecordsManagementJobMetrics jobMetrics;
+
+    @Before
+    public void before()
+    {
+        metricsRegistry = new MetricsRegistryImpl();
+        jobMetrics = new RecordsManagementJobMetrics(metricsRegistry, JOB);
+    }
+
+    /**
+     * Helper method to get one of the job's metrics.
+     */
+    private Number metric(String metric)
+    {
+        return metricsRegistry.getMetrics().get(RecordsManagementJobMetrics.PREFIX + JOB + "." + metric);
+    }
+
+    /**
+     * Given a job that has not run
+     * When the metrics are read
+     * Then no counters, times or rates are reported
+     */
+    @Test
+    public void nothingReportedBeforeFirstRun()
+    {
+        Map<String, Number> metrics = metricsRegistry.getMetrics();
+
+        assertTrue(metrics.isEmpty());
+    }
+
+    /**
+     * Given a successful run that processes, skips and fails items
+     * When the metrics are read
+     * Then the run is counted and timed, the items are counted and the error rate and backlog are reported
+     */
+    @Test
+    public void successfulRun()
+    {
+        long start = jobMetrics.runStarted();
+        jobMetrics.lockAcquired();
+        jobMetrics.itemsProcessed(3);
+        jobMetrics.itemsSkipped(2);
+        jobMetrics.itemsFailed(1);
+        jobMetrics.setBacklog(5);
+        jobMetrics.runFinished(start);
+
+        assertEquals(1L, metric(RecordsManagementJobMetrics.RUNS));
+        assertEquals(1L, metric(RecordsManagementJobMetrics.RUN_TIME + MetricsRegistryImpl.SUFFIX_COUNT));
+        assertNull(metric(RecordsManagementJobMetrics.RUNS_FAILED));
+        assertEquals(0D, metric(RecordsManagementJobMetrics.RUNS_ERROR_RATE));
+        assertEquals(1L, metric(RecordsManagementJobMetrics.LOCK_ACQUIRED));
+        assertEquals(3L, metric(RecordsManagementJobMetrics.ITEMS_PROCESSED));
+        assertEquals(2L, metric(RecordsManagementJobMetrics.ITEMS_SKIPPED));
+        assertEquals(1L, metric(RecordsManagementJobMetrics.ITEMS_FAILED));
+        assertEquals(0.25D, metric(RecordsManagementJobMetrics.ITEMS_ERROR_RATE));
+        assertEquals(5L, metric(RecordsManagementJobMetrics.BACKLOG));
+        assertEquals(start, metric(RecordsManagementJobMetrics.LAST_RUN_START));
+        assertNotNull(metric(RecordsManagementJobMetrics.LAST_SUCCESS));
+        assertNull(metric(RecordsManagementJobMetrics.LAST_FAILURE));
+    }
+
+    /**
+     * Given a successful run followed by a failed run
+     * When the metrics are read
+     * Then the last success time is not moved by the failed run and half of the runs have failed
+     */
+    @Test
+    public void failedRun()
+    {
+        jobMetrics.runFinished(jobMetrics.runStarted());
+        Number lastSuccess = metric(RecordsManagementJobMetrics.LAST_SUCCESS);
+
+        long start = jobMetrics.runStarted();
+        jobMetrics.runFailed();
+        jobMetrics.runFinished(start);
+
+        assertEquals(2L, metric(RecordsManagementJobMetrics.RUNS));
+        assertEquals(1L, metric(RecordsManagementJobMetrics.RUNS_FAILED));
+        assertEquals(0.5D, metric(RecordsManagementJobMetrics.RUNS_ERROR_RATE));
+        assertEquals(lastSuccess, metric(RecordsManagementJobMetrics.LAST_SUCCESS));
+        assertNotNull(metric(RecordsManagementJobMetrics.LAST_FAILURE));
+    }
+
+    /**
+     * Given runs that could not take the job lock
+     * When the metrics are read
+     * Then the lock contention is reported
+     */
+    @Test
+    public void lockContention()
+    {
+        jobMetrics.lockContended();
+        jobMetrics.lockContended();
+        jobMetrics.lockLost();
+
+        assertEquals(2L, metric(RecordsManagementJobMetrics.LOCK_CONTENDED));
+        assertEquals(1L, metric(RecordsManagementJobMetrics.LOCK_LOST));
+        assertNull(metric(RecordsManagementJobMetrics.RUNS));
+    }
+
+    /**
+     * Given no metrics registry
+     * When metrics are recorded
+     * Then nothing fails
+     */
+    @Test
+    public void noMetricsRegistry()
+    {
+        RecordsManagementJobMetrics noMetrics = new RecordsManagementJobMetrics(null, JOB);
+        long start = noMetrics.runStarted();
+        noMetrics.lockAcquired();
+        noMetrics.itemsProcessed(1);
+        noMetrics.runFailed();
+        noMetrics.runFinished(start);
+    }
+
+    /**
+     * Given disabled metrics
+     * When metrics are recorded
+     * Then no counters or timers are reported
+     */
+    @Test
+    public void disabledMetrics()
+    {
+        metricsRegistry.setEnabled(false);
+
+        jobMetrics.runFinished(jobMetrics.runStarted());
+        jobMetrics.itemsProcessed(1);
+
+        assertNull(metric(RecordsManagementJobMetrics.RUNS));
+        assertNull(metric(RecordsManagementJobMetrics.ITEMS_PROCESSED));
+    }
+
+    /**
+     * Given recorded metrics
+     * When they are read through the MBean
+     * Then every metric is an attribute and reset clears the counters
+     */
+    @Test
+    public void metricsMBean() throws Exception
+    {
+        MetricsMBean mbean = new MetricsMBean();
+        mbean.setMetricsRegistry(metricsRegistry);
+
+        jobMetrics.itemsProcessed(4);
+        String name = RecordsManagementJobMetrics.PREFIX + JOB + "." + RecordsManagementJobMetrics.ITEMS_PROCESSED;
+
+        assertEquals(4L, mbean.getAttribute(name));
+        assertEquals(metricsRegistry.getMetrics().size(), mbean.getMBeanInfo().getAttributes().length);
+
+        mbean.invoke(MetricsMBean.OPERATION_RESET, null, null);
+
+        assertFalse(metricsRegistry.getMetrics().containsKey(name));
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.job.publish;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.alfresco.module.org_alfresco_module_rm.fileplan.FilePlanComponentKind;
+import org.alfresco.module.org_alfresco_module_rm.test.util.BaseUnitTest;
+import org.alfresco.module.org_alfresco_module_rm.vital.VitalRecordDefinition;
+import org.alfresco.module.org_alfresco_module_rm.vital.VitalRecordService;
+import org.alfresco.repo.transaction.RetryingTransactionHelper.RetryingTransactionCallback;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.repository.Period;
+import org.alfresco.service.namespace.QName;
+import org.alfresco.service.namespace.QNamePattern;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Vital record definition publish executor unit test.
+ *
+ * @since 2.7
+ */
+public class VitalRecordDefinitionPublishExecutorUnitTest extends BaseUnitTest
+{
+    /** review period */
+    private static final Period PERIOD_WEEK = new Period("week|1");
+
+    /** mocked vital record service */
+    @Mock(name="vitalRecordService") private VitalRecordService mockedVitalRecordService;
+
+    /** mocked vital record definition */
+    @Mock private VitalRecordDefinition mockedDefinition;
+
+    /** publish executor */
+    @InjectMocks private VitalRecordDefinitionPublishExecutor executor;
+
+    /** record category the change is published from */
+    private NodeRef recordCategory;
+
+    /** next review date */
+    private Date reviewAsOf = new Date();
+
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.test.util.BaseUnitTest#before()
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    @Before
+    public void before() throws Exception
+    {
+        super.before();
+
+        // batches are executed in their own transaction
+        doAnswer(new Answer<Object>()
+        {
+            @SuppressWarnings("rawtypes")
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable
+            {
+                return ((RetryingTransactionCallback)invocation.getArguments()[0]).execute();
+            }
+        }).when(mockedRetryingTransactionHelper).doInTransaction(any(RetryingTransactionCallback.class), anyBoolean(), anyBoolean());
+
+        recordCategory = generateNodeRef(TYPE_RECORD_CATEGORY);
+        doReturn(mockedDefinition).when(mockedVitalRecordService).getVitalRecordDefinition(recordCategory);
+        doReturn(true).when(mockedDefinition).isEnabled();
+        doReturn(PERIOD_WEEK).when(mockedDefinition).getReviewPeriod();
+        doReturn(reviewAsOf).when(mockedDefinition).getNextReviewDate();
+
+        doReturn(FilePlanComponentKind.RECORD_FOLDER).when(mockedFilePlanService).getFilePlanComponentKind(recordFolder);
+        doReturn(FilePlanComponentKind.RECORD).when(mockedFilePlanService).getFilePlanComponentKind(record);
+        doReturn(new HashMap<QName, Serializable>()).when(mockedNodeService).getProperties(any(NodeRef.class));
+
+        makeChildrenOf(recordCategory, recordFolder);
+    }
+
+    /**
+     * Given a record category with a record folder containing a record
+     * When the vital record definition of the category is published
+     * Then the folder and record are updated
+     * And the review date is calculated once for the whole hierarchy
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void publishToFolderAndRecord()
+    {
+        executor.publish(recordCategory);
+
+        verify(mockedNodeService).setProperty(recordFolder, PROP_VITAL_RECORD_INDICATOR, true);
+        verify(mockedNodeService).setProperty(recordFolder, PROP_REVIEW_PERIOD, PERIOD_WEEK);
+        verify(mockedNodeService).setProperty(recordFolder, PROP_RS_VITAL_RECORD_REVIEW_PERIOD, "week");
+        verify(mockedNodeService).addAspect(eq(record), eq(ASPECT_VITAL_RECORD), anyMap());
+        verify(mockedNodeService).setProperty(record, PROP_RS_VITAL_RECORD_REVIEW_PERIOD, "week");
+        verify(mockedDefinition, times(1)).getNextReviewDate();
+    }
+
+    /**
+     * Given a record folder containing a record that is already up to date
+     * When the vital record definition is published
+     * Then the record is not updated
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void unchangedRecordIsSkipped()
+    {
+        Map<QName, Serializable> props = new HashMap<QName, Serializable>();
+        props.put(PROP_RS_VITAL_RECORD_REVIEW_PERIOD, "week");
+        props.put(PROP_RS_VITAL_RECORD_REVIEW_PERIOD_EXPRESSION, "1");
+        doReturn(props).when(mockedNodeService).getProperties(record);
+        doReturn(true).when(mockedNodeService).hasAspect(record, ASPECT_VITAL_RECORD);
+
+        executor.publish(recordCategory);
+
+        verify(mockedNodeService, never()).addAspect(eq(record), eq(ASPECT_VITAL_RECORD), anyMap());
+        verify(mockedNodeService, never()).addProperties(eq(record), anyMap());
+        verify(mockedNodeService, never()).setProperty(eq(record), any(QName.class), any(Serializable.class));
+    }
+
+    /**
+     * Given a record category with a number of record folders
+     * When the vital record definition is published with a batch size of one
+     * Then each record folder is updated in its own transaction
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void publishInBatches()
+    {
+        NodeRef recordFolder2 = generateRecordFolder();
+        doReturn(FilePlanComponentKind.RECORD_FOLDER).when(mockedFilePlanService).getFilePlanComponentKind(recordFolder2);
+        makeChildrenOf(recordCategory, recordFolder, recordFolder2);
+        executor.setBatchSize(1);
+
+        executor.publish(recordCategory);
+
+        // two folders and one record
+        verify(mockedRetryingTransactionHelper, times(3)).doInTransaction(any(RetryingTransactionCallback.class), eq(false), eq(true));
+    }
+
+    /**
+     * Given a record folder that has its own vital record definition update waiting to be published
+     * When the vital record definition of the parent category is published
+     * Then the record folder and its contents are left alone
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void containerWithPendingUpdateIsSkipped()
+    {
+        doReturn(true).when(mockedNodeService).hasAspect(recordFolder, ASPECT_UNPUBLISHED_UPDATE);
+        doReturn(UPDATE_TO_VITAL_RECORD_DEFINITION).when(mockedNodeService).getProperty(recordFolder, PROP_UPDATE_TO);
+
+        executor.publish(recordCategory);
+
+        verify(mockedNodeService, never()).setProperty(eq(recordFolder), any(QName.class), any(Serializable.class));
+        verify(mockedNodeService, never()).addAspect(eq(record), eq(ASPECT_VITAL_RECORD), anyMap());
+    }
+
+    /**
+     * Given a node without a vital record definition
+     * When it is published
+     * Then nothing is done
+     */
+    @Test
+    public void noDefinition()
+    {
+        NodeRef nodeRef = generateNodeRef();
+
+        executor.publish(nodeRef);
+
+        verify(mockedNodeService, never()).getChildAssocs(eq(nodeRef), any(QNamePattern.class), any(QNamePattern.class));
+    }
+}
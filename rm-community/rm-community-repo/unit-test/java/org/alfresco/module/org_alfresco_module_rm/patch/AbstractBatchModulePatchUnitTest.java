@@ -0,0 +1,226 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.patch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.alfresco.error.AlfrescoRuntimeException;
+import org.alfresco.repo.transaction.RetryingTransactionHelper;
+import org.alfresco.repo.transaction.RetryingTransactionHelper.RetryingTransactionCallback;
+import org.alfresco.service.cmr.attributes.AttributeService;
+import org.alfresco.service.transaction.TransactionService;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Batch module patch unit test.
+ *
+ * @since 2.7
+ */
+public class AbstractBatchModulePatchUnitTest
+{
+    private static final String MODULE_ID = "moduleId";
+    private static final String PATCH_ID = "patchId";
+
+    private @Mock TransactionService mockedTransactionService;
+    private @Mock RetryingTransactionHelper mockedRetryingTransactionHelper;
+    private @Mock AttributeService mockedAttributeService;
+
+    /** entries processed by the test patch */
+    private List<Long> processed = new ArrayList<Long>();
+
+    /** number of failures the test patch reports per chunk */
+    private int errors = 0;
+
+    private TestBatchModulePatch patch;
+
+    @SuppressWarnings("unchecked")
+    @Before
+    public void before() throws Exception
+    {
+        MockitoAnnotations.initMocks(this);
+
+        when(mockedTransactionService.getRetryingTransactionHelper()).thenReturn(mockedRetryingTransactionHelper);
+        doAnswer(new Answer<Object>()
+        {
+            @SuppressWarnings("rawtypes")
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable
+            {
+                return ((RetryingTransactionCallback)invocation.getArguments()[0]).execute();
+            }
+        }).when(mockedRetryingTransactionHelper).doInTransaction(any(RetryingTransactionCallback.class), anyBoolean(), anyBoolean());
+
+        patch = new TestBatchModulePatch(Arrays.asList(1L, 2L, 5L, 6L, 9L));
+        patch.setModuleId(MODULE_ID);
+        patch.setId(PATCH_ID);
+        patch.setTransactionService(mockedTransactionService);
+        patch.setAttributeService(mockedAttributeService);
+        patch.setCheckpointSize(2);
+    }
+
+    /**
+     * Given a patch that has not been started,
+     * When the patch is applied,
+     * Then all the work is processed and checkpointed after each chunk
+     */
+    @Test
+    public void processAllWork()
+    {
+        // when
+        patch.apply();
+
+        // then
+        assertEquals(Arrays.asList(1L, 2L, 5L, 6L, 9L), processed);
+        verify(mockedAttributeService).setAttribute(3L, AbstractBatchModulePatch.KEY_CHECKPOINT, MODULE_ID, PATCH_ID);
+        verify(mockedAttributeService).setAttribute(7L, AbstractBatchModulePatch.KEY_CHECKPOINT, MODULE_ID, PATCH_ID);
+        verify(mockedAttributeService).setAttribute(10L, AbstractBatchModulePatch.KEY_CHECKPOINT, MODULE_ID, PATCH_ID);
+        verify(mockedAttributeService).setAttribute(Long.MAX_VALUE, AbstractBatchModulePatch.KEY_CHECKPOINT, MODULE_ID, PATCH_ID);
+    }
+
+    /**
+     * Given a patch that was checkpointed before a restart,
+     * When the patch is applied,
+     * Then the work continues from the checkpoint
+     */
+    @Test
+    public void continueFromCheckpoint()
+    {
+        // given
+        when(mockedAttributeService.getAttribute(AbstractBatchModulePatch.KEY_CHECKPOINT, MODULE_ID, PATCH_ID)).thenReturn(3L);
+
+        // when
+        patch.apply();
+
+        // then
+        assertEquals(Arrays.asList(5L, 6L, 9L), processed);
+    }
+
+    /**
+     * Given a chunk of work that fails,
+     * When the patch is applied,
+     * Then the patch fails without checkpointing past the failed chunk
+     */
+    @Test
+    public void failedChunkIsNotCheckpointed()
+    {
+        // given
+        errors = 1;
+
+        // when
+        try
+        {
+            patch.apply();
+            fail("Expected the patch to fail.");
+        }
+        catch (AlfrescoRuntimeException expected)
+        {
+            // then
+            verify(mockedAttributeService, never()).setAttribute(anyLong(), any(String.class), any(String.class), any(String.class));
+        }
+    }
+
+    /**
+     * Test patch, processing the chunks on the calling thread.
+     */
+    private class TestBatchModulePatch extends AbstractBatchModulePatch<Long>
+    {
+        private final List<Long> work;
+
+        private TestBatchModulePatch(List<Long> work)
+        {
+            this.work = work;
+        }
+
+        @Override
+        protected ModulePatchWorkProvider<Long> getWorkProvider()
+        {
+            return new ModulePatchWorkProvider<Long>()
+            {
+                @Override
+                public long getMaxPosition()
+                {
+                    return 10L;
+                }
+
+                @Override
+                public List<Long> getNextWork(long fromPosition, int maxEntries)
+                {
+                    List<Long> result = new ArrayList<Long>(maxEntries);
+                    for (Long entry : work)
+                    {
+                        if (entry >= fromPosition && result.size() < maxEntries)
+                        {
+                            result.add(entry);
+                        }
+                    }
+                    return result;
+                }
+
+                @Override
+                public long getPosition(Long entry)
+                {
+                    return entry;
+                }
+            };
+        }
+
+        @Override
+        protected void process(Long entry)
+        {
+            processed.add(entry);
+        }
+
+        @Override
+        protected int processChunk(List<Long> chunk)
+        {
+            for (Long entry : chunk)
+            {
+                process(entry);
+            }
+            return errors;
+        }
+    }
+}
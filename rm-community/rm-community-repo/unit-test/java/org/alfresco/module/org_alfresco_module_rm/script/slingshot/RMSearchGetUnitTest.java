@@ -0,0 +1,204 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.module.org_alfresco_module_rm.script.slingshot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.alfresco.model.ContentModel;
+import org.alfresco.module.org_alfresco_module_rm.search.RecordsManagementSearchParameters;
+import org.alfresco.module.org_alfresco_module_rm.search.RecordsManagementSearchService;
+import org.alfresco.module.org_alfresco_module_rm.test.util.BaseUnitTest;
+import org.alfresco.repo.cache.SimpleCache;
+import org.alfresco.rm.rest.api.impl.RMNodePathResolver;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.security.PersonService;
+import org.alfresco.service.cmr.site.SiteInfo;
+import org.alfresco.service.cmr.site.SiteService;
+import org.alfresco.util.Pair;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.extensions.webscripts.Match;
+import org.springframework.extensions.webscripts.WebScriptRequest;
+
+/**
+ * RM search GET web script unit test
+ *
+ * @since 2.7
+ */
+public class RMSearchGetUnitTest extends BaseUnitTest
+{
+    /** site id */
+    private static final String SITE_ID = "rm";
+
+    /** RM search web script */
+    private @InjectMocks RMSearchGet webScript;
+
+    /** mocked services */
+    private @Mock SiteService mockedSiteService;
+    private @Mock RecordsManagementSearchService mockedSearchService;
+    private @Mock PersonService mockedPersonService;
+    private @Mock SimpleCache<String, String> mockedPersonDisplayNameCache;
+    private @Mock RMNodePathResolver mockedPathResolver;
+
+    /** record category holding the record folders found by the search */
+    private NodeRef recordCategory;
+
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.test.util.BaseUnitTest#before()
+     */
+    @Before
+    @Override
+    public void before() throws Exception
+    {
+        super.before();
+
+        doReturn(mock(SiteInfo.class)).when(mockedSiteService).getSite(SITE_ID);
+        recordCategory = generateNodeRef(TYPE_RECORD_CATEGORY);
+        doReturn("category").when(mockedNodeService).getProperty(recordCategory, ContentModel.PROP_NAME);
+    }
+
+    /**
+     * Given a search that finds two record folders of the same record category
+     * When the results are rendered
+     * Then the display path of the record category is only asked of the path resolver once
+     */
+    @Test
+    public void displayPathSharedWithinRequest() throws Exception
+    {
+        NodeRef folderOne = generateFolder("/Company Home/Sites/rm/documentLibrary/category");
+        NodeRef folderTwo = generateFolder("/Company Home/Sites/rm/documentLibrary/category");
+        setupSearchResults(folderOne, folderTwo);
+
+        List<RMSearchGet.Item> items = executeSearch();
+
+        assertEquals(2, items.size());
+        assertEquals("category", items.get(0).getParentFolder());
+        assertEquals("category", items.get(1).getParentFolder());
+        verify(mockedPathResolver, times(1)).getDisplayPath(folderOne);
+        verify(mockedPathResolver, times(0)).getDisplayPath(folderTwo);
+    }
+
+    /**
+     * Given a search that finds a record folder
+     * And the record category is renamed between two searches
+     * When the results of the second search are rendered
+     * Then the display path of the record folder is asked of the path resolver again
+     * And the browse URL reflects the new name
+     */
+    @Test
+    public void displayPathResolvedAgainByNextRequest() throws Exception
+    {
+        NodeRef folder = generateFolder("/Company Home/Sites/rm/documentLibrary/category");
+        setupSearchResults(folder);
+
+        List<RMSearchGet.Item> items = executeSearch();
+        assertEquals(1, items.size());
+        assertTrue(items.get(0).getBrowseUrl().contains("category"));
+
+        // rename the record category, which the path resolver picks up
+        doReturn("/Company Home/Sites/rm/documentLibrary/renamed").when(mockedPathResolver).getDisplayPath(folder);
+
+        items = executeSearch();
+        assertEquals(1, items.size());
+        assertTrue(items.get(0).getBrowseUrl().contains("renamed"));
+        assertFalse(items.get(0).getBrowseUrl().contains("category"));
+        verify(mockedPathResolver, times(2)).getDisplayPath(folder);
+    }
+
+    /**
+     * Helper method to generate a record folder in the record category with the given display path.
+     *
+     * @param displayPath   display path of the record folder
+     * @return NodeRef      record folder
+     */
+    private NodeRef generateFolder(String displayPath)
+    {
+        NodeRef folder = generateRecordFolder();
+        doReturn(recordCategory).when(mockedPathResolver).getPrimaryParent(folder);
+        doReturn(displayPath).when(mockedPathResolver).getDisplayPath(folder);
+        return folder;
+    }
+
+    /**
+     * Helper method to set the nodes found by the search, all of them in the record category.
+     *
+     * @param nodeRefs  nodes found by the search
+     */
+    private void setupSearchResults(NodeRef ... nodeRefs)
+    {
+        List<Pair<NodeRef, NodeRef>> results = new ArrayList<Pair<NodeRef, NodeRef>>(nodeRefs.length);
+        for (NodeRef nodeRef : nodeRefs)
+        {
+            results.add(new Pair<NodeRef, NodeRef>(recordCategory, nodeRef));
+        }
+        doReturn(results).when(mockedSearchService).search(eq(SITE_ID), anyString(), any(RecordsManagementSearchParameters.class));
+    }
+
+    /**
+     * Helper method to execute the search and render all the items of the model.
+     *
+     * @return List<RMSearchGet.Item>   rendered items
+     */
+    @SuppressWarnings("unchecked")
+    private List<RMSearchGet.Item> executeSearch()
+    {
+        WebScriptRequest mockedRequest = mock(WebScriptRequest.class);
+        Map<String, String> templateVars = Collections.singletonMap("site", SITE_ID);
+        doReturn(new Match(null, templateVars, null, webScript)).when(mockedRequest).getServiceMatch();
+        doReturn("keywords").when(mockedRequest).getParameter("query");
+        doReturn("records/true,folders/true").when(mockedRequest).getParameter("filters");
+
+        Map<String, Object> model = webScript.executeImpl(mockedRequest, null, null);
+        assertNull(model.get("errorMessage"));
+
+        List<RMSearchGet.Item> items = new ArrayList<RMSearchGet.Item>();
+        Iterator<RMSearchGet.Item> iterator = (Iterator<RMSearchGet.Item>)model.get("items");
+        while (iterator.hasNext())
+        {
+            items.add(iterator.next());
+        }
+        return items;
+    }
+}
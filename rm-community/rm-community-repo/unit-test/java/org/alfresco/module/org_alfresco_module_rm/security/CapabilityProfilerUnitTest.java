@@ -0,0 +1,186 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.security;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Capability profiler unit test.
+ *
+ * @since 2.7
+ */
+public class CapabilityProfilerUnitTest
+{
+    /** capability profiler */
+    private CapabilityProfiler profiler = CapabilityProfiler.getInstance();
+
+    @Before
+    public void before()
+    {
+        profiler.reset();
+        profiler.setEnabled(true);
+    }
+
+    @After
+    public void after()
+    {
+        profiler.setEnabled(false);
+        profiler.reset();
+    }
+
+    /**
+     * Given profiling is off
+     * When capabilities are evaluated
+     * Then nothing is recorded
+     */
+    @Test
+    public void nothingRecordedWhenDisabled() throws Exception
+    {
+        profiler.setEnabled(false);
+
+        assertEquals(CapabilityProfiler.NOT_PROFILED, CapabilityProfiler.start());
+        assertNull(CapabilityProfiler.startMethod());
+        CapabilityProfiler.capabilityEvaluated("Delete", CapabilityProfiler.start(), false);
+        CapabilityProfiler.cacheLookup("cache", true);
+
+        JSONObject snapshot = profiler.getSnapshot();
+        assertEquals(0, snapshot.getJSONArray("capabilities").length());
+        assertEquals(0, snapshot.getJSONArray("caches").length());
+    }
+
+    /**
+     * Given capabilities evaluated during the security check of a method
+     * When the snapshot is exported
+     * Then the capabilities are listed most expensive first and the method has their evaluation counts
+     */
+    @Test
+    public void capabilitiesAndMethods() throws Exception
+    {
+        CapabilityProfiler.MethodSample sample = CapabilityProfiler.startMethod();
+        CapabilityProfiler.capabilityEvaluated("Cheap", System.nanoTime(), false);
+        CapabilityProfiler.capabilityEvaluated("Expensive", System.nanoTime() - 1000000000L, true);
+        CapabilityProfiler.conditionEvaluated("capabilityCondition.frozen", System.nanoTime(), true);
+        CapabilityProfiler.methodChecked(sample, "NodeService.getProperty", true);
+
+        JSONObject snapshot = new JSONObject(profiler.exportSnapshot());
+
+        JSONArray capabilities = snapshot.getJSONArray("capabilities");
+        assertEquals(2, capabilities.length());
+        assertEquals("Expensive", capabilities.getJSONObject(0).getString("name"));
+        assertEquals(1, capabilities.getJSONObject(0).getLong("denied"));
+        assertTrue(capabilities.getJSONObject(0).getLong("p99Micros") >= 1000000L);
+        assertEquals("Cheap", capabilities.getJSONObject(1).getString("name"));
+
+        JSONArray conditions = snapshot.getJSONArray("conditions");
+        assertEquals(1, conditions.getJSONObject(0).getLong("failed"));
+
+        JSONObject method = snapshot.getJSONArray("methods").getJSONObject(0);
+        assertEquals("NodeService.getProperty", method.getString("name"));
+        assertEquals(1, method.getLong("checks"));
+        assertEquals(1, method.getLong("denied"));
+        assertEquals(2, method.getLong("capabilityEvaluations"));
+        assertEquals(1, method.getLong("conditionEvaluations"));
+    }
+
+    /**
+     * Given cache hits and misses
+     * When the snapshot is exported
+     * Then the hit ratio is reported
+     */
+    @Test
+    public void cacheHitRatio() throws Exception
+    {
+        CapabilityProfiler.cacheLookup("rm.declarativeCapability", true);
+        CapabilityProfiler.cacheLookup("rm.declarativeCapability", true);
+        CapabilityProfiler.cacheLookup("rm.declarativeCapability", true);
+        CapabilityProfiler.cacheLookup("rm.declarativeCapability", false);
+
+        JSONObject cache = profiler.getSnapshot().getJSONArray("caches").getJSONObject(0);
+        assertEquals(3, cache.getLong("hits"));
+        assertEquals(1, cache.getLong("misses"));
+        assertEquals(0.75D, cache.getDouble("hitRatio"), 0D);
+    }
+
+    /**
+     * Given latencies spread over a wide range
+     * When the percentiles are read
+     * Then each is within the resolution of the histogram
+     */
+    @Test
+    public void histogramPercentiles()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1000; value++)
+        {
+            histogram.record(value * 1000);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000000L, histogram.getMax());
+        assertEquals(500500D, histogram.getMean(), 0D);
+        assertWithinResolution(500000L, histogram.getPercentile(0.5));
+        assertWithinResolution(990000L, histogram.getPercentile(0.99));
+        assertEquals(1000000L, histogram.getPercentile(1.0));
+    }
+
+    /**
+     * Given every bucket
+     * When the bucket of its upper bound is worked out
+     * Then it is the same bucket
+     */
+    @Test
+    public void histogramBuckets()
+    {
+        for (int index = 0; index < 248; index++)
+        {
+            long upperBound = LatencyHistogram.bucketUpperBound(index);
+            assertEquals(index, LatencyHistogram.bucketIndex(upperBound));
+            if (upperBound != Long.MAX_VALUE)
+            {
+                assertEquals(index + 1, LatencyHistogram.bucketIndex(upperBound + 1));
+            }
+        }
+    }
+
+    /**
+     * Helper method to check a percentile is within the 25% resolution of the histogram.
+     */
+    private void assertWithinResolution(long expected, long actual)
+    {
+        assertTrue("Expected about " + expected + " but was " + actual, actual >= expected && actual <= expected * 1.25);
+    }
+}
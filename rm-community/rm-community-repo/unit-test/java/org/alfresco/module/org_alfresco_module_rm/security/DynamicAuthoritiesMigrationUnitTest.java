@@ -0,0 +1,252 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.security;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.alfresco.module.org_alfresco_module_rm.model.RecordsManagementModel;
+import org.alfresco.module.org_alfresco_module_rm.test.util.AlfMock;
+import org.alfresco.repo.domain.node.NodeDAO;
+import org.alfresco.repo.domain.patch.PatchDAO;
+import org.alfresco.repo.domain.qname.QNameDAO;
+import org.alfresco.repo.lock.JobLockService;
+import org.alfresco.repo.lock.JobLockService.JobLockRefreshCallback;
+import org.alfresco.repo.lock.LockAcquisitionException;
+import org.alfresco.repo.transaction.RetryingTransactionHelper;
+import org.alfresco.repo.transaction.RetryingTransactionHelper.RetryingTransactionCallback;
+import org.alfresco.service.cmr.attributes.AttributeService;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.repository.NodeService;
+import org.alfresco.service.cmr.security.PermissionService;
+import org.alfresco.service.namespace.QName;
+import org.alfresco.service.transaction.TransactionService;
+import org.alfresco.util.Pair;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Dynamic authorities migration unit test.
+ *
+ * @since 2.7
+ */
+@SuppressWarnings("deprecation")
+public class DynamicAuthoritiesMigrationUnitTest implements RecordsManagementModel
+{
+    private static final Long ASPECT_ID = 123L;
+    private static final long MAX_NODE_ID = 99L;
+    private static final String LOCK_TOKEN = "lockToken";
+
+    @Mock private PatchDAO mockedPatchDAO;
+    @Mock private NodeDAO mockedNodeDAO;
+    @Mock private QNameDAO mockedQnameDAO;
+    @Mock private NodeService mockedNodeService;
+    @Mock private PermissionService mockedPermissionService;
+    @Mock private ExtendedSecurityService mockedExtendedSecurityService;
+    @Mock private TransactionService mockedTransactionService;
+    @Mock private RetryingTransactionHelper mockedRetryingTransactionHelper;
+    @Mock private AttributeService mockedAttributeService;
+    @Mock private JobLockService mockedJobLockService;
+
+    @InjectMocks private DynamicAuthoritiesMigration migration;
+
+    @SuppressWarnings("unchecked")
+    @Before
+    public void before()
+    {
+        MockitoAnnotations.initMocks(this);
+
+        doAnswer(new Answer<Object>()
+        {
+            @SuppressWarnings("rawtypes")
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable
+            {
+                return ((RetryingTransactionCallback)invocation.getArguments()[0]).execute();
+            }
+        }).when(mockedRetryingTransactionHelper).doInTransaction(any(RetryingTransactionCallback.class), anyBoolean(), anyBoolean());
+        when(mockedTransactionService.getRetryingTransactionHelper()).thenReturn(mockedRetryingTransactionHelper);
+
+        when(mockedJobLockService.getLock(any(QName.class), anyLong())).thenReturn(LOCK_TOKEN);
+        when(mockedPatchDAO.getMaxAdmNodeID()).thenReturn(MAX_NODE_ID);
+        when(mockedQnameDAO.getQName(ASPECT_EXTENDED_SECURITY)).thenReturn(new Pair<Long, QName>(ASPECT_ID, ASPECT_EXTENDED_SECURITY));
+        when(mockedPatchDAO.getNodesByAspectQNameId(eq(ASPECT_ID), anyLong(), anyLong())).thenReturn(Collections.<Long>emptyList());
+
+        migration.setWorkerThreads(3);
+        migration.setRangeSize(10);
+    }
+
+    /**
+     * Given records with the extended security aspect spread over the node id ranges,
+     * When the migration is run,
+     * Then every record is migrated and the high-water mark reaches the max node id
+     */
+    @Test
+    public void migrateAllRanges() throws Exception
+    {
+        List<NodeRef> records = new ArrayList<NodeRef>();
+        for (long nodeId : new long[] { 5L, 42L, 97L })
+        {
+            records.add(setupRecord(nodeId));
+        }
+
+        DynamicAuthoritiesMigration.MigrationStatus status = runMigration();
+
+        assertEquals(3, status.getProcessedRecords());
+        assertEquals(0, status.getErrors());
+        assertEquals(MAX_NODE_ID + 1, status.getHighWaterMark());
+        assertEquals(0, status.getRemainingRange());
+        for (NodeRef record : records)
+        {
+            verify(mockedNodeService).removeAspect(record, ASPECT_EXTENDED_SECURITY);
+            verify(mockedPermissionService).clearPermission(record, ExtendedReaderDynamicAuthority.EXTENDED_READER);
+        }
+        verify(mockedAttributeService).setAttribute(MAX_NODE_ID + 1, "rm-dynamicauthorities-migration");
+        verify(mockedJobLockService).releaseLock(LOCK_TOKEN, QName.createQName("http://www.alfresco.org/system/0.1", "rmDynamicAuthoritiesMigration"));
+    }
+
+    /**
+     * Given a persisted high-water mark,
+     * When the migration is run,
+     * Then the node ids below the mark are not looked at again
+     */
+    @Test
+    public void continueFromHighWaterMark() throws Exception
+    {
+        when(mockedAttributeService.getAttribute("rm-dynamicauthorities-migration")).thenReturn(50L);
+
+        runMigration();
+
+        verify(mockedPatchDAO, never()).getNodesByAspectQNameId(ASPECT_ID, 40L, 50L);
+        verify(mockedPatchDAO).getNodesByAspectQNameId(ASPECT_ID, 50L, 60L);
+    }
+
+    /**
+     * Given a record that can not be migrated,
+     * When the migration is run,
+     * Then the other records of its range are still migrated and the failure is reported
+     * And the high-water mark is not saved past the range of the failed record
+     * And the next run retries that range
+     */
+    @Test
+    public void failedRecordIsReported() throws Exception
+    {
+        NodeRef good = setupRecord(11L);
+        NodeRef bad = setupRecord(12L);
+        doThrow(new IllegalStateException("bad record")).when(mockedNodeService).removeAspect(bad, ASPECT_EXTENDED_SECURITY);
+
+        DynamicAuthoritiesMigration.MigrationStatus status = runMigration();
+
+        assertEquals(1, status.getProcessedRecords());
+        assertEquals(1, status.getErrors());
+        assertTrue(status.getLastError().contains("bad record"));
+        verify(mockedPermissionService, atLeastOnce()).clearPermission(good, ExtendedReaderDynamicAuthority.EXTENDED_READER);
+
+        // the ranges above the failed one are migrated, but the mark stays at the failed range
+        assertEquals(10L, status.getHighWaterMark());
+        verify(mockedPatchDAO).getNodesByAspectQNameId(ASPECT_ID, 90L, MAX_NODE_ID + 1);
+        verify(mockedAttributeService).setAttribute(10L, "rm-dynamicauthorities-migration");
+        verify(mockedAttributeService, never()).setAttribute(20L, "rm-dynamicauthorities-migration");
+        verify(mockedAttributeService, never()).setAttribute(MAX_NODE_ID + 1, "rm-dynamicauthorities-migration");
+
+        // the next run continues from the saved mark and migrates the record that failed
+        when(mockedAttributeService.getAttribute("rm-dynamicauthorities-migration")).thenReturn(10L);
+        doNothing().when(mockedNodeService).removeAspect(bad, ASPECT_EXTENDED_SECURITY);
+
+        status = runMigration();
+
+        assertEquals(0, status.getErrors());
+        assertEquals(MAX_NODE_ID + 1, status.getHighWaterMark());
+        verify(mockedPermissionService, atLeastOnce()).clearPermission(bad, ExtendedReaderDynamicAuthority.EXTENDED_READER);
+        verify(mockedAttributeService).setAttribute(MAX_NODE_ID + 1, "rm-dynamicauthorities-migration");
+    }
+
+    /**
+     * Given the migration is running on another server,
+     * When the migration is run,
+     * Then nothing is migrated
+     */
+    @Test
+    public void lockHeldElsewhere() throws Exception
+    {
+        when(mockedJobLockService.getLock(any(QName.class), anyLong())).thenThrow(new LockAcquisitionException("locked"));
+
+        DynamicAuthoritiesMigration.MigrationStatus status = runMigration();
+
+        assertEquals(0, status.getProcessedRecords());
+        verify(mockedPatchDAO, never()).getNodesByAspectQNameId(any(Long.class), anyLong(), anyLong());
+        verify(mockedJobLockService, never()).refreshLock(any(String.class), any(QName.class), anyLong(), any(JobLockRefreshCallback.class));
+    }
+
+    private NodeRef setupRecord(long nodeId)
+    {
+        NodeRef record = AlfMock.generateNodeRef(mockedNodeService);
+        when(mockedNodeDAO.getNodePair(nodeId)).thenReturn(new Pair<Long, NodeRef>(nodeId, record));
+        when(mockedNodeService.hasAspect(record, ASPECT_RECORD)).thenReturn(true);
+
+        long from = nodeId - nodeId % 10;
+        List<Long> range = new ArrayList<Long>(mockedPatchDAO.getNodesByAspectQNameId(ASPECT_ID, from, from + 10));
+        range.add(nodeId);
+        when(mockedPatchDAO.getNodesByAspectQNameId(ASPECT_ID, from, from + 10)).thenReturn(range);
+        return record;
+    }
+
+    private DynamicAuthoritiesMigration.MigrationStatus runMigration() throws InterruptedException
+    {
+        assertTrue(migration.start());
+        for (int i = 0; i < 500 && migration.getStatus().isRunning(); i++)
+        {
+            Thread.sleep(10);
+        }
+        DynamicAuthoritiesMigration.MigrationStatus status = migration.getStatus();
+        assertFalse(status.isRunning());
+        return status;
+    }
+}
@@ -0,0 +1,382 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.test.util.repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+import org.alfresco.repo.security.authentication.AuthenticationUtil;
+import org.alfresco.repo.security.authority.UnknownAuthorityException;
+import org.alfresco.service.cmr.security.AuthorityType;
+import org.alfresco.service.cmr.security.PermissionService;
+
+/**
+ * In-memory authority service implementation.
+ * <p>
+ * Users do not need to be created, any authority name that is not a group or a role is taken to be a user.  The
+ * authorities of a user are the user, all the groups containing it directly or indirectly and everyone.
+ *
+ * @since 2.7
+ */
+class InMemoryAuthorityService
+{
+    /** Administrator */
+    private static final String ADMIN = "admin";
+
+    /** Groups and roles */
+    private final Map<String, Authority> authorities = new HashMap<String, Authority>();
+
+    /** Memberships of users, keyed by user name */
+    private final Map<String, Set<String>> userParents = new HashMap<String, Set<String>>();
+
+    private final InMemoryRepository repository;
+
+    InMemoryAuthorityService(InMemoryRepository repository)
+    {
+        this.repository = repository;
+    }
+
+    private Lock readLock()
+    {
+        Lock lock = repository.getLock().readLock();
+        lock.lock();
+        return lock;
+    }
+
+    private Lock writeLock()
+    {
+        Lock lock = repository.getLock().writeLock();
+        lock.lock();
+        return lock;
+    }
+
+    private static boolean isUser(String name)
+    {
+        AuthorityType type = AuthorityType.getAuthorityType(name);
+        return type == AuthorityType.USER || type == AuthorityType.ADMIN || type == AuthorityType.GUEST;
+    }
+
+    public String getName(AuthorityType type, String shortName)
+    {
+        return (type.isPrefixed() && !shortName.startsWith(type.getPrefixString())) ? type.getPrefixString() + shortName : shortName;
+    }
+
+    public String getShortName(String name)
+    {
+        AuthorityType type = AuthorityType.getAuthorityType(name);
+        return (type.isPrefixed() && name.startsWith(type.getPrefixString())) ? name.substring(type.getPrefixString().length()) : name;
+    }
+
+    public String createAuthority(AuthorityType type, String shortName)
+    {
+        return createAuthority(type, shortName, shortName, null);
+    }
+
+    public String createAuthority(AuthorityType type, String shortName, String authorityDisplayName, Set<String> authorityZones)
+    {
+        String name = getName(type, shortName);
+        Lock lock = writeLock();
+        try
+        {
+            if (authorities.containsKey(name))
+            {
+                throw new IllegalArgumentException("Authority " + name + " already exists.");
+            }
+            authorities.put(name, new Authority(authorityDisplayName));
+            return name;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public boolean authorityExists(String name)
+    {
+        if (isUser(name) || PermissionService.ALL_AUTHORITIES.equals(name))
+        {
+            return true;
+        }
+
+        Lock lock = readLock();
+        try
+        {
+            return authorities.containsKey(name);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public void deleteAuthority(String name)
+    {
+        deleteAuthority(name, false);
+    }
+
+    public void deleteAuthority(String name, boolean cascade)
+    {
+        Lock lock = writeLock();
+        try
+        {
+            Authority authority = authorities.remove(name);
+            if (authority != null)
+            {
+                for (String parent : authority.parents)
+                {
+                    getAuthority(parent).children.remove(name);
+                }
+                for (String child : authority.children)
+                {
+                    getParents(child).remove(name);
+                }
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public String getAuthorityDisplayName(String name)
+    {
+        Lock lock = readLock();
+        try
+        {
+            Authority authority = authorities.get(name);
+            return authority == null ? getShortName(name) : authority.displayName;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public void setAuthorityDisplayName(String name, String authorityDisplayName)
+    {
+        Lock lock = writeLock();
+        try
+        {
+            getAuthority(name).displayName = authorityDisplayName;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public void addAuthority(String parentName, String childName)
+    {
+        Lock lock = writeLock();
+        try
+        {
+            getAuthority(parentName).children.add(childName);
+            getParents(childName).add(parentName);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public void addAuthority(Collection<String> parentNames, String childName)
+    {
+        for (String parentName : parentNames)
+        {
+            addAuthority(parentName, childName);
+        }
+    }
+
+    public void removeAuthority(String parentName, String childName)
+    {
+        Lock lock = writeLock();
+        try
+        {
+            getAuthority(parentName).children.remove(childName);
+            getParents(childName).remove(parentName);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public Set<String> getContainedAuthorities(AuthorityType type, String name, boolean immediate)
+    {
+        Lock lock = readLock();
+        try
+        {
+            Set<String> result = new HashSet<String>();
+            collectContained(name, immediate, result);
+            return filter(result, type);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public Set<String> getContainingAuthorities(AuthorityType type, String name, boolean immediate)
+    {
+        Lock lock = readLock();
+        try
+        {
+            Set<String> result = new HashSet<String>();
+            collectContaining(name, immediate, result);
+            return filter(result, type);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public Set<String> getAuthoritiesForUser(String userName)
+    {
+        Lock lock = readLock();
+        try
+        {
+            Set<String> result = new HashSet<String>();
+            result.add(userName);
+            result.add(PermissionService.ALL_AUTHORITIES);
+            collectContaining(userName, false, result);
+            return result;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public Set<String> getAuthorities()
+    {
+        return getAuthoritiesForUser(AuthenticationUtil.getRunAsUser());
+    }
+
+    public boolean isAdminAuthority(String authorityName)
+    {
+        return ADMIN.equals(authorityName);
+    }
+
+    public boolean hasAdminAuthority()
+    {
+        return isAdminAuthority(AuthenticationUtil.getRunAsUser());
+    }
+
+    private void collectContained(String name, boolean immediate, Set<String> result)
+    {
+        Authority authority = authorities.get(name);
+        if (authority != null)
+        {
+            for (String child : authority.children)
+            {
+                if (result.add(child) && !immediate)
+                {
+                    collectContained(child, false, result);
+                }
+            }
+        }
+    }
+
+    private void collectContaining(String name, boolean immediate, Set<String> result)
+    {
+        Set<String> parents = (isUser(name) ? userParents.get(name) : (authorities.containsKey(name) ? authorities.get(name).parents : null));
+        if (parents != null)
+        {
+            for (String parent : parents)
+            {
+                if (result.add(parent) && !immediate)
+                {
+                    collectContaining(parent, false, result);
+                }
+            }
+        }
+    }
+
+    private static Set<String> filter(Set<String> names, AuthorityType type)
+    {
+        if (type != null)
+        {
+            Set<String> result = new HashSet<String>();
+            for (String name : names)
+            {
+                if (AuthorityType.getAuthorityType(name) == type)
+                {
+                    result.add(name);
+                }
+            }
+            return result;
+        }
+        return names;
+    }
+
+    private Authority getAuthority(String name)
+    {
+        Authority authority = authorities.get(name);
+        if (authority == null)
+        {
+            throw new UnknownAuthorityException("Authority does not exist: " + name);
+        }
+        return authority;
+    }
+
+    private Set<String> getParents(String name)
+    {
+        if (isUser(name))
+        {
+            Set<String> parents = userParents.get(name);
+            if (parents == null)
+            {
+                parents = new HashSet<String>();
+                userParents.put(name, parents);
+            }
+            return parents;
+        }
+        return getAuthority(name).parents;
+    }
+
+    /**
+     * Group or role
+     */
+    private static class Authority
+    {
+        private String displayName;
+        private final Set<String> parents = new HashSet<String>();
+        private final Set<String> children = new HashSet<String>();
+
+        private Authority(String displayName)
+        {
+            this.displayName = displayName;
+        }
+    }
+}
@@ -0,0 +1,841 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.test.util.repository;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+import org.alfresco.model.ContentModel;
+import org.alfresco.module.org_alfresco_module_rm.test.util.repository.InMemoryRepository.Node;
+import org.alfresco.service.cmr.repository.AssociationRef;
+import org.alfresco.service.cmr.repository.ChildAssociationRef;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.repository.StoreRef;
+import org.alfresco.service.namespace.QName;
+import org.alfresco.service.namespace.QNamePattern;
+import org.alfresco.util.GUID;
+
+/**
+ * In-memory node service implementation.
+ * <p>
+ * Nodes that are deleted are removed straight away, together with their primary children, rather than archived.
+ *
+ * @since 2.7
+ */
+class InMemoryNodeService
+{
+    /** Root nodes, keyed by store */
+    private final Map<StoreRef, NodeRef> rootNodes = new HashMap<StoreRef, NodeRef>();
+
+    private final InMemoryRepository repository;
+
+    InMemoryNodeService(InMemoryRepository repository)
+    {
+        this.repository = repository;
+    }
+
+    private Lock readLock()
+    {
+        Lock lock = repository.getLock().readLock();
+        lock.lock();
+        return lock;
+    }
+
+    private Lock writeLock()
+    {
+        Lock lock = repository.getLock().writeLock();
+        lock.lock();
+        return lock;
+    }
+
+    private Node getNode(NodeRef nodeRef)
+    {
+        return repository.getNode(nodeRef);
+    }
+
+    public List<StoreRef> getStores()
+    {
+        Lock lock = readLock();
+        try
+        {
+            return new ArrayList<StoreRef>(rootNodes.keySet());
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public StoreRef createStore(String protocol, String identifier)
+    {
+        StoreRef storeRef = new StoreRef(protocol, identifier);
+        Lock lock = writeLock();
+        try
+        {
+            getOrCreateRootNode(storeRef);
+            return storeRef;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public boolean exists(StoreRef storeRef)
+    {
+        Lock lock = readLock();
+        try
+        {
+            return rootNodes.containsKey(storeRef);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public boolean exists(NodeRef nodeRef)
+    {
+        Lock lock = readLock();
+        try
+        {
+            return repository.getNodes().containsKey(nodeRef);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The root node of a store is created the first time it is asked for.
+     */
+    public NodeRef getRootNode(StoreRef storeRef)
+    {
+        Lock lock = writeLock();
+        try
+        {
+            return getOrCreateRootNode(storeRef);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private NodeRef getOrCreateRootNode(StoreRef storeRef)
+    {
+        NodeRef rootNode = rootNodes.get(storeRef);
+        if (rootNode == null)
+        {
+            rootNode = newNode(storeRef, ContentModel.TYPE_STOREROOT, null).nodeRef;
+            getNode(rootNode).aspects.add(ContentModel.ASPECT_ROOT);
+            rootNodes.put(storeRef, rootNode);
+        }
+        return rootNode;
+    }
+
+    private Node newNode(StoreRef storeRef, QName type, Map<QName, Serializable> properties)
+    {
+        String id = GUID.generate();
+        Node node = new Node(new NodeRef(storeRef, id), type);
+        node.properties.put(ContentModel.PROP_NODE_UUID, id);
+        if (properties != null)
+        {
+            node.properties.putAll(properties);
+        }
+        repository.getNodes().put(node.nodeRef, node);
+        return node;
+    }
+
+    public ChildAssociationRef createNode(NodeRef parentRef, QName assocTypeQName, QName assocQName, QName nodeTypeQName)
+    {
+        return createNode(parentRef, assocTypeQName, assocQName, nodeTypeQName, null);
+    }
+
+    public ChildAssociationRef createNode(NodeRef parentRef, QName assocTypeQName, QName assocQName, QName nodeTypeQName,
+                Map<QName, Serializable> properties)
+    {
+        Lock lock = writeLock();
+        try
+        {
+            Node parent = getNode(parentRef);
+            Node node = newNode(parentRef.getStoreRef(), nodeTypeQName, properties);
+            return linkChild(parent, node, assocTypeQName, assocQName, true);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private ChildAssociationRef linkChild(Node parent, Node child, QName assocTypeQName, QName assocQName, boolean isPrimary)
+    {
+        if (parent.childAssocs == null)
+        {
+            parent.childAssocs = new ArrayList<ChildAssociationRef>(4);
+        }
+        if (child.parentAssocs == null)
+        {
+            child.parentAssocs = new ArrayList<ChildAssociationRef>(1);
+        }
+
+        ChildAssociationRef assoc = new ChildAssociationRef(assocTypeQName, parent.nodeRef, assocQName, child.nodeRef,
+                    isPrimary, parent.childAssocs.size());
+        parent.childAssocs.add(assoc);
+        child.parentAssocs.add(assoc);
+        if (isPrimary)
+        {
+            child.primaryParent = assoc;
+        }
+        return assoc;
+    }
+
+    private boolean unlinkChild(ChildAssociationRef assoc)
+    {
+        boolean removed = false;
+        Node parent = repository.getNodes().get(assoc.getParentRef());
+        if (parent != null && parent.childAssocs != null)
+        {
+            removed = parent.childAssocs.remove(assoc);
+        }
+        Node child = repository.getNodes().get(assoc.getChildRef());
+        if (child != null && child.parentAssocs != null)
+        {
+            child.parentAssocs.remove(assoc);
+        }
+        return removed;
+    }
+
+    public ChildAssociationRef moveNode(NodeRef nodeToMoveRef, NodeRef newParentRef, QName assocTypeQName, QName assocQName)
+    {
+        Lock lock = writeLock();
+        try
+        {
+            Node node = getNode(nodeToMoveRef);
+            Node newParent = getNode(newParentRef);
+            if (node.primaryParent != null)
+            {
+                unlinkChild(node.primaryParent);
+            }
+            return linkChild(newParent, node, assocTypeQName, assocQName, true);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public QName getType(NodeRef nodeRef)
+    {
+        Lock lock = readLock();
+        try
+        {
+            return getNode(nodeRef).type;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public void setType(NodeRef nodeRef, QName typeQName)
+    {
+        Lock lock = writeLock();
+        try
+        {
+            getNode(nodeRef).type = typeQName;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public void addAspect(NodeRef nodeRef, QName aspectTypeQName, Map<QName, Serializable> aspectProperties)
+    {
+        Lock lock = writeLock();
+        try
+        {
+            Node node = getNode(nodeRef);
+            if (!node.aspects.contains(aspectTypeQName))
+            {
+                node.aspects.add(aspectTypeQName);
+            }
+            if (aspectProperties != null)
+            {
+                node.properties.putAll(aspectProperties);
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * There is no dictionary, so the properties of the aspect are left on the node.
+     */
+    public void removeAspect(NodeRef nodeRef, QName aspectTypeQName)
+    {
+        Lock lock = writeLock();
+        try
+        {
+            getNode(nodeRef).aspects.remove(aspectTypeQName);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public boolean hasAspect(NodeRef nodeRef, QName aspectTypeQName)
+    {
+        Lock lock = readLock();
+        try
+        {
+            return getNode(nodeRef).aspects.contains(aspectTypeQName);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public Set<QName> getAspects(NodeRef nodeRef)
+    {
+        Lock lock = readLock();
+        try
+        {
+            return new HashSet<QName>(getNode(nodeRef).aspects);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public void deleteNode(NodeRef nodeRef)
+    {
+        Lock lock = writeLock();
+        try
+        {
+            delete(getNode(nodeRef));
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private void delete(Node node)
+    {
+        if (node.childAssocs != null)
+        {
+            for (ChildAssociationRef childAssoc : new ArrayList<ChildAssociationRef>(node.childAssocs))
+            {
+                Node child = repository.getNodes().get(childAssoc.getChildRef());
+                if (childAssoc.isPrimary() && child != null)
+                {
+                    delete(child);
+                }
+                else
+                {
+                    unlinkChild(childAssoc);
+                }
+            }
+        }
+        if (node.parentAssocs != null)
+        {
+            for (ChildAssociationRef parentAssoc : new ArrayList<ChildAssociationRef>(node.parentAssocs))
+            {
+                unlinkChild(parentAssoc);
+            }
+        }
+        if (node.targetAssocs != null)
+        {
+            for (AssociationRef assoc : node.targetAssocs)
+            {
+                Node target = repository.getNodes().get(assoc.getTargetRef());
+                if (target != null && target.sourceAssocs != null)
+                {
+                    target.sourceAssocs.remove(assoc);
+                }
+            }
+        }
+        if (node.sourceAssocs != null)
+        {
+            for (AssociationRef assoc : node.sourceAssocs)
+            {
+                Node source = repository.getNodes().get(assoc.getSourceRef());
+                if (source != null && source.targetAssocs != null)
+                {
+                    source.targetAssocs.remove(assoc);
+                }
+            }
+        }
+        repository.getNodes().remove(node.nodeRef);
+    }
+
+    public ChildAssociationRef addChild(NodeRef parentRef, NodeRef childRef, QName assocTypeQName, QName qname)
+    {
+        Lock lock = writeLock();
+        try
+        {
+            return linkChild(getNode(parentRef), getNode(childRef), assocTypeQName, qname, false);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public List<ChildAssociationRef> addChild(Collection<NodeRef> parentRefs, NodeRef childRef, QName assocTypeQName, QName qname)
+    {
+        List<ChildAssociationRef> result = new ArrayList<ChildAssociationRef>(parentRefs.size());
+        for (NodeRef parentRef : parentRefs)
+        {
+            result.add(addChild(parentRef, childRef, assocTypeQName, qname));
+        }
+        return result;
+    }
+
+    /**
+     * Removes all the associations between the parent and the child, the child is deleted if the primary association
+     * is removed.
+     */
+    public void removeChild(NodeRef parentRef, NodeRef childRef)
+    {
+        Lock lock = writeLock();
+        try
+        {
+            Node parent = getNode(parentRef);
+            Node child = getNode(childRef);
+            if (child.parentAssocs != null)
+            {
+                for (ChildAssociationRef assoc : new ArrayList<ChildAssociationRef>(child.parentAssocs))
+                {
+                    if (assoc.getParentRef().equals(parent.nodeRef))
+                    {
+                        if (assoc.isPrimary())
+                        {
+                            delete(child);
+                            break;
+                        }
+                        unlinkChild(assoc);
+                    }
+                }
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public boolean removeChildAssociation(ChildAssociationRef childAssocRef)
+    {
+        Lock lock = writeLock();
+        try
+        {
+            Node child = repository.getNodes().get(childAssocRef.getChildRef());
+            if (child != null && childAssocRef.equals(child.primaryParent))
+            {
+                delete(child);
+                return true;
+            }
+            return unlinkChild(childAssocRef);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public boolean removeSecondaryChildAssociation(ChildAssociationRef childAssocRef)
+    {
+        Lock lock = writeLock();
+        try
+        {
+            return !childAssocRef.isPrimary() && unlinkChild(childAssocRef);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public Map<QName, Serializable> getProperties(NodeRef nodeRef)
+    {
+        Lock lock = readLock();
+        try
+        {
+            return new HashMap<QName, Serializable>(getNode(nodeRef).properties);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public Serializable getProperty(NodeRef nodeRef, QName qname)
+    {
+        Lock lock = readLock();
+        try
+        {
+            return getNode(nodeRef).properties.get(qname);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public void setProperties(NodeRef nodeRef, Map<QName, Serializable> properties)
+    {
+        Lock lock = writeLock();
+        try
+        {
+            Node node = getNode(nodeRef);
+            Serializable uuid = node.properties.get(ContentModel.PROP_NODE_UUID);
+            node.properties.clear();
+            node.properties.putAll(properties);
+            node.properties.put(ContentModel.PROP_NODE_UUID, uuid);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public void addProperties(NodeRef nodeRef, Map<QName, Serializable> properties)
+    {
+        Lock lock = writeLock();
+        try
+        {
+            getNode(nodeRef).properties.putAll(properties);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public void setProperty(NodeRef nodeRef, QName qname, Serializable value)
+    {
+        Lock lock = writeLock();
+        try
+        {
+            getNode(nodeRef).properties.put(qname, value);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public void removeProperty(NodeRef nodeRef, QName qname)
+    {
+        Lock lock = writeLock();
+        try
+        {
+            getNode(nodeRef).properties.remove(qname);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public ChildAssociationRef getPrimaryParent(NodeRef nodeRef)
+    {
+        Lock lock = readLock();
+        try
+        {
+            Node node = getNode(nodeRef);
+            return node.primaryParent == null ?
+                        new ChildAssociationRef(null, null, null, nodeRef) :
+                        node.primaryParent;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public List<ChildAssociationRef> getParentAssocs(NodeRef nodeRef)
+    {
+        return getParentAssocs(nodeRef, null, null);
+    }
+
+    public List<ChildAssociationRef> getParentAssocs(NodeRef nodeRef, QNamePattern typeQNamePattern, QNamePattern qnamePattern)
+    {
+        Lock lock = readLock();
+        try
+        {
+            return filter(getNode(nodeRef).parentAssocs, typeQNamePattern, qnamePattern, Integer.MAX_VALUE);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public List<ChildAssociationRef> getChildAssocs(NodeRef nodeRef)
+    {
+        return getChildAssocs(nodeRef, null, null, Integer.MAX_VALUE, true);
+    }
+
+    public List<ChildAssociationRef> getChildAssocs(NodeRef nodeRef, QNamePattern typeQNamePattern, QNamePattern qnamePattern)
+    {
+        return getChildAssocs(nodeRef, typeQNamePattern, qnamePattern, Integer.MAX_VALUE, true);
+    }
+
+    public List<ChildAssociationRef> getChildAssocs(NodeRef nodeRef, QNamePattern typeQNamePattern, QNamePattern qnamePattern,
+                boolean preload)
+    {
+        return getChildAssocs(nodeRef, typeQNamePattern, qnamePattern, Integer.MAX_VALUE, preload);
+    }
+
+    public List<ChildAssociationRef> getChildAssocs(NodeRef nodeRef, QNamePattern typeQNamePattern, QNamePattern qnamePattern,
+                int maxResults, boolean preload)
+    {
+        Lock lock = readLock();
+        try
+        {
+            return filter(getNode(nodeRef).childAssocs, typeQNamePattern, qnamePattern, maxResults);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public List<ChildAssociationRef> getChildAssocs(NodeRef nodeRef, Set<QName> childNodeTypeQNames)
+    {
+        Lock lock = readLock();
+        try
+        {
+            List<ChildAssociationRef> result = new ArrayList<ChildAssociationRef>();
+            List<ChildAssociationRef> childAssocs = getNode(nodeRef).childAssocs;
+            if (childAssocs != null)
+            {
+                for (ChildAssociationRef childAssoc : childAssocs)
+                {
+                    if (childNodeTypeQNames.contains(getNode(childAssoc.getChildRef()).type))
+                    {
+                        result.add(childAssoc);
+                    }
+                }
+            }
+            return result;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public List<ChildAssociationRef> getChildAssocsByPropertyValue(NodeRef nodeRef, QName propertyQName, Serializable value)
+    {
+        Lock lock = readLock();
+        try
+        {
+            List<ChildAssociationRef> result = new ArrayList<ChildAssociationRef>();
+            List<ChildAssociationRef> childAssocs = getNode(nodeRef).childAssocs;
+            if (childAssocs != null)
+            {
+                for (ChildAssociationRef childAssoc : childAssocs)
+                {
+                    if (value.equals(getNode(childAssoc.getChildRef()).properties.get(propertyQName)))
+                    {
+                        result.add(childAssoc);
+                    }
+                }
+            }
+            return result;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public NodeRef getChildByName(NodeRef nodeRef, QName assocTypeQName, String childName)
+    {
+        Lock lock = readLock();
+        try
+        {
+            List<ChildAssociationRef> childAssocs = getNode(nodeRef).childAssocs;
+            if (childAssocs != null)
+            {
+                for (ChildAssociationRef childAssoc : childAssocs)
+                {
+                    if (assocTypeQName.equals(childAssoc.getTypeQName()))
+                    {
+                        Serializable name = getNode(childAssoc.getChildRef()).properties.get(ContentModel.PROP_NAME);
+                        if (name != null && childName.equalsIgnoreCase(name.toString()))
+                        {
+                            return childAssoc.getChildRef();
+                        }
+                    }
+                }
+            }
+            return null;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private static List<ChildAssociationRef> filter(List<ChildAssociationRef> assocs, QNamePattern typeQNamePattern,
+                QNamePattern qnamePattern, int maxResults)
+    {
+        if (assocs == null)
+        {
+            return new ArrayList<ChildAssociationRef>(0);
+        }
+
+        List<ChildAssociationRef> result = new ArrayList<ChildAssociationRef>(Math.min(assocs.size(), maxResults));
+        for (Iterator<ChildAssociationRef> iterator = assocs.iterator(); iterator.hasNext() && result.size() < maxResults;)
+        {
+            ChildAssociationRef assoc = iterator.next();
+            if ((typeQNamePattern == null || typeQNamePattern.isMatch(assoc.getTypeQName())) &&
+                (qnamePattern == null || qnamePattern.isMatch(assoc.getQName())))
+            {
+                result.add(assoc);
+            }
+        }
+        return result;
+    }
+
+    public AssociationRef createAssociation(NodeRef sourceRef, NodeRef targetRef, QName assocTypeQName)
+    {
+        Lock lock = writeLock();
+        try
+        {
+            Node source = getNode(sourceRef);
+            Node target = getNode(targetRef);
+            if (source.targetAssocs == null)
+            {
+                source.targetAssocs = new ArrayList<AssociationRef>(1);
+            }
+            if (target.sourceAssocs == null)
+            {
+                target.sourceAssocs = new ArrayList<AssociationRef>(1);
+            }
+
+            AssociationRef assoc = new AssociationRef(sourceRef, assocTypeQName, targetRef);
+            source.targetAssocs.add(assoc);
+            target.sourceAssocs.add(assoc);
+            return assoc;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public void removeAssociation(NodeRef sourceRef, NodeRef targetRef, QName assocTypeQName)
+    {
+        Lock lock = writeLock();
+        try
+        {
+            AssociationRef assoc = new AssociationRef(sourceRef, assocTypeQName, targetRef);
+            Node source = getNode(sourceRef);
+            Node target = getNode(targetRef);
+            if (source.targetAssocs != null)
+            {
+                source.targetAssocs.remove(assoc);
+            }
+            if (target.sourceAssocs != null)
+            {
+                target.sourceAssocs.remove(assoc);
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public List<AssociationRef> getTargetAssocs(NodeRef sourceRef, QNamePattern qnamePattern)
+    {
+        Lock lock = readLock();
+        try
+        {
+            return filterPeers(getNode(sourceRef).targetAssocs, qnamePattern);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public List<AssociationRef> getSourceAssocs(NodeRef targetRef, QNamePattern qnamePattern)
+    {
+        Lock lock = readLock();
+        try
+        {
+            return filterPeers(getNode(targetRef).sourceAssocs, qnamePattern);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private static List<AssociationRef> filterPeers(List<AssociationRef> assocs, QNamePattern qnamePattern)
+    {
+        if (assocs == null)
+        {
+            return Collections.emptyList();
+        }
+
+        List<AssociationRef> result = new ArrayList<AssociationRef>(assocs.size());
+        for (AssociationRef assoc : assocs)
+        {
+            if (qnamePattern == null || qnamePattern.isMatch(assoc.getTypeQName()))
+            {
+                result.add(assoc);
+            }
+        }
+        return result;
+    }
+}
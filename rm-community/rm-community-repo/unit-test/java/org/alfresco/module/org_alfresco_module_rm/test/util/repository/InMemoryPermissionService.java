@@ -0,0 +1,301 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.test.util.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+import org.alfresco.module.org_alfresco_module_rm.test.util.repository.InMemoryRepository.Node;
+import org.alfresco.repo.security.authentication.AuthenticationUtil;
+import org.alfresco.repo.security.permissions.impl.AccessPermissionImpl;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.security.AccessPermission;
+import org.alfresco.service.cmr.security.AccessStatus;
+import org.alfresco.service.cmr.security.PermissionService;
+
+/**
+ * In-memory permission service implementation.
+ * <p>
+ * The permissions set on a node and, while they are inherited, on its primary ancestors are checked in turn against
+ * the authorities of the current user.  The closest node with a matching permission decides, a deny taking precedence
+ * over an allow on the same node.  Permission groups are not expanded, so a permission only matches itself and
+ * {@link PermissionService#ALL_PERMISSIONS}.  When no permission matches the default access is returned, which is
+ * allowed unless configured otherwise.  The system user is always allowed.
+ *
+ * @since 2.7
+ */
+public class InMemoryPermissionService
+{
+    /** Permissions set, keyed by node */
+    private final Map<NodeRef, List<AccessPermission>> setPermissions = new HashMap<NodeRef, List<AccessPermission>>();
+
+    /** Nodes that do not inherit permissions from their parent */
+    private final Set<NodeRef> notInheriting = new HashSet<NodeRef>();
+
+    /** Access when no permission matches */
+    private volatile AccessStatus defaultAccess = AccessStatus.ALLOWED;
+
+    private final InMemoryRepository repository;
+    private final InMemoryAuthorityService authorityService;
+
+    InMemoryPermissionService(InMemoryRepository repository, InMemoryAuthorityService authorityService)
+    {
+        this.repository = repository;
+        this.authorityService = authorityService;
+    }
+
+    /**
+     * @param defaultAccess access given when no permission set matches
+     */
+    public void setDefaultAccess(AccessStatus defaultAccess)
+    {
+        this.defaultAccess = defaultAccess;
+    }
+
+    private Lock readLock()
+    {
+        Lock lock = repository.getLock().readLock();
+        lock.lock();
+        return lock;
+    }
+
+    private Lock writeLock()
+    {
+        Lock lock = repository.getLock().writeLock();
+        lock.lock();
+        return lock;
+    }
+
+    public String getAllPermission()
+    {
+        return PermissionService.ALL_PERMISSIONS;
+    }
+
+    public String getOwnerAuthority()
+    {
+        return PermissionService.OWNER_AUTHORITY;
+    }
+
+    public String getAllAuthorities()
+    {
+        return PermissionService.ALL_AUTHORITIES;
+    }
+
+    public AccessStatus hasReadPermission(NodeRef nodeRef)
+    {
+        return hasPermission(nodeRef, PermissionService.READ);
+    }
+
+    public AccessStatus hasPermission(NodeRef nodeRef, String permission)
+    {
+        String user = AuthenticationUtil.getRunAsUser();
+        if (user == null)
+        {
+            return AccessStatus.DENIED;
+        }
+        if (AuthenticationUtil.isRunAsUserTheSystemUser())
+        {
+            return AccessStatus.ALLOWED;
+        }
+
+        Set<String> authorities = authorityService.getAuthoritiesForUser(user);
+        Lock lock = readLock();
+        try
+        {
+            NodeRef current = nodeRef;
+            while (current != null)
+            {
+                Node node = repository.getNode(current);
+                AccessStatus status = evaluate(setPermissions.get(current), authorities, permission);
+                if (status != null)
+                {
+                    return status;
+                }
+                if (notInheriting.contains(current) || node.primaryParent == null)
+                {
+                    break;
+                }
+                current = node.primaryParent.getParentRef();
+            }
+            return defaultAccess;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private static AccessStatus evaluate(List<AccessPermission> permissions, Set<String> authorities, String permission)
+    {
+        AccessStatus result = null;
+        if (permissions != null)
+        {
+            for (AccessPermission accessPermission : permissions)
+            {
+                if (authorities.contains(accessPermission.getAuthority()) &&
+                    (permission.equals(accessPermission.getPermission()) ||
+                     PermissionService.ALL_PERMISSIONS.equals(accessPermission.getPermission())))
+                {
+                    if (accessPermission.getAccessStatus() == AccessStatus.DENIED)
+                    {
+                        return AccessStatus.DENIED;
+                    }
+                    result = AccessStatus.ALLOWED;
+                }
+            }
+        }
+        return result;
+    }
+
+    public void setPermission(NodeRef nodeRef, String authority, String permission, boolean allow)
+    {
+        Lock lock = writeLock();
+        try
+        {
+            repository.getNode(nodeRef);
+            List<AccessPermission> permissions = setPermissions.get(nodeRef);
+            if (permissions == null)
+            {
+                permissions = new ArrayList<AccessPermission>(2);
+                setPermissions.put(nodeRef, permissions);
+            }
+            remove(permissions, authority, permission);
+            permissions.add(new AccessPermissionImpl(permission, allow ? AccessStatus.ALLOWED : AccessStatus.DENIED, authority, 0));
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public void deletePermission(NodeRef nodeRef, String authority, String permission)
+    {
+        Lock lock = writeLock();
+        try
+        {
+            List<AccessPermission> permissions = setPermissions.get(nodeRef);
+            if (permissions != null)
+            {
+                remove(permissions, authority, permission);
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public void clearPermission(NodeRef nodeRef, String authority)
+    {
+        deletePermission(nodeRef, authority, null);
+    }
+
+    public void deletePermissions(NodeRef nodeRef)
+    {
+        Lock lock = writeLock();
+        try
+        {
+            setPermissions.remove(nodeRef);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the permissions set for an authority, all of them if no permission is given.
+     */
+    private static void remove(List<AccessPermission> permissions, String authority, String permission)
+    {
+        for (Iterator<AccessPermission> iterator = permissions.iterator(); iterator.hasNext();)
+        {
+            AccessPermission accessPermission = iterator.next();
+            if (accessPermission.getAuthority().equals(authority) &&
+                (permission == null || permission.equals(accessPermission.getPermission())))
+            {
+                iterator.remove();
+            }
+        }
+    }
+
+    public Set<AccessPermission> getAllSetPermissions(NodeRef nodeRef)
+    {
+        Lock lock = readLock();
+        try
+        {
+            List<AccessPermission> permissions = setPermissions.get(nodeRef);
+            return permissions == null ? new HashSet<AccessPermission>() : new HashSet<AccessPermission>(permissions);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public void setInheritParentPermissions(NodeRef nodeRef, boolean inheritParentPermissions)
+    {
+        Lock lock = writeLock();
+        try
+        {
+            repository.getNode(nodeRef);
+            if (inheritParentPermissions)
+            {
+                notInheriting.remove(nodeRef);
+            }
+            else
+            {
+                notInheriting.add(nodeRef);
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public boolean getInheritParentPermissions(NodeRef nodeRef)
+    {
+        Lock lock = readLock();
+        try
+        {
+            return !notInheriting.contains(nodeRef);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.test.util.repository;
+
+import java.io.Serializable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.alfresco.service.cmr.repository.AssociationRef;
+import org.alfresco.service.cmr.repository.ChildAssociationRef;
+import org.alfresco.service.cmr.repository.InvalidNodeRefException;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.repository.NodeService;
+import org.alfresco.service.cmr.search.SearchService;
+import org.alfresco.service.cmr.security.AuthorityService;
+import org.alfresco.service.cmr.security.PermissionService;
+import org.alfresco.service.namespace.QName;
+
+/**
+ * In-memory stand-in for the repository services used by the records management services.
+ * <p>
+ * Provides thread safe, in-memory implementations of the {@link NodeService}, {@link SearchService},
+ * {@link PermissionService} and {@link AuthorityService} so that service beans can be wired against them in a unit
+ * test and exercised at scale without a repository.  Every call made on the services is counted, so a test can
+ * assert on the number of repository calls as well as on the wall time.
+ * <p>
+ * Only the methods the records management services rely on are implemented, any other method throws an
+ * {@link UnsupportedOperationException}.  There is no dictionary, so types and aspects are stored as given and
+ * mandatory aspects are not added.
+ *
+ * @since 2.7
+ */
+public class InMemoryRepository
+{
+    /** Lock guarding the repository state */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Nodes, in creation order */
+    private final Map<NodeRef, Node> nodes = new LinkedHashMap<NodeRef, Node>();
+
+    /** Call counters, keyed by service and method name */
+    private final Map<String, LongAdder> callCounts = new ConcurrentHashMap<String, LongAdder>();
+
+    /** Service implementations */
+    private final InMemoryNodeService nodeServiceImpl;
+    private final InMemoryAuthorityService authorityServiceImpl;
+    private final InMemoryPermissionService permissionServiceImpl;
+    private final InMemorySearchService searchServiceImpl;
+
+    /** Counting service proxies */
+    private final NodeService nodeService;
+    private final AuthorityService authorityService;
+    private final PermissionService permissionService;
+    private final SearchService searchService;
+
+    public InMemoryRepository()
+    {
+        nodeServiceImpl = new InMemoryNodeService(this);
+        authorityServiceImpl = new InMemoryAuthorityService(this);
+        permissionServiceImpl = new InMemoryPermissionService(this, authorityServiceImpl);
+        searchServiceImpl = new InMemorySearchService(this);
+
+        nodeService = createService(NodeService.class, nodeServiceImpl);
+        authorityService = createService(AuthorityService.class, authorityServiceImpl);
+        permissionService = createService(PermissionService.class, permissionServiceImpl);
+        searchService = createService(SearchService.class, searchServiceImpl);
+    }
+
+    /**
+     * @return  {@link NodeService} in-memory node service
+     */
+    public NodeService getNodeService()
+    {
+        return nodeService;
+    }
+
+    /**
+     * @return  {@link AuthorityService}    in-memory authority service
+     */
+    public AuthorityService getAuthorityService()
+    {
+        return authorityService;
+    }
+
+    /**
+     * @return  {@link PermissionService}   in-memory permission service
+     */
+    public PermissionService getPermissionService()
+    {
+        return permissionService;
+    }
+
+    /**
+     * @return  {@link SearchService}   in-memory search service
+     */
+    public SearchService getSearchService()
+    {
+        return searchService;
+    }
+
+    /**
+     * @return  {@link InMemoryPermissionService}   permission service implementation, to configure the default access
+     */
+    public InMemoryPermissionService getPermissionServiceImpl()
+    {
+        return permissionServiceImpl;
+    }
+
+    /**
+     * Gets the number of calls made on a service method.
+     *
+     * @param serviceMethod service and method name, for example <tt>NodeService.hasAspect</tt>
+     * @return long         number of calls made since the counts were last reset
+     */
+    public long getCallCount(String serviceMethod)
+    {
+        LongAdder count = callCounts.get(serviceMethod);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * @return  long    total number of calls made on all the services since the counts were last reset
+     */
+    public long getTotalCallCount()
+    {
+        long total = 0;
+        for (LongAdder count : callCounts.values())
+        {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    /**
+     * @return  {@link Map}&lt;String, Long&gt;    number of calls made on each service method, sorted by name
+     */
+    public Map<String, Long> getCallCounts()
+    {
+        Map<String, Long> result = new TreeMap<String, Long>();
+        for (Map.Entry<String, LongAdder> entry : callCounts.entrySet())
+        {
+            result.put(entry.getKey(), entry.getValue().sum());
+        }
+        return result;
+    }
+
+    /**
+     * Resets all the call counts, typically once the test data has been created.
+     */
+    public void resetCallCounts()
+    {
+        callCounts.clear();
+    }
+
+    /**
+     * @return  int number of nodes in the repository
+     */
+    public int getNodeCount()
+    {
+        lock.readLock().lock();
+        try
+        {
+            return nodes.size();
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return  {@link ReadWriteLock}   lock guarding the repository state
+     */
+    ReadWriteLock getLock()
+    {
+        return lock;
+    }
+
+    /**
+     * @return  {@link Map}&lt;{@link NodeRef}, {@link Node}&gt;  nodes, only to be used while holding the lock
+     */
+    Map<NodeRef, Node> getNodes()
+    {
+        return nodes;
+    }
+
+    /**
+     * Gets a node, only to be used while holding the lock.
+     *
+     * @param nodeRef   node reference
+     * @return {@link Node} node
+     * @throws InvalidNodeRefException if the node does not exist
+     */
+    Node getNode(NodeRef nodeRef)
+    {
+        Node node = nodes.get(nodeRef);
+        if (node == null)
+        {
+            throw new InvalidNodeRefException("Node does not exist: " + nodeRef, nodeRef);
+        }
+        return node;
+    }
+
+    /**
+     * Creates a proxy that counts the calls made on a service and hands them to its implementation.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T createService(final Class<T> serviceInterface, final Object implementation)
+    {
+        final String serviceName = serviceInterface.getSimpleName();
+        final Map<Method, Method> implementationMethods = new ConcurrentHashMap<Method, Method>();
+
+        return (T) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { serviceInterface }, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+            {
+                if (method.getDeclaringClass() == Object.class)
+                {
+                    if ("equals".equals(method.getName()))
+                    {
+                        return proxy == args[0];
+                    }
+                    else if ("hashCode".equals(method.getName()))
+                    {
+                        return System.identityHashCode(proxy);
+                    }
+                    return "InMemory" + serviceName;
+                }
+
+                String serviceMethod = serviceName + "." + method.getName();
+                LongAdder count = callCounts.get(serviceMethod);
+                if (count == null)
+                {
+                    callCounts.putIfAbsent(serviceMethod, new LongAdder());
+                    count = callCounts.get(serviceMethod);
+                }
+                count.increment();
+
+                Method implementationMethod = implementationMethods.get(method);
+                if (implementationMethod == null)
+                {
+                    try
+                    {
+                        implementationMethod = implementation.getClass().getMethod(method.getName(), method.getParameterTypes());
+                        implementationMethod.setAccessible(true);
+                    }
+                    catch (NoSuchMethodException e)
+                    {
+                        throw new UnsupportedOperationException(serviceMethod + Arrays.toString(method.getParameterTypes()) +
+                                    " is not supported by the in-memory repository.");
+                    }
+                    implementationMethods.put(method, implementationMethod);
+                }
+
+                try
+                {
+                    return implementationMethod.invoke(implementation, args);
+                }
+                catch (InvocationTargetException e)
+                {
+                    throw e.getCause();
+                }
+            }
+        });
+    }
+
+    /**
+     * Node state, only to be accessed while holding the repository lock.
+     */
+    static class Node
+    {
+        final NodeRef nodeRef;
+        QName type;
+        final List<QName> aspects = new ArrayList<QName>(4);
+        final Map<QName, Serializable> properties = new HashMap<QName, Serializable>(8);
+        ChildAssociationRef primaryParent;
+        List<ChildAssociationRef> parentAssocs;
+        List<ChildAssociationRef> childAssocs;
+        List<AssociationRef> targetAssocs;
+        List<AssociationRef> sourceAssocs;
+
+        Node(NodeRef nodeRef, QName type)
+        {
+            this.nodeRef = nodeRef;
+            this.type = type;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.test.util.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doReturn;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.alfresco.model.ContentModel;
+import org.alfresco.module.org_alfresco_module_rm.model.RecordsManagementModel;
+import org.alfresco.module.org_alfresco_module_rm.util.ServiceBaseImpl;
+import org.alfresco.module.org_alfresco_module_rm.util.TransactionalResourceHelper;
+import org.alfresco.repo.security.authentication.AuthenticationUtil;
+import org.alfresco.service.cmr.dictionary.DictionaryService;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.repository.NodeService;
+import org.alfresco.service.cmr.repository.StoreRef;
+import org.alfresco.service.cmr.search.ResultSet;
+import org.alfresco.service.cmr.search.SearchService;
+import org.alfresco.service.cmr.security.AccessStatus;
+import org.alfresco.service.cmr.security.AuthorityService;
+import org.alfresco.service.cmr.security.AuthorityType;
+import org.alfresco.service.cmr.security.PermissionService;
+import org.alfresco.service.namespace.QName;
+import org.alfresco.service.namespace.RegexQNamePattern;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationContext;
+
+/**
+ * In-memory repository unit test.
+ *
+ * @since 2.7
+ */
+public class InMemoryRepositoryUnitTest implements RecordsManagementModel
+{
+    private static final StoreRef STORE = StoreRef.STORE_REF_WORKSPACE_SPACESSTORE;
+
+    @Mock private ApplicationContext mockedApplicationContext;
+    @Mock private DictionaryService mockedDictionaryService;
+    @Mock private TransactionalResourceHelper mockedTransactionalResourceHelper;
+
+    private InMemoryRepository repository;
+    private NodeService nodeService;
+    private NodeRef root;
+
+    @Before
+    public void before()
+    {
+        MockitoAnnotations.initMocks(this);
+
+        repository = new InMemoryRepository();
+        nodeService = repository.getNodeService();
+        root = nodeService.getRootNode(STORE);
+    }
+
+    @After
+    public void after()
+    {
+        AuthenticationUtil.clearCurrentSecurityContext();
+    }
+
+    private NodeRef createNode(NodeRef parent, String name, QName type)
+    {
+        Map<QName, Serializable> properties = new HashMap<QName, Serializable>();
+        properties.put(ContentModel.PROP_NAME, name);
+        return nodeService.createNode(parent, ContentModel.ASSOC_CONTAINS, QName.createQName(RM_URI, name), type, properties).getChildRef();
+    }
+
+    /**
+     * Given a hierarchy of nodes
+     * When it is changed through the node service
+     * Then the node state and associations are kept
+     */
+    @Test
+    public void nodeHierarchy()
+    {
+        NodeRef folder = createNode(root, "folder", TYPE_RECORD_FOLDER);
+        NodeRef record = createNode(folder, "record", ContentModel.TYPE_CONTENT);
+        NodeRef hold = createNode(root, "hold", TYPE_HOLD);
+
+        nodeService.addAspect(record, ASPECT_RECORD, Collections.<QName, Serializable>singletonMap(PROP_IDENTIFIER, "2017-1"));
+        nodeService.addChild(hold, record, ASSOC_FROZEN_RECORDS, ASSOC_FROZEN_RECORDS);
+
+        assertTrue(nodeService.hasAspect(record, ASPECT_RECORD));
+        assertEquals("2017-1", nodeService.getProperty(record, PROP_IDENTIFIER));
+        assertEquals(folder, nodeService.getPrimaryParent(record).getParentRef());
+        assertEquals(record, nodeService.getChildByName(folder, ContentModel.ASSOC_CONTAINS, "RECORD"));
+        assertEquals(2, nodeService.getParentAssocs(record).size());
+        assertEquals(1, nodeService.getChildAssocs(hold, ASSOC_FROZEN_RECORDS, RegexQNamePattern.MATCH_ALL).size());
+        assertEquals(0, nodeService.getChildAssocs(folder, ASSOC_FROZEN_RECORDS, RegexQNamePattern.MATCH_ALL).size());
+
+        // deleting the folder deletes the record and its secondary associations
+        nodeService.deleteNode(folder);
+        assertFalse(nodeService.exists(record));
+        assertTrue(nodeService.getChildAssocs(hold).isEmpty());
+    }
+
+    /**
+     * Given calls made on the services
+     * When the call counts are read
+     * Then each service method has been counted, until the counts are reset
+     */
+    @Test
+    public void callCounts()
+    {
+        NodeRef folder = createNode(root, "folder", TYPE_RECORD_FOLDER);
+        repository.resetCallCounts();
+
+        for (int i = 0; i < 10; i++)
+        {
+            nodeService.hasAspect(folder, ASPECT_FROZEN);
+        }
+        nodeService.getType(folder);
+
+        assertEquals(10, repository.getCallCount("NodeService.hasAspect"));
+        assertEquals(1, repository.getCallCount("NodeService.getType"));
+        assertEquals(0, repository.getCallCount("NodeService.createNode"));
+        assertEquals(11, repository.getTotalCallCount());
+
+        repository.resetCallCounts();
+        assertEquals(0, repository.getTotalCallCount());
+    }
+
+    /**
+     * Given nodes of different types and aspects
+     * When they are searched for
+     * Then the matching nodes are found in creation order
+     */
+    @Test
+    public void search()
+    {
+        NodeRef folder1 = createNode(root, "folder1", TYPE_RECORD_FOLDER);
+        createNode(root, "folder2", TYPE_RECORD_FOLDER);
+        NodeRef folder3 = createNode(root, "folder3", TYPE_RECORD_FOLDER);
+        nodeService.addAspect(folder1, ASPECT_FROZEN, null);
+        nodeService.addAspect(folder3, ASPECT_FROZEN, null);
+
+        ResultSet results = repository.getSearchService().query(STORE, SearchService.LANGUAGE_FTS_ALFRESCO,
+                    "TYPE:\"rma:recordFolder\" AND ASPECT:\"rma:frozen\"");
+        assertEquals(2, results.length());
+        assertEquals(folder1, results.getNodeRef(0));
+        assertEquals(folder3, results.getNodeRef(1));
+        results.close();
+    }
+
+    /**
+     * Given permissions set on a hierarchy
+     * When they are checked for a user
+     * Then the closest permission set for one of the user's authorities decides
+     */
+    @Test
+    public void permissions()
+    {
+        PermissionService permissionService = repository.getPermissionService();
+        AuthorityService authorityService = repository.getAuthorityService();
+        repository.getPermissionServiceImpl().setDefaultAccess(AccessStatus.DENIED);
+
+        String group = authorityService.createAuthority(AuthorityType.GROUP, "readers");
+        authorityService.addAuthority(group, "user");
+
+        NodeRef category = createNode(root, "category", TYPE_RECORD_CATEGORY);
+        NodeRef folder = createNode(category, "folder", TYPE_RECORD_FOLDER);
+        permissionService.setPermission(category, group, PermissionService.READ, true);
+
+        AuthenticationUtil.setFullyAuthenticatedUser("user");
+        assertEquals(AccessStatus.ALLOWED, permissionService.hasPermission(folder, PermissionService.READ));
+        assertEquals(AccessStatus.DENIED, permissionService.hasPermission(folder, PermissionService.WRITE));
+
+        permissionService.setInheritParentPermissions(folder, false);
+        assertEquals(AccessStatus.DENIED, permissionService.hasPermission(folder, PermissionService.READ));
+
+        permissionService.setPermission(folder, "user", PermissionService.ALL_PERMISSIONS, true);
+        permissionService.setPermission(folder, group, PermissionService.WRITE, false);
+        assertEquals(AccessStatus.ALLOWED, permissionService.hasPermission(folder, PermissionService.READ));
+        assertEquals(AccessStatus.DENIED, permissionService.hasPermission(folder, PermissionService.WRITE));
+    }
+
+    /**
+     * Given several threads creating nodes in the same folder
+     * When they have finished
+     * Then all the nodes have been created and counted
+     */
+    @Test
+    public void concurrentUpdates() throws Exception
+    {
+        final NodeRef folder = createNode(root, "folder", TYPE_RECORD_FOLDER);
+        repository.resetCallCounts();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try
+        {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int thread = 0; thread < 8; thread++)
+            {
+                final int offset = thread * 1000;
+                futures.add(executor.submit(new Callable<Void>()
+                {
+                    @Override
+                    public Void call()
+                    {
+                        for (int i = 0; i < 1000; i++)
+                        {
+                            NodeRef record = createNode(folder, "record" + (offset + i), ContentModel.TYPE_CONTENT);
+                            nodeService.addAspect(record, ASPECT_RECORD, null);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures)
+            {
+                future.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        assertEquals(8000, nodeService.getChildAssocs(folder).size());
+        assertEquals(8000, repository.getCallCount("NodeService.createNode"));
+        assertEquals(8000, repository.getCallCount("NodeService.addAspect"));
+    }
+
+    /**
+     * Given a service bean wired against the in-memory repository
+     * When the file plan of records deep in the file plan is looked up
+     * Then the result is found and the repository calls made can be asserted
+     */
+    @Test
+    public void serviceWiredAgainstRepository()
+    {
+        doReturn(nodeService).when(mockedApplicationContext).getBean("dbNodeService");
+        doReturn(new HashMap<Object, Object>()).when(mockedTransactionalResourceHelper).getMap("rm.servicebase.getFilePlan");
+
+        ServiceBaseImpl serviceBase = new ServiceBaseImpl();
+        serviceBase.setNodeService(nodeService);
+        serviceBase.setDictionaryService(mockedDictionaryService);
+        serviceBase.setApplicationContext(mockedApplicationContext);
+        serviceBase.setTransactionalResourceHelper(mockedTransactionalResourceHelper);
+
+        NodeRef filePlan = createNode(root, "filePlan", TYPE_FILE_PLAN);
+        NodeRef category = createNode(filePlan, "category", TYPE_RECORD_CATEGORY);
+        NodeRef folder = createNode(category, "folder", TYPE_RECORD_FOLDER);
+        List<NodeRef> records = new ArrayList<NodeRef>();
+        for (int i = 0; i < 100; i++)
+        {
+            records.add(createNode(folder, "record" + i, ContentModel.TYPE_CONTENT));
+        }
+        repository.resetCallCounts();
+
+        for (NodeRef record : records)
+        {
+            assertEquals(filePlan, serviceBase.getFilePlan(record));
+        }
+        assertNull(serviceBase.getFilePlan(root));
+
+        // the folder and above are only walked once, as their file plan is cached in the transaction
+        assertEquals(100 + 2 + 1, repository.getCallCount("NodeService.getPrimaryParent"));
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.module.org_alfresco_module_rm.test.util.repository;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+import org.alfresco.module.org_alfresco_module_rm.model.RecordsManagementCustomModel;
+import org.alfresco.module.org_alfresco_module_rm.model.RecordsManagementModel;
+import org.alfresco.module.org_alfresco_module_rm.test.util.repository.InMemoryRepository.Node;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.repository.StoreRef;
+import org.alfresco.service.cmr.search.ResultSet;
+import org.alfresco.service.cmr.search.SearchParameters;
+import org.alfresco.service.cmr.search.SearchService;
+import org.alfresco.service.namespace.DynamicNamespacePrefixResolver;
+import org.alfresco.service.namespace.NamespaceService;
+import org.alfresco.service.namespace.QName;
+
+/**
+ * In-memory search service implementation.
+ * <p>
+ * Supports conjunctions of <tt>TYPE</tt>, <tt>ASPECT</tt>, <tt>PARENT</tt> and <tt>ID</tt> clauses in the
+ * <tt>fts-alfresco</tt> and <tt>lucene</tt> languages, for example
+ * <tt>TYPE:"rma:recordFolder" AND ASPECT:"rma:frozen"</tt>.  Every query scans all the nodes in the store, types
+ * match exactly as there is no dictionary, and the results are consistent straight away.
+ *
+ * @since 2.7
+ */
+class InMemorySearchService
+{
+    /** Clause kinds */
+    private static final String TYPE = "TYPE:";
+    private static final String ASPECT = "ASPECT:";
+    private static final String PARENT = "PARENT:";
+    private static final String ID = "ID:";
+
+    /** Prefixes that can be used in queries */
+    private static final DynamicNamespacePrefixResolver NAMESPACES = new DynamicNamespacePrefixResolver();
+    static
+    {
+        NAMESPACES.registerNamespace(NamespaceService.SYSTEM_MODEL_PREFIX, NamespaceService.SYSTEM_MODEL_1_0_URI);
+        NAMESPACES.registerNamespace(NamespaceService.CONTENT_MODEL_PREFIX, NamespaceService.CONTENT_MODEL_1_0_URI);
+        NAMESPACES.registerNamespace(RecordsManagementModel.RM_PREFIX, RecordsManagementModel.RM_URI);
+        NAMESPACES.registerNamespace(RecordsManagementCustomModel.RM_CUSTOM_PREFIX, RecordsManagementCustomModel.RM_CUSTOM_URI);
+    }
+
+    private final InMemoryRepository repository;
+
+    InMemorySearchService(InMemoryRepository repository)
+    {
+        this.repository = repository;
+    }
+
+    public ResultSet query(StoreRef store, String language, String query)
+    {
+        return createResultSet(search(store, language, query, 0, Integer.MAX_VALUE));
+    }
+
+    public ResultSet query(SearchParameters searchParameters)
+    {
+        if (searchParameters.getStores().size() != 1)
+        {
+            throw new UnsupportedOperationException("The in-memory search service can only search one store.");
+        }
+
+        int maxItems = searchParameters.getMaxItems() < 0 ? Integer.MAX_VALUE : searchParameters.getMaxItems();
+        return createResultSet(search(searchParameters.getStores().get(0),
+                                      searchParameters.getLanguage(),
+                                      searchParameters.getQuery(),
+                                      searchParameters.getSkipCount(),
+                                      maxItems));
+    }
+
+    private List<NodeRef> search(StoreRef store, String language, String query, int skipCount, int maxItems)
+    {
+        if (!SearchService.LANGUAGE_FTS_ALFRESCO.equals(language) && !SearchService.LANGUAGE_LUCENE.equals(language))
+        {
+            throw new UnsupportedOperationException("The in-memory search service does not support the " + language + " language.");
+        }
+
+        List<String[]> clauses = new ArrayList<String[]>();
+        for (String clause : query.trim().split("\\s+AND\\s+"))
+        {
+            clauses.add(parseClause(clause.trim()));
+        }
+
+        List<NodeRef> result = new ArrayList<NodeRef>();
+        int skipped = 0;
+        Lock lock = repository.getLock().readLock();
+        lock.lock();
+        try
+        {
+            for (Node node : repository.getNodes().values())
+            {
+                if (result.size() >= maxItems)
+                {
+                    break;
+                }
+                if (node.nodeRef.getStoreRef().equals(store) && matches(node, clauses))
+                {
+                    if (skipped < skipCount)
+                    {
+                        skipped++;
+                    }
+                    else
+                    {
+                        result.add(node.nodeRef);
+                    }
+                }
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+        return result;
+    }
+
+    private static String[] parseClause(String clause)
+    {
+        for (String kind : new String[] { TYPE, ASPECT, PARENT, ID })
+        {
+            if (clause.startsWith(kind))
+            {
+                String value = clause.substring(kind.length());
+                if (value.startsWith("\"") && value.endsWith("\"") && value.length() > 1)
+                {
+                    value = value.substring(1, value.length() - 1);
+                }
+                return new String[] { kind, value };
+            }
+        }
+        throw new UnsupportedOperationException("The in-memory search service does not support the query clause " + clause);
+    }
+
+    private static boolean matches(Node node, List<String[]> clauses)
+    {
+        for (String[] clause : clauses)
+        {
+            String kind = clause[0];
+            String value = clause[1];
+            boolean matches;
+            if (TYPE.equals(kind))
+            {
+                matches = QName.createQName(value, NAMESPACES).equals(node.type);
+            }
+            else if (ASPECT.equals(kind))
+            {
+                matches = node.aspects.contains(QName.createQName(value, NAMESPACES));
+            }
+            else if (PARENT.equals(kind))
+            {
+                matches = false;
+                if (node.parentAssocs != null)
+                {
+                    for (int i = 0; i < node.parentAssocs.size() && !matches; i++)
+                    {
+                        matches = node.parentAssocs.get(i).getParentRef().toString().equals(value);
+                    }
+                }
+            }
+            else
+            {
+                matches = node.nodeRef.toString().equals(value);
+            }
+
+            if (!matches)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates a result set over the nodes found, only the node reference accessors are supported.
+     */
+    private static ResultSet createResultSet(final List<NodeRef> nodeRefs)
+    {
+        return (ResultSet) Proxy.newProxyInstance(InMemorySearchService.class.getClassLoader(), new Class<?>[] { ResultSet.class }, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                String name = method.getName();
+                if ("length".equals(name))
+                {
+                    return nodeRefs.size();
+                }
+                else if ("getNumberFound".equals(name))
+                {
+                    return (long) nodeRefs.size();
+                }
+                else if ("getNodeRefs".equals(name))
+                {
+                    return Collections.unmodifiableList(nodeRefs);
+                }
+                else if ("getNodeRef".equals(name))
+                {
+                    return nodeRefs.get((Integer) args[0]);
+                }
+                else if ("hasMore".equals(name))
+                {
+                    return false;
+                }
+                else if ("getStart".equals(name))
+                {
+                    return 0;
+                }
+                else if ("close".equals(name))
+                {
+                    return null;
+                }
+                else if ("hashCode".equals(name))
+                {
+                    return System.identityHashCode(proxy);
+                }
+                else if ("equals".equals(name))
+                {
+                    return proxy == args[0];
+                }
+                else if ("toString".equals(name))
+                {
+                    return "InMemoryResultSet" + nodeRefs;
+                }
+                throw new UnsupportedOperationException("ResultSet." + name + " is not supported by the in-memory repository.");
+            }
+        });
+    }
+}
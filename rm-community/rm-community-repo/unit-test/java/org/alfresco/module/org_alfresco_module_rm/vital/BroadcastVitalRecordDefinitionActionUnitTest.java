@@ -0,0 +1,75 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.module.org_alfresco_module_rm.vital;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+
+import org.alfresco.module.org_alfresco_module_rm.model.rma.aspect.VitalRecordDefinitionAspect;
+import org.alfresco.module.org_alfresco_module_rm.test.util.BaseUnitTest;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.namespace.QName;
+import org.alfresco.service.namespace.QNamePattern;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+
+/**
+ * Broadcast vital record definition action unit test
+ *
+ * @since 2.7
+ */
+public class BroadcastVitalRecordDefinitionActionUnitTest extends BaseUnitTest
+{
+    /** broadcast vital record definition action */
+    private @InjectMocks BroadcastVitalRecordDefinitionAction action;
+
+    /** mocked vital record definition aspect */
+    private @Mock VitalRecordDefinitionAspect mockedVitalRecordDefinitionAspect;
+
+    /**
+     * Given a record category with a vital record definition
+     * When the vital record definition is broadcast
+     * Then the record category is marked as having an unpublished update
+     * And its descendants are not updated by the action
+     */
+    @Test
+    public void broadcastMarksUnpublishedUpdate()
+    {
+        NodeRef recordCategory = generateNodeRef(TYPE_RECORD_CATEGORY);
+
+        action.executeImpl(null, recordCategory);
+
+        verify(mockedVitalRecordDefinitionAspect).markUnpublishedUpdate(recordCategory,
+                    Arrays.<QName>asList(PROP_VITAL_RECORD_INDICATOR, PROP_REVIEW_PERIOD));
+        verify(mockedNodeService, never()).getChildAssocs(eq(recordCategory), any(QName.class), any(QNamePattern.class));
+    }
+}
@@ -59,6 +59,7 @@ import com.google.common.collect.ImmutableMap;
 
 import org.alfresco.model.ContentModel;
 import org.alfresco.module.org_alfresco_module_rm.model.RecordsManagementModel;
+import org.alfresco.module.org_alfresco_module_rm.security.DynamicAuthoritiesMigration;
 import org.alfresco.module.org_alfresco_module_rm.security.ExtendedReaderDynamicAuthority;
 import org.alfresco.module.org_alfresco_module_rm.security.ExtendedSecurityService;
 import org.alfresco.module.org_alfresco_module_rm.security.ExtendedWriterDynamicAuthority;
@@ -152,8 +153,11 @@ public class DynamicAuthoritiesGetUnitTest extends BaseWebScriptUnitTest impleme
     {
         MockitoAnnotations.initMocks(this);
         webScript.setNodeService(mockedNodeService);
-        webScript.setPermissionService(mockedPermissionService);
-        webScript.setExtendedSecurityService(mockedExtendedSecurityService);
+        DynamicAuthoritiesMigration migration = new DynamicAuthoritiesMigration();
+        migration.setNodeService(mockedNodeService);
+        migration.setPermissionService(mockedPermissionService);
+        migration.setExtendedSecurityService(mockedExtendedSecurityService);
+        webScript.setDynamicAuthoritiesMigration(migration);
         webScript.setFileFolderService(mockedFileFolderService);
         // setup retrying transaction helper
         Answer<Object> doInTransactionAnswer = new Answer<Object>()
@@ -0,0 +1,261 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.rm.rest.api.bulkcreate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.alfresco.module.org_alfresco_module_rm.capability.RMPermissionModel;
+import org.alfresco.module.org_alfresco_module_rm.test.util.BaseUnitTest;
+import org.alfresco.repo.activities.ActivityType;
+import org.alfresco.repo.node.integrity.IntegrityException;
+import org.alfresco.repo.transaction.RetryingTransactionHelper.RetryingTransactionCallback;
+import org.alfresco.rest.framework.resource.parameters.Parameters;
+import org.alfresco.rest.framework.resource.parameters.Params;
+import org.alfresco.rm.rest.api.impl.FilePlanComponentsApiUtils;
+import org.alfresco.rm.rest.api.model.BulkCreateItem;
+import org.alfresco.service.cmr.model.FileInfo;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.security.AccessStatus;
+import org.alfresco.service.transaction.TransactionService;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Unit test for BulkCreateEntityResource.
+ *
+ * @since 2.7
+ */
+public class BulkCreateEntityResourceUnitTest extends BaseUnitTest
+{
+    @Mock
+    private FilePlanComponentsApiUtils mockedApiUtils;
+
+    @Mock
+    private TransactionService mockedTransactionService;
+
+    @InjectMocks
+    private BulkCreateEntityResource bulkCreateEntityResource;
+
+    private Params parameters;
+
+    @SuppressWarnings("unchecked")
+    @Before
+    @Override
+    public void before() throws Exception
+    {
+        super.before();
+
+        parameters = mock(Params.class);
+
+        doReturn(mockedRetryingTransactionHelper).when(mockedTransactionService).getRetryingTransactionHelper();
+        doAnswer(new Answer<Object>()
+        {
+            @SuppressWarnings("rawtypes")
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable
+            {
+                RetryingTransactionCallback callback = (RetryingTransactionCallback)invocation.getArguments()[0];
+                return callback.execute();
+            }
+        }).when(mockedRetryingTransactionHelper).doInTransaction(any(RetryingTransactionCallback.class), anyBoolean(), anyBoolean());
+
+        doReturn(filePlan).when(mockedApiUtils).lookupNode(filePlan.getId());
+        doReturn(AccessStatus.ALLOWED).when(mockedPermissionService).hasPermission(filePlan, RMPermissionModel.FILING);
+    }
+
+    /**
+     * Given a bulk request where one node breaks integrity
+     * When the nodes are created
+     * Then the other nodes of the batch are still created and only the failing node is reported as failed
+     */
+    @Test
+    public void failingNodeIsIsolated()
+    {
+        BulkCreateItem first = createItem(filePlan, "first");
+        BulkCreateItem failing = createItem(filePlan, "failing");
+        BulkCreateItem last = createItem(filePlan, "last");
+
+        NodeRef firstNodeRef = mockCreate(first);
+        doThrow(new IntegrityException("integrity", null)).when(mockedApiUtils).createRMNode(filePlan, failing, parameters);
+        NodeRef lastNodeRef = mockCreate(last);
+
+        List<BulkCreateItem> result = bulkCreateEntityResource.create(asList(first, failing, last), parameters);
+
+        assertEquals(3, result.size());
+        assertEquals(Integer.valueOf(201), result.get(0).getStatusCode());
+        assertEquals(firstNodeRef, result.get(0).getNodeRef());
+        assertEquals(Integer.valueOf(422), result.get(1).getStatusCode());
+        assertNotNull(result.get(1).getError());
+        assertNull(result.get(1).getNodeRef());
+        assertEquals(Integer.valueOf(201), result.get(2).getStatusCode());
+        assertEquals(lastNodeRef, result.get(2).getNodeRef());
+    }
+
+    /**
+     * Given a bulk request with several nodes under a parent that does not exist
+     * When the nodes are created
+     * Then the parent is only resolved once and all its nodes are reported as not found
+     */
+    @Test
+    public void missingParentIsResolvedOnce()
+    {
+        NodeRef missing = generateNodeRef(TYPE_RECORD_FOLDER, false);
+        doReturn(missing).when(mockedApiUtils).lookupNode(missing.getId());
+
+        BulkCreateItem one = createItem(missing, "one");
+        BulkCreateItem two = createItem(missing, "two");
+
+        List<BulkCreateItem> result = bulkCreateEntityResource.create(asList(one, two), parameters);
+
+        assertEquals(Integer.valueOf(404), result.get(0).getStatusCode());
+        assertEquals(Integer.valueOf(404), result.get(1).getStatusCode());
+        verify(mockedApiUtils, times(1)).lookupNode(missing.getId());
+        verify(mockedApiUtils, times(0)).createRMNode(eq(missing), any(BulkCreateItem.class), any(Parameters.class));
+    }
+
+    /**
+     * Given a bulk request whose batch has been committed
+     * When the request transaction fails afterwards and the request is retried
+     * Then the committed nodes are reported again without being created a second time
+     * And their activities are not posted again
+     */
+    @Test
+    public void retriedRequestDoesNotRecreateCommittedNodes()
+    {
+        BulkCreateItem first = createItem(filePlan, "first");
+        BulkCreateItem second = createItem(filePlan, "second");
+        List<BulkCreateItem> nodeInfos = asList(first, second);
+
+        NodeRef firstNodeRef = mockCreate(first);
+        NodeRef secondNodeRef = mockCreate(second);
+
+        // the REST framework retries the request with the same items
+        bulkCreateEntityResource.create(nodeInfos, parameters);
+        List<BulkCreateItem> result = bulkCreateEntityResource.create(nodeInfos, parameters);
+
+        assertEquals(2, result.size());
+        assertEquals(Integer.valueOf(201), result.get(0).getStatusCode());
+        assertEquals(firstNodeRef, result.get(0).getNodeRef());
+        assertEquals(Integer.valueOf(201), result.get(1).getStatusCode());
+        assertEquals(secondNodeRef, result.get(1).getNodeRef());
+        verify(mockedApiUtils, times(1)).createRMNode(filePlan, first, parameters);
+        verify(mockedApiUtils, times(1)).createRMNode(filePlan, second, parameters);
+        verify(mockedApiUtils, times(2)).postActivity(any(FileInfo.class), eq(filePlan), eq(ActivityType.FILE_ADDED));
+    }
+
+    /**
+     * Given a bulk request where a node fails with an unexpected error
+     * When the nodes are created
+     * Then the client gets a fixed message rather than the exception message
+     */
+    @Test
+    public void failureMessageIsNotExposed()
+    {
+        BulkCreateItem item = createItem(filePlan, "item");
+        doThrow(new IllegalStateException("internal detail")).when(mockedApiUtils).createRMNode(filePlan, item, parameters);
+
+        List<BulkCreateItem> result = bulkCreateEntityResource.create(asList(item), parameters);
+
+        assertEquals(Integer.valueOf(500), result.get(0).getStatusCode());
+        assertNotNull(result.get(0).getError());
+        assertFalse(result.get(0).getError().contains("internal detail"));
+    }
+
+    /**
+     * Given a bulk request whose committed node has been deleted
+     * When the request is retried
+     * Then the node is created again
+     */
+    @Test
+    public void retriedRequestRecreatesDeletedNode()
+    {
+        BulkCreateItem item = createItem(filePlan, "item");
+        List<BulkCreateItem> nodeInfos = asList(item);
+
+        NodeRef deletedNodeRef = generateNodeRef(TYPE_RECORD_CATEGORY, false);
+        item.setCreatedNodeRef(deletedNodeRef);
+        NodeRef nodeRef = mockCreate(item);
+
+        List<BulkCreateItem> result = bulkCreateEntityResource.create(nodeInfos, parameters);
+
+        assertEquals(Integer.valueOf(201), result.get(0).getStatusCode());
+        assertEquals(nodeRef, result.get(0).getNodeRef());
+        assertEquals(nodeRef, result.get(0).getCreatedNodeRef());
+        verify(mockedApiUtils, times(1)).createRMNode(filePlan, item, parameters);
+    }
+
+    private BulkCreateItem createItem(NodeRef parent, String name)
+    {
+        BulkCreateItem item = new BulkCreateItem();
+        item.setParentId(parent);
+        item.setName(name);
+        item.setNodeType("rma:recordCategory");
+        return item;
+    }
+
+    private NodeRef mockCreate(BulkCreateItem item)
+    {
+        NodeRef nodeRef = generateNodeRef(TYPE_RECORD_CATEGORY);
+        doReturn(nodeRef).when(mockedApiUtils).createRMNode(filePlan, item, parameters);
+        makePrimaryParentOf(nodeRef, filePlan);
+        FileInfo info = mock(FileInfo.class);
+        doReturn(item.getName()).when(info).getName();
+        doReturn(info).when(mockedFileFolderService).getFileInfo(nodeRef);
+        return nodeRef;
+    }
+
+    private List<BulkCreateItem> asList(BulkCreateItem... items)
+    {
+        List<BulkCreateItem> list = new ArrayList<>();
+        for (BulkCreateItem item : items)
+        {
+            list.add(item);
+        }
+        return list;
+    }
+}
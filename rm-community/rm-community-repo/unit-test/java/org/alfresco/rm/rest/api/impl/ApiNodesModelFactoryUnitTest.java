@@ -0,0 +1,310 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.rm.rest.api.impl;
+
+import static java.util.Arrays.asList;
+import static org.alfresco.module.org_alfresco_module_rm.test.util.AlfMock.generateQName;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anySetOf;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.alfresco.model.ContentModel;
+import org.alfresco.module.org_alfresco_module_rm.test.util.BaseUnitTest;
+import org.alfresco.repo.domain.node.NodeDAO;
+import org.alfresco.rest.api.Nodes;
+import org.alfresco.rest.api.model.PathInfo;
+import org.alfresco.rest.framework.jacksonextensions.BeanPropertiesFilter;
+import org.alfresco.rest.framework.resource.parameters.Parameters;
+import org.alfresco.rm.rest.api.model.RMNode;
+import org.alfresco.rm.rest.api.model.Record;
+import org.alfresco.service.cmr.model.FileInfo;
+import org.alfresco.service.cmr.repository.ChildAssociationRef;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.namespace.NamespaceService;
+import org.alfresco.service.namespace.QName;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+
+/**
+ * API nodes model factory unit test
+ *
+ * @since 2.7
+ */
+public class ApiNodesModelFactoryUnitTest extends BaseUnitTest
+{
+    /** the optional fields of a record that are only computed when included */
+    private static final List<String> OPTIONAL_FIELDS = asList(RMNode.PARAM_ALLOWABLE_OPERATIONS,
+                                                               RMNode.PARAM_PATH,
+                                                               RMNode.PARAM_ASPECT_NAMES,
+                                                               RMNode.PARAM_INCLUDE_ASSOCIATION,
+                                                               Record.PARAM_IS_COMPLETED);
+
+    /** API nodes model factory */
+    private @InjectMocks ApiNodesModelFactory nodesModelFactory;
+
+    /** mocked services */
+    private @Mock Nodes mockedNodes;
+    private @Mock FilePlanComponentsApiUtils mockedApiUtils;
+    private @Mock NodeDAO mockedNodeDAO;
+
+    /** the record being mapped */
+    private FileInfo recordInfo;
+
+    /** values of the optional fields */
+    private List<String> allowableOperations;
+    private PathInfo pathInfo;
+    private List<String> aspectNames;
+
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.test.util.BaseUnitTest#before()
+     */
+    @Before
+    @Override
+    public void before() throws Exception
+    {
+        super.before();
+
+        doReturn(Collections.singleton(NamespaceService.CONTENT_MODEL_PREFIX)).when(mockedNamespaceService).getPrefixes(NamespaceService.CONTENT_MODEL_1_0_URI);
+
+        recordInfo = generateFileInfo(record);
+
+        allowableOperations = asList(Nodes.OP_UPDATE);
+        doReturn(allowableOperations).when(mockedApiUtils).getAllowableOperations(record, ContentModel.TYPE_CONTENT);
+
+        pathInfo = mock(PathInfo.class);
+        doReturn(pathInfo).when(mockedApiUtils).lookupPathInfo(record);
+
+        aspectNames = asList("rma:record");
+        doReturn(new HashSet<QName>(asList(ASPECT_RECORD))).when(mockedNodeService).getAspects(record);
+        doReturn(aspectNames).when(mockedNodes).mapFromNodeAspects(anySetOf(QName.class), anyListOf(String.class), anyListOf(QName.class));
+
+        doReturn(true).when(mockedNodeService).hasAspect(record, ASPECT_DECLARED_RECORD);
+        doReturn(new ChildAssociationRef(ContentModel.ASSOC_CONTAINS, recordFolder, generateQName(), record, true, 1)).when(mockedNodeService).getPrimaryParent(record);
+    }
+
+    /**
+     * Given a request that does not include any optional fields
+     * When a record is mapped
+     * Then none of the optional fields are computed
+     * And none are returned
+     */
+    @Test
+    public void omittedFieldsNotComputed()
+    {
+        Record result = nodesModelFactory.createRecord(recordInfo, generateParameters(null, null), null, true);
+
+        verifyNotComputed();
+        assertEquals(record, result.getNodeRef());
+        assertNull(result.getAllowableOperations());
+        assertNull(result.getPath());
+        assertNull(result.getAspectNames());
+        assertNull(result.getAssociation());
+        assertNull(result.getIsCompleted());
+    }
+
+    /**
+     * Given a request that includes all the optional fields
+     * When a record is mapped
+     * Then all the optional fields are computed
+     * And all are returned
+     */
+    @Test
+    public void includedFieldsComputed()
+    {
+        Record result = nodesModelFactory.createRecord(recordInfo, generateParameters(OPTIONAL_FIELDS, null), null, true);
+
+        assertEquals(allowableOperations, result.getAllowableOperations());
+        assertEquals(pathInfo, result.getPath());
+        assertEquals(aspectNames, result.getAspectNames());
+        assertNotNull(result.getAssociation());
+        assertTrue(result.getIsCompleted());
+    }
+
+    /**
+     * Given a request that includes all the optional fields
+     * And only asks for some other fields
+     * When a record is mapped
+     * Then none of the optional fields are computed
+     */
+    @Test
+    public void includedFieldsFilteredOutNotComputed()
+    {
+        Record result = nodesModelFactory.createRecord(recordInfo, generateParameters(OPTIONAL_FIELDS, asList(RMNode.PARAM_ID)), null, true);
+
+        verifyNotComputed();
+        assertEquals(record, result.getNodeRef());
+        assertNull(result.getAllowableOperations());
+        assertNull(result.getPath());
+    }
+
+    /**
+     * Given a request that includes one optional field
+     * When a record is mapped
+     * Then only that field is computed
+     */
+    @Test
+    public void onlyIncludedFieldComputed()
+    {
+        Record result = nodesModelFactory.createRecord(recordInfo, generateParameters(asList(RMNode.PARAM_PATH), null), null, true);
+
+        assertEquals(pathInfo, result.getPath());
+        assertNull(result.getAllowableOperations());
+        verify(mockedApiUtils, never()).getAllowableOperations(any(NodeRef.class), any(QName.class));
+        verify(mockedNodeService, never()).hasAspect(record, ASPECT_DECLARED_RECORD);
+        verify(mockedNodeService, never()).getPrimaryParent(record);
+    }
+
+    /**
+     * Given a page of nodes
+     * And a request that includes a field which reads the nodes
+     * When the page is prefetched
+     * Then the nodes are cached in one call
+     */
+    @Test
+    public void prefetchCachesPage()
+    {
+        List<FileInfo> page = generatePage(3);
+
+        nodesModelFactory.prefetchNodes(page, generateParameters(asList(RMNode.PARAM_PATH), null));
+
+        verify(mockedNodeDAO).cacheNodes(asList(page.get(0).getNodeRef(), page.get(1).getNodeRef(), page.get(2).getNodeRef()));
+    }
+
+    /**
+     * Given a page of nodes
+     * And a request that only needs the file info of the nodes
+     * When the page is prefetched
+     * Then nothing is cached
+     */
+    @Test
+    public void prefetchSkippedWhenNotNeeded()
+    {
+        List<FileInfo> page = generatePage(3);
+
+        nodesModelFactory.prefetchNodes(page, generateParameters(null, null));
+        nodesModelFactory.prefetchNodes(page, generateParameters(asList(RMNode.PARAM_PROPERTIES), null));
+        nodesModelFactory.prefetchNodes(page, generateParameters(asList(RMNode.PARAM_PATH), asList(RMNode.PARAM_ID)));
+        nodesModelFactory.prefetchNodes(generatePage(1), generateParameters(asList(RMNode.PARAM_PATH), null));
+
+        verify(mockedNodeDAO, never()).cacheNodes(anyListOf(NodeRef.class));
+    }
+
+    /**
+     * Verifies that none of the optional fields of the record were computed.
+     */
+    private void verifyNotComputed()
+    {
+        verify(mockedApiUtils, never()).getAllowableOperations(any(NodeRef.class), any(QName.class));
+        verify(mockedApiUtils, never()).lookupPathInfo(any(NodeRef.class));
+        verify(mockedNodeService, never()).getAspects(record);
+        verify(mockedNodeService, never()).hasAspect(record, ASPECT_DECLARED_RECORD);
+        verify(mockedNodeService, never()).getPrimaryParent(record);
+    }
+
+    /**
+     * Helper method to generate request parameters.
+     *
+     * @param include   the included optional fields, null for none
+     * @param fields    the requested fields, null for the id and the included fields
+     * @return {@link Parameters} mocked parameters
+     */
+    private Parameters generateParameters(List<String> include, List<String> fields)
+    {
+        Parameters parameters = mock(Parameters.class);
+        doReturn(include == null ? Collections.<String>emptyList() : include).when(parameters).getInclude();
+
+        // unless given, only the id is asked for from the basic fields so that the optional fields are all that vary
+        Set<String> allowed = new HashSet<String>();
+        if (fields != null)
+        {
+            allowed.addAll(fields);
+        }
+        else
+        {
+            allowed.add(RMNode.PARAM_ID);
+            if (include != null)
+            {
+                allowed.addAll(include);
+            }
+        }
+        BeanPropertiesFilter filter = new BeanPropertiesFilter(allowed);
+        doReturn(filter).when(parameters).getFilter();
+        return parameters;
+    }
+
+    /**
+     * Helper method to generate a page of records.
+     *
+     * @param size  number of records
+     * @return {@link List}&lt;{@link FileInfo}&gt; page
+     */
+    private List<FileInfo> generatePage(int size)
+    {
+        List<FileInfo> page = new ArrayList<FileInfo>(size);
+        for (int i = 0; i < size; i++)
+        {
+            page.add(generateFileInfo(generateRecord()));
+        }
+        return page;
+    }
+
+    /**
+     * Helper method to generate the file info of a record.
+     *
+     * @param nodeRef   record
+     * @return {@link FileInfo} mocked file info
+     */
+    private FileInfo generateFileInfo(NodeRef nodeRef)
+    {
+        Map<QName, Serializable> properties = new HashMap<QName, Serializable>();
+        FileInfo info = mock(FileInfo.class);
+        doReturn(nodeRef).when(info).getNodeRef();
+        doReturn(ContentModel.TYPE_CONTENT).when(info).getType();
+        doReturn(properties).when(info).getProperties();
+        return info;
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.rm.rest.api.impl;
+
+import static java.util.Arrays.asList;
+import static org.alfresco.module.org_alfresco_module_rm.test.util.AlfMock.generateQName;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.alfresco.model.ContentModel;
+import org.alfresco.module.org_alfresco_module_rm.capability.Capability;
+import org.alfresco.module.org_alfresco_module_rm.capability.CapabilityService;
+import org.alfresco.module.org_alfresco_module_rm.test.util.BaseUnitTest;
+import org.alfresco.rest.api.Nodes;
+import org.alfresco.service.cmr.repository.ChildAssociationRef;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.namespace.QName;
+import org.alfresco.service.namespace.RegexQNamePattern;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import net.sf.acegisecurity.vote.AccessDecisionVoter;
+
+/**
+ * File plan components API utils unit test
+ *
+ * @since 2.7
+ */
+public class FilePlanComponentsApiUtilsUnitTest extends BaseUnitTest
+{
+    /** file plan components API utils */
+    private @InjectMocks FilePlanComponentsApiUtils apiUtils;
+
+    /** mocked capability service */
+    private @Mock CapabilityService mockedCapabilityService;
+
+    /** mocked capability, used for all the capabilities the allowable operations are evaluated from */
+    private @Mock Capability mockedCapability;
+
+    /** records that are identical apart from what each test changes */
+    private NodeRef recordOne;
+    private NodeRef recordTwo;
+
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.test.util.BaseUnitTest#before()
+     */
+    @Before
+    @Override
+    public void before() throws Exception
+    {
+        super.before();
+
+        // the allowable operations are cached in read only transactions
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        doReturn(mockedCapability).when(mockedCapabilityService).getCapability(any(String.class));
+
+        NodeRef parent = generateRecordFolder();
+        recordOne = generateRecord(parent, 1L);
+        recordTwo = generateRecord(parent, 1L);
+        doReturn(AccessDecisionVoter.ACCESS_GRANTED).when(mockedCapability).evaluate(recordOne);
+        doReturn(AccessDecisionVoter.ACCESS_DENIED).when(mockedCapability).evaluate(recordTwo);
+    }
+
+    /**
+     * Clear the transaction resources
+     */
+    @After
+    public void after()
+    {
+        for (Object key : new ArrayList<Object>(TransactionSynchronizationManager.getResourceMap().keySet()))
+        {
+            TransactionSynchronizationManager.unbindResource(key);
+        }
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+        {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * Given two records with the same allowable operations group key
+     * When I get the allowable operations of both in a read only transaction
+     * Then the operations are evaluated for the first record only
+     * And the second record is given the same operations
+     */
+    @Test
+    public void sameKeyEvaluatedOnce()
+    {
+        assertEquals(asList(Nodes.OP_DELETE, Nodes.OP_UPDATE), apiUtils.getAllowableOperations(recordOne, ContentModel.TYPE_CONTENT));
+        assertEquals(asList(Nodes.OP_DELETE, Nodes.OP_UPDATE), apiUtils.getAllowableOperations(recordTwo, ContentModel.TYPE_CONTENT));
+
+        verify(mockedCapability, never()).evaluate(recordTwo);
+    }
+
+    /**
+     * Given two records with different ACLs
+     * When I get their allowable operations in a read only transaction
+     * Then each record is evaluated on its own
+     */
+    @Test
+    public void differentAclsEvaluatedSeparately()
+    {
+        doReturn(2L).when(mockedNodeService).getNodeAclId(recordTwo);
+
+        checkEvaluatedSeparately(ContentModel.TYPE_CONTENT, ContentModel.TYPE_CONTENT);
+    }
+
+    /**
+     * Given two records with different aspects
+     * When I get their allowable operations in a read only transaction
+     * Then each record is evaluated on its own
+     */
+    @Test
+    public void differentAspectsEvaluatedSeparately()
+    {
+        doReturn(new HashSet<QName>(asList(ASPECT_RECORD, ASPECT_FROZEN))).when(mockedNodeService).getAspects(recordTwo);
+
+        checkEvaluatedSeparately(ContentModel.TYPE_CONTENT, ContentModel.TYPE_CONTENT);
+    }
+
+    /**
+     * Given two records filed in different folders
+     * When I get their allowable operations in a read only transaction
+     * Then each record is evaluated on its own
+     */
+    @Test
+    public void differentParentsEvaluatedSeparately()
+    {
+        setParents(recordTwo, generateRecordFolder());
+
+        checkEvaluatedSeparately(ContentModel.TYPE_CONTENT, ContentModel.TYPE_CONTENT);
+    }
+
+    /**
+     * Given two nodes of different types
+     * When I get their allowable operations in a read only transaction
+     * Then each node is evaluated on its own
+     */
+    @Test
+    public void differentTypesEvaluatedSeparately()
+    {
+        checkEvaluatedSeparately(ContentModel.TYPE_CONTENT, TYPE_NON_ELECTRONIC_DOCUMENT);
+    }
+
+    /**
+     * Given two records with different extended security readers
+     * When I get their allowable operations in a read only transaction
+     * Then each record is evaluated on its own
+     */
+    @Test
+    @SuppressWarnings("deprecation")
+    public void differentReadersEvaluatedSeparately()
+    {
+        doReturn(singletonProperty(PROP_READERS, authorities("GROUP_one"))).when(mockedNodeService).getProperties(recordTwo);
+
+        checkEvaluatedSeparately(ContentModel.TYPE_CONTENT, ContentModel.TYPE_CONTENT);
+    }
+
+    /**
+     * Given two records with different extended security writers
+     * When I get their allowable operations in a read only transaction
+     * Then each record is evaluated on its own
+     */
+    @Test
+    @SuppressWarnings("deprecation")
+    public void differentWritersEvaluatedSeparately()
+    {
+        doReturn(singletonProperty(PROP_WRITERS, authorities("GROUP_one"))).when(mockedNodeService).getProperties(recordTwo);
+
+        checkEvaluatedSeparately(ContentModel.TYPE_CONTENT, ContentModel.TYPE_CONTENT);
+    }
+
+    /**
+     * Given two records with the same allowable operations group key
+     * When I get their allowable operations in a read write transaction
+     * Then each record is evaluated on its own
+     * And nothing is cached in the transaction
+     */
+    @Test
+    public void notCachedInReadWriteTransaction()
+    {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+
+        checkEvaluatedSeparately(ContentModel.TYPE_CONTENT, ContentModel.TYPE_CONTENT);
+        assertTrue(TransactionSynchronizationManager.getResourceMap().isEmpty());
+    }
+
+    /**
+     * Given two records with the same allowable operations group key
+     * When I get their allowable operations outside of a transaction
+     * Then each record is evaluated on its own
+     */
+    @Test
+    public void notCachedOutsideTransaction()
+    {
+        TransactionSynchronizationManager.clearSynchronization();
+
+        checkEvaluatedSeparately(ContentModel.TYPE_CONTENT, ContentModel.TYPE_CONTENT);
+        assertTrue(TransactionSynchronizationManager.getResourceMap().isEmpty());
+    }
+
+    /**
+     * Helper method to check that the allowable operations of the two records are evaluated
+     * separately.  The first record is allowed everything and the second nothing, so if they
+     * shared a key the second would be given the operations of the first.
+     *
+     * @param typeOne   type of the first record
+     * @param typeTwo   type of the second record
+     */
+    private void checkEvaluatedSeparately(QName typeOne, QName typeTwo)
+    {
+        assertEquals(asList(Nodes.OP_DELETE, Nodes.OP_UPDATE), apiUtils.getAllowableOperations(recordOne, typeOne));
+        assertEquals(Collections.emptyList(), apiUtils.getAllowableOperations(recordTwo, typeTwo));
+    }
+
+    /**
+     * Helper method to generate a record filed in a folder.
+     *
+     * @param parent    folder the record is filed in
+     * @param aclId     ACL id of the record
+     * @return {@link NodeRef} record
+     */
+    private NodeRef generateRecord(NodeRef parent, Long aclId)
+    {
+        NodeRef record = generateRecord();
+        doReturn(aclId).when(mockedNodeService).getNodeAclId(record);
+        doReturn(new HashSet<QName>(asList(ASPECT_RECORD))).when(mockedNodeService).getAspects(record);
+        doReturn(new HashMap<QName, Serializable>()).when(mockedNodeService).getProperties(record);
+        setParents(record, parent);
+        return record;
+    }
+
+    /**
+     * Helper method to set the folders a record is filed in.
+     *
+     * @param record    record
+     * @param parent    folder the record is filed in
+     */
+    private void setParents(NodeRef record, NodeRef parent)
+    {
+        List<ChildAssociationRef> parentAssocs = Collections.singletonList(new ChildAssociationRef(ContentModel.ASSOC_CONTAINS, parent, generateQName(), record));
+        doReturn(parentAssocs).when(mockedNodeService).getParentAssocs(record, ContentModel.ASSOC_CONTAINS, RegexQNamePattern.MATCH_ALL);
+    }
+
+    /**
+     * Helper method to build an extended security authority map.
+     *
+     * @param authority authority
+     * @return {@link HashMap}&lt;{@link String}, {@link Integer}&gt; authority reference counts
+     */
+    private HashMap<String, Integer> authorities(String authority)
+    {
+        HashMap<String, Integer> authorities = new HashMap<String, Integer>(1);
+        authorities.put(authority, 1);
+        return authorities;
+    }
+
+    /**
+     * Helper method to create a property map with a single value.
+     *
+     * @param property  property qualified name
+     * @param value     property value
+     * @return {@link Map}&lt;{@link QName}, {@link Serializable}&gt; properties
+     */
+    private Map<QName, Serializable> singletonProperty(QName property, Serializable value)
+    {
+        Map<QName, Serializable> properties = new HashMap<QName, Serializable>(1);
+        properties.put(property, value);
+        return properties;
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.rm.rest.api.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.alfresco.model.ContentModel;
+import org.alfresco.module.org_alfresco_module_rm.test.util.BaseUnitTest;
+import org.alfresco.repo.cache.DefaultSimpleCache;
+import org.alfresco.rest.api.model.PathInfo;
+import org.alfresco.service.cmr.repository.ChildAssociationRef;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.repository.Path;
+import org.alfresco.service.cmr.security.AccessStatus;
+import org.alfresco.service.cmr.security.PermissionService;
+import org.alfresco.service.namespace.QName;
+import org.alfresco.util.Pair;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Unit test for RMNodePathResolver.
+ *
+ * @since 2.7
+ */
+public class RMNodePathResolverUnitTest extends BaseUnitTest
+{
+    @InjectMocks
+    private RMNodePathResolver pathResolver;
+
+    private NodeRef root;
+    private NodeRef category;
+    private NodeRef folder;
+
+    @Before
+    @Override
+    public void before() throws Exception
+    {
+        super.before();
+
+        pathResolver.setContainerPathCache(new DefaultSimpleCache<NodeRef, List<Pair<NodeRef, String>>>());
+
+        // transaction resources are plain maps for the duration of a test
+        final Map<Object, Map<Object, Object>> resources = new HashMap<>();
+        doAnswer(new Answer<Map<Object, Object>>()
+        {
+            @Override
+            public Map<Object, Object> answer(InvocationOnMock invocation) throws Throwable
+            {
+                Object key = invocation.getArguments()[0];
+                if (!resources.containsKey(key))
+                {
+                    resources.put(key, new HashMap<>());
+                }
+                return resources.get(key);
+            }
+        }).when(mockedTransactionalResourceHelper).getMap(any());
+
+        // root > category > folder
+        root = generateNodeRef();
+        category = generateNodeRef(TYPE_RECORD_CATEGORY);
+        folder = generateNodeRef(TYPE_RECORD_FOLDER);
+        doReturn("category").when(mockedNodeService).getProperty(category, ContentModel.PROP_NAME);
+        doReturn("folder").when(mockedNodeService).getProperty(folder, ContentModel.PROP_NAME);
+
+        Path path = new Path();
+        path.append(new Path.ChildAssocElement(new ChildAssociationRef(null, null, null, root)));
+        path.append(new Path.ChildAssocElement(new ChildAssociationRef(ContentModel.ASSOC_CHILDREN, root, ContentModel.ASSOC_CHILDREN, category)));
+        path.append(new Path.ChildAssocElement(new ChildAssociationRef(ContentModel.ASSOC_CONTAINS, category, ContentModel.ASSOC_CONTAINS, folder)));
+        doReturn(path).when(mockedNodeService).getPath(folder);
+
+        doReturn(AccessStatus.ALLOWED).when(mockedPermissionService).hasPermission(category, PermissionService.READ);
+        doReturn(AccessStatus.ALLOWED).when(mockedPermissionService).hasPermission(folder, PermissionService.READ);
+    }
+
+    /**
+     * Given two records in the same record folder
+     * When their paths are looked up
+     * Then the folder path is resolved and checked only once
+     */
+    @Test
+    public void sharedAncestryIsResolvedOnce()
+    {
+        NodeRef record1 = generateChild(folder);
+        NodeRef record2 = generateChild(folder);
+
+        PathInfo path1 = pathResolver.lookupPathInfo(record1);
+        PathInfo path2 = pathResolver.lookupPathInfo(record2);
+
+        assertEquals("/category/folder", path1.getName());
+        assertTrue(path1.getIsComplete());
+        assertEquals(2, path1.getElements().size());
+        assertEquals(path1.getName(), path2.getName());
+
+        verify(mockedNodeService, times(1)).getPath(folder);
+        verify(mockedPermissionService, times(1)).hasPermission(category, PermissionService.READ);
+        verify(mockedPermissionService, times(1)).hasPermission(folder, PermissionService.READ);
+    }
+
+    /**
+     * Given a record in a folder whose category can not be read
+     * When its path is looked up
+     * Then the path stops below the category and is reported as incomplete
+     */
+    @Test
+    public void pathStopsAtUnreadableAncestor()
+    {
+        doReturn(AccessStatus.DENIED).when(mockedPermissionService).hasPermission(category, PermissionService.READ);
+
+        PathInfo path = pathResolver.lookupPathInfo(generateChild(folder));
+
+        assertEquals("/folder", path.getName());
+        assertFalse(path.getIsComplete());
+    }
+
+    /**
+     * Given a cached container path
+     * When a container is renamed
+     * Then the path is resolved again
+     */
+    @Test
+    public void renameInvalidatesCachedPaths()
+    {
+        pathResolver.lookupPathInfo(generateChild(folder));
+
+        Map<QName, Serializable> before = new HashMap<>();
+        before.put(ContentModel.PROP_NAME, "category");
+        Map<QName, Serializable> after = new HashMap<>();
+        after.put(ContentModel.PROP_NAME, "renamed");
+        pathResolver.onUpdateProperties(category, before, after);
+
+        pathResolver.lookupPathInfo(generateChild(folder));
+
+        verify(mockedNodeService, times(2)).getPath(folder);
+    }
+
+    /**
+     * Given two records in the same record folder
+     * When their display paths are built
+     * Then the folder path is resolved and checked only once
+     */
+    @Test
+    public void displayPathSharesAncestry()
+    {
+        assertEquals("/category/folder", pathResolver.getDisplayPath(generateChild(folder)));
+        assertEquals("/category/folder", pathResolver.getDisplayPath(generateChild(folder)));
+
+        verify(mockedNodeService, times(1)).getPath(folder);
+        verify(mockedPermissionService, times(1)).hasPermission(category, PermissionService.READ);
+    }
+
+    /**
+     * Given a record in a folder whose category can not be read
+     * When its display path is built
+     * Then the category name is hidden
+     */
+    @Test
+    public void displayPathHidesUnreadableAncestor()
+    {
+        doReturn(AccessStatus.DENIED).when(mockedPermissionService).hasPermission(category, PermissionService.READ);
+
+        assertEquals("/.../folder", pathResolver.getDisplayPath(generateChild(folder)));
+    }
+
+    /**
+     * Helper to generate a record whose primary parent is the given folder.
+     */
+    private NodeRef generateChild(NodeRef parent)
+    {
+        NodeRef child = generateNodeRef(TYPE_CONTENT);
+        doReturn(new ChildAssociationRef(ContentModel.ASSOC_CONTAINS, parent, ContentModel.ASSOC_CONTAINS, child))
+            .when(mockedNodeService).getPrimaryParent(child);
+        return child;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * #%L
+ * Alfresco Records Management Module
+ * %%
+ * Copyright (C) 2005 - 2017 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * -
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ * -
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * -
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * -
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.rm.rest.api.recordfolders;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.alfresco.module.org_alfresco_module_rm.test.util.BaseUnitTest;
+import org.alfresco.query.PagingRequest;
+import org.alfresco.query.PagingResults;
+import org.alfresco.rest.api.model.UserInfo;
+import org.alfresco.rest.framework.resource.parameters.CollectionWithPagingInfo;
+import org.alfresco.rest.framework.resource.parameters.Paging;
+import org.alfresco.rest.framework.resource.parameters.Parameters;
+import org.alfresco.rm.rest.api.impl.ApiNodesModelFactory;
+import org.alfresco.rm.rest.api.impl.FilePlanComponentsApiUtils;
+import org.alfresco.rm.rest.api.impl.SearchTypesFactory;
+import org.alfresco.rm.rest.api.model.Record;
+import org.alfresco.service.cmr.model.FileInfo;
+import org.alfresco.util.Pair;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+
+/**
+ * Record folder children relation unit test
+ *
+ * @since 2.7
+ */
+public class RecordFolderChildrenRelationUnitTest extends BaseUnitTest
+{
+    private static final String RECORD_FOLDER_ID = "recordFolderId";
+
+    /** record folder children relation */
+    private @InjectMocks RecordFolderChildrenRelation recordFolderChildrenRelation;
+
+    /** mocked API helpers */
+    private @Mock FilePlanComponentsApiUtils mockedApiUtils;
+    private @Mock SearchTypesFactory mockedSearchTypesFactory;
+    private @Mock ApiNodesModelFactory mockedNodesModelFactory;
+
+    /** mocked request parameters */
+    private Parameters parameters;
+
+    /** the page of children */
+    private List<FileInfo> page;
+
+    /**
+     * @see org.alfresco.module.org_alfresco_module_rm.test.util.BaseUnitTest#before()
+     */
+    @SuppressWarnings("unchecked")
+    @Before
+    @Override
+    public void before() throws Exception
+    {
+        super.before();
+
+        parameters = mock(Parameters.class);
+        doReturn(Paging.DEFAULT).when(parameters).getPaging();
+
+        page = new ArrayList<FileInfo>();
+        for (int i = 0; i < 3; i++)
+        {
+            page.add(mock(FileInfo.class));
+        }
+        PagingResults<FileInfo> pagingResults = mock(PagingResults.class);
+        doReturn(page).when(pagingResults).getPage();
+        doReturn(new Pair<Integer, Integer>(page.size(), page.size())).when(pagingResults).getTotalResultCount();
+
+        doReturn(recordFolder).when(mockedApiUtils).lookupAndValidateNodeType(RECORD_FOLDER_ID, TYPE_RECORD_FOLDER);
+        doReturn(pagingResults).when(mockedFileFolderService).list(eq(recordFolder), any(Set.class), any(Set.class), any(Set.class),
+                                                                   any(List.class), any(List.class), any(PagingRequest.class));
+        doReturn(new Record()).when(mockedNodesModelFactory).createRecord(any(FileInfo.class), eq(parameters), anyMapOf(String.class, UserInfo.class), eq(true));
+    }
+
+    /**
+     * Given a record folder with a page of records
+     * When the records are listed and read
+     * Then the page is prefetched once
+     * And each record is mapped once
+     */
+    @Test
+    public void readAllPrefetchesPageOnce()
+    {
+        CollectionWithPagingInfo<Record> result = recordFolderChildrenRelation.readAll(RECORD_FOLDER_ID, parameters);
+
+        // the records are mapped as the collection is read
+        List<Record> records = new ArrayList<Record>(result.getCollection());
+        assertEquals(page.size(), records.size());
+
+        verify(mockedNodesModelFactory, times(1)).prefetchNodes(page, parameters);
+        for (FileInfo info : page)
+        {
+            verify(mockedNodesModelFactory, times(1)).createRecord(eq(info), eq(parameters), anyMapOf(String.class, UserInfo.class), eq(true));
+        }
+    }
+}